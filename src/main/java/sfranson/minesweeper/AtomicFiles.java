@@ -0,0 +1,34 @@
+package sfranson.minesweeper;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Replaces files so that readers see either the old or the new content, never
+ * a partial write.
+ */
+final class AtomicFiles {
+
+	/**
+	 * Moves a temporary file into place atomically, falling back to a plain
+	 * replace on file systems without atomic moves.
+	 *
+	 * @param temp
+	 *            fully written file, in the directory of the target.
+	 * @param target
+	 *            file to create or replace.
+	 */
+	static void publish(Path temp, Path target) throws IOException {
+		try {
+			Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private AtomicFiles() {
+	}
+}
@@ -0,0 +1,74 @@
+package sfranson.minesweeper;
+
+/**
+ * Mine map backed by a bitset, one bit per square in row-major order.
+ *
+ * <p>
+ * Square <code>(row, col)</code> is bit <code>row * columns + col</code>,
+ * stored in word <code>bit / 64</code> at position <code>bit % 64</code>, the
+ * layout of {@link java.util.BitSet#toLongArray()}. Trailing words without
+ * mines may be omitted. The array is used as is, not copied.
+ * </p>
+ *
+ * @see HintCalculator
+ */
+public class BitMineMap implements MineMap {
+
+	private final long[] bits;
+
+	private final int columnCount;
+
+	private final int rowCount;
+
+	/**
+	 * Creates a map over the given bits.
+	 *
+	 * @param bits
+	 *            mines, one bit per square.
+	 * @param rows
+	 *            number of rows.
+	 * @param columns
+	 *            number of columns.
+	 * @throws MineSweeperException
+	 *             if the bits do not fit the dimensions.
+	 */
+	public BitMineMap(long[] bits, int rows, int columns) {
+		if (rows < 0 || columns < 0) {
+			throw new MineSweeperException("Invalid mine map.  Dimensions must not be negative.");
+		}
+		long words = ((long) rows * columns + 63) >>> 6;
+		if (bits.length > words) {
+			throw new MineSweeperException(
+					"Invalid mine map.  " + bits.length + " words exceed a " + rows + "x" + columns + " board.");
+		}
+		this.bits = bits;
+		this.rowCount = rows;
+		this.columnCount = columns;
+	}
+
+	@Override
+	public void copyRow(int row, byte[] target, int offset) {
+		long bit = (long) row * columnCount;
+		for (int col = 0; col < columnCount; col++, bit++) {
+			int word = (int) (bit >>> 6);
+			target[offset + col] = word < bits.length ? (byte) ((bits[word] >>> bit) & 1) : 0;
+		}
+	}
+
+	@Override
+	public int getColumnCount() {
+		return columnCount;
+	}
+
+	@Override
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	@Override
+	public boolean isMine(int row, int col) {
+		long bit = (long) row * columnCount + col;
+		int word = (int) (bit >>> 6);
+		return word < bits.length && (bits[word] & (1L << bit)) != 0;
+	}
+}
@@ -1,13 +1,28 @@
 package sfranson.minesweeper;
 
+import java.io.IOException;
 import java.io.OutputStream;
-import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 /**
  * Represents a mine sweeper board.
  */
 public class Board {
 
+	/**
+	 * Start of the header line, followed by the id and a colon.
+	 */
+	private static final byte[] HEADER = "Mine Field #".getBytes(StandardCharsets.US_ASCII);
+
+	private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Indicates the cells hold their hints.
+	 */
+	private boolean calculated;
+
 	/**
 	 * Indicates the board has been closed for further modification.
 	 * 
@@ -20,23 +35,120 @@ public class Board {
 	 */
 	private int columnCount;
 
+	/**
+	 * Content key, available once the row definitions have been hashed.
+	 * 
+	 * @see #contentKey()
+	 */
+	private BoardKey contentKey;
+
 	/**
 	 * Internal counter used for calculations.
 	 */
 	private int currentRow = 0;
 
 	/**
-	 * Identifier of the board.
+	 * Running hash of the dimensions and row definitions; kept between
+	 * {@link #reset(String, int, int) resets}.
+	 */
+	private MessageDigest digest;
+
+	/**
+	 * Indicates the digest holds the current dimensions.
+	 */
+	private boolean digesting;
+
+	/**
+	 * Indicates row definitions are hashed into the content key.
+	 * 
+	 * @see #withoutContentKey()
+	 */
+	private boolean hashingRows = true;
+
+	/**
+	 * Engine calculating the hints of a board with a radius of 1.
+	 * 
+	 * @see #withHintCalculator()
+	 * @see #withHintTable()
+	 */
+	private EngineSelector.Engine engine = EngineSelector.Engine.CELLS;
+
+	/**
+	 * Chooses the engine on close, if set.
+	 * 
+	 * @see #withEngineSelector(EngineSelector)
+	 */
+	private EngineSelector engineSelector;
+
+	/**
+	 * Identifier of the board; for a {@link #reset(int, int, int) numbered}
+	 * board only created when asked for.
 	 */
 	private String id;
 
+	/**
+	 * Calculates hints of boards using the hint calculator, created on first use
+	 * and kept between {@link #reset(String, int, int) resets}.
+	 * 
+	 * @see #withHintCalculator()
+	 */
+	private HintCalculator hintCalculator;
+
+	/**
+	 * Renders hints of boards using the hint table, created on first use and
+	 * kept between {@link #reset(String, int, int) resets}.
+	 * 
+	 * @see #withHintTable()
+	 */
+	private HintTable hintTable;
+
+	/**
+	 * Tiles of hints shared with other boards, used by the hint table.
+	 * 
+	 * @see #withTileCache(TileCache)
+	 */
+	private TileCache tileCache;
+
+	/**
+	 * Flag indicating a {@link MineCountIndex} should be built on close.
+	 */
+	private boolean indexMineCounts;
+
+	/**
+	 * Rectangle mine counts, available after close if requested.
+	 * 
+	 * @see #withMineCountIndex()
+	 */
+	private MineCountIndex mineCountIndex;
+
+	/**
+	 * Reusable buffer for printing the header or a row of hints, and for hashing
+	 * a row definition.
+	 * 
+	 * @see #line(int)
+	 */
+	private byte[] line;
+
+	/**
+	 * Number identifying the board, or -1 if identified by {@link #id} alone.
+	 */
+	private int number = -1;
+
+	/**
+	 * Neighbourhood radius used for hints.
+	 * 
+	 * @see #withRadius(int)
+	 */
+	private int radius = 1;
+
 	/**
 	 * Specified number of rows in the board.
 	 */
 	private int rowCount;
 
 	/**
-	 * Rows of the board.
+	 * Rows of the board. May hold more rows than {@link #rowCount}, kept from a
+	 * larger board for reuse.
 	 * 
 	 * @see Row
 	 */
@@ -92,16 +204,26 @@ public class Board {
 	 */
 	Board as(String id, int rows, int columns) {
 		this.id = id;
+		this.number = -1;
 		this.columnCount = columns;
 		this.rowCount = rows;
+		this.closed = false;
+		this.calculated = false;
+		this.currentRow = 0;
+		this.contentKey = null;
+		this.digesting = false;
+		this.hashingRows = true;
+		this.mineCountIndex = null;
 		initRows();
 		return this;
 	}
 
 	private void calculateRows() {
-		int rowRange = rowsAsColumns ? columnCount : rowCount;
-		for (int row = 0; row < rowRange; row++) {
-			rows[row].close();
+		if (!calculated) {
+			for (int row = 0; row < rowCount; row++) {
+				rows[row].close();
+			}
+			calculated = true;
 		}
 	}
 
@@ -113,12 +235,65 @@ public class Board {
 	 */
 	public Board close() {
 		if (!closed) {
-			calculateRows();
+			if (engineSelector != null && tileCache == null && radius == 1) {
+				engine = engineSelector.select(rowCount, columnCount, getMineCount());
+			}
+			if (radius > 1) {
+				int width = width();
+				new BoxSumKernel(radius).apply(mines(), (row, counts) -> rows[row].withWidth(width).withCounts(counts));
+				calculated = true;
+			} else if (engine == EngineSelector.Engine.CELLS) {
+				calculateRows();
+			}
+			if (indexMineCounts) {
+				mineCountIndex = new MineCountIndex(mines());
+			}
 			closed = true;
 		}
 		return this;
 	}
 
+	/**
+	 * Gets a key identifying the board's content, i.e. its dimensions,
+	 * orientation and row definitions, but not its id. Boards with equal keys
+	 * produce identical hints.
+	 * 
+	 * <p>
+	 * Once requested, the key is fixed; rows added afterwards are not reflected.
+	 * </p>
+	 * 
+	 * @return the key, or null if the board was created
+	 *         {@link #withoutContentKey() without} one.
+	 * @see BoardCache
+	 */
+	BoardKey contentKey() {
+		if (contentKey == null && hashingRows) {
+			MessageDigest hash = digest();
+			hash.update((byte) (rowsAsColumns ? 1 : 0));
+			update(hash, radius);
+			contentKey = new BoardKey(hash.digest());
+		}
+		return contentKey;
+	}
+
+	private MessageDigest digest() {
+		if (!digesting) {
+			if (digest == null) {
+				try {
+					digest = MessageDigest.getInstance("SHA-256");
+				} catch (NoSuchAlgorithmException e) {
+					throw new IllegalStateException(e);
+				}
+			} else {
+				digest.reset();
+			}
+			digesting = true;
+			update(digest, rowCount);
+			update(digest, columnCount);
+		}
+		return digest;
+	}
+
 	/**
 	 * Convenience method mainly used for testing.
 	 * 
@@ -129,6 +304,9 @@ public class Board {
 	 * @return raw cell value at row and column. Cells with a mine will return "-1".
 	 */
 	String get(int row, int col) {
+		if (closed) {
+			calculateRows();
+		}
 		int actualRow = rowsAsColumns ? col : row;
 		int actualCol = rowsAsColumns ? row : col;
 		return Integer.toString(rows[actualRow].cellValue(actualCol));
@@ -145,9 +323,41 @@ public class Board {
 	 * Gets the board id.
 	 */
 	public String getId() {
+		if (id == null && number >= 0) {
+			id = Integer.toString(number);
+		}
 		return id;
 	}
 
+	/**
+	 * Gets the number of squares defined as mines.
+	 */
+	public long getMineCount() {
+		long mines = 0;
+		for (int row = 0; row < rowCount; row++) {
+			mines += rows[row].getMineCount();
+		}
+		return mines;
+	}
+
+	/**
+	 * Gets the index answering rectangle mine counts in constant time.
+	 * 
+	 * @return the index, or null if the board was not closed with
+	 *         {@link #withMineCountIndex()}.
+	 */
+	public MineCountIndex getMineCountIndex() {
+		return mineCountIndex;
+	}
+
+	/**
+	 * Gets the number identifying the board, parsing its id unless it was
+	 * {@link #reset(int, int, int) numbered}.
+	 */
+	int getNumber() {
+		return number >= 0 ? number : Integer.parseInt(id);
+	}
+
 	/**
 	 * Gets the specified row count.
 	 */
@@ -156,9 +366,15 @@ public class Board {
 	}
 
 	private void initRows() {
-		rows = new Row[rowCount];
+		if (rows == null || rows.length < rowCount) {
+			Row[] grown = new Row[rowCount];
+			if (rows != null) {
+				System.arraycopy(rows, 0, grown, 0, rows.length);
+			}
+			rows = grown;
+		}
 		for (int row = 0; row < rowCount; row++) {
-			Row newRow = new Row(row, columnCount);
+			Row newRow = rows[row] != null ? rows[row].reset(row, columnCount) : new Row(row, columnCount);
 			if (row > 0) {
 				newRow.withPrev(rows[row - 1]);
 			}
@@ -166,6 +382,37 @@ public class Board {
 		}
 	}
 
+	/**
+	 * Gets a live view of the board's mines, in printed orientation. The view is
+	 * usable before the board is {@link #close() closed}.
+	 * 
+	 * @see #query()
+	 */
+	public MineMap mines() {
+		return new MineMap() {
+
+			@Override
+			public int getColumnCount() {
+				return columnCount;
+			}
+
+			@Override
+			public int getRowCount() {
+				return rowCount;
+			}
+
+			@Override
+			public void copyRow(int row, byte[] target, int offset) {
+				rows[row].copyMines(target, offset);
+			}
+
+			@Override
+			public boolean isMine(int row, int col) {
+				return rows[row].cellValue(col) == -1;
+			}
+		};
+	}
+
 	/**
 	 * Terminal operation that will print the calculated hints to the OutputStream.
 	 * 
@@ -176,28 +423,217 @@ public class Board {
 		// ensure board is closed.
 		close();
 
-		PrintWriter print = new PrintWriter(out);
+		printHeader(out);
+		printHints(out);
+	}
+
+	/**
+	 * Number of bytes written by {@link #printHeader(OutputStream)}.
+	 */
+	int headerSize() {
+		return HEADER.length + (id != null ? id.length() : digits(number)) + 1 + LINE_SEPARATOR.length;
+	}
+
+	private static int digits(int value) {
+		int digits = 1;
+		for (; value >= 10; value /= 10) {
+			digits++;
+		}
+		return digits;
+	}
+
+	/**
+	 * Gets the reusable buffer, grown to at least <code>size</code> bytes.
+	 */
+	private byte[] line(int size) {
+		if (line == null || line.length < size) {
+			line = new byte[size];
+		}
+		return line;
+	}
+
+	/**
+	 * Renders the hints from the mines with the {@link HintCalculator}, one row
+	 * of raw hints at a time.
+	 */
+	private void printCalculated(OutputStream out) {
+		if (hintCalculator == null) {
+			hintCalculator = new HintCalculator();
+		}
+		byte[] line = line(columnCount + LINE_SEPARATOR.length);
+		hintCalculator.calculate(mines(), (row, hints, offset, length) -> {
+			for (int col = 0; col < length; col++) {
+				byte hint = hints[offset + col];
+				line[col] = hint == HintQuery.MINE ? (byte) '*' : (byte) ('0' + hint);
+			}
+			System.arraycopy(LINE_SEPARATOR, 0, line, length, LINE_SEPARATOR.length);
+			try {
+				out.write(line, 0, length + LINE_SEPARATOR.length);
+			} catch (IOException e) {
+				throw new MineSweeperException("Unable to write hints for board " + id + ".");
+			}
+		});
+		try {
+			out.write(LINE_SEPARATOR);
+			out.flush();
+		} catch (IOException e) {
+			throw new MineSweeperException("Unable to write hints for board " + id + ".");
+		}
+	}
+
+	/**
+	 * Prints the board's "Mine Field" header line.
+	 * 
+	 * @param out
+	 *            stream to write the header.
+	 */
+	void printHeader(OutputStream out) {
+		byte[] header = line(headerSize());
+		System.arraycopy(HEADER, 0, header, 0, HEADER.length);
+		int end = HEADER.length;
+		if (id != null) {
+			for (int i = 0; i < id.length(); i++) {
+				header[end++] = (byte) id.charAt(i);
+			}
+		} else {
+			end += digits(number);
+			for (int value = number, digit = end - 1; digit >= HEADER.length; value /= 10) {
+				header[digit--] = (byte) ('0' + value % 10);
+			}
+		}
+		header[end++] = ':';
+		System.arraycopy(LINE_SEPARATOR, 0, header, end, LINE_SEPARATOR.length);
+		try {
+			out.write(header, 0, end + LINE_SEPARATOR.length);
+			out.flush();
+		} catch (IOException e) {
+			throw new MineSweeperException("Unable to write hints for board " + getId() + ".");
+		}
+	}
+
+	/**
+	 * Prints the calculated hints, followed by a blank line, without the header.
+	 * 
+	 * @param out
+	 *            stream to write hints.
+	 */
+	void printHints(OutputStream out) {
+		// ensure board is closed.
+		close();
+
+		if (!calculated) {
+			if (engine == EngineSelector.Engine.CALCULATOR) {
+				printCalculated(out);
+			} else {
+				printTable(out);
+			}
+			return;
+		}
+		byte[] line = line(columnCount * width() + LINE_SEPARATOR.length);
+		try {
+			for (int row = 0; row < rowCount; row++) {
+				int end = rows[row].print(line, 0);
+				System.arraycopy(LINE_SEPARATOR, 0, line, end, LINE_SEPARATOR.length);
+				out.write(line, 0, end + LINE_SEPARATOR.length);
+			}
+			out.write(LINE_SEPARATOR);
+			out.flush();
+		} catch (IOException e) {
+			throw new MineSweeperException("Unable to write hints for board " + id + ".");
+		}
+	}
 
-		print.println("Mine Field #" + id + ":");
+	/**
+	 * Estimated number of bytes produced by {@link #printHints(OutputStream)}.
+	 */
+	long printedSize() {
+		return (long) rowCount * ((long) columnCount * width() + 1) + 1;
+	}
 
-		int rowRange = rowCount;
-		for (int row = 0; row < rowRange; row++) {
-			print.println(rows[row].print());
+	/**
+	 * Renders the hints straight from the mines with the {@link HintTable}.
+	 */
+	private void printTable(OutputStream out) {
+		if (hintTable == null) {
+			hintTable = new HintTable();
+		}
+		hintTable.withTileCache(tileCache);
+		try {
+			hintTable.render(mines(), LINE_SEPARATOR, (row, hints, offset, length) -> {
+				try {
+					out.write(hints, offset, length);
+				} catch (IOException e) {
+					throw new MineSweeperException("Unable to write hints for board " + id + ".");
+				}
+			});
+			out.write(LINE_SEPARATOR);
+			out.flush();
+		} catch (IOException e) {
+			throw new MineSweeperException("Unable to write hints for board " + id + ".");
 		}
-		print.println();
-		print.flush();
 	}
 
 	private void processRow(String rowPattern) {
 		if (rowsAsColumns) {
-			for (Row row : rows) {
-				row.withColumns(rowPattern, true);
+			for (int row = 0; row < rowCount; row++) {
+				rows[row].withColumns(rowPattern, true);
 			}
 		} else {
 			rows[currentRow].withColumns(rowPattern, rowsAsColumns);
 		}
 	}
 
+	/**
+	 * Creates a query that calculates hints of single squares or viewports on
+	 * demand, without closing the board.
+	 * 
+	 * @see HintQuery
+	 */
+	public HintQuery query() {
+		return new HintQuery(mines());
+	}
+
+	/**
+	 * Resets the board for new content with the given dimensions, clearing all
+	 * modifiers, while keeping its rows and cells for reuse.
+	 * 
+	 * @param id
+	 *            identifier for the board.
+	 * @param rows
+	 *            number of rows in the board.
+	 * @param columns
+	 *            number of columns in the board.
+	 * @return board instance useful for method chaining.
+	 * @see BoardArena
+	 */
+	Board reset(String id, int rows, int columns) {
+		engineSelector = null;
+		indexMineCounts = false;
+		radius = 1;
+		engine = EngineSelector.Engine.CELLS;
+		tileCache = null;
+		rowsAsColumns = false;
+		return as(id, rows, columns);
+	}
+
+	/**
+	 * Resets the board like {@link #reset(String, int, int)}, identifying it by
+	 * a number whose id is only created if {@link #getId() asked for}.
+	 * 
+	 * @param number
+	 *            non-negative number identifying the board.
+	 * @param rows
+	 *            number of rows in the board.
+	 * @param columns
+	 *            number of columns in the board.
+	 * @return board instance useful for method chaining.
+	 */
+	Board reset(int number, int rows, int columns) {
+		reset((String) null, rows, columns);
+		this.number = number;
+		return this;
+	}
+
 	/**
 	 * Modifier that will cause the specified row and column counts to be swapped,
 	 * indicating that {@link #withRow(String) row definitions} will be interpreted
@@ -210,6 +646,16 @@ public class Board {
 		return this;
 	}
 
+	/**
+	 * Adds the four bytes of a value to a digest.
+	 */
+	private static void update(MessageDigest digest, int value) {
+		digest.update((byte) (value >>> 24));
+		digest.update((byte) (value >>> 16));
+		digest.update((byte) (value >>> 8));
+		digest.update((byte) value);
+	}
+
 	/**
 	 * Indicates if the rows-as-columns modifier has been set for the board.
 	 * @return
@@ -218,6 +664,112 @@ public class Board {
 		return rowsAsColumns;
 	}
 
+	/**
+	 * Number of characters each hint is printed in: the digits of the largest
+	 * count a safe square can have, <code>(2r + 1)^2 - 1</code>.
+	 */
+	private int width() {
+		int width = 1;
+		for (int max = (2 * radius + 1) * (2 * radius + 1) - 1; max >= 10; max /= 10) {
+			width++;
+		}
+		return width;
+	}
+
+	/**
+	 * Modifier that leaves the choice between the cells, the {@link HintTable}
+	 * and the {@link HintCalculator} to a selector, once the board's mine
+	 * density is known on close. A {@link #withTileCache(TileCache) tile cache} takes precedence, and
+	 * boards with a {@link #withRadius(int) radius} other than 1 are unaffected.
+	 * 
+	 * @param selector
+	 *            selector, usually shared by all boards of a sweep.
+	 * @return board instance useful for method chaining.
+	 */
+	public Board withEngineSelector(EngineSelector selector) {
+		engineSelector = selector;
+		return this;
+	}
+
+	/**
+	 * Modifier that calculates the hints with a {@link HintCalculator} when
+	 * printed, instead of calculating every cell on close. Cell values are then
+	 * only calculated if {@link #get(int, int) asked for}. Boards with a
+	 * {@link #withRadius(int) radius} other than 1 are unaffected.
+	 * 
+	 * @return board instance useful for method chaining.
+	 */
+	public Board withHintCalculator() {
+		engine = EngineSelector.Engine.CALCULATOR;
+		return this;
+	}
+
+	/**
+	 * Modifier that renders the hints with a {@link HintTable} when printed,
+	 * instead of calculating every cell on close. Cell values are then only
+	 * calculated if {@link #get(int, int) asked for}. Boards with a
+	 * {@link #withRadius(int) radius} other than 1 are unaffected.
+	 * 
+	 * @return board instance useful for method chaining.
+	 */
+	public Board withHintTable() {
+		engine = EngineSelector.Engine.TABLE;
+		return this;
+	}
+
+	/**
+	 * Modifier that renders the hints with a {@link HintTable} that reuses the
+	 * hint tiles of other boards. Implies {@link #withHintTable()}.
+	 * 
+	 * @param tiles
+	 *            cache of rendered tiles, usually shared by all boards of a
+	 *            sweep.
+	 * @return board instance useful for method chaining.
+	 */
+	public Board withTileCache(TileCache tiles) {
+		engine = EngineSelector.Engine.TABLE;
+		tileCache = tiles;
+		return this;
+	}
+
+	/**
+	 * Modifier that will build a {@link MineCountIndex} when the board is closed.
+	 * 
+	 * @return board instance useful for method chaining.
+	 * @see #getMineCountIndex()
+	 */
+	public Board withMineCountIndex() {
+		indexMineCounts = true;
+		return this;
+	}
+
+	/**
+	 * Modifier that sets how far hints look for mines. The default radius of 1
+	 * counts the 8 surrounding squares; a radius of <code>r</code> counts every
+	 * square within <code>r</code> rows and columns.
+	 * 
+	 * <p>
+	 * From a radius of 2, counts can reach 10 or more, so every hint, mines
+	 * included, is printed right aligned in as many characters as the largest
+	 * possible count, padded with spaces; a radius of 2 prints " *" and " 3".
+	 * </p>
+	 * 
+	 * @param radius
+	 *            positive neighbourhood radius.
+	 * @return board instance useful for method chaining.
+	 * @see BoxSumKernel
+	 */
+	public Board withRadius(int radius) {
+		if (closed) {
+			throw new MineSweeperException("Board has been closed.  The radius can no longer be changed.");
+		}
+		if (radius < 1) {
+			throw new MineSweeperException("Invalid radius.  The neighbourhood radius must be positive.");
+		}
+		this.radius = radius;
+		return this;
+	}
+
 	/**
 	 * Adds a row to the board. Rows that exceed the number of rows for the board
 	 * will be ignored.
@@ -231,6 +783,15 @@ public class Board {
 		}
 		if (currentRow < rowCount) {
 			processRow(rowPattern);
+			if (contentKey == null && hashingRows && rowPattern != null) {
+				// valid row definitions are ASCII, so every char fits a byte
+				byte[] bytes = line(rowPattern.length() + 1);
+				for (int i = 0; i < rowPattern.length(); i++) {
+					bytes[i] = (byte) rowPattern.charAt(i);
+				}
+				bytes[rowPattern.length()] = '\n';
+				digest().update(bytes, 0, rowPattern.length() + 1);
+			}
 			currentRow++;
 		} // else ignore row
 		return this;
@@ -248,4 +809,16 @@ public class Board {
 		}
 		return this;
 	}
+
+	/**
+	 * Modifier that skips hashing the row definitions, for boards whose hints
+	 * will not be cached; {@link #contentKey()} then returns null.
+	 * 
+	 * @return board instance useful for method chaining.
+	 * @see BoardCache#accepts(long)
+	 */
+	Board withoutContentKey() {
+		hashingRows = false;
+		return this;
+	}
 }
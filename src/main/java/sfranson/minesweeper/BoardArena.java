@@ -0,0 +1,94 @@
+package sfranson.minesweeper;
+
+/**
+ * Supplies the boards of a sweep from a single reused {@link Board}.
+ *
+ * <p>
+ * Boards of a sweep are read and printed one after another, so their storage
+ * can be shared: the arena keeps the rows and cells of the largest board seen
+ * so far and resets them for each new board. Once the largest board has been
+ * read, a sweep no longer allocates board storage, and boards identified by
+ * {@link #board(int, int, int) number} only create their id if asked for.
+ * </p>
+ *
+ * <p>
+ * A board obtained from the arena, and any {@link Board#mines() view} or
+ * {@link Board#query() query} of it, is only valid until the next call to
+ * {@link #board(String, int, int)}. An arena is not thread safe; concurrent
+ * sweeps each need their own.
+ * </p>
+ */
+public class BoardArena {
+
+	private Board board;
+
+	private long capacity;
+
+	private long reuses;
+
+	/**
+	 * Gets an empty board with the given dimensions, reusing the storage of the
+	 * previous one.
+	 *
+	 * @param id
+	 *            identifier for the board.
+	 * @param rows
+	 *            number of rows in the board.
+	 * @param columns
+	 *            number of columns in the board.
+	 * @return the reset board.
+	 */
+	public Board board(String id, int rows, int columns) {
+		if (board == null) {
+			board = new Board(id, rows, columns);
+		} else {
+			board.reset(id, rows, columns);
+			reuses++;
+		}
+		capacity = Math.max(capacity, (long) rows * columns);
+		return board;
+	}
+
+	/**
+	 * Gets an empty board identified by a number, reusing the storage of the
+	 * previous one. The board's id is only created if asked for.
+	 *
+	 * @param number
+	 *            non-negative number identifying the board.
+	 * @param rows
+	 *            number of rows in the board.
+	 * @param columns
+	 *            number of columns in the board.
+	 * @return the reset board.
+	 */
+	public Board board(int number, int rows, int columns) {
+		if (board == null) {
+			board = new Board();
+		} else {
+			reuses++;
+		}
+		board.reset(number, rows, columns);
+		capacity = Math.max(capacity, (long) rows * columns);
+		return board;
+	}
+
+	/**
+	 * Gets the number of squares of the largest board supplied, roughly the
+	 * storage held by the arena.
+	 */
+	public long getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Gets the number of boards supplied by resetting an earlier one.
+	 */
+	public long getReuses() {
+		return reuses;
+	}
+
+	@Override
+	public String toString() {
+		return "BoardArena [capacity=" + capacity + ", reuses=" + reuses + "]";
+	}
+}
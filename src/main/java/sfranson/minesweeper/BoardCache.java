@@ -0,0 +1,212 @@
+package sfranson.minesweeper;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of rendered hints keyed by board content, evicting roughly the
+ * least recently used entries.
+ *
+ * <p>
+ * The cache is size-aware: its capacity is expressed in bytes of rendered
+ * hints (plus key overhead) rather than in number of entries. Entries larger
+ * than the whole capacity are never stored.
+ * </p>
+ *
+ * <p>
+ * One cache is typically shared by every thread of a sweep, so lookups take
+ * no lock: they read a concurrent map and mark the entry found as referenced.
+ * Stores, which only follow a miss and a full rendering, are serialised and
+ * evict in second-chance order: entries queue in the order they were stored,
+ * and an entry referenced since it last reached the head of the queue goes
+ * back to its tail instead of being evicted.
+ * </p>
+ *
+ * @see BoardKey
+ */
+public class BoardCache {
+
+	/**
+	 * Cached hints with their reference mark.
+	 */
+	private static final class Entry {
+
+		private volatile byte[] hints;
+
+		private final BoardKey key;
+
+		private volatile boolean referenced;
+
+		Entry(BoardKey key, byte[] hints) {
+			this.key = key;
+			this.hints = hints;
+		}
+	}
+
+	/**
+	 * Rough per-entry bookkeeping overhead (map entry, key and array headers).
+	 */
+	static final int ENTRY_OVERHEAD = 96;
+
+	/**
+	 * Maximum number of bytes the cache may retain.
+	 */
+	private final long capacity;
+
+	/**
+	 * Cached hints by key.
+	 */
+	private final ConcurrentHashMap<BoardKey, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Cached hints in eviction order, guarded by the cache's lock.
+	 */
+	private final ArrayDeque<Entry> eviction = new ArrayDeque<>();
+
+	private long evictions;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Number of bytes currently retained, written under the cache's lock.
+	 */
+	private volatile long size;
+
+	/**
+	 * Creates a cache that retains at most <code>capacity</code> bytes.
+	 *
+	 * @param capacity
+	 *            maximum number of bytes; 0 disables caching.
+	 */
+	public BoardCache(long capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Cache capacity must not be negative.");
+		}
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Indicates a rendering of the given size could be stored by the cache.
+	 *
+	 * @param bytes
+	 *            expected size of the rendered hints.
+	 */
+	public boolean accepts(long bytes) {
+		return weight(bytes, 0) <= capacity;
+	}
+
+	/**
+	 * Evicts entries until the cache is within capacity, giving every entry
+	 * referenced since it was queued a second chance.
+	 */
+	private void evict() {
+		while (size > capacity) {
+			Entry eldest = eviction.poll();
+			if (eldest.referenced) {
+				eldest.referenced = false;
+				eviction.add(eldest);
+			} else {
+				entries.remove(eldest.key);
+				size -= weight(eldest.hints.length, eldest.key.size());
+				evictions++;
+			}
+		}
+	}
+
+	/**
+	 * Gets the rendered hints for a board, counting a hit or a miss.
+	 *
+	 * @param key
+	 *            content key of the board.
+	 * @return the cached hints, or null if the board has not been seen.
+	 */
+	public byte[] get(BoardKey key) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		// only written when it changes, so hot entries are not written on every hit
+		if (!entry.referenced) {
+			entry.referenced = true;
+		}
+		return entry.hints;
+	}
+
+	/**
+	 * Gets the configured capacity in bytes.
+	 */
+	public long getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Gets the number of entries evicted to stay within capacity.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Gets the number of lookups that found cached hints.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Gets the number of lookups that found nothing.
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Gets the number of bytes currently retained.
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * Stores rendered hints, evicting entries not referenced lately if the
+	 * capacity is exceeded.
+	 *
+	 * @param key
+	 *            content key of the board.
+	 * @param hints
+	 *            rendered hints; must not be modified afterwards.
+	 */
+	public synchronized void put(BoardKey key, byte[] hints) {
+		long weight = weight(hints.length, key.size());
+		if (weight > capacity) {
+			return;
+		}
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			entry = new Entry(key, hints);
+			entries.put(key, entry);
+			eviction.add(entry);
+		} else {
+			// replaced in place, so the eviction queue holds every entry once
+			size -= weight(entry.hints.length, key.size());
+			entry.hints = hints;
+		}
+		size += weight;
+		evict();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "BoardCache[entries=" + entries.size() + ", size=" + size + "/" + capacity + ", hits=" + hits.sum()
+				+ ", misses=" + misses.sum() + ", evictions=" + evictions + "]";
+	}
+
+	private static long weight(long hints, int key) {
+		return hints + key + ENTRY_OVERHEAD;
+	}
+}
@@ -0,0 +1,61 @@
+package sfranson.minesweeper;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event describing the processing of a single board.
+ *
+ * <p>
+ * The event's own duration spans the whole board, from its header line until
+ * its hints have been written. The phase durations break that time down into
+ * parsing, hint calculation and rendering.
+ * </p>
+ *
+ * @see SweepMetrics
+ */
+@Name("sfranson.minesweeper.Board")
+@Label("Mine Field")
+@Category({ "Mine Sweeper" })
+@Description("Parsing, hint calculation and rendering of a single board.")
+@StackTrace(false)
+class BoardEvent extends Event {
+
+	@Label("Board Id")
+	String boardId;
+
+	@Label("Cached")
+	@Description("Hints were reused from an identical board.")
+	boolean cached;
+
+	@Label("Columns")
+	int columns;
+
+	@Label("Compute Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	long computeDuration;
+
+	@Label("Mines")
+	long mines;
+
+	@Label("Parse Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	long parseDuration;
+
+	@Label("Render Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	long renderDuration;
+
+	@Label("Output Size")
+	@DataAmount
+	long renderedBytes;
+
+	@Label("Rows")
+	int rows;
+}
@@ -0,0 +1,53 @@
+package sfranson.minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * Content hash of a board definition, used to recognise repeated boards.
+ *
+ * <p>
+ * Two keys are equal when the boards were defined with the same dimensions,
+ * orientation and row patterns, regardless of their ids.
+ * </p>
+ *
+ * @see Board#contentKey()
+ * @see BoardCache
+ */
+public final class BoardKey {
+
+	/**
+	 * Digest of the board's dimensions and row patterns.
+	 */
+	private final byte[] digest;
+
+	private final int hash;
+
+	BoardKey(byte[] digest) {
+		this.digest = digest;
+		this.hash = Arrays.hashCode(digest);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof BoardKey)) {
+			return false;
+		}
+		BoardKey other = (BoardKey) obj;
+		return hash == other.hash && Arrays.equals(digest, other.digest);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	/**
+	 * Approximate number of bytes retained by the key.
+	 */
+	int size() {
+		return digest.length;
+	}
+}
@@ -0,0 +1,111 @@
+package sfranson.minesweeper;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * {@link Flow.Processor} reading board definitions line by line and publishing
+ * every completed board's hints.
+ *
+ * <p>
+ * Each published item holds the bytes {@link MineSweeper} would print for the
+ * board, header included, so concatenating them gives the same output for the
+ * same lines. As with {@link MineSweeper}, a board is complete once the next
+ * header line is read, the <code>0 0</code> line ends the input and a last
+ * board without either is not published. At the end-of-input line the
+ * upstream is cancelled and the subscriber completed.
+ * </p>
+ *
+ * <p>
+ * Lines are requested one at a time and only while boards are in demand, so a
+ * slow subscriber holds back the source and at most one board is held in
+ * memory. Invalid input cancels the upstream and is signalled to the
+ * subscriber as a {@link MineSweeperException}. Byte chunks can be fed through
+ * a {@link LineSplitter}:
+ * </p>
+ *
+ * <pre>
+ * LineSplitter lines = new LineSplitter();
+ * BoardProcessor boards = new BoardProcessor();
+ * source.subscribe(lines);
+ * lines.subscribe(boards);
+ * boards.subscribe(sink);
+ * </pre>
+ */
+public class BoardProcessor extends FlowStage<String, byte[]> {
+
+	private Board board;
+
+	private BoardCache cache = new BoardCache(
+			Long.getLong(MineSweeper.CACHE_CAPACITY_PROPERTY, MineSweeper.DEFAULT_CACHE_CAPACITY));
+
+	private boolean columns;
+
+	private SweepMetrics metrics = new SweepMetrics();
+
+	/**
+	 * Output of the sweeper, holding at most the board just completed.
+	 */
+	private final ByteArrayOutputStream rendered = new ByteArrayOutputStream();
+
+	private MineSweeper sweeper;
+
+	/**
+	 * Gets the cache of rendered hints.
+	 */
+	public BoardCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Gets the running counters of the processed boards.
+	 */
+	public SweepMetrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	protected void process(String line, Consumer<byte[]> emit) {
+		if (sweeper == null) {
+			String[] params = columns ? new String[] { "flow", "columns" } : new String[] { "flow" };
+			sweeper = new MineSweeper(params, rendered).withCache(cache).withMetrics(metrics);
+		}
+		if (board == null && !line.matches(MineSweeper.BOARD_START_REGEX)) {
+			throw new MineSweeperException("Invalid input.  Cell definitions must follow a board header.");
+		}
+		board = sweeper.processInput(line, board);
+		if (rendered.size() > 0) {
+			emit.accept(rendered.toByteArray());
+			rendered.reset();
+		}
+		if (board == null) {
+			complete();
+		}
+	}
+
+	/**
+	 * Replaces the cache of rendered hints, e.g. to share it between
+	 * processors.
+	 */
+	public BoardProcessor withCache(BoardCache cache) {
+		this.cache = cache;
+		return this;
+	}
+
+	/**
+	 * Treats board definitions as column-oriented.
+	 */
+	public BoardProcessor withColumns() {
+		columns = true;
+		return this;
+	}
+
+	/**
+	 * Replaces the running counters, e.g. to aggregate several streams.
+	 */
+	public BoardProcessor withMetrics(SweepMetrics metrics) {
+		this.metrics = metrics;
+		return this;
+	}
+}
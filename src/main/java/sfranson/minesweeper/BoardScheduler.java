@@ -0,0 +1,566 @@
+package sfranson.minesweeper;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Program that sweeps boards of any size, keeping one huge board from
+ * stalling or exhausting the boards around it.
+ *
+ * <p>
+ * Every board's cost and footprint are estimated from its header before any
+ * of its rows are read. Boards whose mines (one bit per square) and rendered
+ * hints fit in the memory budget are read into memory and hinted on a pool, so
+ * small boards behind a large one are hinted while it is still running.
+ * Boards are admitted only while the budget has room; otherwise the oldest
+ * hinted boards are written first to release theirs. Boards that do not fit
+ * are streamed instead: once all earlier boards are written, their hints are
+ * rendered while the rows are read, keeping only three rows in memory.
+ * </p>
+ *
+ * <p>
+ * Each board has a deadline, counted from its first row and checked at every
+ * row inside the hint loop. A board that runs past it, or whose estimated
+ * cost already exceeds it, is cancelled: its header is followed by a
+ * cancellation message instead of, or after, its hints, and the sweep
+ * continues with the next board. Output is in input order, in the format of
+ * {@link Board#print(OutputStream)}.
+ * </p>
+ *
+ * <p>
+ * Unlike {@link MineSweeper}, headers may have any number of digits, and each
+ * is followed by exactly as many row definitions as it declares. Input ends at
+ * <code>0 0</code> or at the end of the file; compressed input is
+ * decompressed transparently.
+ * </p>
+ *
+ * <ul>
+ * Arguments:
+ * <li><b>--budget bytes</b> - memory for boards held at once; defaults to a
+ * quarter of the maximum heap.</li>
+ * <li><b>--deadline millis</b> - time allowed to hint one board; defaults to
+ * no deadline.</li>
+ * <li><b>--threads n</b> - boards hinted at once; defaults to the number of
+ * processors.</li>
+ * <li>remaining argument - input file.</li>
+ * </ul>
+ *
+ * @see HintTable
+ */
+public class BoardScheduler {
+
+	/**
+	 * Thrown inside the hint loop when a board runs past its deadline.
+	 */
+	private static final class DeadlineExceeded extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		DeadlineExceeded() {
+			super(null, null, false, false);
+		}
+	}
+
+	/**
+	 * Output of a board not yet written, with the budget it holds.
+	 */
+	private static final class Pending {
+
+		private final long footprint;
+
+		private final Future<byte[]> output;
+
+		Pending(Future<byte[]> output, long footprint) {
+			this.output = output;
+			this.footprint = footprint;
+		}
+	}
+
+	/**
+	 * Mines of a streamed board, read from the input as the hint loop asks for
+	 * each row. Rows must be copied strictly in order, and only the last
+	 * {@value #WINDOW} rows read can be looked up square by square.
+	 */
+	static final class StreamedMines implements MineMap {
+
+		/**
+		 * Rows held: the row being hinted and the rows either side of it.
+		 */
+		private static final int WINDOW = 3;
+
+		private final int columnCount;
+
+		private final BufferedReader in;
+
+		/**
+		 * Number of rows read so far.
+		 */
+		private int read;
+
+		private final int rowCount;
+
+		/**
+		 * Last rows read, row <code>r</code> at <code>r % WINDOW</code>.
+		 */
+		private final String[] window = new String[WINDOW];
+
+		StreamedMines(BufferedReader in, int rows, int columns) {
+			this.in = in;
+			this.rowCount = rows;
+			this.columnCount = columns;
+		}
+
+		@Override
+		public void copyRow(int row, byte[] target, int offset) {
+			if (row != read) {
+				throw new MineSweeperException("Invalid access.  Streamed mines are read in order; row " + row
+						+ " was asked for while row " + read + " is next.");
+			}
+			String line = readRow(in, read++, columnCount);
+			window[row % WINDOW] = line;
+			for (int col = 0; col < columnCount; col++) {
+				target[offset + col] = (byte) (line.charAt(col) == '*' ? 1 : 0);
+			}
+		}
+
+		@Override
+		public int getColumnCount() {
+			return columnCount;
+		}
+
+		@Override
+		public int getRowCount() {
+			return rowCount;
+		}
+
+		@Override
+		public boolean isMine(int row, int col) {
+			if (row >= read || row < read - WINDOW) {
+				throw new MineSweeperException("Invalid access.  Streamed mines only hold rows "
+						+ Math.max(0, read - WINDOW) + " to " + (read - 1) + "; row " + row + " was asked for.");
+			}
+			return window[row % WINDOW].charAt(col) == '*';
+		}
+
+		/**
+		 * Reads past the rows the hint loop did not get to.
+		 */
+		void skipRest() throws IOException {
+			for (; read < rowCount; read++) {
+				if (in.readLine() == null) {
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Board header: rows and columns separated by whitespace, or two single
+	 * digits as accepted by {@link MineSweeper}.
+	 */
+	private static final Pattern HEADER = Pattern.compile("(\\d+)\\s+(\\d+)|(\\d)(\\d)");
+
+	private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Lower bound of the time needed to hint one square, used to cancel boards
+	 * that cannot meet their deadline without starting them.
+	 */
+	static final double NANOS_PER_SQUARE = 1.0;
+
+	/**
+	 * Parses the arguments and sweeps the file to standard out.
+	 *
+	 * @param args
+	 *            see class description.
+	 */
+	public static void main(String[] args) {
+		try {
+			BoardScheduler scheduler = new BoardScheduler();
+			String file = null;
+			for (int i = 0; i < args.length; i++) {
+				if ("--budget".equals(args[i]) && i + 1 < args.length) {
+					String budget = args[++i];
+					try {
+						scheduler.withMemoryBudget(Long.parseLong(budget));
+					} catch (NumberFormatException e) {
+						throw new MineSweeperException(
+								"Invalid arguments.  Memory budget must be a number, was " + budget + ".");
+					}
+				} else if ("--deadline".equals(args[i]) && i + 1 < args.length) {
+					String deadline = args[++i];
+					try {
+						scheduler.withDeadline(Long.parseLong(deadline), TimeUnit.MILLISECONDS);
+					} catch (NumberFormatException e) {
+						throw new MineSweeperException(
+								"Invalid arguments.  Deadline must be a number, was " + deadline + ".");
+					}
+				} else if ("--threads".equals(args[i]) && i + 1 < args.length) {
+					String count = args[++i];
+					try {
+						scheduler.withThreads(Integer.parseInt(count));
+					} catch (NumberFormatException e) {
+						throw new MineSweeperException(
+								"Invalid arguments.  Thread count must be a number, was " + count + ".");
+					}
+				} else if (file == null) {
+					file = args[i];
+				} else {
+					throw new MineSweeperException("Invalid arguments.  Exactly one input file is required.");
+				}
+			}
+			if (file == null) {
+				throw new MineSweeperException("Invalid arguments.  Exactly one input file is required.");
+			}
+			try (InputStream in = Files.newInputStream(Paths.get(file))) {
+				OutputStream out = new BufferedOutputStream(System.out, CompressedStreams.BUFFER_SIZE);
+				scheduler.sweep(in, out);
+				out.flush();
+			} catch (IOException e) {
+				throw new MineSweeperException("Invalid file name.  " + file + " cannot be read.");
+			}
+		} catch (MineSweeperException e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace(System.err);
+		}
+	}
+
+	private long cancelled;
+
+	/**
+	 * Time allowed to hint one board, in nanoseconds; 0 for no deadline.
+	 */
+	private long deadlineNanos;
+
+	private long memoryBudget = Runtime.getRuntime().maxMemory() / 4;
+
+	private double nanosPerSquare = NANOS_PER_SQUARE;
+
+	/**
+	 * Memory held by the boards pending output.
+	 */
+	private long reserved;
+
+	private long streamed;
+
+	private final ThreadLocal<HintTable> tables = ThreadLocal.withInitial(HintTable::new);
+
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	private static <T> T await(Future<T> result) {
+		try {
+			return result.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof MineSweeperException) {
+				throw (MineSweeperException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MineSweeperException("Interrupted while sweeping.");
+		}
+	}
+
+	private byte[] cancellation(long id) {
+		synchronized (this) {
+			cancelled++;
+		}
+		String message = "Cancelled.  Board " + id + " exceeded its deadline of "
+				+ TimeUnit.NANOSECONDS.toMillis(deadlineNanos) + " ms.";
+		return (message + System.lineSeparator()).getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Memory needed to hold a board's mines and rendered hints, or -1 if they
+	 * cannot be held in arrays.
+	 */
+	static long footprint(int rows, int columns) {
+		long squares = (long) rows * columns;
+		long words = (squares + 63) >>> 6;
+		long printed = (long) rows * (columns + LINE_SEPARATOR.length) + 64;
+		if (words > Integer.MAX_VALUE - 8 || printed > Integer.MAX_VALUE - 8) {
+			return -1;
+		}
+		return words * 8 + printed;
+	}
+
+	/**
+	 * Gets the number of boards cancelled at their deadline.
+	 */
+	public synchronized long getCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Gets the number of boards streamed because they did not fit the budget.
+	 */
+	public synchronized long getStreamed() {
+		return streamed;
+	}
+
+	private static byte[] header(long id) {
+		return ("Mine Field #" + id + ":" + System.lineSeparator()).getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Hints a board held in memory, rendering its header and hints.
+	 */
+	private byte[] hint(long id, long[] bits, int rows, int columns) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream((int) footprint(rows, columns) - (bits.length * 8));
+		byte[] header = header(id);
+		out.write(header, 0, header.length);
+		long[] deadline = new long[1];
+		try {
+			tables.get().render(new BitMineMap(bits, rows, columns), LINE_SEPARATOR, (row, hints, offset, length) -> {
+				checkDeadline(row, deadline);
+				out.write(hints, offset, length);
+			});
+		} catch (DeadlineExceeded e) {
+			out.reset();
+			out.write(header, 0, header.length);
+			byte[] message = cancellation(id);
+			out.write(message, 0, message.length);
+		}
+		out.write(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Checks a board's deadline as a row is hinted. The clock starts at the first
+	 * row, so setting up the hint loop does not count.
+	 */
+	private void checkDeadline(int row, long[] deadline) {
+		if (deadlineNanos == 0) {
+			return;
+		}
+		if (row == 0) {
+			deadline[0] = System.nanoTime() + deadlineNanos;
+		} else if (System.nanoTime() - deadline[0] > 0) {
+			throw new DeadlineExceeded();
+		}
+	}
+
+	/**
+	 * Reads a board's rows into a bitset.
+	 */
+	private static long[] read(BufferedReader in, int rows, int columns) throws IOException {
+		long[] bits = new long[(int) (((long) rows * columns + 63) >>> 6)];
+		long bit = 0;
+		for (int row = 0; row < rows; row++) {
+			String line = readRow(in, row, columns);
+			for (int col = 0; col < columns; col++, bit++) {
+				if (line.charAt(col) == '*') {
+					bits[(int) (bit >>> 6)] |= 1L << bit;
+				}
+			}
+		}
+		return bits;
+	}
+
+	private static String readRow(BufferedReader in, int row, int columns) {
+		String line;
+		try {
+			line = in.readLine();
+		} catch (IOException e) {
+			throw new MineSweeperException("Unable to read row " + row + ": " + e.getMessage());
+		}
+		if (line == null) {
+			throw new MineSweeperException("Invalid input.  Expected a definition of row " + row + ".");
+		}
+		if (line.length() != columns) {
+			throw new MineSweeperException(
+					"Invalid input.  Row " + row + " has " + line.length() + " cells, expected " + columns + ".");
+		}
+		for (int col = 0; col < columns; col++) {
+			char c = line.charAt(col);
+			if (c != '*' && c != '.') {
+				throw new MineSweeperException(
+						"Invalid input.  Cell definition can only inlude the * and . characters.");
+			}
+		}
+		return line;
+	}
+
+	/**
+	 * Streams a board straight from the input to the output, three rows at a
+	 * time.
+	 */
+	private void stream(long id, BufferedReader in, int rows, int columns, OutputStream out) throws IOException {
+		synchronized (this) {
+			streamed++;
+		}
+		out.write(header(id));
+		StreamedMines mines = new StreamedMines(in, rows, columns);
+		long[] deadline = new long[1];
+		try {
+			tables.get().render(mines, LINE_SEPARATOR, (row, hints, offset, length) -> {
+				checkDeadline(row, deadline);
+				try {
+					out.write(hints, offset, length);
+				} catch (IOException e) {
+					throw new MineSweeperException("Unable to write hints for board " + id + ".");
+				}
+			});
+		} catch (DeadlineExceeded e) {
+			mines.skipRest();
+			out.write(cancellation(id));
+		}
+		out.write(LINE_SEPARATOR);
+	}
+
+	/**
+	 * Sweeps the boards of the input.
+	 *
+	 * @param input
+	 *            board definitions, possibly compressed.
+	 * @param out
+	 *            stream receiving the hints.
+	 */
+	public void sweep(InputStream input, OutputStream out) throws IOException {
+		BufferedReader in = new BufferedReader(
+				new InputStreamReader(CompressedStreams.open(input), StandardCharsets.US_ASCII), 1 << 16);
+		Deque<Pending> pending = new ArrayDeque<>();
+		try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+			long id = 0;
+			String line;
+			while ((line = in.readLine()) != null) {
+				Matcher header = HEADER.matcher(line.trim());
+				if (!header.matches()) {
+					throw new MineSweeperException("Invalid input.  Expected a board header but found: " + line);
+				}
+				int rows;
+				int columns;
+				try {
+					rows = Integer.parseInt(header.group(1) != null ? header.group(1) : header.group(3));
+					columns = Integer.parseInt(header.group(2) != null ? header.group(2) : header.group(4));
+				} catch (NumberFormatException e) {
+					throw new MineSweeperException("Invalid input.  Board dimensions are too large: " + line);
+				}
+				if (rows == 0 && columns == 0) {
+					break;
+				}
+				id++;
+
+				if (deadlineNanos > 0 && rows * (double) columns * nanosPerSquare > deadlineNanos) {
+					// cannot finish in time; skip the rows instead of holding them
+					new StreamedMines(in, rows, columns).skipRest();
+					byte[] cancelled = concat(header(id), cancellation(id), LINE_SEPARATOR);
+					pending.add(new Pending(CompletableFuture.completedFuture(cancelled), 0));
+					continue;
+				}
+				long footprint = footprint(rows, columns);
+				if (footprint < 0 || footprint > memoryBudget) {
+					while (!pending.isEmpty()) {
+						write(pending.removeFirst(), out);
+					}
+					stream(id, in, rows, columns, out);
+					continue;
+				}
+				while (reserved + footprint > memoryBudget && !pending.isEmpty()) {
+					write(pending.removeFirst(), out);
+				}
+				reserved += footprint;
+
+				long board = id;
+				long[] bits = read(in, rows, columns);
+				pending.add(new Pending(executor.submit(() -> hint(board, bits, rows, columns)), footprint));
+
+				// write whatever is already done, keeping small boards prompt
+				while (!pending.isEmpty() && pending.peekFirst().output.isDone()) {
+					write(pending.removeFirst(), out);
+				}
+			}
+			while (!pending.isEmpty()) {
+				write(pending.removeFirst(), out);
+			}
+			out.flush();
+		}
+	}
+
+	private static byte[] concat(byte[]... parts) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (byte[] part : parts) {
+			out.write(part, 0, part.length);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Sets the time allowed to hint one board.
+	 *
+	 * @param time
+	 *            positive time, or 0 for no deadline.
+	 * @param unit
+	 *            unit of <code>time</code>.
+	 * @return scheduler instance useful for method chaining.
+	 */
+	public BoardScheduler withDeadline(long time, TimeUnit unit) {
+		if (time < 0) {
+			throw new MineSweeperException("Invalid arguments.  Deadline must not be negative.");
+		}
+		this.deadlineNanos = unit.toNanos(time);
+		return this;
+	}
+
+	/**
+	 * Sets the memory boards may hold at once; larger boards are streamed.
+	 *
+	 * @param bytes
+	 *            positive number of bytes.
+	 * @return scheduler instance useful for method chaining.
+	 */
+	public BoardScheduler withMemoryBudget(long bytes) {
+		if (bytes < 1) {
+			throw new MineSweeperException("Invalid arguments.  Memory budget must be positive.");
+		}
+		this.memoryBudget = bytes;
+		return this;
+	}
+
+	/**
+	 * Sets the estimated time to hint one square; 0 never cancels a board
+	 * before it starts.
+	 */
+	BoardScheduler withNanosPerSquare(double nanos) {
+		this.nanosPerSquare = nanos;
+		return this;
+	}
+
+	/**
+	 * Sets the number of boards hinted at once.
+	 *
+	 * @param threads
+	 *            positive number of concurrent boards.
+	 * @return scheduler instance useful for method chaining.
+	 */
+	public BoardScheduler withThreads(int threads) {
+		if (threads < 1) {
+			throw new MineSweeperException("Invalid arguments.  Thread count must be positive.");
+		}
+		this.threads = threads;
+		return this;
+	}
+
+	private void write(Pending board, OutputStream out) throws IOException {
+		out.write(await(board.output));
+		reserved -= board.footprint;
+	}
+}
@@ -0,0 +1,123 @@
+package sfranson.minesweeper;
+
+/**
+ * Counts mines in a square neighbourhood of any radius as a separable box sum.
+ *
+ * <p>
+ * Every row is first reduced horizontally with a running sum over a window of
+ * <code>2 * radius + 1</code> columns. A second running sum adds those row
+ * sums vertically over the same number of rows. Each square therefore costs a
+ * constant number of additions whatever the radius, and only a few rows are
+ * held in memory at once.
+ * </p>
+ *
+ * <p>
+ * A square's count includes the square itself, so for a safe square it is the
+ * number of mines within <code>radius</code> squares in every direction.
+ * </p>
+ *
+ * @see Board#withRadius(int)
+ */
+public class BoxSumKernel {
+
+	/**
+	 * Receives the counts of one row at a time, in order.
+	 */
+	@FunctionalInterface
+	public interface RowConsumer {
+
+		/**
+		 * @param row
+		 *            zero-based row index.
+		 * @param counts
+		 *            mine count of each column; only valid during the call.
+		 */
+		void accept(int row, int[] counts);
+	}
+
+	private final int radius;
+
+	/**
+	 * Creates a kernel for the given neighbourhood radius.
+	 *
+	 * @param radius
+	 *            positive radius; 1 is the classic 8-square neighbourhood.
+	 */
+	public BoxSumKernel(int radius) {
+		if (radius < 1) {
+			throw new MineSweeperException("Invalid radius.  The neighbourhood radius must be positive.");
+		}
+		this.radius = radius;
+	}
+
+	/**
+	 * Calculates the counts of every row of the mines.
+	 *
+	 * @param mines
+	 *            mines to count.
+	 * @param consumer
+	 *            receives the counts row by row.
+	 */
+	public void apply(MineMap mines, RowConsumer consumer) {
+		int rowCount = mines.getRowCount();
+		int columnCount = mines.getColumnCount();
+		int[] window = new int[columnCount];
+		int[] rowSums = new int[columnCount];
+		int[] counts = new int[columnCount];
+
+		// prime the window with the rows below the first one
+		for (int row = 0; row < Math.min(radius, rowCount); row++) {
+			horizontal(mines, row, rowSums);
+			add(window, rowSums, 1);
+		}
+		for (int row = 0; row < rowCount; row++) {
+			int entering = row + radius;
+			if (entering < rowCount) {
+				horizontal(mines, entering, rowSums);
+				add(window, rowSums, 1);
+			}
+			int leaving = row - radius - 1;
+			if (leaving >= 0) {
+				horizontal(mines, leaving, rowSums);
+				add(window, rowSums, -1);
+			}
+			System.arraycopy(window, 0, counts, 0, columnCount);
+			consumer.accept(row, counts);
+		}
+	}
+
+	private static void add(int[] window, int[] rowSums, int sign) {
+		for (int col = 0; col < window.length; col++) {
+			window[col] += sign * rowSums[col];
+		}
+	}
+
+	/**
+	 * Gets the neighbourhood radius.
+	 */
+	public int getRadius() {
+		return radius;
+	}
+
+	/**
+	 * Running sum of mines over columns <code>[col - radius, col + radius]</code>.
+	 */
+	private void horizontal(MineMap mines, int row, int[] sums) {
+		int columnCount = sums.length;
+		int sum = 0;
+		for (int col = 0; col < Math.min(radius, columnCount); col++) {
+			sum += mines.isMine(row, col) ? 1 : 0;
+		}
+		for (int col = 0; col < columnCount; col++) {
+			int entering = col + radius;
+			if (entering < columnCount && mines.isMine(row, entering)) {
+				sum++;
+			}
+			int leaving = col - radius - 1;
+			if (leaving >= 0 && mines.isMine(row, leaving)) {
+				sum--;
+			}
+			sums[col] = sum;
+		}
+	}
+}
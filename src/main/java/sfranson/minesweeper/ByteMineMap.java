@@ -0,0 +1,90 @@
+package sfranson.minesweeper;
+
+/**
+ * Mine map backed by a byte grid, one byte per square in row-major order; any
+ * non-zero byte is a mine.
+ *
+ * <p>
+ * The array is used as is, not copied.
+ * </p>
+ *
+ * @see HintCalculator
+ */
+public class ByteMineMap implements MineMap {
+
+	private final int columnCount;
+
+	private final byte[] grid;
+
+	private final int offset;
+
+	private final int rowCount;
+
+	/**
+	 * Creates a map over a whole array.
+	 *
+	 * @param grid
+	 *            mines, one byte per square.
+	 * @param rows
+	 *            number of rows.
+	 * @param columns
+	 *            number of columns.
+	 * @throws MineSweeperException
+	 *             if the grid is too small for the dimensions.
+	 */
+	public ByteMineMap(byte[] grid, int rows, int columns) {
+		this(grid, 0, rows, columns);
+	}
+
+	/**
+	 * Creates a map over part of an array.
+	 *
+	 * @param grid
+	 *            mines, one byte per square.
+	 * @param offset
+	 *            position in <code>grid</code> of the first square.
+	 * @param rows
+	 *            number of rows.
+	 * @param columns
+	 *            number of columns.
+	 * @throws MineSweeperException
+	 *             if the grid is too small for the dimensions.
+	 */
+	public ByteMineMap(byte[] grid, int offset, int rows, int columns) {
+		if (rows < 0 || columns < 0 || offset < 0) {
+			throw new MineSweeperException("Invalid mine map.  Dimensions must not be negative.");
+		}
+		if ((long) rows * columns > grid.length - offset) {
+			throw new MineSweeperException(
+					"Invalid mine map.  " + (grid.length - offset) + " bytes cannot hold a " + rows + "x" + columns
+							+ " board.");
+		}
+		this.grid = grid;
+		this.offset = offset;
+		this.rowCount = rows;
+		this.columnCount = columns;
+	}
+
+	@Override
+	public void copyRow(int row, byte[] target, int targetOffset) {
+		int start = offset + row * columnCount;
+		for (int col = 0; col < columnCount; col++) {
+			target[targetOffset + col] = (byte) (grid[start + col] != 0 ? 1 : 0);
+		}
+	}
+
+	@Override
+	public int getColumnCount() {
+		return columnCount;
+	}
+
+	@Override
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	@Override
+	public boolean isMine(int row, int col) {
+		return grid[offset + row * columnCount + col] != 0;
+	}
+}
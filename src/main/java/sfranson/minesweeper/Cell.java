@@ -7,6 +7,29 @@ public class Cell {
 
 	private int value;
 
+	/**
+	 * Resets the cell to a safe cell with no adjacent mines, for reuse.
+	 */
+	void clear() {
+		value = 0;
+	}
+
+	/**
+	 * Sets the number of adjacent mine cells.
+	 * 
+	 * <p>
+	 * {@link #isMine() Mine cells} keep their value.
+	 * </p>
+	 * 
+	 * @param count
+	 *            number of adjacent mines.
+	 */
+	public void count(int count) {
+		if (!isMine()) {
+			value = count;
+		}
+	}
+
 	/**
 	 * Increments the value if possible.
 	 * 
@@ -56,6 +79,17 @@ public class Cell {
 		this.value = "*".equals(value) ? -1 : 0;
 	}
 
+	/**
+	 * Sets the raw value of the cell based on a single pattern character.
+	 * 
+	 * @param value
+	 *            cell pattern character.
+	 * @see #rawValue(String)
+	 */
+	public void rawValue(char value) {
+		this.value = value == '*' ? -1 : 0;
+	}
+
 	/**
 	 * Returns the interpreted value of the cell, either "*" for a mine, or the
 	 * current number of adjacent mine cells.
@@ -0,0 +1,141 @@
+package sfranson.minesweeper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Opens board definitions and hint outputs that may be compressed.
+ *
+ * <p>
+ * Input is recognised by its first bytes, so compressed and plain files can be
+ * mixed freely: gzip (including files of several concatenated members) and
+ * zlib-wrapped deflate are decompressed, on a separate thread so that
+ * decompression overlaps with parsing. Output is compressed according to the
+ * file name: <b>.gz</b> for gzip and <b>.zz</b> for zlib deflate.
+ * </p>
+ */
+public final class CompressedStreams {
+
+	/**
+	 * Size of the stream buffers and of the chunks decompressed ahead.
+	 */
+	static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Number of chunks decompressed ahead of the parser.
+	 */
+	static final int PREFETCH_DEPTH = 8;
+
+	/**
+	 * Gets a file name without its compression suffix.
+	 *
+	 * @param name
+	 *            file name, e.g. <code>boards.txt.gz</code>.
+	 * @return the name without <b>.gz</b> or <b>.zz</b>, e.g.
+	 *         <code>boards.txt</code>.
+	 */
+	public static String baseName(String name) {
+		if (name.endsWith(".gz") || name.endsWith(".zz")) {
+			return name.substring(0, name.length() - 3);
+		}
+		return name;
+	}
+
+	/**
+	 * Creates a buffered output file, compressed if its name asks for it.
+	 *
+	 * @param file
+	 *            file to create or replace.
+	 * @return stream writing the file.
+	 */
+	public static OutputStream create(Path file) throws IOException {
+		OutputStream out = Files.newOutputStream(file);
+		String name = file.getFileName().toString();
+		if (name.endsWith(".gz")) {
+			out = new GZIPOutputStream(out, BUFFER_SIZE);
+		} else if (name.endsWith(".zz")) {
+			out = new DeflaterOutputStream(out, new Deflater(), BUFFER_SIZE) {
+
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						def.end();
+					}
+				}
+			};
+		}
+		return new BufferedOutputStream(out, BUFFER_SIZE);
+	}
+
+	/**
+	 * Indicates a stream starting with the given two bytes would be
+	 * decompressed by {@link #open(InputStream)}.
+	 */
+	static boolean isCompressed(int b0, int b1) {
+		return isGzip(b0, b1) || isZlib(b0, b1);
+	}
+
+	private static boolean isGzip(int b0, int b1) {
+		return b0 == 0x1f && b1 == 0x8b;
+	}
+
+	/**
+	 * Recognises a zlib header: deflate method, no preset dictionary, and a check
+	 * value making the first two bytes a multiple of 31.
+	 */
+	private static boolean isZlib(int b0, int b1) {
+		return b0 >= 0 && b1 >= 0 && (b0 & 0x0f) == 8 && (b0 >>> 4) <= 7 && (b1 & 0x20) == 0
+				&& ((b0 << 8) | b1) % 31 == 0;
+	}
+
+	/**
+	 * Wraps an input stream, decompressing it if it starts with a gzip or zlib
+	 * header.
+	 *
+	 * @param source
+	 *            raw input.
+	 * @return buffered, decompressed input.
+	 */
+	public static InputStream open(InputStream source) throws IOException {
+		BufferedInputStream in = new BufferedInputStream(source, BUFFER_SIZE);
+		in.mark(2);
+		int b0 = in.read();
+		int b1 = in.read();
+		in.reset();
+		if (isGzip(b0, b1)) {
+			return new PrefetchInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE, PREFETCH_DEPTH);
+		}
+		if (isZlib(b0, b1)) {
+			Inflater inflater = new Inflater();
+			InputStream inflating = new InflaterInputStream(in, inflater, BUFFER_SIZE) {
+
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						inflater.end();
+					}
+				}
+			};
+			return new PrefetchInputStream(inflating, BUFFER_SIZE, PREFETCH_DEPTH);
+		}
+		return in;
+	}
+
+	private CompressedStreams() {
+	}
+}
@@ -0,0 +1,366 @@
+package sfranson.minesweeper;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Program that measures the cells, the {@link HintTable} and the
+ * {@link HintCalculator} on boards of growing size and mine density, and
+ * derives the thresholds of an {@link EngineSelector} for the host.
+ *
+ * <p>
+ * For every size and density, the same random boards are read, closed and
+ * printed with each engine, discarding the hints, and the fastest of several
+ * rounds is kept. Of every measured size and density, the selector takes the
+ * minimum number of squares and the density of dense boards, and the number of
+ * squares from which dense boards go to the calculator, that minimise the time
+ * of the engines it would choose, each relative to the fastest engine of its
+ * measurement. A single noisy measurement therefore moves the thresholds only
+ * if choosing differently would have been faster overall.
+ * </p>
+ *
+ * <ul>
+ * Arguments:
+ * <li><b>--sizes RxC,...</b> - board sizes to measure; defaults to 2x2, 3x3,
+ * 4x4, 6x6, 9x9, 16x16 and 32x32.</li>
+ * <li><b>--boards n</b> - boards per size and density; defaults to 2000.</li>
+ * <li><b>--rounds n</b> - rounds per measurement, the first of which warms
+ * up; defaults to 5.</li>
+ * </ul>
+ *
+ * <p>
+ * The thresholds are printed as the system properties of the
+ * <b>adaptive</b> engine.
+ * </p>
+ */
+public class EngineCalibration {
+
+	/**
+	 * Time per board of every engine at one size and density.
+	 */
+	public static final class Point {
+
+		private final long calculatorNanos;
+
+		private final long cellNanos;
+
+		private final int columns;
+
+		private final double density;
+
+		private final int rows;
+
+		private final long tableNanos;
+
+		Point(int rows, int columns, double density, long cellNanos, long tableNanos, long calculatorNanos) {
+			this.rows = rows;
+			this.columns = columns;
+			this.density = density;
+			this.cellNanos = cellNanos;
+			this.tableNanos = tableNanos;
+			this.calculatorNanos = calculatorNanos;
+		}
+
+		/**
+		 * Gets the time per board of the calculator, in nanoseconds.
+		 */
+		public long getCalculatorNanos() {
+			return calculatorNanos;
+		}
+
+		/**
+		 * Gets the time per board of the cells, in nanoseconds.
+		 */
+		public long getCellNanos() {
+			return cellNanos;
+		}
+
+		/**
+		 * Gets the share of mines of the boards.
+		 */
+		public double getDensity() {
+			return density;
+		}
+
+		/**
+		 * Gets the number of squares of the boards.
+		 */
+		public int getSquares() {
+			return rows * columns;
+		}
+
+		/**
+		 * Gets the time per board of the table, in nanoseconds.
+		 */
+		public long getTableNanos() {
+			return tableNanos;
+		}
+
+		/**
+		 * Gets the time per board of the fastest engine, at least 1.
+		 */
+		long fastest() {
+			return Math.max(1, Math.min(cellNanos, Math.min(tableNanos, calculatorNanos)));
+		}
+
+		/**
+		 * Gets the time per board of an engine.
+		 */
+		long nanos(EngineSelector.Engine engine) {
+			if (engine == EngineSelector.Engine.CALCULATOR) {
+				return calculatorNanos;
+			}
+			return engine == EngineSelector.Engine.TABLE ? tableNanos : cellNanos;
+		}
+
+		@Override
+		public String toString() {
+			String fastest = calculatorNanos < Math.min(cellNanos, tableNanos) ? "calculator"
+					: tableNanos <= cellNanos ? "table" : "cells";
+			return String.format(Locale.ROOT,
+					"size=%dx%d density=%.2f cells=%dns table=%dns calculator=%dns fastest=%s", rows, columns,
+					density, cellNanos, tableNanos, calculatorNanos, fastest);
+		}
+	}
+
+	/**
+	 * Densities measured at every size.
+	 */
+	static final double[] DENSITIES = { 0, 0.02, 0.05, 0.1, 0.15, 0.2, 0.3, 0.4, 0.5, 0.7, 0.9 };
+
+	/**
+	 * Discards the hints.
+	 */
+	private static final OutputStream DISCARD = OutputStream.nullOutputStream();
+
+	/**
+	 * Parses the arguments, measures every size and density and prints the
+	 * measurements followed by the thresholds.
+	 *
+	 * @param args
+	 *            see class description.
+	 */
+	public static void main(String[] args) {
+		try {
+			List<int[]> sizes = new ArrayList<>();
+			EngineCalibration calibration = new EngineCalibration();
+			for (int i = 0; i < args.length; i++) {
+				String arg = args[i];
+				if ("--sizes".equals(arg) && i + 1 < args.length) {
+					for (String size : args[++i].split(",")) {
+						String[] dimensions = size.trim().split("x");
+						sizes.add(new int[] { Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]) });
+					}
+				} else if ("--boards".equals(arg) && i + 1 < args.length) {
+					calibration.withBoards(Integer.parseInt(args[++i]));
+				} else if ("--rounds".equals(arg) && i + 1 < args.length) {
+					calibration.withRounds(Integer.parseInt(args[++i]));
+				} else {
+					throw new MineSweeperException("Invalid arguments.  Unknown option " + arg + ".");
+				}
+			}
+			if (sizes.isEmpty()) {
+				for (int side : new int[] { 2, 3, 4, 6, 9, 16, 32 }) {
+					sizes.add(new int[] { side, side });
+				}
+			}
+			// the first sizes would otherwise be measured before the JIT compiles
+			for (int[] size : sizes) {
+				calibration.measure(size[0], size[1], 0.5);
+			}
+			List<Point> points = new ArrayList<>();
+			for (int[] size : sizes) {
+				for (double density : DENSITIES) {
+					Point point = calibration.measure(size[0], size[1], density);
+					System.out.println(point);
+					points.add(point);
+				}
+			}
+			EngineSelector selector = selector(points);
+			System.out.println(String.format(Locale.ROOT, "-D%s=%.3f -D%s=%d -D%s=%d",
+					MineSweeper.ADAPTIVE_DENSITY_PROPERTY, selector.getDensity(), MineSweeper.ADAPTIVE_SQUARES_PROPERTY,
+					selector.getMinSquares(), MineSweeper.ADAPTIVE_CALCULATOR_PROPERTY, selector.getCalculatorSquares()));
+		} catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+			System.err.println("Invalid arguments.  " + e.getMessage());
+			System.exit(2);
+		} catch (MineSweeperException e) {
+			System.err.println(e.getMessage());
+			System.exit(2);
+		}
+	}
+
+	/**
+	 * Derives the thresholds from measurements, see the class description.
+	 *
+	 * @param points
+	 *            measurements of any sizes and densities.
+	 * @return a selector that never chooses the table or the calculator if
+	 *         neither was ever faster.
+	 */
+	static EngineSelector selector(List<Point> points) {
+		List<Integer> squares = new ArrayList<>();
+		List<Double> densities = new ArrayList<>();
+		for (Point point : points) {
+			if (!squares.contains(point.getSquares())) {
+				squares.add(point.getSquares());
+			}
+			if (!densities.contains(point.getDensity())) {
+				densities.add(point.getDensity());
+			}
+		}
+		List<Integer> calculatorSquares = new ArrayList<>();
+		calculatorSquares.add(Integer.MAX_VALUE);
+		calculatorSquares.addAll(squares);
+		EngineSelector best = new EngineSelector(Double.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+		double bestCost = cost(points, best);
+		for (int minSquares : squares) {
+			for (double density : densities) {
+				for (int calculator : calculatorSquares) {
+					EngineSelector candidate = new EngineSelector(density, minSquares, calculator);
+					double cost = cost(points, candidate);
+					// ties keep the cells, the engine of every other sweep, then the table
+					if (cost < bestCost) {
+						best = candidate;
+						bestCost = cost;
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Gets the time of the engines a selector chooses, each relative to the
+	 * fastest engine of its measurement, summed over the measurements.
+	 */
+	private static double cost(List<Point> points, EngineSelector selector) {
+		double cost = 0;
+		for (Point point : points) {
+			EngineSelector.Engine engine = EngineSelector.Engine.CELLS;
+			if (point.getSquares() >= selector.getMinSquares() && point.getDensity() >= selector.getDensity()) {
+				engine = point.getSquares() >= selector.getCalculatorSquares() ? EngineSelector.Engine.CALCULATOR
+						: EngineSelector.Engine.TABLE;
+			}
+			cost += (double) point.nanos(engine) / point.fastest();
+		}
+		return cost;
+	}
+
+	private final Board board = new Board();
+
+	private int boards = 2000;
+
+	private int rounds = 5;
+
+	private long seed = 1;
+
+	/**
+	 * Creates random row definitions of boards with the given density.
+	 */
+	private String[][] boards(int rows, int columns, double density) {
+		Random random = new Random(seed);
+		String[][] definitions = new String[boards][rows];
+		char[] row = new char[columns];
+		for (int b = 0; b < boards; b++) {
+			for (int r = 0; r < rows; r++) {
+				for (int c = 0; c < columns; c++) {
+					row[c] = random.nextDouble() < density ? '*' : '.';
+				}
+				definitions[b][r] = new String(row);
+			}
+		}
+		return definitions;
+	}
+
+	/**
+	 * Measures every engine at one size and density.
+	 *
+	 * @param rows
+	 *            positive number of rows.
+	 * @param columns
+	 *            positive number of columns.
+	 * @param density
+	 *            share of mines, from 0 to 1.
+	 * @return the fastest time per board of each engine.
+	 */
+	public Point measure(int rows, int columns, double density) {
+		if (rows < 1 || columns < 1 || !(density >= 0 && density <= 1)) {
+			throw new MineSweeperException("Invalid arguments.  Dimensions must be positive and density from 0 to 1.");
+		}
+		String[][] definitions = boards(rows, columns, density);
+		long cells = Long.MAX_VALUE;
+		long table = Long.MAX_VALUE;
+		long calculator = Long.MAX_VALUE;
+		for (int round = 0; round < rounds; round++) {
+			// interleaved, so every engine sees the same state of the heap and JIT
+			long cellsTime = sweep(definitions, rows, columns, EngineSelector.Engine.CELLS);
+			long tableTime = sweep(definitions, rows, columns, EngineSelector.Engine.TABLE);
+			long calculatorTime = sweep(definitions, rows, columns, EngineSelector.Engine.CALCULATOR);
+			if (round > 0 || rounds == 1) {
+				cells = Math.min(cells, cellsTime);
+				table = Math.min(table, tableTime);
+				calculator = Math.min(calculator, calculatorTime);
+			}
+		}
+		return new Point(rows, columns, density, cells / boards, table / boards, calculator / boards);
+	}
+
+	/**
+	 * Reads, closes and prints every board with one engine.
+	 *
+	 * @return the time taken, in nanoseconds.
+	 */
+	private long sweep(String[][] definitions, int rows, int columns, EngineSelector.Engine engine) {
+		long started = System.nanoTime();
+		for (String[] definition : definitions) {
+			board.reset("1", rows, columns);
+			if (engine == EngineSelector.Engine.TABLE) {
+				board.withHintTable();
+			} else if (engine == EngineSelector.Engine.CALCULATOR) {
+				board.withHintCalculator();
+			}
+			board.withRows(definition).print(DISCARD);
+		}
+		return System.nanoTime() - started;
+	}
+
+	/**
+	 * Sets the number of boards per size and density.
+	 *
+	 * @param boards
+	 *            positive number of boards.
+	 */
+	public EngineCalibration withBoards(int boards) {
+		if (boards < 1) {
+			throw new MineSweeperException("Invalid arguments.  The number of boards must be positive.");
+		}
+		this.boards = boards;
+		return this;
+	}
+
+	/**
+	 * Sets the number of rounds per measurement; with more than one, the first
+	 * only warms up.
+	 *
+	 * @param rounds
+	 *            positive number of rounds.
+	 */
+	public EngineCalibration withRounds(int rounds) {
+		if (rounds < 1) {
+			throw new MineSweeperException("Invalid arguments.  The number of rounds must be positive.");
+		}
+		this.rounds = rounds;
+		return this;
+	}
+
+	/**
+	 * Sets the seed of the random boards.
+	 */
+	public EngineCalibration withSeed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+}
@@ -0,0 +1,214 @@
+package sfranson.minesweeper;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chooses how the hints of each board are calculated from its dimensions and
+ * mine density, known once its rows have been read.
+ *
+ * <p>
+ * The cells skip rows without mines, visit every square of the others and add
+ * one to the eight neighbours of every mine, so their cost grows with the
+ * number of rows holding mines and with the mines themselves. The
+ * {@link HintTable} renders every square with one lookup in a table of
+ * byte-per-square neighbourhoods, and the {@link HintCalculator} sums the
+ * columns of three rows of a dense grid once and adds three sums per square.
+ * Neither depends on the density, only on the size of the board, but both copy
+ * the mines out of the cells first, which small boards do not repay. Boards of
+ * at least {@link #getMinSquares()} squares whose density is at least
+ * {@link #getDensity()} are dense: those of at least
+ * {@link #getCalculatorSquares()} squares go to the calculator, the others to
+ * the table. All remaining boards go to the cells.
+ * {@link EngineCalibration} measures the three thresholds for the host.
+ * </p>
+ *
+ * <p>
+ * The calculator threshold defaults to {@link Integer#MAX_VALUE}, since the
+ * table has been faster wherever measured, so unless calibration finds
+ * otherwise the selector only chooses between the cells and the table. There
+ * is no word-parallel engine over a {@link BitMineMap}: boards hold their
+ * mines in cells, and packing them into words would cost the same copy.
+ * </p>
+ *
+ * <p>
+ * The selector is immutable apart from its counters, which are thread safe,
+ * so one instance may be shared by all boards of any number of sweeps.
+ * </p>
+ *
+ * @see Board#withEngineSelector(EngineSelector)
+ */
+public final class EngineSelector {
+
+	/**
+	 * Ways of calculating hints.
+	 */
+	public enum Engine {
+
+		/**
+		 * The {@link HintCalculator} sums the mines of the columns of every
+		 * three rows.
+		 */
+		CALCULATOR,
+
+		/**
+		 * Every mine increments the cells around it; rows without mines are
+		 * skipped.
+		 */
+		CELLS,
+
+		/**
+		 * Every square is looked up in the {@link HintTable}.
+		 */
+		TABLE
+	}
+
+	/**
+	 * Default number of squares from which dense boards go to the calculator:
+	 * none, since the table was faster at every size and density measured.
+	 */
+	public static final int DEFAULT_CALCULATOR_SQUARES = Integer.MAX_VALUE;
+
+	/**
+	 * Default share of mines from which boards go to the table.
+	 */
+	public static final double DEFAULT_DENSITY = 0.02;
+
+	/**
+	 * Default number of squares from which boards go to the table.
+	 */
+	public static final int DEFAULT_MIN_SQUARES = 9;
+
+	private final AtomicLong calculatorBoards = new AtomicLong();
+
+	private final int calculatorSquares;
+
+	private final AtomicLong cellBoards = new AtomicLong();
+
+	private final double density;
+
+	private final int minSquares;
+
+	private final AtomicLong tableBoards = new AtomicLong();
+
+	/**
+	 * Creates a selector with the thresholds of the
+	 * {@link MineSweeper#ADAPTIVE_DENSITY_PROPERTY},
+	 * {@link MineSweeper#ADAPTIVE_SQUARES_PROPERTY} and
+	 * {@link MineSweeper#ADAPTIVE_CALCULATOR_PROPERTY} system properties, else
+	 * the defaults.
+	 */
+	public EngineSelector() {
+		this(Double.parseDouble(
+				System.getProperty(MineSweeper.ADAPTIVE_DENSITY_PROPERTY, Double.toString(DEFAULT_DENSITY))),
+				Integer.getInteger(MineSweeper.ADAPTIVE_SQUARES_PROPERTY, DEFAULT_MIN_SQUARES),
+				Integer.getInteger(MineSweeper.ADAPTIVE_CALCULATOR_PROPERTY, DEFAULT_CALCULATOR_SQUARES));
+	}
+
+	/**
+	 * Creates a selector that chooses between the cells and the table only.
+	 *
+	 * @param density
+	 *            share of mines, from 0 to 1, from which boards go to the
+	 *            table; above 1 always uses the cells.
+	 * @param minSquares
+	 *            number of squares from which boards go to the table.
+	 */
+	public EngineSelector(double density, int minSquares) {
+		this(density, minSquares, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Creates a selector with the given thresholds.
+	 *
+	 * @param density
+	 *            share of mines, from 0 to 1, from which boards are dense;
+	 *            above 1 always uses the cells.
+	 * @param minSquares
+	 *            number of squares from which boards are dense.
+	 * @param calculatorSquares
+	 *            number of squares from which dense boards go to the
+	 *            calculator rather than the table.
+	 */
+	public EngineSelector(double density, int minSquares, int calculatorSquares) {
+		if (!(density >= 0) || minSquares < 0 || calculatorSquares < 0) {
+			throw new MineSweeperException("Invalid arguments.  Thresholds must not be negative.");
+		}
+		this.density = density;
+		this.minSquares = minSquares;
+		this.calculatorSquares = calculatorSquares;
+	}
+
+	/**
+	 * Gets the number of boards sent to the calculator.
+	 */
+	public long getCalculatorBoards() {
+		return calculatorBoards.get();
+	}
+
+	/**
+	 * Gets the number of squares from which dense boards go to the calculator.
+	 */
+	public int getCalculatorSquares() {
+		return calculatorSquares;
+	}
+
+	/**
+	 * Gets the number of boards sent to the cells.
+	 */
+	public long getCellBoards() {
+		return cellBoards.get();
+	}
+
+	/**
+	 * Gets the share of mines from which boards are dense.
+	 */
+	public double getDensity() {
+		return density;
+	}
+
+	/**
+	 * Gets the number of squares from which boards are dense.
+	 */
+	public int getMinSquares() {
+		return minSquares;
+	}
+
+	/**
+	 * Gets the number of boards sent to the table.
+	 */
+	public long getTableBoards() {
+		return tableBoards.get();
+	}
+
+	/**
+	 * Chooses the engine of a board and counts it.
+	 *
+	 * @param rows
+	 *            number of rows.
+	 * @param columns
+	 *            number of columns.
+	 * @param mines
+	 *            number of mines.
+	 */
+	public Engine select(int rows, int columns, long mines) {
+		long squares = (long) rows * columns;
+		if (squares >= minSquares && squares > 0 && mines >= density * squares) {
+			if (squares >= calculatorSquares) {
+				calculatorBoards.incrementAndGet();
+				return Engine.CALCULATOR;
+			}
+			tableBoards.incrementAndGet();
+			return Engine.TABLE;
+		}
+		cellBoards.incrementAndGet();
+		return Engine.CELLS;
+	}
+
+	@Override
+	public String toString() {
+		return "EngineSelector[density=" + String.format(Locale.ROOT, "%.3f", density) + ", minSquares="
+				+ minSquares + ", calculatorSquares=" + calculatorSquares + ", cells=" + cellBoards.get() + ", table="
+				+ tableBoards.get() + ", calculator=" + calculatorBoards.get() + "]";
+	}
+}
@@ -0,0 +1,245 @@
+package sfranson.minesweeper;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Demand-driven {@link Flow.Processor} turning every item of its upstream into
+ * zero or more items for a single subscriber.
+ *
+ * <p>
+ * Upstream items are requested one at a time, and only while the subscriber
+ * has unmet demand and nothing is left over from the previous item, so demand
+ * travels all the way to the source and at most one upstream item's output is
+ * held. No thread is ever blocked: items are processed and delivered on
+ * whichever thread signals, serialised by a work-in-progress counter.
+ * </p>
+ *
+ * @param <T>
+ *            type of the upstream items.
+ * @param <R>
+ *            type of the published items.
+ * @see BoardProcessor
+ * @see LineSplitter
+ */
+abstract class FlowStage<T, R> implements Flow.Processor<T, R> {
+
+	/**
+	 * Subscription handed to the subscriber.
+	 */
+	private final class Downstream implements Flow.Subscription {
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			cancelUpstream();
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				fail(new IllegalArgumentException("Demand must be positive, was " + n + "."));
+				return;
+			}
+			demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+			drain();
+		}
+	}
+
+	/**
+	 * Indicates an upstream item has been requested and not yet received.
+	 */
+	private volatile boolean awaiting;
+
+	private volatile boolean cancelled;
+
+	private final AtomicLong demand = new AtomicLong();
+
+	private volatile boolean done;
+
+	private volatile Throwable error;
+
+	/**
+	 * Processed items not yet delivered.
+	 */
+	private final Queue<R> ready = new ConcurrentLinkedQueue<>();
+
+	private volatile Flow.Subscriber<? super R> subscriber;
+
+	private boolean subscribed;
+
+	private boolean terminated;
+
+	private volatile Flow.Subscription upstream;
+
+	private final AtomicInteger wip = new AtomicInteger();
+
+	private void cancelUpstream() {
+		Flow.Subscription subscription = upstream;
+		if (subscription != null) {
+			subscription.cancel();
+		}
+	}
+
+	/**
+	 * Ends the stage early, e.g. at an end-of-input marker. Items already
+	 * processed are still delivered before completing.
+	 */
+	protected void complete() {
+		done = true;
+		cancelUpstream();
+	}
+
+	/**
+	 * Delivers items while there is demand, terminates once everything has been
+	 * delivered, and otherwise requests the next upstream item.
+	 */
+	private void drain() {
+		if (wip.getAndIncrement() != 0) {
+			return;
+		}
+		do {
+			Flow.Subscriber<? super R> target = subscriber;
+			if (target == null || terminated) {
+				continue;
+			}
+			if (cancelled) {
+				ready.clear();
+				continue;
+			}
+			while (demand.get() > 0 && !ready.isEmpty()) {
+				demand.decrementAndGet();
+				target.onNext(ready.poll());
+			}
+			if (ready.isEmpty() && done) {
+				terminated = true;
+				if (error != null) {
+					target.onError(error);
+				} else {
+					target.onComplete();
+				}
+			} else if (ready.isEmpty() && demand.get() > 0 && upstream != null && !awaiting) {
+				awaiting = true;
+				upstream.request(1);
+			}
+		} while (wip.decrementAndGet() != 0);
+	}
+
+	private void fail(Throwable e) {
+		if (!done) {
+			error = e;
+			done = true;
+			ready.clear();
+		}
+		cancelUpstream();
+		drain();
+	}
+
+	/**
+	 * Publishes whatever the last upstream item left pending once the upstream
+	 * completes; does nothing by default.
+	 *
+	 * @param emit
+	 *            receives the items to publish.
+	 */
+	protected void finish(Consumer<R> emit) {
+		// nothing pending
+	}
+
+	@Override
+	public void onComplete() {
+		if (!done) {
+			try {
+				finish(ready::add);
+			} catch (RuntimeException e) {
+				fail(e);
+				return;
+			}
+			done = true;
+		}
+		drain();
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		if (!done) {
+			error = throwable;
+			done = true;
+		}
+		drain();
+	}
+
+	@Override
+	public void onNext(T item) {
+		awaiting = false;
+		if (done) {
+			return;
+		}
+		try {
+			process(item, ready::add);
+		} catch (RuntimeException e) {
+			fail(e);
+			return;
+		}
+		drain();
+	}
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		if (upstream != null) {
+			subscription.cancel();
+			return;
+		}
+		upstream = subscription;
+		if (cancelled || done) {
+			subscription.cancel();
+		}
+		drain();
+	}
+
+	/**
+	 * Processes one upstream item.
+	 *
+	 * @param item
+	 *            upstream item.
+	 * @param emit
+	 *            receives the items to publish, in order.
+	 * @throws RuntimeException
+	 *             to cancel the upstream and signal the error to the subscriber.
+	 */
+	protected abstract void process(T item, Consumer<R> emit);
+
+	/**
+	 * Subscribes the only subscriber of the stage; any later subscriber
+	 * receives an {@link IllegalStateException}.
+	 */
+	@Override
+	public void subscribe(Flow.Subscriber<? super R> subscriber) {
+		synchronized (this) {
+			if (subscribed) {
+				subscriber.onSubscribe(new Flow.Subscription() {
+
+					@Override
+					public void cancel() {
+						// never subscribed
+					}
+
+					@Override
+					public void request(long n) {
+						// never subscribed
+					}
+				});
+				subscriber.onError(new IllegalStateException("Only one subscriber is supported."));
+				return;
+			}
+			subscribed = true;
+		}
+		subscriber.onSubscribe(new Downstream());
+		this.subscriber = subscriber;
+		drain();
+	}
+}
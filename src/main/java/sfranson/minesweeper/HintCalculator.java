@@ -0,0 +1,177 @@
+package sfranson.minesweeper;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Calculates every hint of a mine map straight into a byte array or buffer,
+ * for embedding without text.
+ *
+ * <p>
+ * Hints are written row-major as raw values: {@link HintQuery#MINE} for a mine,
+ * else the number of adjacent mines. Three rows of mines are held at a time,
+ * copied with {@link MineMap#copyRow(int, byte[], int)}; the columns of the
+ * three rows are summed once and each hint adds three of those sums.
+ * </p>
+ *
+ * <p>
+ * A calculator reuses its working rows between calls, so steady-state use
+ * allocates nothing. It is not thread safe; use one per thread.
+ * </p>
+ *
+ * @see BitMineMap
+ * @see ByteMineMap
+ */
+public class HintCalculator {
+
+	/**
+	 * Receives the hints of one row at a time, in order.
+	 */
+	@FunctionalInterface
+	public interface RowSink {
+
+		/**
+		 * @param row
+		 *            zero-based row index.
+		 * @param hints
+		 *            array holding the row's hints; only valid during the call.
+		 * @param offset
+		 *            position in <code>hints</code> of the first column.
+		 * @param length
+		 *            number of columns.
+		 */
+		void accept(int row, byte[] hints, int offset, int length);
+	}
+
+	/**
+	 * Mines of the row above, with a zero column on either side.
+	 */
+	private byte[] above = new byte[2];
+
+	/**
+	 * Mines of the row below.
+	 */
+	private byte[] below = new byte[2];
+
+	/**
+	 * Mines of each column of the three rows.
+	 */
+	private byte[] columnSums = new byte[2];
+
+	/**
+	 * Mines of the row being calculated.
+	 */
+	private byte[] current = new byte[2];
+
+	/**
+	 * Row of hints handed to a {@link RowSink}.
+	 */
+	private byte[] scratch = new byte[0];
+
+	/**
+	 * Calculates the hints into an array.
+	 *
+	 * @param mines
+	 *            mines of the board.
+	 * @param out
+	 *            receives <code>rows * columns</code> hints starting at
+	 *            <code>offset</code>.
+	 * @param offset
+	 *            position in <code>out</code> of the first hint.
+	 * @throws MineSweeperException
+	 *             if the hints do not fit.
+	 */
+	public void calculate(MineMap mines, byte[] out, int offset) {
+		long size = (long) mines.getRowCount() * mines.getColumnCount();
+		if (offset < 0 || size > out.length - offset) {
+			throw new MineSweeperException("Invalid output.  " + (out.length - offset) + " bytes cannot hold "
+					+ size + " hints.");
+		}
+		calculate(mines, out, offset, null);
+	}
+
+	/**
+	 * Calculates the hints into a buffer, from its position, which is advanced
+	 * past the last hint.
+	 *
+	 * @param mines
+	 *            mines of the board.
+	 * @param out
+	 *            receives <code>rows * columns</code> hints.
+	 * @throws MineSweeperException
+	 *             if the hints do not fit.
+	 */
+	public void calculate(MineMap mines, ByteBuffer out) {
+		long size = (long) mines.getRowCount() * mines.getColumnCount();
+		if (size > out.remaining()) {
+			throw new MineSweeperException(
+					"Invalid output.  " + out.remaining() + " bytes cannot hold " + size + " hints.");
+		}
+		if (out.hasArray()) {
+			calculate(mines, out.array(), out.arrayOffset() + out.position(), null);
+			out.position(out.position() + (int) size);
+		} else {
+			calculate(mines, (row, hints, offset, length) -> out.put(hints, offset, length));
+		}
+	}
+
+	/**
+	 * Calculates the hints row by row, e.g. for storage that is not a single
+	 * array.
+	 *
+	 * @param mines
+	 *            mines of the board.
+	 * @param sink
+	 *            receives each row of hints.
+	 */
+	public void calculate(MineMap mines, RowSink sink) {
+		if (scratch.length < mines.getColumnCount()) {
+			scratch = new byte[mines.getColumnCount()];
+		}
+		calculate(mines, scratch, 0, sink);
+	}
+
+	/**
+	 * Calculates row after row into <code>out</code>, or into the start of
+	 * <code>out</code> and then <code>sink</code> when one is given.
+	 */
+	private void calculate(MineMap mines, byte[] out, int offset, RowSink sink) {
+		int rows = mines.getRowCount();
+		int columns = mines.getColumnCount();
+		int width = columns + 2;
+		if (current.length < width) {
+			above = new byte[width];
+			current = new byte[width];
+			below = new byte[width];
+			columnSums = new byte[width];
+		}
+		Arrays.fill(above, 0, width, (byte) 0);
+		current[columns + 1] = 0;
+		below[columns + 1] = 0;
+		if (rows > 0) {
+			mines.copyRow(0, current, 1);
+		}
+		for (int row = 0; row < rows; row++) {
+			if (row + 1 < rows) {
+				mines.copyRow(row + 1, below, 1);
+			} else {
+				Arrays.fill(below, 0, width, (byte) 0);
+			}
+			for (int col = 0; col < width; col++) {
+				columnSums[col] = (byte) (above[col] + current[col] + below[col]);
+			}
+			int rowOffset = sink == null ? offset + row * columns : offset;
+			for (int col = 0; col < columns; col++) {
+				out[rowOffset + col] = current[col + 1] != 0 ? HintQuery.MINE
+						: (byte) (columnSums[col] + columnSums[col + 1] + columnSums[col + 2]);
+			}
+			if (sink != null) {
+				sink.accept(row, out, offset, columns);
+			}
+			byte[] done = above;
+			above = current;
+			current = below;
+			below = done;
+		}
+	}
+}
@@ -0,0 +1,214 @@
+package sfranson.minesweeper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Calculates hints on demand, straight from a board's mines.
+ *
+ * <p>
+ * Unlike {@link Board#close()}, which calculates every square, a query only
+ * looks at the squares asked for and their neighbours, so the cost of a
+ * viewport is proportional to its size rather than to the size of the board.
+ * </p>
+ *
+ * <p>
+ * Hints are returned as raw values: {@link #MINE} for a mine, else the number
+ * of adjacent mines. An optional {@link #withTileCache(int, int) tile cache}
+ * keeps calculated tiles for boards that are queried repeatedly. Queries are
+ * safe to call concurrently as long as the mines do not change.
+ * </p>
+ *
+ * @see Board#query()
+ */
+public class HintQuery {
+
+	/**
+	 * Default width and height of cached tiles.
+	 */
+	public static final int DEFAULT_TILE_SIZE = 32;
+
+	/**
+	 * Raw value of a mine square.
+	 */
+	public static final byte MINE = -1;
+
+	private final MineMap mines;
+
+	private long tileHits;
+
+	private long tileMisses;
+
+	/**
+	 * Calculated tiles keyed by tile index, in access order; null if caching is
+	 * disabled.
+	 */
+	private Map<Long, byte[]> tiles;
+
+	private int tileSize;
+
+	/**
+	 * Creates a query over the given mines.
+	 *
+	 * @param mines
+	 *            mines of the board; must not change while the query is in use.
+	 */
+	public HintQuery(MineMap mines) {
+		this.mines = mines;
+	}
+
+	private byte calculate(int row, int col) {
+		if (mines.isMine(row, col)) {
+			return MINE;
+		}
+		int top = Math.max(row - 1, 0);
+		int bottom = Math.min(row + 1, mines.getRowCount() - 1);
+		int left = Math.max(col - 1, 0);
+		int right = Math.min(col + 1, mines.getColumnCount() - 1);
+		byte count = 0;
+		for (int r = top; r <= bottom; r++) {
+			for (int c = left; c <= right; c++) {
+				if (mines.isMine(r, c)) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	private void check(int row, int col, int rows, int cols) {
+		if (row < 0 || col < 0 || rows < 0 || cols < 0 || row + rows > mines.getRowCount()
+				|| col + cols > mines.getColumnCount()) {
+			throw new MineSweeperException("Invalid query.  " + rows + "x" + cols + " at (" + row + ", " + col
+					+ ") is outside the " + mines.getRowCount() + "x" + mines.getColumnCount() + " board.");
+		}
+	}
+
+	/**
+	 * Gets the number of lookups answered by a cached tile.
+	 */
+	public synchronized long getTileHits() {
+		return tileHits;
+	}
+
+	/**
+	 * Gets the number of tiles calculated for the cache.
+	 */
+	public synchronized long getTileMisses() {
+		return tileMisses;
+	}
+
+	/**
+	 * Calculates the raw hint of a single square.
+	 *
+	 * @param row
+	 *            zero-based row index.
+	 * @param col
+	 *            zero-based column index.
+	 * @return {@link #MINE} for a mine, else the number of adjacent mines.
+	 */
+	public int hint(int row, int col) {
+		check(row, col, 1, 1);
+		if (tiles == null) {
+			return calculate(row, col);
+		}
+		byte[] tile = tile(row / tileSize, col / tileSize);
+		return tile[(row % tileSize) * tileSize + col % tileSize];
+	}
+
+	private byte[] tile(int tileRow, int tileCol) {
+		long tileIdx = (long) tileRow * ((mines.getColumnCount() + tileSize - 1) / tileSize) + tileCol;
+		synchronized (this) {
+			byte[] tile = tiles.get(tileIdx);
+			if (tile != null) {
+				tileHits++;
+				return tile;
+			}
+			tileMisses++;
+		}
+		byte[] tile = new byte[tileSize * tileSize];
+		int rowStart = tileRow * tileSize;
+		int colStart = tileCol * tileSize;
+		int rowEnd = Math.min(rowStart + tileSize, mines.getRowCount());
+		int colEnd = Math.min(colStart + tileSize, mines.getColumnCount());
+		for (int row = rowStart; row < rowEnd; row++) {
+			for (int col = colStart; col < colEnd; col++) {
+				tile[(row - rowStart) * tileSize + col - colStart] = calculate(row, col);
+			}
+		}
+		synchronized (this) {
+			tiles.put(tileIdx, tile);
+		}
+		return tile;
+	}
+
+	/**
+	 * Calculates the raw hints of a rectangular viewport into <code>out</code>,
+	 * row by row.
+	 *
+	 * @param row
+	 *            zero-based index of the viewport's top row.
+	 * @param col
+	 *            zero-based index of the viewport's left column.
+	 * @param rows
+	 *            height of the viewport.
+	 * @param cols
+	 *            width of the viewport.
+	 * @param out
+	 *            receives <code>rows * cols</code> hints starting at
+	 *            <code>offset</code>.
+	 * @param offset
+	 *            position in <code>out</code> of the first hint.
+	 */
+	public void viewport(int row, int col, int rows, int cols, byte[] out, int offset) {
+		check(row, col, rows, cols);
+		if (tiles == null) {
+			for (int r = 0; r < rows; r++) {
+				int rowOffset = offset + r * cols;
+				for (int c = 0; c < cols; c++) {
+					out[rowOffset + c] = calculate(row + r, col + c);
+				}
+			}
+			return;
+		}
+		for (int tileRow = row / tileSize; tileRow * tileSize < row + rows; tileRow++) {
+			for (int tileCol = col / tileSize; tileCol * tileSize < col + cols; tileCol++) {
+				byte[] tile = tile(tileRow, tileCol);
+				int rowStart = Math.max(row, tileRow * tileSize);
+				int rowEnd = Math.min(row + rows, (tileRow + 1) * tileSize);
+				int colStart = Math.max(col, tileCol * tileSize);
+				int colEnd = Math.min(col + cols, (tileCol + 1) * tileSize);
+				for (int r = rowStart; r < rowEnd; r++) {
+					System.arraycopy(tile, (r - tileRow * tileSize) * tileSize + colStart - tileCol * tileSize, out,
+							offset + (r - row) * cols + colStart - col, colEnd - colStart);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Enables caching of calculated tiles, keeping the most recently used ones.
+	 *
+	 * @param size
+	 *            width and height of a tile, e.g. {@link #DEFAULT_TILE_SIZE}.
+	 * @param maxTiles
+	 *            maximum number of tiles kept.
+	 * @return query instance useful for method chaining.
+	 */
+	public synchronized HintQuery withTileCache(int size, int maxTiles) {
+		if (size < 1 || maxTiles < 1) {
+			throw new MineSweeperException("Invalid tile cache.  Tile size and count must be positive.");
+		}
+		this.tileSize = size;
+		this.tiles = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+				return size() > maxTiles;
+			}
+		};
+		return this;
+	}
+}
@@ -0,0 +1,270 @@
+package sfranson.minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * Renders hints by looking up every square's 3x3 neighbourhood in a table.
+ *
+ * <p>
+ * Each column of three rows (above, current, below) is packed into three bits.
+ * Sliding along the row, the bits of the next column are shifted into a 9-bit
+ * window, so every square's neighbourhood is an index into a 512-entry table
+ * of rendered hints: <code>*</code> for a mine, else the digit of its
+ * neighbour count. Calculation and rendering become a shift, a mask and a
+ * lookup per square, without bounds checks or branches, and a row is ready to
+ * write as soon as it has been calculated.
+ * </p>
+ *
+ * <p>
+ * Only the classic 8-square neighbourhood is supported. Like
+ * {@link HintCalculator}, an instance reuses its buffers and is not thread
+ * safe.
+ * </p>
+ *
+ * <p>
+ * With a {@link TileCache}, rows are rendered in bands of
+ * {@value TileCache#SIZE} and each band tile by tile, reusing the hints of a
+ * tile seen before with the same mines around it.
+ * </p>
+ *
+ * @see Board#withHintTable()
+ */
+public class HintTable {
+
+	/**
+	 * Bit of the window holding the square itself.
+	 */
+	private static final int CENTRE = 1 << 4;
+
+	/**
+	 * Rendered hint of every neighbourhood.
+	 */
+	private static final byte[] TABLE = new byte[512];
+
+	static {
+		for (int window = 0; window < TABLE.length; window++) {
+			TABLE[window] = (window & CENTRE) != 0 ? (byte) '*'
+					: (byte) ('0' + Integer.bitCount(window & ~CENTRE));
+		}
+	}
+
+	/**
+	 * Mines of the row above, with a zero column on either side.
+	 */
+	private byte[] above = new byte[2];
+
+	/**
+	 * Mines of a band of tiles and the rows either side of it, with a zero
+	 * column before the first and after the last tile.
+	 *
+	 * @see #withTileCache(TileCache)
+	 */
+	private byte[][] band = new byte[TileCache.SIZE + 2][2];
+
+	/**
+	 * Mines of the row below.
+	 */
+	private byte[] below = new byte[2];
+
+	/**
+	 * Mines of the row being rendered.
+	 */
+	private byte[] current = new byte[2];
+
+	/**
+	 * Rendered row, followed by the separator.
+	 */
+	private byte[] line = new byte[0];
+
+	/**
+	 * Rendered rows of a band of tiles, each followed by the separator.
+	 */
+	private byte[][] lines = new byte[TileCache.SIZE][0];
+
+	private TileCache tiles;
+
+	/**
+	 * Gets the rendered hint of a neighbourhood.
+	 *
+	 * @param window
+	 *            9-bit neighbourhood, one bit per mine: bits 6 to 8 hold the
+	 *            left column, 3 to 5 the middle and 0 to 2 the right one, each
+	 *            from the top row up.
+	 */
+	static byte lookup(int window) {
+		return TABLE[window & 0x1ff];
+	}
+
+	/**
+	 * Renders the hints of every row into <code>out</code>, one byte per square
+	 * without separators.
+	 *
+	 * @param mines
+	 *            mines of the board.
+	 * @param out
+	 *            receives <code>rows * columns</code> bytes starting at
+	 *            <code>offset</code>.
+	 * @param offset
+	 *            position in <code>out</code> of the first hint.
+	 */
+	public void render(MineMap mines, byte[] out, int offset) {
+		long size = (long) mines.getRowCount() * mines.getColumnCount();
+		if (offset < 0 || offset + size > out.length) {
+			throw new MineSweeperException("Invalid output.  " + size + " hints do not fit the array.");
+		}
+		int[] position = { offset };
+		render(mines, new byte[0], (row, hints, start, length) -> {
+			System.arraycopy(hints, start, out, position[0], length);
+			position[0] += length;
+		});
+	}
+
+	/**
+	 * Renders the hints row by row, each followed by a separator.
+	 *
+	 * @param mines
+	 *            mines of the board.
+	 * @param separator
+	 *            bytes appended to every row, e.g. a line separator; may be
+	 *            empty.
+	 * @param sink
+	 *            receives each rendered row, separator included.
+	 */
+	public void render(MineMap mines, byte[] separator, HintCalculator.RowSink sink) {
+		if (tiles != null && tiles.getCapacity() > 0) {
+			renderTiles(mines, separator, sink);
+			return;
+		}
+		int rows = mines.getRowCount();
+		int columns = mines.getColumnCount();
+		int width = columns + 2;
+		if (current.length < width) {
+			above = new byte[width];
+			current = new byte[width];
+			below = new byte[width];
+		}
+		if (line.length < columns + separator.length) {
+			line = new byte[columns + separator.length];
+		}
+		System.arraycopy(separator, 0, line, columns, separator.length);
+		Arrays.fill(above, 0, width, (byte) 0);
+		current[columns + 1] = 0;
+		below[columns + 1] = 0;
+		if (rows > 0) {
+			mines.copyRow(0, current, 1);
+		}
+		for (int row = 0; row < rows; row++) {
+			if (row + 1 < rows) {
+				mines.copyRow(row + 1, below, 1);
+			} else {
+				Arrays.fill(below, 0, width, (byte) 0);
+			}
+			byte[] a = above;
+			byte[] c = current;
+			byte[] b = below;
+			int window = a[1] | c[1] << 1 | b[1] << 2;
+			for (int col = 0; col < columns; col++) {
+				window = (window << 3 | a[col + 2] | c[col + 2] << 1 | b[col + 2] << 2) & 0x1ff;
+				line[col] = TABLE[window];
+			}
+			sink.accept(row, line, 0, columns + separator.length);
+			byte[] done = above;
+			above = current;
+			current = below;
+			below = done;
+		}
+	}
+
+	/**
+	 * Renders the rows a band of tiles at a time, taking tiles from the cache
+	 * where possible.
+	 */
+	private void renderTiles(MineMap mines, byte[] separator, HintCalculator.RowSink sink) {
+		final int size = TileCache.SIZE;
+		int rows = mines.getRowCount();
+		int columns = mines.getColumnCount();
+		int width = (columns + size - 1) / size * size + 2;
+		if (band[0].length < width) {
+			band = new byte[size + 2][width];
+		}
+		if (lines[0].length < columns + separator.length) {
+			lines = new byte[size][columns + separator.length];
+		}
+		for (byte[] rendered : lines) {
+			System.arraycopy(separator, 0, rendered, columns, separator.length);
+		}
+		for (int first = 0; first < rows; first += size) {
+			for (int r = 0; r < size + 2; r++) {
+				int row = first - 1 + r;
+				Arrays.fill(band[r], 0, width, (byte) 0);
+				if (row >= 0 && row < rows) {
+					mines.copyRow(row, band[r], 1);
+				}
+			}
+			int height = Math.min(size, rows - first);
+			for (int left = 0; left < columns; left += size) {
+				long low = 0;
+				long high = 0;
+				for (int r = 0; r < size + 2; r++) {
+					long bits = 0;
+					for (int c = 0; c < size + 2; c++) {
+						bits = bits << 1 | band[r][left + c];
+					}
+					if (r < 6) {
+						low = low << 10 | bits;
+					} else {
+						high = high << 10 | bits;
+					}
+				}
+				byte[] hints = tiles.get(high, low);
+				if (hints == null) {
+					hints = tile(left);
+					tiles.put(high, low, hints);
+				}
+				int span = Math.min(size, columns - left);
+				for (int r = 0; r < height; r++) {
+					System.arraycopy(hints, r * size, lines[r], left, span);
+				}
+			}
+			for (int r = 0; r < height; r++) {
+				sink.accept(first + r, lines[r], 0, columns + separator.length);
+			}
+		}
+	}
+
+	/**
+	 * Renders the tile whose first column is <code>left</code> in the current
+	 * band.
+	 */
+	private byte[] tile(int left) {
+		final int size = TileCache.SIZE;
+		byte[] hints = new byte[size * size];
+		for (int r = 0; r < size; r++) {
+			byte[] a = band[r];
+			byte[] c = band[r + 1];
+			byte[] b = band[r + 2];
+			int window = a[left] | c[left] << 1 | b[left] << 2;
+			window = window << 3 | a[left + 1] | c[left + 1] << 1 | b[left + 1] << 2;
+			for (int col = 0; col < size; col++) {
+				int x = left + col + 2;
+				window = (window << 3 | a[x] | c[x] << 1 | b[x] << 2) & 0x1ff;
+				hints[r * size + col] = TABLE[window];
+			}
+		}
+		return hints;
+	}
+
+	/**
+	 * Reuses the hints of tiles seen before, e.g. on boards with large empty
+	 * areas or repeated patterns.
+	 *
+	 * @param tiles
+	 *            cache of rendered tiles, possibly shared; null or a zero
+	 *            capacity cache renders row by row.
+	 * @return hint table instance useful for method chaining.
+	 */
+	public HintTable withTileCache(TileCache tiles) {
+		this.tiles = tiles;
+		return this;
+	}
+}
@@ -0,0 +1,482 @@
+package sfranson.minesweeper;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Checks a stream of hints, as printed by {@link MineSweeper}, against the
+ * board definitions they claim to solve.
+ *
+ * <p>
+ * Both streams are read together, one line at a time. The verifier keeps a
+ * window of three rows of mines (the rows above, at and below the hint row
+ * being checked), so memory depends on the width of the boards but not on
+ * their height or number. Expected hints are compared byte by byte as they are
+ * calculated and nothing is rendered to a String. Verification stops at the
+ * first {@link Mismatch}.
+ * </p>
+ *
+ * <p>
+ * Board definitions must be row-oriented, since column-oriented definitions
+ * only reveal the first printed row once the whole board has been read.
+ * </p>
+ *
+ * <ul>
+ * Arguments:
+ * <li>0 - board definitions file.</li>
+ * <li>1 - hints file to verify, or <b>-</b> for standard in.</li>
+ * </ul>
+ */
+public class HintVerifier {
+
+	/**
+	 * Reads lines into a caller supplied buffer, without allocating.
+	 */
+	private static final class LineReader {
+
+		private final InputStream in;
+
+		private long lineNumber;
+
+		LineReader(InputStream in) {
+			this.in = in;
+		}
+
+		/**
+		 * Reads the next line, without its terminator, keeping as much of it as
+		 * fits into <code>buffer</code>.
+		 *
+		 * @return the full length of the line, or -1 at the end of input.
+		 */
+		int read(byte[] buffer) throws IOException {
+			int length = 0;
+			int b = in.read();
+			if (b < 0) {
+				return -1;
+			}
+			lineNumber++;
+			while (b >= 0 && b != '\n') {
+				if (length < buffer.length) {
+					buffer[length] = (byte) b;
+				}
+				length++;
+				b = in.read();
+			}
+			if (length > 0 && length <= buffer.length && buffer[length - 1] == '\r') {
+				length--;
+			}
+			return length;
+		}
+	}
+
+	/**
+	 * First difference between the hints and the expected hints.
+	 */
+	public static final class Mismatch {
+
+		private final int actual;
+
+		private final int board;
+
+		private final int column;
+
+		private final int expected;
+
+		private final long line;
+
+		private final int row;
+
+		Mismatch(int board, int row, int column, int expected, int actual, long line) {
+			this.board = board;
+			this.row = row;
+			this.column = column;
+			this.expected = expected;
+			this.actual = actual;
+			this.line = line;
+		}
+
+		private static String describe(int b) {
+			if (b == END) {
+				return "end of line";
+			}
+			return b == END_OF_INPUT ? "end of input" : "'" + (char) b + "'";
+		}
+
+		/**
+		 * Gets the character found, {@link HintVerifier#END} if the line ended
+		 * early or {@link HintVerifier#END_OF_INPUT} if the hints did.
+		 */
+		public int getActual() {
+			return actual;
+		}
+
+		/**
+		 * Gets the one-based number of the board.
+		 */
+		public int getBoard() {
+			return board;
+		}
+
+		/**
+		 * Gets the zero-based index of the character within its line.
+		 */
+		public int getColumn() {
+			return column;
+		}
+
+		/**
+		 * Gets the character expected, or {@link HintVerifier#END} if the line
+		 * should have ended.
+		 */
+		public int getExpected() {
+			return expected;
+		}
+
+		/**
+		 * Gets the one-based line number within the hints.
+		 */
+		public long getLine() {
+			return line;
+		}
+
+		/**
+		 * Gets the zero-based row of the board; {@link HintVerifier#HEADER} for
+		 * the "Mine Field" header and the board's row count for the blank line
+		 * that follows it.
+		 */
+		public int getRow() {
+			return row;
+		}
+
+		@Override
+		public String toString() {
+			String where = row == HEADER ? "header" : "row " + row;
+			return "Mine Field #" + board + ", " + where + ", column " + column + " (line " + line + "): expected "
+					+ describe(expected) + " but found " + describe(actual) + ".";
+		}
+	}
+
+	/**
+	 * Character value standing for the end of a line.
+	 */
+	public static final int END = -1;
+
+	/**
+	 * Character value standing for the end of the hints.
+	 */
+	public static final int END_OF_INPUT = -2;
+
+	/**
+	 * Row of a {@link Mismatch} in a board's header line.
+	 */
+	public static final int HEADER = -1;
+
+	private static final byte[] HEADER_PREFIX = "Mine Field #".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Minimum size of the line buffers, enough for any header.
+	 */
+	private static final int MIN_LINE = 32;
+
+	/**
+	 * Compares the hints file named by the second argument against the board
+	 * definitions file named by the first, printing the first mismatch.
+	 *
+	 * @param args
+	 *            see class description.
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Invalid arguments.  Usage: HintVerifier <boards> <hints|->");
+			System.exit(2);
+		}
+		try (InputStream mines = new BufferedInputStream(Files.newInputStream(Paths.get(args[0])), 1 << 16);
+				InputStream hints = "-".equals(args[1]) ? new BufferedInputStream(System.in, 1 << 16)
+						: new BufferedInputStream(Files.newInputStream(Paths.get(args[1])), 1 << 16)) {
+			HintVerifier verifier = new HintVerifier(mines, hints);
+			Mismatch mismatch = verifier.verify();
+			if (mismatch != null) {
+				System.out.println(mismatch);
+				System.exit(1);
+			}
+			System.out.println("OK " + verifier.getBoardCount() + " boards.");
+		} catch (IOException | MineSweeperException e) {
+			System.err.println(e.getMessage());
+			System.exit(2);
+		}
+	}
+
+	/**
+	 * Mines of the row above the current one, as 0 or 1, with a zero column on
+	 * either side.
+	 */
+	private byte[] above = new byte[2];
+
+	/**
+	 * Mines of the row below the current one.
+	 */
+	private byte[] below = new byte[2];
+
+	private int boardCount;
+
+	/**
+	 * Mines of the row whose hints are being checked.
+	 */
+	private byte[] current = new byte[2];
+
+	private final LineReader hints;
+
+	private byte[] hintLine = new byte[MIN_LINE];
+
+	private final LineReader mines;
+
+	private byte[] mineLine = new byte[MIN_LINE];
+
+	/**
+	 * Creates a verifier reading both streams, which are left open.
+	 *
+	 * @param mines
+	 *            row-oriented board definitions, in the {@link MineSweeper} input
+	 *            format.
+	 * @param hints
+	 *            hints to check, in the {@link MineSweeper} output format.
+	 */
+	public HintVerifier(InputStream mines, InputStream hints) {
+		this.mines = new LineReader(mines);
+		this.hints = new LineReader(hints);
+	}
+
+	/**
+	 * Gets the character at <code>col</code> of a hint line of the given length.
+	 */
+	private int charAt(int col, int length) {
+		if (length < 0) {
+			return END_OF_INPUT;
+		}
+		return col < length ? hintLine[col] : END;
+	}
+
+	/**
+	 * Compares a hint line against the "Mine Field" header of the board.
+	 */
+	private Mismatch checkHeader() throws IOException {
+		int length = hints.read(hintLine);
+		int col = 0;
+		for (byte b : HEADER_PREFIX) {
+			if (col >= length || hintLine[col] != b) {
+				return mismatch(HEADER, col, b, charAt(col, length));
+			}
+			col++;
+		}
+		int digits = 1;
+		for (int id = boardCount; id >= 10; id /= 10) {
+			digits++;
+		}
+		for (int d = digits - 1; d >= 0; d--) {
+			int divisor = 1;
+			for (int i = 0; i < d; i++) {
+				divisor *= 10;
+			}
+			int expected = '0' + boardCount / divisor % 10;
+			if (col >= length || hintLine[col] != expected) {
+				return mismatch(HEADER, col, expected, charAt(col, length));
+			}
+			col++;
+		}
+		if (col >= length || hintLine[col] != ':') {
+			return mismatch(HEADER, col, ':', charAt(col, length));
+		}
+		if (length > col + 1) {
+			return mismatch(HEADER, col + 1, END, hintLine[col + 1]);
+		}
+		return null;
+	}
+
+	/**
+	 * Compares a hint row against the mines of the window.
+	 */
+	private Mismatch checkRow(int row, int columns) throws IOException {
+		int length = hints.read(hintLine);
+		for (int col = 0; col < columns; col++) {
+			int actual = charAt(col, length);
+			int expected;
+			if (current[col + 1] != 0) {
+				expected = '*';
+			} else {
+				expected = '0' + above[col] + above[col + 1] + above[col + 2] + current[col] + current[col + 2]
+						+ below[col] + below[col + 1] + below[col + 2];
+			}
+			if (actual != expected) {
+				return mismatch(row, col, expected, actual);
+			}
+		}
+		if (length > columns || (length < 0 && columns == 0)) {
+			return mismatch(row, columns, END, charAt(columns, length));
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the number of boards verified so far, including one that failed.
+	 */
+	public int getBoardCount() {
+		return boardCount;
+	}
+
+	private Mismatch mismatch(int row, int column, int expected, int actual) {
+		return new Mismatch(boardCount, row, column, expected, actual, hints.lineNumber);
+	}
+
+	/**
+	 * Reads the next non-blank line of the board definitions.
+	 *
+	 * @return its length, or -1 at the end of input.
+	 */
+	private int nextMineLine() throws IOException {
+		int length;
+		do {
+			length = mines.read(mineLine);
+		} while (length == 0);
+		return length;
+	}
+
+	/**
+	 * Parses a "rows columns" board header from the mine line.
+	 *
+	 * @return the two dimensions, or null if the line is not a header.
+	 */
+	private int[] parseDimensions(int length) {
+		int[] dimensions = new int[2];
+		int idx = 0;
+		int pos = 0;
+		for (int i = 0; i < dimensions.length; i++) {
+			while (pos < length && Character.isWhitespace(mineLine[pos])) {
+				pos++;
+			}
+			int start = pos;
+			while (pos < length && mineLine[pos] >= '0' && mineLine[pos] <= '9') {
+				dimensions[idx] = dimensions[idx] * 10 + mineLine[pos++] - '0';
+			}
+			if (pos == start) {
+				return null;
+			}
+			idx++;
+		}
+		while (pos < length && Character.isWhitespace(mineLine[pos])) {
+			pos++;
+		}
+		return pos == length ? dimensions : null;
+	}
+
+	/**
+	 * Reads the next row of mines into <code>target</code>.
+	 */
+	private void readRow(byte[] target, int columns) throws IOException {
+		int length = nextMineLine();
+		if (length < 0 || (length > 0 && mineLine[0] >= '0' && mineLine[0] <= '9')) {
+			throw new MineSweeperException(
+					"Invalid input.  Board " + boardCount + " has fewer rows than its header declares.");
+		}
+		if (length != columns) {
+			throw new MineSweeperException("Invalid input.  Number of columns doesn't match.");
+		}
+		for (int col = 0; col < columns; col++) {
+			byte b = mineLine[col];
+			if (b != '*' && b != '.') {
+				throw new MineSweeperException(
+						"Invalid input.  Cell definition can only inlude the * and . characters.");
+			}
+			target[col + 1] = (byte) (b == '*' ? 1 : 0);
+		}
+	}
+
+	/**
+	 * Grows the buffers, if needed, for boards of the given width.
+	 */
+	private void reserve(int columns) {
+		if (current.length < columns + 2) {
+			above = new byte[columns + 2];
+			current = new byte[columns + 2];
+			below = new byte[columns + 2];
+		}
+		if (mineLine.length < columns + 1) {
+			mineLine = new byte[columns + 1];
+			hintLine = new byte[columns + 1];
+		}
+	}
+
+	/**
+	 * Verifies the hints of every board, up to the "0 0" terminator or the end
+	 * of the board definitions.
+	 *
+	 * @return the first mismatch, or null if the hints are correct and complete.
+	 * @throws MineSweeperException
+	 *             if the board definitions are invalid or cannot be read.
+	 */
+	public Mismatch verify() {
+		try {
+			int length;
+			while ((length = nextMineLine()) >= 0) {
+				int[] dimensions = parseDimensions(length);
+				if (dimensions == null) {
+					throw new MineSweeperException("Invalid input.  Expected a board header but found a row.");
+				}
+				if (dimensions[0] == 0 && dimensions[1] == 0) {
+					break;
+				}
+				boardCount++;
+				Mismatch mismatch = verifyBoard(dimensions[0], dimensions[1]);
+				if (mismatch != null) {
+					return mismatch;
+				}
+			}
+			length = hints.read(hintLine);
+			if (length >= 0) {
+				boardCount++;
+				return mismatch(HEADER, 0, END_OF_INPUT, charAt(0, length));
+			}
+			return null;
+		} catch (IOException e) {
+			throw new MineSweeperException("Unable to read input: " + e.getMessage());
+		}
+	}
+
+	private Mismatch verifyBoard(int rows, int columns) throws IOException {
+		reserve(columns);
+		Mismatch mismatch = checkHeader();
+		if (mismatch != null) {
+			return mismatch;
+		}
+		int width = columns + 2;
+		Arrays.fill(above, 0, width, (byte) 0);
+		Arrays.fill(below, 0, width, (byte) 0);
+		if (rows > 0) {
+			readRow(current, columns);
+		}
+		for (int row = 0; row < rows; row++) {
+			if (row + 1 < rows) {
+				readRow(below, columns);
+			} else {
+				Arrays.fill(below, 0, width, (byte) 0);
+			}
+			mismatch = checkRow(row, columns);
+			if (mismatch != null) {
+				return mismatch;
+			}
+			byte[] done = above;
+			above = current;
+			current = below;
+			below = done;
+		}
+		int length = hints.read(hintLine);
+		if (length != 0) {
+			return mismatch(rows, 0, END, charAt(0, length));
+		}
+		return null;
+	}
+}
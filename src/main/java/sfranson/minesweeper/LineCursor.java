@@ -0,0 +1,130 @@
+package sfranson.minesweeper;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the lines of a file through memory-mapped windows, so files larger than
+ * a single mapping can be read.
+ *
+ * @see MineSweeperParallel
+ * @see MineSweeperIncremental
+ */
+final class LineCursor {
+
+	/**
+	 * Largest part of the file mapped at once.
+	 */
+	static final long MAP_WINDOW = 1L << 30;
+
+	private final FileChannel channel;
+
+	private byte[] line = new byte[256];
+
+	private int length;
+
+	private long lineStart;
+
+	private long position;
+
+	private final long size;
+
+	private MappedByteBuffer window;
+
+	private final long windowSize;
+
+	private long windowStart;
+
+	LineCursor(FileChannel channel, long size, long windowSize, long position) {
+		this.channel = channel;
+		this.size = size;
+		this.windowSize = windowSize;
+		this.position = position;
+	}
+
+	private byte get() throws IOException {
+		if (window == null || position - windowStart >= window.limit()) {
+			windowStart = position;
+			window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, windowSize));
+		}
+		return window.get((int) (position++ - windowStart));
+	}
+
+	/**
+	 * Gets the bytes of the current line; only the first {@link #getLength()}
+	 * are valid.
+	 */
+	byte[] getLine() {
+		return line;
+	}
+
+	/**
+	 * Gets the length of the current line, without its line terminator.
+	 */
+	int getLength() {
+		return length;
+	}
+
+	/**
+	 * Gets the position in the file of the current line.
+	 */
+	long getLineStart() {
+		return lineStart;
+	}
+
+	/**
+	 * Gets the position in the file of the next line.
+	 */
+	long getPosition() {
+		return position;
+	}
+
+	/**
+	 * Reads the next line, without its line terminator.
+	 *
+	 * @return false at the end of the file.
+	 */
+	boolean next() throws IOException {
+		if (position >= size) {
+			return false;
+		}
+		lineStart = position;
+		length = 0;
+		while (position < size) {
+			byte b = get();
+			if (b == '\n') {
+				break;
+			}
+			if (length == line.length) {
+				line = Arrays.copyOf(line, length * 2);
+			}
+			line[length++] = b;
+		}
+		if (length > 0 && line[length - 1] == '\r') {
+			length--;
+		}
+		return true;
+	}
+
+	/**
+	 * Moves to the start of the first line beginning at or after the given
+	 * position.
+	 */
+	void seekLine(long start) throws IOException {
+		position = start;
+		if (start > 0) {
+			position = start - 1;
+			while (position < size && get() != '\n') {
+				// skip the rest of the line started before the range
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return new String(line, 0, length, StandardCharsets.ISO_8859_1);
+	}
+}
@@ -0,0 +1,53 @@
+package sfranson.minesweeper;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * {@link Flow.Processor} splitting byte chunks into lines, e.g. to feed a
+ * {@link BoardProcessor} from a file or socket read in buffers.
+ *
+ * <p>
+ * Lines end at <code>\n</code>, with a trailing <code>\r</code> removed, and
+ * are decoded as ISO-8859-1. A line may span any number of chunks; the last
+ * one is published on completion even without a line terminator. Chunks are
+ * only requested while lines are in demand.
+ * </p>
+ */
+public class LineSplitter extends FlowStage<ByteBuffer, String> {
+
+	private byte[] line = new byte[256];
+
+	private int length;
+
+	private void emit(Consumer<String> emit) {
+		int end = length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+		emit.accept(new String(line, 0, end, StandardCharsets.ISO_8859_1));
+		length = 0;
+	}
+
+	@Override
+	protected void finish(Consumer<String> emit) {
+		if (length > 0) {
+			emit(emit);
+		}
+	}
+
+	@Override
+	protected void process(ByteBuffer chunk, Consumer<String> emit) {
+		while (chunk.hasRemaining()) {
+			byte b = chunk.get();
+			if (b == '\n') {
+				emit(emit);
+			} else {
+				if (length == line.length) {
+					line = Arrays.copyOf(line, length * 2);
+				}
+				line[length++] = b;
+			}
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package sfranson.minesweeper;
+
+import java.util.stream.IntStream;
+
+/**
+ * Summed-area table answering "how many mines lie in this rectangle" in
+ * constant time.
+ *
+ * <p>
+ * The table holds, for every position, the number of mines above and to the
+ * left of it, in a single row-major <code>int[]</code> of
+ * <code>(rows + 1) * (columns + 1)</code> entries. Any rectangle's count is
+ * then four lookups. Large boards are indexed in parallel: first every row's
+ * prefix sums, then every column strip's running totals.
+ * </p>
+ *
+ * @see Board#withMineCountIndex()
+ */
+public class MineCountIndex {
+
+	/**
+	 * Number of columns accumulated together by one task of the vertical pass.
+	 */
+	private static final int COLUMN_STRIP = 1024;
+
+	/**
+	 * Boards with at least this many squares are indexed in parallel.
+	 */
+	static final long PARALLEL_THRESHOLD = 1L << 20;
+
+	private final int columnCount;
+
+	private final int rowCount;
+
+	/**
+	 * Prefix sums, with a leading row and column of zeros.
+	 */
+	private final int[] table;
+
+	/**
+	 * Builds the index of the given mines.
+	 *
+	 * @param mines
+	 *            mines to index.
+	 */
+	public MineCountIndex(MineMap mines) {
+		this(mines, PARALLEL_THRESHOLD);
+	}
+
+	MineCountIndex(MineMap mines, long parallelThreshold) {
+		this.rowCount = mines.getRowCount();
+		this.columnCount = mines.getColumnCount();
+		long size = (long) (rowCount + 1) * (columnCount + 1);
+		if (size > Integer.MAX_VALUE - 8) {
+			throw new MineSweeperException(
+					"Board too large to index.  " + rowCount + "x" + columnCount + " exceeds the table limit.");
+		}
+		this.table = new int[(int) size];
+
+		boolean parallel = (long) rowCount * columnCount >= parallelThreshold;
+		IntStream rows = IntStream.range(0, rowCount);
+		(parallel ? rows.parallel() : rows).forEach(row -> sumRow(mines, row));
+		int strips = (columnCount + COLUMN_STRIP - 1) / COLUMN_STRIP;
+		IntStream columns = IntStream.range(0, strips);
+		(parallel ? columns.parallel() : columns).forEach(this::sumStrip);
+	}
+
+	/**
+	 * Counts the mines in a rectangle.
+	 *
+	 * @param row
+	 *            zero-based index of the rectangle's top row.
+	 * @param col
+	 *            zero-based index of the rectangle's left column.
+	 * @param rows
+	 *            height of the rectangle.
+	 * @param cols
+	 *            width of the rectangle.
+	 * @return number of mines within the rectangle.
+	 */
+	public int count(int row, int col, int rows, int cols) {
+		if (row < 0 || col < 0 || rows < 0 || cols < 0 || row + rows > rowCount || col + cols > columnCount) {
+			throw new MineSweeperException("Invalid query.  " + rows + "x" + cols + " at (" + row + ", " + col
+					+ ") is outside the " + rowCount + "x" + columnCount + " board.");
+		}
+		int stride = columnCount + 1;
+		int top = row * stride;
+		int bottom = (row + rows) * stride;
+		return table[bottom + col + cols] - table[bottom + col] - table[top + col + cols] + table[top + col];
+	}
+
+	/**
+	 * Gets the total number of mines.
+	 */
+	public int total() {
+		return table[table.length - 1];
+	}
+
+	private void sumRow(MineMap mines, int row) {
+		int offset = (row + 1) * (columnCount + 1);
+		int sum = 0;
+		for (int col = 0; col < columnCount; col++) {
+			if (mines.isMine(row, col)) {
+				sum++;
+			}
+			table[offset + col + 1] = sum;
+		}
+	}
+
+	private void sumStrip(int strip) {
+		int stride = columnCount + 1;
+		int start = 1 + strip * COLUMN_STRIP;
+		int end = Math.min(start + COLUMN_STRIP, stride);
+		for (int row = 2; row <= rowCount; row++) {
+			int offset = row * stride;
+			for (int col = start; col < end; col++) {
+				table[offset + col] += table[offset - stride + col];
+			}
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package sfranson.minesweeper;
+
+/**
+ * Read-only view of where the mines of a board are.
+ *
+ * <p>
+ * Coordinates are zero-based and follow the printed orientation of the board.
+ * </p>
+ *
+ * @see Board#mines()
+ * @see HintQuery
+ * @see HintCalculator
+ */
+public interface MineMap {
+
+	/**
+	 * Copies a row of mines into <code>target</code> as 1 for a mine and 0 for a
+	 * safe square.
+	 *
+	 * <p>
+	 * Implementations backed by arrays override this with a bulk copy.
+	 * </p>
+	 *
+	 * @param row
+	 *            zero-based row index.
+	 * @param target
+	 *            receives {@link #getColumnCount()} values.
+	 * @param offset
+	 *            position in <code>target</code> of the first column.
+	 */
+	default void copyRow(int row, byte[] target, int offset) {
+		for (int col = 0; col < getColumnCount(); col++) {
+			target[offset + col] = (byte) (isMine(row, col) ? 1 : 0);
+		}
+	}
+
+	/**
+	 * Gets the number of columns.
+	 */
+	int getColumnCount();
+
+	/**
+	 * Gets the number of rows.
+	 */
+	int getRowCount();
+
+	/**
+	 * Indicates the square holds a mine.
+	 *
+	 * @param row
+	 *            zero-based row index.
+	 * @param col
+	 *            zero-based column index.
+	 */
+	boolean isMine(int row, int col);
+}
@@ -1,37 +1,111 @@
 package sfranson.minesweeper;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Paths;
 import java.util.Scanner;
+import java.util.regex.Pattern;
+
+import jdk.jfr.EventType;
 
 /**
  * Program that will read a set of board definitions from a file and print out
  * the calculated hints.
+ * 
+ * <p>
+ * Gzip or deflate compressed input is decompressed transparently.
+ * </p>
+ * 
+ * @see CompressedStreams
  */
 public class MineSweeper {
 
+	/**
+	 * System property overriding the
+	 * {@link EngineSelector#DEFAULT_CALCULATOR_SQUARES} of the <b>adaptive</b>
+	 * engine.
+	 */
+	static final String ADAPTIVE_CALCULATOR_PROPERTY = "minesweeper.adaptive.calculator";
+
+	/**
+	 * System property overriding the {@link EngineSelector#DEFAULT_DENSITY} of
+	 * the <b>adaptive</b> engine.
+	 */
+	static final String ADAPTIVE_DENSITY_PROPERTY = "minesweeper.adaptive.density";
+
+	/**
+	 * System property overriding the {@link EngineSelector#DEFAULT_MIN_SQUARES}
+	 * of the <b>adaptive</b> engine.
+	 */
+	static final String ADAPTIVE_SQUARES_PROPERTY = "minesweeper.adaptive.squares";
+
 	/**
 	 * Regex used for detecting the start of a board definition.
 	 */
-	private static final String BOARD_START_REGEX = "\\d\\s*\\d";
+	static final String BOARD_START_REGEX = "\\d\\s*\\d";
+
+	private static final Pattern BOARD_START = Pattern.compile(BOARD_START_REGEX);
+
+	/**
+	 * System property overriding {@link #DEFAULT_CACHE_CAPACITY}; 0 disables the
+	 * cache.
+	 */
+	static final String CACHE_CAPACITY_PROPERTY = "minesweeper.cache.bytes";
+
+	/**
+	 * Default number of bytes of rendered hints kept for repeated boards.
+	 */
+	static final long DEFAULT_CACHE_CAPACITY = 16L * 1024 * 1024;
+
+	/**
+	 * System property selecting how hints are calculated: <b>cells</b>, the
+	 * default, <b>table</b> for the {@link HintTable}, <b>tiles</b> for the
+	 * hint table with a {@link TileCache}, <b>calculator</b> for the
+	 * {@link HintCalculator}, or <b>adaptive</b> to choose between the cells, the
+	 * table and the calculator board by board with an {@link EngineSelector}.
+	 */
+	static final String ENGINE_PROPERTY = "minesweeper.engine";
 
 	/**
 	 * Reges used for detecting the end of input.
 	 */
 	private static final String INPUT_END_REGEX = "0\\s*0";
 
+	private static final Pattern INPUT_END = Pattern.compile(INPUT_END_REGEX);
+
+	/**
+	 * Type of the flight recorder event of every board, to tell whether it is
+	 * recorded.
+	 */
+	private static final EventType BOARD_EVENT = EventType.getEventType(BoardEvent.class);
+
+	/**
+	 * System property that, when true, dumps the {@link SweepMetrics} to
+	 * standard error once the sweep finishes.
+	 */
+	static final String METRICS_PROPERTY = "minesweeper.metrics";
+
 	// package private for testing
 	static MineSweeper instance;
 
+	/**
+	 * System property overriding the {@link TileCache#DEFAULT_CAPACITY} of the
+	 * <b>tiles</b> engine, in tiles.
+	 */
+	static final String TILE_CAPACITY_PROPERTY = "minesweeper.tiles.capacity";
+
 	/**
 	 * Regex used for detecting a valid cell definition line.
 	 */
 	private static final String VALID_INPUT_REGEX = "[\\*\\.]*";
 
+	private static final Pattern VALID_INPUT = Pattern.compile(VALID_INPUT_REGEX);
+
 	/**
 	 * Gets an instance of the program.
 	 * 
@@ -59,17 +133,99 @@ public class MineSweeper {
 	 */
 	public static void main(String[] args) {
 		try {
-			instance(args).sweep();
+			MineSweeper sweeper = instance(args);
+			sweeper.sweep();
+			if (Boolean.getBoolean(METRICS_PROPERTY)) {
+				sweeper.getMetrics().dump(System.err);
+				System.err.println(sweeper.getCache());
+				if (sweeper.getTileCache() != null) {
+					System.err.println(sweeper.getTileCache());
+				}
+				if (sweeper.getEngineSelector() != null) {
+					System.err.println(sweeper.getEngineSelector());
+				}
+			}
 		} catch (MineSweeperException e) {
 			System.err.println(e.getMessage());
 			e.printStackTrace(System.err);
 		}
 	}
 
+	/**
+	 * Storage reused by the boards of the sweep.
+	 */
+	private final BoardArena arena = new BoardArena();
+
+	/**
+	 * Flight recorder event of the board being read.
+	 */
+	private BoardEvent boardEvent;
+
+	/**
+	 * Time the board being read was started, in nanoseconds.
+	 */
+	private long boardStarted;
+
+	/**
+	 * Rendered hints of previously seen boards.
+	 */
+	private BoardCache cache;
+
+	/**
+	 * Chooses the engine of every board, null unless the <b>adaptive</b> engine
+	 * is used.
+	 * 
+	 * @see #withEngineSelector(EngineSelector)
+	 */
+	private EngineSelector engineSelector = "adaptive".equals(System.getProperty(ENGINE_PROPERTY))
+			? new EngineSelector()
+			: null;
+
+	/**
+	 * Id of the first board read.
+	 * 
+	 * @see #withFirstBoardId(int)
+	 */
+	private int firstBoardId = 1;
+
+	/**
+	 * Indicates boards are calculated with the {@link HintCalculator}.
+	 */
+	private boolean hintCalculator = "calculator".equals(System.getProperty(ENGINE_PROPERTY));
+
+	/**
+	 * Indicates boards are rendered with the {@link HintTable}.
+	 */
+	private boolean hintTable = "table".equals(System.getProperty(ENGINE_PROPERTY));
+
+	private SweepMetrics metrics = new SweepMetrics();
+
+	/**
+	 * Input supplied directly, instead of by file name.
+	 * 
+	 * @see #withInput(InputStream)
+	 */
+	private InputStream input;
+
 	private OutputStream out;
 
+	/**
+	 * Indicates a board has been started by its header and not yet printed.
+	 */
+	private boolean reading;
+
 	private String[] params;
 
+	/**
+	 * Tiles of hints shared by the boards of the sweep, null unless the
+	 * <b>tiles</b> engine is used.
+	 * 
+	 * @see #withTileCache(TileCache)
+	 */
+	private TileCache tileCache = "tiles".equals(System.getProperty(ENGINE_PROPERTY))
+			? new TileCache(Integer.getInteger(TILE_CAPACITY_PROPERTY, TileCache.DEFAULT_CAPACITY))
+			: null;
+
 	/**
 	 * Creates an instance with a given set of parameters and sets the output
 	 * stream.
@@ -77,6 +233,7 @@ public class MineSweeper {
 	public MineSweeper(String[] params, OutputStream out) {
 		this.params = params;
 		this.out = out;
+		this.cache = new BoardCache(Long.getLong(CACHE_CAPACITY_PROPERTY, DEFAULT_CACHE_CAPACITY));
 	}
 
 	InputStream fileSource(String fileName) throws FileNotFoundException {
@@ -92,28 +249,151 @@ public class MineSweeper {
 		return source;
 	}
 
+	/**
+	 * Gets the cache of rendered hints, e.g. to inspect its hit/miss counters.
+	 */
+	public BoardCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Gets the selector of the engine of every board, e.g. to inspect how many
+	 * boards went to each; null unless the <b>adaptive</b> engine is used.
+	 */
+	public EngineSelector getEngineSelector() {
+		return engineSelector;
+	}
+
+	/**
+	 * Gets the running counters of the sweep.
+	 */
+	public SweepMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Gets the cache of hint tiles, e.g. to inspect its hit rate; null unless
+	 * tiles are used.
+	 */
+	public TileCache getTileCache() {
+		return tileCache;
+	}
+
 	InputStream getResourceAsStream(String fileName) {
 		return getClass().getResourceAsStream(fileName);
 	}
 
-	Board processBoard(String input, Board currentBoard) {
-		String[] dimensions = input.split("\\s");
+	/**
+	 * Prints a completed board, reusing the rendered hints of an identical board
+	 * seen earlier in the run. Only the header is written for a cache hit.
+	 * 
+	 * <p>
+	 * Once the arena holds the largest board, reading and printing a board
+	 * allocates nothing of its own, except for the content key when the hints
+	 * may be cached, the rendered hints of a cache miss and the flight recorder
+	 * event while one is recorded. The lines read by the scanner, and the
+	 * matchers of the precompiled patterns that classify them, are still
+	 * allocated per line.
+	 * </p>
+	 */
+	void print(Board board) {
+		long printing = System.nanoTime();
+		long computed = printing;
+		long written;
+		boolean cached = false;
+
+		// null unless the hints may be cached
+		BoardKey key = cache.accepts(board.printedSize()) ? board.contentKey() : null;
+		if (key == null) {
+			board.close();
+			computed = System.nanoTime();
+			board.print(out);
+			written = board.headerSize() + board.printedSize();
+		} else {
+			byte[] hints = cache.get(key);
+			cached = hints != null;
+			if (!cached) {
+				board.close();
+				computed = System.nanoTime();
+				ByteArrayOutputStream rendered = new ByteArrayOutputStream((int) board.printedSize());
+				board.printHints(rendered);
+				hints = rendered.toByteArray();
+				cache.put(key, hints);
+			}
+			board.printHeader(out);
+			try {
+				out.write(hints);
+				out.flush();
+			} catch (IOException e) {
+				throw new MineSweeperException("Unable to write hints for board " + board.getId() + ".");
+			}
+			written = board.headerSize() + hints.length;
+		}
+		long printed = System.nanoTime();
+
+		long parse = reading ? printing - boardStarted : 0;
+		long squares = (long) board.getRowCount() * board.getColumnCount();
+		long mines = board.getMineCount();
+		metrics.board(squares, mines, parse, computed - printing, printed - computed, written, cached);
+
+		if (boardEvent != null) {
+			boardEvent.end();
+			if (boardEvent.shouldCommit()) {
+				boardEvent.boardId = board.getId();
+				boardEvent.rows = board.getRowCount();
+				boardEvent.columns = board.getColumnCount();
+				boardEvent.mines = mines;
+				boardEvent.cached = cached;
+				boardEvent.parseDuration = parse;
+				boardEvent.computeDuration = computed - printing;
+				boardEvent.renderDuration = printed - computed;
+				boardEvent.renderedBytes = written;
+				boardEvent.commit();
+			}
+			boardEvent = null;
+		}
+		reading = false;
+	}
 
-		String oldId = currentBoard != null ? currentBoard.getId() : "0";
-		int id = Integer.parseInt(oldId) + 1;
+	Board processBoard(String input, Board currentBoard) {
+		int id = currentBoard != null ? currentBoard.getNumber() + 1 : firstBoardId;
 
-		Integer rows = new Integer(dimensions[0]);
-		Integer columns = new Integer(dimensions[1]);
+		// the header has matched the board start, two numbers apart
+		int position = 0;
+		int rows = 0;
+		while (Character.isDigit(input.charAt(position))) {
+			rows = rows * 10 + input.charAt(position++) - '0';
+		}
+		while (!Character.isDigit(input.charAt(position))) {
+			position++;
+		}
+		int columns = 0;
+		while (position < input.length() && Character.isDigit(input.charAt(position))) {
+			columns = columns * 10 + input.charAt(position++) - '0';
+		}
 
 		boolean rowsAsColumns = rowsAsColumns();
 
 		int rowCount = rowsAsColumns ? columns : rows;
 		int colCount = rowsAsColumns ? rows : columns;
 
-		Board board = new Board(Integer.toString(id), rowCount, colCount);
+		Board board = arena.board(id, rowCount, colCount);
 		if (rowsAsColumns) {
 			board.rowsAsColumns();
 		}
+		// the rows are only worth hashing if the hints may be cached
+		if (!cache.accepts(board.printedSize())) {
+			board.withoutContentKey();
+		}
+		if (tileCache != null) {
+			board.withTileCache(tileCache);
+		} else if (hintTable) {
+			board.withHintTable();
+		} else if (hintCalculator) {
+			board.withHintCalculator();
+		} else if (engineSelector != null) {
+			board.withEngineSelector(engineSelector);
+		}
 		return board;
 	}
 
@@ -121,18 +401,27 @@ public class MineSweeper {
 
 		Board boardUsed = null;
 
-		if (input.matches(BOARD_START_REGEX)) {
+		metrics.read(input.length() + 1);
+
+		if (BOARD_START.matcher(input).matches()) {
 			if (currentBoard != null) {
-				currentBoard.print(out);
+				print(currentBoard);
 			}
-			if (!input.matches(INPUT_END_REGEX)) {
+			if (!INPUT_END.matcher(input).matches()) {
 				boardUsed = processBoard(input, currentBoard);
+				// events are only created while a recording asks for them
+				boardEvent = BOARD_EVENT.isEnabled() ? new BoardEvent() : null;
+				if (boardEvent != null) {
+					boardEvent.begin();
+				}
+				boardStarted = System.nanoTime();
+				reading = true;
 			} else {
 				boardUsed = null;
 			}
 			// end
 		} else {
-			if (input.matches(VALID_INPUT_REGEX)) {
+			if (VALID_INPUT.matcher(input).matches()) {
 				boardUsed = currentBoard;
 				boardUsed.withRow(input);
 			} else {
@@ -148,24 +437,140 @@ public class MineSweeper {
 	}
 
 	Scanner scanner(String[] params) throws MineSweeperException {
-		Scanner scanner = null;
+		InputStream source = null;
 		try {
-			InputStream source = fileSource(params[0]);
-			scanner = new Scanner(source);
+			source = input != null ? input : fileSource(params[0]);
 		} catch (Exception e) {
 			throw new MineSweeperException("Invalid file name.  First argument must be a path to an input file.");
 		}
-		return scanner;
+		try {
+			return new Scanner(CompressedStreams.open(source));
+		} catch (IOException e) {
+			try {
+				source.close();
+			} catch (IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			throw new MineSweeperException("Invalid input.  Unable to read the input: " + e.getMessage());
+		}
 	}
 
 	void sweep() {
-		Scanner scanner = scanner(params);
+		try (Scanner scanner = scanner(params)) {
+			Board currentBoard = null;
+
+			do {
+				String input = scanner.nextLine();
+				currentBoard = processInput(input, currentBoard);
+			} while (scanner.hasNextLine() && currentBoard != null);
+		}
+	}
 
-		Board currentBoard = null;
+	/**
+	 * Replaces the cache of rendered hints, e.g. to share it between instances.
+	 * 
+	 * @param cache
+	 *            cache to use; a zero capacity cache disables memoisation.
+	 */
+	public MineSweeper withCache(BoardCache cache) {
+		this.cache = cache;
+		return this;
+	}
 
-		do {
-			String input = scanner.nextLine();
-			currentBoard = processInput(input, currentBoard);
-		} while (scanner.hasNextLine() && currentBoard != null);
+	/**
+	 * Chooses between the cells, the {@link HintTable} and the
+	 * {@link HintCalculator} board by board, unless the table, tiles or
+	 * calculator are used for every board.
+	 * 
+	 * @param selector
+	 *            selector, possibly shared between instances; null to use the
+	 *            cells.
+	 * @see #ENGINE_PROPERTY
+	 */
+	public MineSweeper withEngineSelector(EngineSelector selector) {
+		this.engineSelector = selector;
+		return this;
+	}
+
+	/**
+	 * Numbers boards from the given id instead of 1, e.g. when the input is part
+	 * of a larger one.
+	 * 
+	 * @param id
+	 *            id of the first board.
+	 * @see MineSweeperParallel
+	 */
+	MineSweeper withFirstBoardId(int id) {
+		this.firstBoardId = id;
+		return this;
+	}
+
+	/**
+	 * Calculates hints with the {@link HintCalculator} instead of calculating
+	 * every cell.
+	 * 
+	 * @see #ENGINE_PROPERTY
+	 */
+	public MineSweeper withHintCalculator() {
+		this.hintCalculator = true;
+		return this;
+	}
+
+	/**
+	 * Renders hints with the {@link HintTable} instead of calculating every cell.
+	 * 
+	 * @see #ENGINE_PROPERTY
+	 */
+	public MineSweeper withHintTable() {
+		this.hintTable = true;
+		return this;
+	}
+
+	/**
+	 * Reads board definitions from the given stream instead of the file named by
+	 * the first parameter.
+	 * 
+	 * @param input
+	 *            stream of board definitions, possibly compressed; closed once
+	 *            the sweep finishes.
+	 */
+	public MineSweeper withInput(InputStream input) {
+		this.input = input;
+		return this;
+	}
+
+	/**
+	 * Replaces the running counters, e.g. to aggregate several sweeps.
+	 * 
+	 * @param metrics
+	 *            counters to update.
+	 */
+	public MineSweeper withMetrics(SweepMetrics metrics) {
+		this.metrics = metrics;
+		return this;
+	}
+
+	/**
+	 * Writes hints to the given stream instead of the one passed to the
+	 * constructor, e.g. when an instance is reused for several sweeps.
+	 * 
+	 * @see SweepEngine
+	 */
+	MineSweeper withOutput(OutputStream out) {
+		this.out = out;
+		return this;
+	}
+
+	/**
+	 * Renders hints with the {@link HintTable}, reusing the hint tiles of earlier
+	 * boards from the given cache.
+	 * 
+	 * @param tiles
+	 *            cache of rendered tiles, possibly shared between instances.
+	 * @see #ENGINE_PROPERTY
+	 */
+	public MineSweeper withTileCache(TileCache tiles) {
+		this.tileCache = tiles;
+		return this;
 	}
 }
@@ -0,0 +1,451 @@
+package sfranson.minesweeper;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Program that sweeps many input files in a single JVM, processing files
+ * concurrently.
+ *
+ * <p>
+ * Inputs may be files, directories (all regular files below them, in path
+ * order) or glob patterns such as <code>data/*.txt</code>. Output is written
+ * either to one file per input, or to a single combined stream in input order,
+ * regardless of the order in which files complete.
+ * </p>
+ *
+ * <p>
+ * Compressed inputs are decompressed transparently. Outputs are gzip
+ * compressed with <b>--gzip</b>, or when the combined output file name ends in
+ * <b>.gz</b>; see {@link CompressedStreams}.
+ * </p>
+ *
+ * <ul>
+ * Arguments:
+ * <li><b>--columns</b> - interpret board definitions as column-oriented.</li>
+ * <li><b>--threads n</b> - maximum number of files processed at once; defaults
+ * to the number of processors.</li>
+ * <li><b>--output-dir dir</b> - write <code>&lt;name&gt;.out</code> per input
+ * file into the directory.</li>
+ * <li><b>--output file</b> - write the combined output to a file instead of
+ * standard out.</li>
+ * <li><b>--gzip</b> - compress per-file outputs, as
+ * <code>&lt;name&gt;.out.gz</code>.</li>
+ * <li>remaining arguments - input files, directories or globs.</li>
+ * </ul>
+ *
+ * @see MineSweeper
+ */
+public class MineSweeperBatch {
+
+	/**
+	 * Characters that mark an argument as a glob pattern.
+	 */
+	private static final String GLOB_CHARS = "*?[{";
+
+	/**
+	 * Parses the arguments and runs the batch.
+	 *
+	 * @param args
+	 *            see class description.
+	 */
+	public static void main(String[] args) {
+		try {
+			MineSweeperBatch batch = new MineSweeperBatch();
+			List<String> inputs = batch.parse(args);
+			int failures = batch.run(expand(inputs), System.out);
+			if (Boolean.getBoolean(MineSweeper.METRICS_PROPERTY)) {
+				batch.getMetrics().dump(System.err);
+				System.err.println(batch.getCache());
+			}
+			if (failures > 0) {
+				System.exit(1);
+			}
+		} catch (MineSweeperException e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace(System.err);
+		}
+	}
+
+	/**
+	 * Rendered hints shared by all files of the batch.
+	 */
+	private final BoardCache cache = new BoardCache(
+			Long.getLong(MineSweeper.CACHE_CAPACITY_PROPERTY, MineSweeper.DEFAULT_CACHE_CAPACITY));
+
+	private boolean columns;
+
+	/**
+	 * Destination of the combined output, standard out if null.
+	 */
+	private Path combinedOutput;
+
+	/**
+	 * Stream receiving per-file error messages.
+	 */
+	private PrintStream errors = System.err;
+
+	/**
+	 * Indicates per-file outputs are gzip compressed.
+	 */
+	private boolean gzip;
+
+	private final SweepMetrics metrics = new SweepMetrics();
+
+	/**
+	 * Destination of per-file outputs, combined output if null.
+	 */
+	private Path outputDirectory;
+
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Waits for a file's result, reporting its failure.
+	 *
+	 * @return the result, or null if the file failed.
+	 */
+	private <T> T await(Future<T> result, Path file) {
+		try {
+			return result.get();
+		} catch (ExecutionException e) {
+			errors.println(file + ": " + e.getCause().getMessage());
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MineSweeperException("Interrupted while sweeping " + file + ".");
+		}
+	}
+
+	private static void deleteQuietly(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			// temp file will be left behind
+		}
+	}
+
+	/**
+	 * Expands files, directories and glob patterns into a list of distinct input
+	 * files. Files from a directory or glob are listed in path order.
+	 *
+	 * @param args
+	 *            file names, directory names or glob patterns.
+	 * @throws MineSweeperException
+	 *             if an input does not exist or cannot be listed.
+	 */
+	static List<Path> expand(List<String> args) {
+		Set<Path> files = new LinkedHashSet<>();
+		for (String arg : args) {
+			try {
+				if (isGlob(arg)) {
+					files.addAll(glob(arg));
+				} else {
+					Path path = Paths.get(arg);
+					if (Files.isDirectory(path)) {
+						files.addAll(walk(path, p -> true));
+					} else if (Files.isRegularFile(path)) {
+						files.add(path);
+					} else {
+						throw new MineSweeperException("Invalid file name.  " + arg + " does not exist.");
+					}
+				}
+			} catch (IOException e) {
+				throw new MineSweeperException("Unable to list " + arg + ": " + e.getMessage());
+			}
+		}
+		return new ArrayList<>(files);
+	}
+
+	/**
+	 * Gets the cache of rendered hints shared by all files.
+	 */
+	public BoardCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Gets the counters aggregated over all files.
+	 */
+	public SweepMetrics getMetrics() {
+		return metrics;
+	}
+
+	private static List<Path> glob(String pattern) throws IOException {
+		int firstGlob = pattern.length();
+		for (char c : GLOB_CHARS.toCharArray()) {
+			int idx = pattern.indexOf(c);
+			if (idx >= 0) {
+				firstGlob = Math.min(firstGlob, idx);
+			}
+		}
+		int baseEnd = pattern.lastIndexOf('/', firstGlob);
+		Path base = Paths.get(baseEnd < 0 ? "." : baseEnd == 0 ? "/" : pattern.substring(0, baseEnd));
+		PathMatcher matcher = base.getFileSystem().getPathMatcher("glob:" + pattern.substring(baseEnd + 1));
+		if (!Files.isDirectory(base)) {
+			return new ArrayList<>();
+		}
+		return walk(base, p -> matcher.matches(base.relativize(p)));
+	}
+
+	private static boolean isGlob(String arg) {
+		for (char c : GLOB_CHARS.toCharArray()) {
+			if (arg.indexOf(c) >= 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Reads the options, returning the remaining input arguments.
+	 *
+	 * @param args
+	 *            see class description.
+	 */
+	List<String> parse(String[] args) {
+		List<String> inputs = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if ("--columns".equals(arg)) {
+				columns = true;
+			} else if ("--threads".equals(arg) && i + 1 < args.length) {
+				String count = args[++i];
+				try {
+					withThreads(Integer.parseInt(count));
+				} catch (NumberFormatException e) {
+					throw new MineSweeperException("Invalid arguments.  Thread count must be a number, was " + count + ".");
+				}
+			} else if ("--output-dir".equals(arg) && i + 1 < args.length) {
+				outputDirectory = Paths.get(args[++i]);
+			} else if ("--output".equals(arg) && i + 1 < args.length) {
+				combinedOutput = Paths.get(args[++i]);
+			} else if ("--gzip".equals(arg)) {
+				gzip = true;
+			} else {
+				inputs.add(arg);
+			}
+		}
+		if (inputs.isEmpty()) {
+			throw new MineSweeperException("Invalid arguments.  At least one input file, directory or glob is required.");
+		}
+		return inputs;
+	}
+
+	/**
+	 * Gets the name of an input file's output.
+	 */
+	private String outputName(Path file) {
+		return CompressedStreams.baseName(file.getFileName().toString()) + (gzip ? ".out.gz" : ".out");
+	}
+
+	/**
+	 * Runs the batch with the configured output mode.
+	 *
+	 * @param files
+	 *            input files.
+	 * @param out
+	 *            combined output used when no output file or directory is set.
+	 * @return the number of files that failed.
+	 */
+	int run(List<Path> files, OutputStream out) {
+		if (outputDirectory != null) {
+			return sweep(files, outputDirectory);
+		}
+		if (combinedOutput != null) {
+			try (OutputStream file = CompressedStreams.create(combinedOutput)) {
+				return sweep(files, file);
+			} catch (IOException e) {
+				throw new MineSweeperException("Unable to write " + combinedOutput + ": " + e.getMessage());
+			}
+		}
+		return sweep(files, out);
+	}
+
+	private <T> List<Future<T>> submit(ExecutorService executor, List<Path> files, FileTask<T> task) {
+		Semaphore permits = new Semaphore(threads);
+		List<Future<T>> results = new ArrayList<>(files.size());
+		for (Path file : files) {
+			results.add(executor.submit(() -> {
+				permits.acquire();
+				try {
+					return task.run(file);
+				} finally {
+					permits.release();
+				}
+			}));
+		}
+		return results;
+	}
+
+	/**
+	 * Sweeps the files concurrently, writing their outputs one after another, in
+	 * the order the files are given.
+	 *
+	 * @param files
+	 *            input files.
+	 * @param out
+	 *            stream receiving the combined output.
+	 * @return the number of files that failed.
+	 */
+	public int sweep(List<Path> files, OutputStream out) {
+		int failures = 0;
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<Path>> results = submit(executor, files, file -> {
+				Path temp = Files.createTempFile("minesweeper", ".out");
+				try {
+					sweepFile(file, temp);
+				} catch (RuntimeException | IOException e) {
+					Files.deleteIfExists(temp);
+					throw e;
+				}
+				return temp;
+			});
+			for (int i = 0; i < files.size(); i++) {
+				Path temp = await(results.get(i), files.get(i));
+				if (temp == null) {
+					failures++;
+					continue;
+				}
+				try {
+					Files.copy(temp, out);
+				} catch (IOException e) {
+					throw new MineSweeperException("Unable to write output of " + files.get(i) + ".");
+				} finally {
+					deleteQuietly(temp);
+				}
+			}
+			out.flush();
+		} catch (IOException e) {
+			throw new MineSweeperException("Unable to write output.");
+		}
+		return failures;
+	}
+
+	/**
+	 * Sweeps the files concurrently, writing each file's hints to
+	 * <code>&lt;name&gt;.out</code> in the output directory, without any
+	 * compression suffix of the input's name. Outputs are written to a
+	 * temporary file and only moved into place once complete, so a file that
+	 * fails leaves no output behind.
+	 *
+	 * @param files
+	 *            input files; their output names must be distinct.
+	 * @param outputDirectory
+	 *            directory receiving the outputs, created if necessary.
+	 * @return the number of files that failed.
+	 */
+	public int sweep(List<Path> files, Path outputDirectory) {
+		Set<String> names = new LinkedHashSet<>();
+		for (Path file : files) {
+			if (!names.add(outputName(file))) {
+				throw new MineSweeperException("Duplicate input file name " + file.getFileName()
+						+ ".  Per-file output requires distinct names.");
+			}
+		}
+		try {
+			Files.createDirectories(outputDirectory);
+		} catch (IOException e) {
+			throw new MineSweeperException("Unable to create " + outputDirectory + ".");
+		}
+
+		int failures = 0;
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<Path>> results = submit(executor, files, file -> {
+				Path target = outputDirectory.resolve(outputName(file));
+				// same suffix as the target, so it is compressed alike
+				Path temp = target.resolveSibling(".tmp-" + target.getFileName());
+				try {
+					sweepFile(file, temp);
+					AtomicFiles.publish(temp, target);
+				} finally {
+					Files.deleteIfExists(temp);
+				}
+				return target;
+			});
+			for (int i = 0; i < files.size(); i++) {
+				if (await(results.get(i), files.get(i)) == null) {
+					failures++;
+				}
+			}
+		}
+		return failures;
+	}
+
+	private void sweepFile(Path file, Path target) throws IOException {
+		String[] params = columns ? new String[] { file.toString(), "columns" } : new String[] { file.toString() };
+		try (OutputStream out = CompressedStreams.create(target)) {
+			new MineSweeper(params, out).withCache(cache).withMetrics(metrics)
+					.withInput(new BufferedInputStream(Files.newInputStream(file), 1 << 16)).sweep();
+		}
+	}
+
+	private static List<Path> walk(Path base, Predicate<Path> filter) throws IOException {
+		try (Stream<Path> paths = Files.walk(base)) {
+			return paths.filter(Files::isRegularFile).filter(filter).sorted().collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * Treats board definitions as column-oriented.
+	 */
+	public MineSweeperBatch withColumns() {
+		columns = true;
+		return this;
+	}
+
+	/**
+	 * Sets the stream receiving per-file error messages.
+	 */
+	public MineSweeperBatch withErrors(PrintStream errors) {
+		this.errors = errors;
+		return this;
+	}
+
+	/**
+	 * Compresses per-file outputs with gzip.
+	 */
+	public MineSweeperBatch withGzip() {
+		gzip = true;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of files processed at once.
+	 *
+	 * @param threads
+	 *            positive number of concurrent files.
+	 */
+	public MineSweeperBatch withThreads(int threads) {
+		if (threads < 1) {
+			throw new MineSweeperException("Invalid arguments.  Thread count must be positive.");
+		}
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Work done for one input file.
+	 */
+	@FunctionalInterface
+	private interface FileTask<T> {
+		T run(Path file) throws IOException;
+	}
+}
@@ -0,0 +1,569 @@
+package sfranson.minesweeper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Program that sweeps an input file into an output file, and on later runs
+ * recomputes only the boards that changed since.
+ *
+ * <p>
+ * Next to the output, a sidecar index <code>&lt;output&gt;.idx</code> records
+ * every board's SHA-256 content hash, its byte range in the input and the byte
+ * range of its hints in the output. On the next run the input is hashed board
+ * by board and compared to the index:
+ * </p>
+ * <ul>
+ * <li>If the input's size and modification time are those recorded, nothing is
+ * read or written.</li>
+ * <li>If no board was added or removed and every board kept its dimensions, the
+ * output is patched in place. Only the changed boards are hinted, and their
+ * hints overwrite the old ones, which have exactly the same size.</li>
+ * <li>Otherwise a new output is spliced together from the old output's hints of
+ * unchanged boards, found by hash wherever they moved, and the hints of new or
+ * changed boards, and then renamed over the old output. Unchanged hints are
+ * copied file to file, with their header rewritten only if the board's number
+ * changed.</li>
+ * </ul>
+ *
+ * <p>
+ * The output is the same as that of {@link MineSweeper} for the same file.
+ * Hashing still reads the whole input, at disk speed, but hinting and writing
+ * are limited to what changed. A run that fails leaves the previous output in
+ * place; if it failed while patching, the index is removed so the next run
+ * sweeps the whole file again.
+ * </p>
+ *
+ * <ul>
+ * Arguments:
+ * <li><b>--columns</b> - interpret board definitions as column-oriented.</li>
+ * <li>remaining arguments - input file and output file.</li>
+ * </ul>
+ *
+ * @see MineSweeperParallel
+ */
+public class MineSweeperIncremental {
+
+	/**
+	 * Boards of one run, kept in parallel arrays so the index of a large file
+	 * stays compact.
+	 */
+	private static final class Index {
+
+		private boolean columns;
+
+		private int count;
+
+		/**
+		 * Header digits of each board, rows in the high byte.
+		 */
+		private int[] dimensions = new int[16];
+
+		private byte[] hashes = new byte[16 * HASH_SIZE];
+
+		private long[] inputLengths = new long[16];
+
+		private long inputModified;
+
+		private long[] inputOffsets = new long[16];
+
+		private long inputSize;
+
+		/**
+		 * Length of each board's output, header included.
+		 */
+		private long[] outputLengths = new long[16];
+
+		private long[] outputOffsets = new long[16];
+
+		private long outputSize;
+
+		void add(byte[] hash, long inputOffset, long inputLength, int dimension) {
+			if (count == inputOffsets.length) {
+				int capacity = count * 2;
+				dimensions = Arrays.copyOf(dimensions, capacity);
+				hashes = Arrays.copyOf(hashes, capacity * HASH_SIZE);
+				inputLengths = Arrays.copyOf(inputLengths, capacity);
+				inputOffsets = Arrays.copyOf(inputOffsets, capacity);
+				outputLengths = Arrays.copyOf(outputLengths, capacity);
+				outputOffsets = Arrays.copyOf(outputOffsets, capacity);
+			}
+			System.arraycopy(hash, 0, hashes, count * HASH_SIZE, HASH_SIZE);
+			inputOffsets[count] = inputOffset;
+			inputLengths[count] = inputLength;
+			dimensions[count] = dimension;
+			count++;
+		}
+
+		/**
+		 * Gets the content hash of a board, comparable with equals.
+		 */
+		ByteBuffer hash(int board) {
+			return ByteBuffer.wrap(hashes, board * HASH_SIZE, HASH_SIZE).slice();
+		}
+
+		void output(int board, long offset, long length) {
+			outputOffsets[board] = offset;
+			outputLengths[board] = length;
+		}
+
+		/**
+		 * Indicates both runs have the same boards, in the same order and with
+		 * the same dimensions, so their outputs have the same layout.
+		 */
+		boolean sameLayout(Index other) {
+			return count == other.count && Arrays.equals(dimensions, 0, count, other.dimensions, 0, count);
+		}
+	}
+
+	/**
+	 * Writes a spliced output, coalescing adjacent ranges copied from the old
+	 * output into a single transfer and buffering newly rendered bytes.
+	 */
+	private static final class Splice {
+
+		private final FileChannel old;
+
+		private final FileChannel out;
+
+		private final ByteArrayOutputStream pending = new ByteArrayOutputStream(1 << 16);
+
+		private long position;
+
+		private long runEnd;
+
+		private long runStart;
+
+		Splice(FileChannel old, FileChannel out) {
+			this.old = old;
+			this.out = out;
+		}
+
+		void copy(long from, long length) throws IOException {
+			if (runEnd != from || runEnd == runStart) {
+				flush();
+				runStart = from;
+				runEnd = from;
+			}
+			runEnd += length;
+			position += length;
+		}
+
+		void flush() throws IOException {
+			if (pending.size() > 0) {
+				ByteBuffer bytes = ByteBuffer.wrap(pending.toByteArray());
+				while (bytes.hasRemaining()) {
+					out.write(bytes);
+				}
+				pending.reset();
+			}
+			while (runStart < runEnd) {
+				runStart += old.transferTo(runStart, runEnd - runStart, out);
+			}
+		}
+
+		void write(byte[] bytes, int offset, int length) throws IOException {
+			if (runStart < runEnd) {
+				flush();
+			}
+			pending.write(bytes, offset, length);
+			position += length;
+			if (pending.size() >= 1 << 16) {
+				flush();
+			}
+		}
+	}
+
+	/**
+	 * Size of a SHA-256 content hash.
+	 */
+	static final int HASH_SIZE = 32;
+
+	/**
+	 * Suffix of the sidecar index, appended to the output file's name.
+	 */
+	public static final String INDEX_SUFFIX = ".idx";
+
+	/**
+	 * First bytes of an index file, "MSIX".
+	 */
+	private static final int MAGIC = 0x4d534958;
+
+	/**
+	 * Parses the arguments and sweeps the input file into the output file.
+	 *
+	 * @param args
+	 *            see class description.
+	 */
+	public static void main(String[] args) {
+		try {
+			MineSweeperIncremental sweeper = new MineSweeperIncremental();
+			Path[] files = sweeper.parse(args);
+			sweeper.sweep(files[0], files[1]);
+			System.out.println("Recomputed " + sweeper.getRecomputed() + " boards, reused " + sweeper.getReused() + ".");
+			if (Boolean.getBoolean(MineSweeper.METRICS_PROPERTY)) {
+				sweeper.getMetrics().dump(System.err);
+				System.err.println(sweeper.getCache());
+			}
+		} catch (MineSweeperException e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace(System.err);
+		}
+	}
+
+	/**
+	 * Rendered hints of boards recomputed in a run.
+	 */
+	private final BoardCache cache = new BoardCache(
+			Long.getLong(MineSweeper.CACHE_CAPACITY_PROPERTY, MineSweeper.DEFAULT_CACHE_CAPACITY));
+
+	private boolean columns;
+
+	private long mapWindow = LineCursor.MAP_WINDOW;
+
+	private final SweepMetrics metrics = new SweepMetrics();
+
+	private long recomputed;
+
+	/**
+	 * Hints of the boards being recomputed, header included.
+	 */
+	private final ByteArrayOutputStream rendered = new ByteArrayOutputStream();
+
+	/**
+	 * Reads the definitions of the boards being recomputed, only ever moving
+	 * forward through the input.
+	 */
+	private LineCursor renderCursor;
+
+	private long reused;
+
+	private MineSweeper sweeper;
+
+	/**
+	 * Gets the cache of rendered hints of recomputed boards.
+	 */
+	public BoardCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Gets the counters of the recomputed boards.
+	 */
+	public SweepMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Gets the number of boards hinted by the last sweep.
+	 */
+	public long getRecomputed() {
+		return recomputed;
+	}
+
+	/**
+	 * Gets the number of boards whose hints the last sweep took from the
+	 * previous output.
+	 */
+	public long getReused() {
+		return reused;
+	}
+
+	private static byte[] header(int id) {
+		return ("Mine Field #" + id + ":" + System.lineSeparator()).getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Gets the sidecar index of an output file.
+	 */
+	static Path index(Path output) {
+		return output.resolveSibling(output.getFileName() + INDEX_SUFFIX);
+	}
+
+	/**
+	 * Reads the index of the previous run, if it is still valid for the output.
+	 *
+	 * @return null if there is no usable index, so every board is recomputed.
+	 */
+	private Index load(Path indexFile, Path output) {
+		if (!Files.isRegularFile(indexFile) || !Files.isRegularFile(output)) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(Files.newInputStream(indexFile), CompressedStreams.BUFFER_SIZE))) {
+			if (in.readInt() != MAGIC) {
+				return null;
+			}
+			Index index = new Index();
+			index.columns = in.readBoolean();
+			index.inputSize = in.readLong();
+			index.inputModified = in.readLong();
+			index.outputSize = in.readLong();
+			int count = in.readInt();
+			byte[] hash = new byte[HASH_SIZE];
+			for (int board = 0; board < count; board++) {
+				in.readFully(hash);
+				index.add(hash, in.readLong(), in.readLong(), in.readInt());
+				index.output(board, in.readLong(), in.readLong());
+			}
+			if (index.columns != columns || index.outputSize != Files.size(output)) {
+				return null;
+			}
+			return index;
+		} catch (IOException e) {
+			// an unreadable index only costs a full sweep
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the options, returning the input and output files.
+	 *
+	 * @param args
+	 *            see class description.
+	 */
+	Path[] parse(String[] args) {
+		List<String> files = new ArrayList<>();
+		for (String arg : args) {
+			if ("--columns".equals(arg)) {
+				columns = true;
+			} else {
+				files.add(arg);
+			}
+		}
+		if (files.size() != 2) {
+			throw new MineSweeperException("Invalid arguments.  An input file and an output file are required.");
+		}
+		return new Path[] { Paths.get(files.get(0)), Paths.get(files.get(1)) };
+	}
+
+	/**
+	 * Rewrites the hints of changed boards in place.
+	 */
+	private void patch(Index previous, Index current, Path output) throws IOException {
+		try (FileChannel out = FileChannel.open(output, StandardOpenOption.WRITE)) {
+			for (int board = 0; board < current.count; board++) {
+				long offset = previous.outputOffsets[board];
+				long length = previous.outputLengths[board];
+				current.output(board, offset, length);
+				if (current.hash(board).equals(previous.hash(board))) {
+					reused++;
+					continue;
+				}
+				byte[] hints = render(current, board);
+				if (hints.length != length) {
+					throw new MineSweeperException("Unable to patch board " + (board + 1) + ".  Its hints changed size.");
+				}
+				ByteBuffer bytes = ByteBuffer.wrap(hints);
+				while (bytes.hasRemaining()) {
+					offset += out.write(bytes, offset);
+				}
+			}
+			current.outputSize = previous.outputSize;
+		}
+	}
+
+	/**
+	 * Hints one board, returning its header and hints.
+	 */
+	private byte[] render(Index index, int board) throws IOException {
+		long start = index.inputOffsets[board];
+		long end = start + index.inputLengths[board];
+		renderCursor.seekLine(start);
+		rendered.reset();
+		sweeper.withFirstBoardId(board + 1);
+		Board current = null;
+		while (renderCursor.getPosition() < end && renderCursor.next()) {
+			current = sweeper.processInput(renderCursor.toString(), current);
+		}
+		sweeper.print(current);
+		recomputed++;
+		return rendered.toByteArray();
+	}
+
+	private void save(Index index, Path indexFile) throws IOException {
+		Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(temp), CompressedStreams.BUFFER_SIZE))) {
+			out.writeInt(MAGIC);
+			out.writeBoolean(index.columns);
+			out.writeLong(index.inputSize);
+			out.writeLong(index.inputModified);
+			out.writeLong(index.outputSize);
+			out.writeInt(index.count);
+			for (int board = 0; board < index.count; board++) {
+				out.write(index.hashes, board * HASH_SIZE, HASH_SIZE);
+				out.writeLong(index.inputOffsets[board]);
+				out.writeLong(index.inputLengths[board]);
+				out.writeInt(index.dimensions[board]);
+				out.writeLong(index.outputOffsets[board]);
+				out.writeLong(index.outputLengths[board]);
+			}
+		}
+		AtomicFiles.publish(temp, indexFile);
+	}
+
+	/**
+	 * Hashes the boards of the input, up to the end-of-input marker. Like
+	 * {@link MineSweeper}, a last board not followed by a header is not
+	 * printed, so it is left out.
+	 */
+	private Index scan(FileChannel channel, long size) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new MineSweeperException("Unable to hash boards: " + e.getMessage());
+		}
+		Index index = new Index();
+		LineCursor cursor = new LineCursor(channel, size, mapWindow, 0);
+		long start = -1;
+		int dimension = 0;
+		while (cursor.next()) {
+			byte[] line = cursor.getLine();
+			int length = cursor.getLength();
+			if (MineSweeperParallel.isHeader(line, length)) {
+				if (start >= 0) {
+					index.add(digest.digest(), start, cursor.getLineStart() - start, dimension);
+				}
+				if (line[0] == '0' && line[length - 1] == '0') {
+					break;
+				}
+				start = cursor.getLineStart();
+				dimension = line[0] << 8 | line[length - 1];
+			} else if (start < 0) {
+				throw new MineSweeperException("Invalid input.  Cell definitions must follow a board header.");
+			}
+			digest.update(line, 0, length);
+			digest.update((byte) '\n');
+		}
+		return index;
+	}
+
+	/**
+	 * Writes a new output from the reused hints of the previous output and the
+	 * hints of new or changed boards.
+	 */
+	private void splice(Index previous, Index current, Path output) throws IOException {
+		Map<ByteBuffer, Integer> boards = new HashMap<>();
+		if (previous != null) {
+			for (int board = previous.count - 1; board >= 0; board--) {
+				boards.put(previous.hash(board), board);
+			}
+		}
+		Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+		try {
+			try (FileChannel old = previous != null ? FileChannel.open(output, StandardOpenOption.READ) : null;
+					FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+							StandardOpenOption.TRUNCATE_EXISTING)) {
+				Splice splice = new Splice(old, out);
+				for (int board = 0; board < current.count; board++) {
+					long offset = splice.position;
+					ByteBuffer hash = current.hash(board);
+					Integer match = previous != null && board < previous.count && hash.equals(previous.hash(board))
+							? Integer.valueOf(board) : boards.get(hash);
+					if (match == null) {
+						byte[] hints = render(current, board);
+						splice.write(hints, 0, hints.length);
+					} else if (match == board) {
+						splice.copy(previous.outputOffsets[match], previous.outputLengths[match]);
+						reused++;
+					} else {
+						// moved: same hints under a new number
+						byte[] header = header(board + 1);
+						long skipped = header(match + 1).length;
+						splice.write(header, 0, header.length);
+						splice.copy(previous.outputOffsets[match] + skipped, previous.outputLengths[match] - skipped);
+						reused++;
+					}
+					current.output(board, offset, splice.position - offset);
+				}
+				splice.flush();
+				current.outputSize = splice.position;
+			}
+			AtomicFiles.publish(temp, output);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Sweeps the input into the output, recomputing only the boards changed
+	 * since the run that wrote the output's index, and updates the index.
+	 *
+	 * @param input
+	 *            uncompressed input file.
+	 * @param output
+	 *            output file, created if there is none yet.
+	 */
+	public void sweep(Path input, Path output) {
+		recomputed = 0;
+		reused = 0;
+		Path indexFile = index(output);
+		try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long modified = Files.getLastModifiedTime(input).to(TimeUnit.NANOSECONDS);
+			Index previous = load(indexFile, output);
+			if (previous != null && previous.inputSize == size && previous.inputModified == modified) {
+				reused = previous.count;
+				return;
+			}
+
+			Index current = scan(channel, size);
+			current.columns = columns;
+			current.inputSize = size;
+			current.inputModified = modified;
+			String[] params = columns ? new String[] { input.toString(), "columns" } : new String[] { input.toString() };
+			sweeper = new MineSweeper(params, rendered).withCache(cache).withMetrics(metrics);
+			renderCursor = new LineCursor(channel, size, mapWindow, 0);
+			if (previous != null && previous.sameLayout(current)) {
+				// stale until every changed board is patched
+				Files.delete(indexFile);
+				patch(previous, current, output);
+			} else {
+				splice(previous, current, output);
+			}
+			save(current, indexFile);
+		} catch (IOException e) {
+			throw new MineSweeperException("Unable to sweep " + input + ": " + e.getMessage());
+		} finally {
+			sweeper = null;
+			renderCursor = null;
+		}
+	}
+
+	/**
+	 * Treats board definitions as column-oriented.
+	 */
+	public MineSweeperIncremental withColumns() {
+		columns = true;
+		return this;
+	}
+
+	/**
+	 * Sets the largest part of the input mapped at once.
+	 */
+	MineSweeperIncremental withMapWindow(long bytes) {
+		this.mapWindow = bytes;
+		return this;
+	}
+}
@@ -0,0 +1,239 @@
+package sfranson.minesweeper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Program that loads a {@link MineSweeperServer} with concurrent requests and
+ * reports throughput and latency percentiles.
+ *
+ * <p>
+ * Every request posts the same board definitions file and reads the whole
+ * streamed response. Latency runs from sending the request to receiving the
+ * last byte.
+ * </p>
+ *
+ * <ul>
+ * Arguments:
+ * <li><b>--url url</b> - sweep endpoint; defaults to
+ * <code>http://localhost:8080/sweep</code>.</li>
+ * <li><b>--requests n</b> - number of requests; defaults to 1000.</li>
+ * <li><b>--concurrency n</b> - requests in flight at once; defaults to 16.</li>
+ * <li><b>--warmup n</b> - requests sent first and left out of the report;
+ * defaults to 100.</li>
+ * <li>remaining argument - board definitions file used as request body.</li>
+ * </ul>
+ */
+public class MineSweeperLoadTest {
+
+	/**
+	 * Outcome of a load test.
+	 */
+	public static final class Report {
+
+		private final long bytes;
+
+		private final long elapsedNanos;
+
+		private final int failures;
+
+		/**
+		 * Latency of every successful request, in nanoseconds, ascending.
+		 */
+		private final long[] latencies;
+
+		Report(long[] latencies, int failures, long bytes, long elapsedNanos) {
+			this.latencies = latencies;
+			this.failures = failures;
+			this.bytes = bytes;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		/**
+		 * Gets the number of response bytes received.
+		 */
+		public long getBytes() {
+			return bytes;
+		}
+
+		/**
+		 * Gets the number of requests that failed or were not answered with 200.
+		 */
+		public int getFailures() {
+			return failures;
+		}
+
+		/**
+		 * Gets a latency percentile of the successful requests, in nanoseconds.
+		 *
+		 * @param percentile
+		 *            percentile between 0 and 100, e.g. 99.
+		 * @return the latency, or 0 if no request succeeded.
+		 */
+		public long getLatency(double percentile) {
+			if (latencies.length == 0) {
+				return 0;
+			}
+			int rank = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+			return latencies[Math.max(0, Math.min(rank, latencies.length - 1))];
+		}
+
+		/**
+		 * Gets the number of successful requests.
+		 */
+		public int getSuccesses() {
+			return latencies.length;
+		}
+
+		/**
+		 * Gets the successful requests per second.
+		 */
+		public double getThroughput() {
+			return elapsedNanos > 0 ? latencies.length * 1e9 / elapsedNanos : 0;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(
+					"requests=%d failures=%d elapsed=%.2fs throughput=%.1f req/s bytes=%d "
+							+ "p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms",
+					latencies.length + failures, failures, elapsedNanos / 1e9, getThroughput(), bytes,
+					getLatency(50) / 1e6, getLatency(90) / 1e6, getLatency(99) / 1e6, getLatency(100) / 1e6);
+		}
+	}
+
+	/**
+	 * Parses the arguments, runs the test and prints the report.
+	 *
+	 * @param args
+	 *            see class description.
+	 */
+	public static void main(String[] args) {
+		try {
+			String url = "http://localhost:" + MineSweeperServer.DEFAULT_PORT + "/sweep";
+			int requests = 1000;
+			int concurrency = 16;
+			int warmup = 100;
+			String file = null;
+			for (int i = 0; i < args.length; i++) {
+				String arg = args[i];
+				if ("--url".equals(arg) && i + 1 < args.length) {
+					url = args[++i];
+				} else if ("--requests".equals(arg) && i + 1 < args.length) {
+					requests = Integer.parseInt(args[++i]);
+				} else if ("--concurrency".equals(arg) && i + 1 < args.length) {
+					concurrency = Integer.parseInt(args[++i]);
+				} else if ("--warmup".equals(arg) && i + 1 < args.length) {
+					warmup = Integer.parseInt(args[++i]);
+				} else {
+					file = arg;
+				}
+			}
+			if (file == null) {
+				throw new MineSweeperException("Invalid arguments.  A board definitions file is required.");
+			}
+			byte[] body = Files.readAllBytes(Paths.get(file));
+			MineSweeperLoadTest test = new MineSweeperLoadTest(URI.create(url), body);
+			if (warmup > 0) {
+				test.run(warmup, concurrency);
+			}
+			System.out.println(test.run(requests, concurrency));
+		} catch (IOException e) {
+			System.err.println("Unable to read board definitions: " + e.getMessage());
+			System.exit(2);
+		} catch (MineSweeperException e) {
+			System.err.println(e.getMessage());
+			System.exit(2);
+		}
+	}
+
+	private final byte[] body;
+
+	private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+	private final URI target;
+
+	/**
+	 * Creates a test posting the same body to the target on every request.
+	 *
+	 * @param target
+	 *            sweep endpoint.
+	 * @param body
+	 *            board definitions.
+	 */
+	public MineSweeperLoadTest(URI target, byte[] body) {
+		this.target = target;
+		this.body = body;
+	}
+
+	/**
+	 * Sends the requests, keeping <code>concurrency</code> of them in flight.
+	 *
+	 * @param requests
+	 *            number of requests.
+	 * @param concurrency
+	 *            positive number of requests in flight at once.
+	 * @return the report.
+	 */
+	public Report run(int requests, int concurrency) {
+		if (requests < 0 || concurrency < 1) {
+			throw new MineSweeperException("Invalid arguments.  Requests and concurrency must be positive.");
+		}
+		HttpRequest request = HttpRequest.newBuilder(target).POST(HttpRequest.BodyPublishers.ofByteArray(body))
+				.build();
+		Semaphore inFlight = new Semaphore(concurrency);
+		AtomicLong bytes = new AtomicLong();
+		List<Future<Long>> results = new ArrayList<>(requests);
+		long started = System.nanoTime();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < requests; i++) {
+				inFlight.acquireUninterruptibly();
+				results.add(executor.submit(() -> {
+					try {
+						long sent = System.nanoTime();
+						HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+						long latency = System.nanoTime() - sent;
+						bytes.addAndGet(response.body().length);
+						return response.statusCode() == 200 ? latency : -1L;
+					} finally {
+						inFlight.release();
+					}
+				}));
+			}
+		}
+		long elapsed = System.nanoTime() - started;
+
+		long[] latencies = new long[requests];
+		int successes = 0;
+		for (Future<Long> result : results) {
+			try {
+				long latency = result.get();
+				if (latency >= 0) {
+					latencies[successes++] = latency;
+				}
+			} catch (ExecutionException e) {
+				// counted as a failure
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MineSweeperException("Interrupted while collecting results.");
+			}
+		}
+		latencies = Arrays.copyOf(latencies, successes);
+		Arrays.sort(latencies);
+		return new Report(latencies, requests - successes, bytes.get(), elapsed);
+	}
+}
@@ -0,0 +1,441 @@
+package sfranson.minesweeper;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Program that sweeps a single large input file on several threads.
+ *
+ * <p>
+ * The file is memory-mapped and split into byte ranges. A range owns the
+ * boards whose header line starts within it. In a first parallel pass every
+ * range counts its boards, which gives each range the id of its first board.
+ * In a second pass the ranges are parsed and hinted in parallel, each
+ * continuing past its end to finish its last board, and their outputs are
+ * written in file order. The output is the same as that of {@link MineSweeper}
+ * for the same file, including the <code>Mine Field #n</code> numbering.
+ * </p>
+ *
+ * <p>
+ * Rendered ranges are held in memory until written. A range whose last board
+ * runs through the whole of the next range is instead swept on the calling
+ * thread, once the ranges before it are written, straight to the output, so
+ * boards larger than a range are never buffered.
+ * </p>
+ *
+ * <p>
+ * Splitting relies on header lines (two digits, optionally separated by
+ * whitespace) never being valid cell definitions. Compressed files cannot be
+ * split and are swept sequentially.
+ * </p>
+ *
+ * <ul>
+ * Arguments:
+ * <li><b>--columns</b> - interpret board definitions as column-oriented.</li>
+ * <li><b>--threads n</b> - number of ranges processed at once; defaults to the
+ * number of processors.</li>
+ * <li><b>--split bytes</b> - size of a range; defaults to
+ * {@link #DEFAULT_SPLIT_SIZE}.</li>
+ * <li>remaining argument - input file.</li>
+ * </ul>
+ *
+ * @see MineSweeper
+ */
+public class MineSweeperParallel {
+
+	/**
+	 * Output of one range: the rendered boards, and the error that stopped it,
+	 * if any.
+	 */
+	private static final class Chunk {
+
+		private MineSweeperException error;
+
+		private byte[] output;
+	}
+
+	/**
+	 * Byte range of the file, and the boards whose headers start within it.
+	 */
+	private static final class Range {
+
+		private int boards;
+
+		private final long end;
+
+		/**
+		 * Position of the first header line in the range, -1 if it has none.
+		 */
+		private long firstHeader = -1;
+
+		/**
+		 * Id of the first board of the range.
+		 */
+		private int firstId;
+
+		private final long start;
+
+		/**
+		 * Indicates the range contains the end-of-input marker.
+		 */
+		private boolean terminated;
+
+		Range(long start, long end) {
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	/**
+	 * Default size of a range, in bytes.
+	 */
+	public static final long DEFAULT_SPLIT_SIZE = 8L << 20;
+
+	/**
+	 * Parses the arguments and sweeps the file to standard out.
+	 *
+	 * @param args
+	 *            see class description.
+	 */
+	public static void main(String[] args) {
+		try {
+			MineSweeperParallel sweeper = new MineSweeperParallel();
+			Path file = sweeper.parse(args);
+			OutputStream out = new BufferedOutputStream(System.out, CompressedStreams.BUFFER_SIZE);
+			sweeper.sweep(file, out);
+			if (Boolean.getBoolean(MineSweeper.METRICS_PROPERTY)) {
+				sweeper.getMetrics().dump(System.err);
+				System.err.println(sweeper.getCache());
+			}
+		} catch (MineSweeperException e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace(System.err);
+		}
+	}
+
+	/**
+	 * Rendered hints shared by all ranges.
+	 */
+	private final BoardCache cache = new BoardCache(
+			Long.getLong(MineSweeper.CACHE_CAPACITY_PROPERTY, MineSweeper.DEFAULT_CACHE_CAPACITY));
+
+	private boolean columns;
+
+	private long mapWindow = LineCursor.MAP_WINDOW;
+
+	private final SweepMetrics metrics = new SweepMetrics();
+
+	private long splitSize = DEFAULT_SPLIT_SIZE;
+
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	private static <T> T await(Future<T> result) {
+		try {
+			return result.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof MineSweeperException) {
+				throw (MineSweeperException) e.getCause();
+			}
+			throw new MineSweeperException("Unable to read input: " + e.getCause().getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MineSweeperException("Interrupted while sweeping.");
+		}
+	}
+
+	/**
+	 * Gets the cache of rendered hints shared by all ranges.
+	 */
+	public BoardCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Gets the counters aggregated over all ranges.
+	 */
+	public SweepMetrics getMetrics() {
+		return metrics;
+	}
+
+	private static boolean isCompressed(Path file) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			return CompressedStreams.isCompressed(in.read(), in.read());
+		}
+	}
+
+	/**
+	 * Indicates a line starts a board, or ends the input; the equivalent of
+	 * <code>\d\s*\d</code>.
+	 */
+	static boolean isHeader(byte[] line, int length) {
+		if (length < 2 || !isDigit(line[0]) || !isDigit(line[length - 1])) {
+			return false;
+		}
+		for (int i = 1; i < length - 1; i++) {
+			byte b = line[i];
+			if (b != ' ' && b != '\t' && b != '\n' && b != 0x0b && b != '\f' && b != '\r') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isDigit(byte b) {
+		return b >= '0' && b <= '9';
+	}
+
+	/**
+	 * Reads the options, returning the input file.
+	 *
+	 * @param args
+	 *            see class description.
+	 */
+	Path parse(String[] args) {
+		List<String> inputs = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if ("--columns".equals(arg)) {
+				columns = true;
+			} else if ("--threads".equals(arg) && i + 1 < args.length) {
+				String count = args[++i];
+				try {
+					withThreads(Integer.parseInt(count));
+				} catch (NumberFormatException e) {
+					throw new MineSweeperException("Invalid arguments.  Thread count must be a number, was " + count + ".");
+				}
+			} else if ("--split".equals(arg) && i + 1 < args.length) {
+				String size = args[++i];
+				try {
+					withSplitSize(Long.parseLong(size));
+				} catch (NumberFormatException e) {
+					throw new MineSweeperException("Invalid arguments.  Split size must be a number, was " + size + ".");
+				}
+			} else {
+				inputs.add(arg);
+			}
+		}
+		if (inputs.size() != 1) {
+			throw new MineSweeperException("Invalid arguments.  Exactly one input file is required.");
+		}
+		return Paths.get(inputs.get(0));
+	}
+
+	/**
+	 * Renders the boards of one range into memory.
+	 */
+	private Chunk render(FileChannel channel, long size, Range range, String[] params) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		Chunk chunk = new Chunk();
+		chunk.error = sweep(channel, size, range, params, output);
+		chunk.output = output.toByteArray();
+		return chunk;
+	}
+
+	/**
+	 * Counts the boards whose header lines start within the range.
+	 */
+	private Range scan(FileChannel channel, long size, long start, long end) throws IOException {
+		Range range = new Range(start, end);
+		LineCursor cursor = new LineCursor(channel, size, mapWindow, start);
+		cursor.seekLine(start);
+		while (cursor.getPosition() < end && cursor.next()) {
+			if (!isHeader(cursor.getLine(), cursor.getLength())) {
+				continue;
+			}
+			if (cursor.getLine()[0] == '0' && cursor.getLine()[cursor.getLength() - 1] == '0') {
+				range.terminated = true;
+				break;
+			}
+			if (range.firstHeader < 0) {
+				range.firstHeader = cursor.getLineStart();
+			}
+			range.boards++;
+		}
+		return range;
+	}
+
+	/**
+	 * Sweeps the file, writing the hints of its boards in file order.
+	 *
+	 * @param file
+	 *            uncompressed input file; compressed files are swept
+	 *            sequentially.
+	 * @param out
+	 *            stream receiving the hints.
+	 */
+	public void sweep(Path file, OutputStream out) {
+		String[] params = params(file);
+		try {
+			if (isCompressed(file)) {
+				new MineSweeper(params, out).withCache(cache).withMetrics(metrics)
+						.withInput(Files.newInputStream(file)).sweep();
+				return;
+			}
+		} catch (IOException e) {
+			throw new MineSweeperException("Invalid file name.  " + file + " cannot be read.");
+		}
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+				ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+			long size = channel.size();
+			List<Future<Range>> scans = new ArrayList<>();
+			for (long start = 0; start < size; start += splitSize) {
+				long from = start;
+				scans.add(executor.submit(() -> scan(channel, size, from, Math.min(from + splitSize, size))));
+			}
+
+			// number the boards, up to the end of input
+			List<Range> ranges = new ArrayList<>(scans.size());
+			int nextId = 1;
+			for (Future<Range> scan : scans) {
+				Range range = await(scan);
+				range.firstId = nextId;
+				nextId += range.boards;
+				ranges.add(range);
+				if (range.terminated) {
+					break;
+				}
+			}
+
+			// keep a bounded number of rendered ranges waiting to be written
+			Deque<Future<Chunk>> pending = new ArrayDeque<>();
+			for (int idx = 0; idx < ranges.size(); idx++) {
+				Range range = ranges.get(idx);
+				if (range.start > 0 && range.boards == 0) {
+					continue;
+				}
+				if (idx + 1 < ranges.size() && ranges.get(idx + 1).boards == 0) {
+					// the last board outgrows the next range: stream it instead of holding it in memory
+					while (!pending.isEmpty()) {
+						write(await(pending.removeFirst()), out);
+					}
+					MineSweeperException error = sweep(channel, size, range, params, out);
+					if (error != null) {
+						out.flush();
+						throw error;
+					}
+					continue;
+				}
+				if (pending.size() >= threads * 2) {
+					write(await(pending.removeFirst()), out);
+				}
+				pending.add(executor.submit(() -> render(channel, size, range, params)));
+			}
+			while (!pending.isEmpty()) {
+				write(await(pending.removeFirst()), out);
+			}
+			out.flush();
+		} catch (IOException e) {
+			throw new MineSweeperException("Unable to sweep " + file + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Parses and hints the boards of one range, reading past its end to finish
+	 * the last one.
+	 * 
+	 * @return the error that stopped the range, if any.
+	 */
+	private MineSweeperException sweep(FileChannel channel, long size, Range range, String[] params,
+			OutputStream output) throws IOException {
+		MineSweeper sweeper = new MineSweeper(params, output).withCache(cache).withMetrics(metrics)
+				.withFirstBoardId(range.firstId);
+		LineCursor cursor = new LineCursor(channel, size, mapWindow, range.start > 0 ? range.firstHeader : 0);
+		try {
+			Board board = null;
+			while (cursor.next()) {
+				boolean header = isHeader(cursor.getLine(), cursor.getLength());
+				if (header && board != null && cursor.getLineStart() >= range.end) {
+					// the next range's first board
+					sweeper.print(board);
+					break;
+				}
+				if (!header && board == null) {
+					throw new MineSweeperException("Invalid input.  Cell definitions must follow a board header.");
+				}
+				board = sweeper.processInput(cursor.toString(), board);
+				if (board == null) {
+					break;
+				}
+			}
+		} catch (MineSweeperException e) {
+			return e;
+		}
+		return null;
+	}
+
+	private String[] params(Path file) {
+		return columns ? new String[] { file.toString(), "columns" } : new String[] { file.toString() };
+	}
+
+	/**
+	 * Treats board definitions as column-oriented.
+	 */
+	public MineSweeperParallel withColumns() {
+		columns = true;
+		return this;
+	}
+
+	/**
+	 * Sets the largest part of the file mapped at once.
+	 */
+	MineSweeperParallel withMapWindow(long bytes) {
+		this.mapWindow = bytes;
+		return this;
+	}
+
+	/**
+	 * Sets the size of the ranges the file is split into.
+	 *
+	 * @param bytes
+	 *            positive number of bytes per range.
+	 */
+	public MineSweeperParallel withSplitSize(long bytes) {
+		if (bytes < 1) {
+			throw new MineSweeperException("Invalid arguments.  Split size must be positive.");
+		}
+		this.splitSize = bytes;
+		return this;
+	}
+
+	/**
+	 * Sets the number of ranges processed at once.
+	 *
+	 * @param threads
+	 *            positive number of concurrent ranges.
+	 */
+	public MineSweeperParallel withThreads(int threads) {
+		if (threads < 1) {
+			throw new MineSweeperException("Invalid arguments.  Thread count must be positive.");
+		}
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Writes a range's output, then rethrows the error that stopped it.
+	 */
+	private static void write(Chunk chunk, OutputStream out) throws IOException {
+		out.write(chunk.output);
+		if (chunk.error != null) {
+			out.flush();
+			throw chunk.error;
+		}
+	}
+}
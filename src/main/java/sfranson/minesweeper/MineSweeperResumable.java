@@ -0,0 +1,383 @@
+package sfranson.minesweeper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Program that sweeps a long input file into an output file, writing periodic
+ * checkpoints so an interrupted run can be resumed instead of restarted.
+ *
+ * <p>
+ * At board boundaries, once the checkpoint interval has passed, the output is
+ * flushed and forced to disk, then a checkpoint
+ * <code>&lt;output&gt;.ckpt</code> is written, forced to disk and moved into
+ * place atomically. It records the input byte offset of the next board's
+ * header, the id of the last completed board and the output length. With
+ * <b>--resume</b>, the output is truncated to the recorded length, dropping
+ * anything written after the checkpoint, and the input is memory-mapped from
+ * the recorded offset. Boards are then appended from the next id, so the work
+ * redone after a crash is bounded by the checkpoint interval. The checkpoint
+ * is removed once the sweep completes.
+ * </p>
+ *
+ * <p>
+ * The checkpoint also records the input's size and modification time. Resuming
+ * against a different input is refused, as is a compressed input, which
+ * cannot be entered at an offset. Resuming without a checkpoint starts from
+ * the beginning. The output is the same as that of {@link MineSweeper}.
+ * </p>
+ *
+ * <ul>
+ * Arguments:
+ * <li><b>--columns</b> - interpret board definitions as column-oriented.</li>
+ * <li><b>--resume</b> - continue from the checkpoint of the output, if any.</li>
+ * <li><b>--checkpoint-interval seconds</b> - time between checkpoints;
+ * defaults to 30.</li>
+ * <li><b>--checkpoint-boards n</b> - also checkpoint every n boards.</li>
+ * <li>remaining arguments - input file and output file.</li>
+ * </ul>
+ */
+public class MineSweeperResumable {
+
+	/**
+	 * Suffix of the checkpoint, appended to the output file's name.
+	 */
+	public static final String CHECKPOINT_SUFFIX = ".ckpt";
+
+	/**
+	 * Default time between checkpoints, in seconds.
+	 */
+	public static final long DEFAULT_CHECKPOINT_INTERVAL = 30;
+
+	private static final String INPUT_MODIFIED = "input.modified";
+
+	private static final String INPUT_OFFSET = "input.offset";
+
+	private static final String INPUT_SIZE = "input.size";
+
+	private static final String LAST_BOARD = "board.last";
+
+	private static final String OUTPUT_LENGTH = "output.length";
+
+	/**
+	 * Parses the arguments and sweeps the input file into the output file.
+	 *
+	 * @param args
+	 *            see class description.
+	 */
+	public static void main(String[] args) {
+		try {
+			MineSweeperResumable sweeper = new MineSweeperResumable();
+			Path[] files = sweeper.parse(args);
+			sweeper.sweep(files[0], files[1]);
+			if (Boolean.getBoolean(MineSweeper.METRICS_PROPERTY)) {
+				sweeper.getMetrics().dump(System.err);
+				System.err.println(sweeper.getCache());
+			}
+		} catch (MineSweeperException e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace(System.err);
+		}
+	}
+
+	private final BoardCache cache = new BoardCache(
+			Long.getLong(MineSweeper.CACHE_CAPACITY_PROPERTY, MineSweeper.DEFAULT_CACHE_CAPACITY));
+
+	/**
+	 * Boards between checkpoints, 0 to checkpoint by time only.
+	 */
+	private int checkpointBoards;
+
+	private long checkpointNanos = TimeUnit.SECONDS.toNanos(DEFAULT_CHECKPOINT_INTERVAL);
+
+	private int checkpoints;
+
+	private boolean columns;
+
+	private final SweepMetrics metrics = new SweepMetrics();
+
+	private boolean resume;
+
+	/**
+	 * Id of the first board swept by the last run.
+	 */
+	private int resumedFrom;
+
+	/**
+	 * Gets the checkpoint of an output file.
+	 */
+	static Path checkpoint(Path output) {
+		return output.resolveSibling(output.getFileName() + CHECKPOINT_SUFFIX);
+	}
+
+	/**
+	 * Gets the cache of rendered hints.
+	 */
+	public BoardCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Gets the number of checkpoints written by the last sweep.
+	 */
+	public int getCheckpoints() {
+		return checkpoints;
+	}
+
+	/**
+	 * Gets the counters of the boards swept, which after a resume only include
+	 * the boards after the checkpoint.
+	 */
+	public SweepMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Gets the id of the first board swept by the last sweep; greater than 1 if
+	 * it resumed from a checkpoint.
+	 */
+	public int getResumedFrom() {
+		return resumedFrom;
+	}
+
+	private static boolean isCompressed(Path file) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			return CompressedStreams.isCompressed(in.read(), in.read());
+		}
+	}
+
+	private static long modified(Path file) throws IOException {
+		return Files.getLastModifiedTime(file).to(TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Reads the options, returning the input and output files.
+	 *
+	 * @param args
+	 *            see class description.
+	 */
+	Path[] parse(String[] args) {
+		List<String> files = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if ("--columns".equals(arg)) {
+				columns = true;
+			} else if ("--resume".equals(arg)) {
+				resume = true;
+			} else if ("--checkpoint-interval".equals(arg) && i + 1 < args.length) {
+				String seconds = args[++i];
+				try {
+					withCheckpointInterval(Long.parseLong(seconds), TimeUnit.SECONDS);
+				} catch (NumberFormatException e) {
+					throw new MineSweeperException(
+							"Invalid arguments.  Checkpoint interval must be a number, was " + seconds + ".");
+				}
+			} else if ("--checkpoint-boards".equals(arg) && i + 1 < args.length) {
+				String boards = args[++i];
+				try {
+					withCheckpointBoards(Integer.parseInt(boards));
+				} catch (NumberFormatException e) {
+					throw new MineSweeperException(
+							"Invalid arguments.  Checkpoint boards must be a number, was " + boards + ".");
+				}
+			} else {
+				files.add(arg);
+			}
+		}
+		if (files.size() != 2) {
+			throw new MineSweeperException("Invalid arguments.  An input file and an output file are required.");
+		}
+		return new Path[] { Paths.get(files.get(0)), Paths.get(files.get(1)) };
+	}
+
+	/**
+	 * Reads the checkpoint to resume from, checking it still matches the input
+	 * and output.
+	 *
+	 * @return null if there is no checkpoint.
+	 */
+	private static Properties read(Path checkpointFile, Path input, Path output) throws IOException {
+		if (!Files.isRegularFile(checkpointFile)) {
+			return null;
+		}
+		Properties checkpoint = new Properties();
+		try (Reader in = Files.newBufferedReader(checkpointFile, StandardCharsets.ISO_8859_1)) {
+			checkpoint.load(in);
+		}
+		try {
+			if (Long.parseLong(checkpoint.getProperty(INPUT_SIZE)) != Files.size(input)
+					|| Long.parseLong(checkpoint.getProperty(INPUT_MODIFIED)) != modified(input)) {
+				throw new MineSweeperException("Invalid checkpoint.  " + input
+						+ " changed since the checkpoint was written; sweep again without resuming.");
+			}
+			if (!Files.isRegularFile(output)
+					|| Files.size(output) < Long.parseLong(checkpoint.getProperty(OUTPUT_LENGTH))) {
+				throw new MineSweeperException("Invalid checkpoint.  " + output
+						+ " is shorter than the checkpoint; sweep again without resuming.");
+			}
+			Long.parseLong(checkpoint.getProperty(INPUT_OFFSET));
+			Integer.parseInt(checkpoint.getProperty(LAST_BOARD));
+		} catch (NumberFormatException e) {
+			throw new MineSweeperException("Invalid checkpoint.  " + checkpointFile + " is incomplete.");
+		}
+		return checkpoint;
+	}
+
+	/**
+	 * Sweeps the input into the output, resuming from the output's checkpoint
+	 * if so configured.
+	 *
+	 * @param input
+	 *            uncompressed input file.
+	 * @param output
+	 *            output file; replaced unless resuming.
+	 */
+	public void sweep(Path input, Path output) {
+		checkpoints = 0;
+		Path checkpointFile = checkpoint(output);
+		try {
+			if (isCompressed(input)) {
+				throw new MineSweeperException(
+						"Invalid input.  " + input + " is compressed and cannot be resumed at an offset.");
+			}
+			Properties from = resume ? read(checkpointFile, input, output) : null;
+			if (from == null) {
+				// a stale checkpoint must not outlive the output it describes
+				Files.deleteIfExists(checkpointFile);
+			}
+			long offset = from != null ? Long.parseLong(from.getProperty(INPUT_OFFSET)) : 0;
+			int completed = from != null ? Integer.parseInt(from.getProperty(LAST_BOARD)) : 0;
+			long length = from != null ? Long.parseLong(from.getProperty(OUTPUT_LENGTH)) : 0;
+			long size = Files.size(input);
+			long modified = modified(input);
+			resumedFrom = completed + 1;
+
+			try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+					FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+				out.truncate(length);
+				out.position(length);
+				OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(out),
+						CompressedStreams.BUFFER_SIZE);
+				String[] params = columns ? new String[] { input.toString(), "columns" }
+						: new String[] { input.toString() };
+				MineSweeper sweeper = new MineSweeper(params, stream).withCache(cache).withMetrics(metrics);
+				LineCursor cursor = new LineCursor(in, size, LineCursor.MAP_WINDOW, offset);
+				long lastCheckpoint = System.nanoTime();
+				int sinceCheckpoint = 0;
+				try {
+					Board board = null;
+					while (cursor.next()) {
+						boolean header = MineSweeperParallel.isHeader(cursor.getLine(), cursor.getLength());
+						if (header && board != null) {
+							sweeper.print(board);
+							board = null;
+							completed++;
+							sinceCheckpoint++;
+							long now = System.nanoTime();
+							if (now - lastCheckpoint >= checkpointNanos
+									|| checkpointBoards > 0 && sinceCheckpoint >= checkpointBoards) {
+								stream.flush();
+								out.force(false);
+								write(checkpointFile, cursor.getLineStart(), completed, out.position(), size,
+										modified);
+								lastCheckpoint = now;
+								sinceCheckpoint = 0;
+							}
+						}
+						if (!header && board == null) {
+							throw new MineSweeperException(
+									"Invalid input.  Cell definitions must follow a board header.");
+						}
+						sweeper.withFirstBoardId(completed + 1);
+						board = sweeper.processInput(cursor.toString(), board);
+						if (header && board == null) {
+							break;
+						}
+					}
+				} finally {
+					stream.flush();
+				}
+			}
+			Files.deleteIfExists(checkpointFile);
+		} catch (IOException e) {
+			throw new MineSweeperException("Unable to sweep " + input + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Checkpoints every given number of boards, in addition to the interval.
+	 *
+	 * @param boards
+	 *            boards between checkpoints; 0 to checkpoint by time only.
+	 */
+	public MineSweeperResumable withCheckpointBoards(int boards) {
+		if (boards < 0) {
+			throw new MineSweeperException("Invalid arguments.  Checkpoint boards must not be negative.");
+		}
+		this.checkpointBoards = boards;
+		return this;
+	}
+
+	/**
+	 * Sets the time between checkpoints.
+	 */
+	public MineSweeperResumable withCheckpointInterval(long interval, TimeUnit unit) {
+		if (interval < 0) {
+			throw new MineSweeperException("Invalid arguments.  Checkpoint interval must not be negative.");
+		}
+		this.checkpointNanos = unit.toNanos(interval);
+		return this;
+	}
+
+	/**
+	 * Treats board definitions as column-oriented.
+	 */
+	public MineSweeperResumable withColumns() {
+		columns = true;
+		return this;
+	}
+
+	/**
+	 * Continues from the output's checkpoint, if there is one.
+	 */
+	public MineSweeperResumable withResume() {
+		resume = true;
+		return this;
+	}
+
+	private void write(Path checkpointFile, long offset, int completed, long length, long size, long modified)
+			throws IOException {
+		Properties checkpoint = new Properties();
+		checkpoint.setProperty(INPUT_OFFSET, Long.toString(offset));
+		checkpoint.setProperty(LAST_BOARD, Integer.toString(completed));
+		checkpoint.setProperty(OUTPUT_LENGTH, Long.toString(length));
+		checkpoint.setProperty(INPUT_SIZE, Long.toString(size));
+		checkpoint.setProperty(INPUT_MODIFIED, Long.toString(modified));
+		Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			Writer writer = Channels.newWriter(channel, StandardCharsets.ISO_8859_1);
+			checkpoint.store(writer, "MineSweeper checkpoint");
+			writer.flush();
+			// on disk before the rename, so a crash cannot publish an empty checkpoint
+			channel.force(true);
+		}
+		AtomicFiles.publish(temp, checkpointFile);
+		checkpoints++;
+	}
+}
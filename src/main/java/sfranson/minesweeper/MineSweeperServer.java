@@ -0,0 +1,290 @@
+package sfranson.minesweeper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Program that serves hints over HTTP, using the JDK's built-in server.
+ *
+ * <p>
+ * <code>POST /sweep</code> takes board definitions in the {@link MineSweeper}
+ * input format as the request body and streams the hints back in its output
+ * format, each board being sent as soon as it is printed. Add
+ * <code>?columns</code> for column-oriented definitions. Invalid input is
+ * answered with 400 if no board has been sent yet, else the message ends the
+ * response. <code>GET /metrics</code> returns the {@link SweepMetrics} and
+ * {@link BoardCache} counters of all requests so far.
+ * </p>
+ *
+ * <ul>
+ * Arguments:
+ * <li><b>--port n</b> - port to listen on; defaults to 8080.</li>
+ * <li><b>--threads n</b> - handle at most n requests at once on a fixed pool;
+ * by default every request gets its own virtual thread.</li>
+ * </ul>
+ *
+ * @see MineSweeperLoadTest
+ */
+public class MineSweeperServer {
+
+	/**
+	 * Response stream that sends the 200 status line with the first byte, so
+	 * errors found before any output can still be answered with 400.
+	 */
+	private static final class ResponseStream extends OutputStream {
+
+		private final HttpExchange exchange;
+
+		private OutputStream out;
+
+		ResponseStream(HttpExchange exchange) {
+			this.exchange = exchange;
+		}
+
+		@Override
+		public void close() throws IOException {
+			start().close();
+		}
+
+		@Override
+		public void flush() throws IOException {
+			start().flush();
+		}
+
+		boolean isStarted() {
+			return out != null;
+		}
+
+		private OutputStream start() throws IOException {
+			if (out == null) {
+				exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+				exchange.sendResponseHeaders(200, 0);
+				out = exchange.getResponseBody();
+			}
+			return out;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			start().write(b, off, len);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			start().write(b);
+		}
+	}
+
+	private static final String CONTENT_TYPE = "text/plain; charset=US-ASCII";
+
+	/**
+	 * Default port to listen on.
+	 */
+	public static final int DEFAULT_PORT = 8080;
+
+	/**
+	 * Parses the arguments and serves until the process is stopped.
+	 *
+	 * @param args
+	 *            see class description.
+	 */
+	public static void main(String[] args) {
+		try {
+			MineSweeperServer server = new MineSweeperServer();
+			for (int i = 0; i < args.length; i++) {
+				if ("--port".equals(args[i]) && i + 1 < args.length) {
+					String port = args[++i];
+					try {
+						server.withPort(Integer.parseInt(port));
+					} catch (NumberFormatException e) {
+						throw new MineSweeperException("Invalid arguments.  Port must be a number, was " + port + ".");
+					}
+				} else if ("--threads".equals(args[i]) && i + 1 < args.length) {
+					String count = args[++i];
+					try {
+						server.withThreads(Integer.parseInt(count));
+					} catch (NumberFormatException e) {
+						throw new MineSweeperException(
+								"Invalid arguments.  Thread count must be a number, was " + count + ".");
+					}
+				} else {
+					throw new MineSweeperException("Invalid arguments.  Unknown option " + args[i] + ".");
+				}
+			}
+			server.start();
+			System.err.println("Listening on port " + server.getPort() + ".");
+		} catch (MineSweeperException e) {
+			System.err.println(e.getMessage());
+			System.exit(2);
+		}
+	}
+
+	/**
+	 * Rendered hints shared by all requests.
+	 */
+	private final BoardCache cache = new BoardCache(
+			Long.getLong(MineSweeper.CACHE_CAPACITY_PROPERTY, MineSweeper.DEFAULT_CACHE_CAPACITY));
+
+	private ExecutorService executor;
+
+	private final SweepMetrics metrics = new SweepMetrics();
+
+	private int port = DEFAULT_PORT;
+
+	private HttpServer server;
+
+	/**
+	 * Maximum number of requests handled at once, 0 for a virtual thread per
+	 * request.
+	 */
+	private int threads;
+
+	/**
+	 * Gets the cache of rendered hints shared by all requests.
+	 */
+	public BoardCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Gets the counters aggregated over all requests.
+	 */
+	public SweepMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Gets the port listened on, which is only known after {@link #start()} if
+	 * port 0 was requested.
+	 */
+	public int getPort() {
+		return server != null ? server.getAddress().getPort() : port;
+	}
+
+	private void metrics(HttpExchange exchange) throws IOException {
+		if (!"GET".equals(exchange.getRequestMethod())) {
+			reply(exchange, 405, "Method not allowed.  Use GET.");
+			return;
+		}
+		ByteArrayOutputStream text = new ByteArrayOutputStream();
+		PrintStream print = new PrintStream(text, true, "US-ASCII");
+		metrics.dump(print);
+		print.println(cache);
+		reply(exchange, 200, text.toString("US-ASCII"));
+	}
+
+	private static void reply(HttpExchange exchange, int status, String message) throws IOException {
+		byte[] body = (message + System.lineSeparator()).getBytes(StandardCharsets.US_ASCII);
+		exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	/**
+	 * Starts listening.
+	 *
+	 * @return server instance useful for method chaining.
+	 * @throws MineSweeperException
+	 *             if the port cannot be bound.
+	 */
+	public synchronized MineSweeperServer start() {
+		try {
+			server = HttpServer.create(new InetSocketAddress(port), 0);
+		} catch (IOException e) {
+			throw new MineSweeperException("Unable to listen on port " + port + ": " + e.getMessage());
+		}
+		executor = threads > 0 ? Executors.newFixedThreadPool(threads) : Executors.newVirtualThreadPerTaskExecutor();
+		server.setExecutor(executor);
+		server.createContext("/sweep", this::sweep);
+		server.createContext("/metrics", this::metrics);
+		server.start();
+		return this;
+	}
+
+	/**
+	 * Stops listening, waiting up to <code>delay</code> seconds for requests in
+	 * progress.
+	 *
+	 * @param delay
+	 *            seconds to wait.
+	 */
+	public synchronized void stop(int delay) {
+		if (server != null) {
+			server.stop(delay);
+			executor.shutdown();
+			server = null;
+		}
+	}
+
+	private void sweep(HttpExchange exchange) throws IOException {
+		try (InputStream body = exchange.getRequestBody()) {
+			if (!"POST".equals(exchange.getRequestMethod())) {
+				reply(exchange, 405, "Method not allowed.  Use POST.");
+				return;
+			}
+			String query = exchange.getRequestURI().getQuery();
+			String[] params = "columns".equals(query) ? new String[] { "request", "columns" }
+					: new String[] { "request" };
+			ResponseStream out = new ResponseStream(exchange);
+			int status = 0;
+			String message = null;
+			try {
+				new MineSweeper(params, out).withCache(cache).withMetrics(metrics).withInput(body).sweep();
+			} catch (MineSweeperException | NoSuchElementException e) {
+				status = 400;
+				message = e instanceof MineSweeperException ? e.getMessage()
+						: "Invalid input.  The request body holds no board definitions.";
+			} catch (RuntimeException e) {
+				// otherwise the exchange would end without a status, resetting the connection
+				status = 500;
+				message = "Sweep failed.  " + (e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+			}
+			if (message != null) {
+				if (!out.isStarted()) {
+					reply(exchange, status, message);
+					return;
+				}
+				out.write((message + System.lineSeparator()).getBytes(StandardCharsets.US_ASCII));
+			}
+			out.close();
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Sets the port to listen on; 0 picks a free port.
+	 */
+	public MineSweeperServer withPort(int port) {
+		this.port = port;
+		return this;
+	}
+
+	/**
+	 * Limits the number of requests handled at once, using a fixed pool.
+	 *
+	 * @param threads
+	 *            positive number of concurrent requests, or 0 for a virtual
+	 *            thread per request.
+	 */
+	public MineSweeperServer withThreads(int threads) {
+		if (threads < 0) {
+			throw new MineSweeperException("Invalid arguments.  Thread count must not be negative.");
+		}
+		this.threads = threads;
+		return this;
+	}
+}
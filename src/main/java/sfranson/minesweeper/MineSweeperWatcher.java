@@ -0,0 +1,389 @@
+package sfranson.minesweeper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-running program that sweeps files as they are dropped into an inbox
+ * directory, keeping one JVM warm for the whole day.
+ *
+ * <p>
+ * The inbox is watched with a {@link WatchService}; files already present are
+ * swept on start. Each file's hints are written to a temporary file in the
+ * outbox and then atomically renamed to <code>&lt;name&gt;.out</code>, so
+ * readers of the outbox never see partial output. A file that fails produces
+ * <code>&lt;name&gt;.err</code> instead. Swept inputs are moved to the archive
+ * directory, or deleted if there is none.
+ * </p>
+ *
+ * <p>
+ * Upstream writers should likewise drop files atomically: names starting with
+ * <b>.</b> or ending with <b>.part</b> or <b>.tmp</b> are ignored, so a file can
+ * be written under such a name and renamed once complete.
+ * </p>
+ *
+ * <ul>
+ * Arguments:
+ * <li><b>--inbox dir</b> - directory to watch.</li>
+ * <li><b>--outbox dir</b> - directory receiving outputs.</li>
+ * <li><b>--archive dir</b> - directory receiving swept inputs.</li>
+ * <li><b>--columns</b> - interpret board definitions as column-oriented.</li>
+ * <li><b>--threads n</b> - number of files swept at once; defaults to 1.</li>
+ * <li><b>--warmup n</b> - sweep n synthetic boards before watching, so the
+ * first real file runs compiled code; defaults to 20000.</li>
+ * </ul>
+ *
+ * @see MineSweeperBatch
+ */
+public class MineSweeperWatcher {
+
+	/**
+	 * Default number of synthetic boards swept on start.
+	 */
+	public static final int DEFAULT_WARMUP = 20000;
+
+	/**
+	 * Parses the arguments and watches until the process is stopped.
+	 *
+	 * @param args
+	 *            see class description.
+	 */
+	public static void main(String[] args) {
+		try {
+			MineSweeperWatcher watcher = new MineSweeperWatcher();
+			int warmup = DEFAULT_WARMUP;
+			for (int i = 0; i < args.length; i++) {
+				String arg = args[i];
+				if ("--inbox".equals(arg) && i + 1 < args.length) {
+					watcher.withInbox(Paths.get(args[++i]));
+				} else if ("--outbox".equals(arg) && i + 1 < args.length) {
+					watcher.withOutbox(Paths.get(args[++i]));
+				} else if ("--archive".equals(arg) && i + 1 < args.length) {
+					watcher.withArchive(Paths.get(args[++i]));
+				} else if ("--columns".equals(arg)) {
+					watcher.withColumns();
+				} else if ("--threads".equals(arg) && i + 1 < args.length) {
+					watcher.withThreads(Integer.parseInt(args[++i]));
+				} else if ("--warmup".equals(arg) && i + 1 < args.length) {
+					warmup = Integer.parseInt(args[++i]);
+				} else {
+					throw new MineSweeperException("Invalid arguments.  Unknown option " + arg + ".");
+				}
+			}
+			if (watcher.inbox == null || watcher.outbox == null) {
+				throw new MineSweeperException("Invalid arguments.  --inbox and --outbox are required.");
+			}
+			watcher.warmUp(warmup);
+			watcher.start();
+		} catch (MineSweeperException e) {
+			System.err.println(e.getMessage());
+			System.exit(2);
+		}
+	}
+
+	/**
+	 * Destination of swept inputs, null to delete them.
+	 */
+	private Path archive;
+
+	/**
+	 * Rendered hints shared by all files.
+	 */
+	private final BoardCache cache = new BoardCache(
+			Long.getLong(MineSweeper.CACHE_CAPACITY_PROPERTY, MineSweeper.DEFAULT_CACHE_CAPACITY));
+
+	private boolean columns;
+
+	private ExecutorService executor;
+
+	private Path inbox;
+
+	/**
+	 * Files submitted and not yet swept, so repeated events sweep a file once.
+	 */
+	private final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Stream receiving a line per swept file.
+	 */
+	private PrintStream log = System.err;
+
+	private final SweepMetrics metrics = new SweepMetrics();
+
+	private Path outbox;
+
+	private int threads = 1;
+
+	private WatchService watchService;
+
+	private Thread watchThread;
+
+	/**
+	 * Gets the cache of rendered hints shared by all files.
+	 */
+	public BoardCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Gets the counters aggregated over all files.
+	 */
+	public SweepMetrics getMetrics() {
+		return metrics;
+	}
+
+	private static boolean isIgnored(Path file) {
+		String name = file.getFileName().toString();
+		return name.startsWith(".") || name.endsWith(".part") || name.endsWith(".tmp");
+	}
+
+	/**
+	 * Sweeps one input file into the outbox and archives it. Whatever makes the
+	 * sweep fail is reported in the <code>.err</code> output, since the file is
+	 * not offered again.
+	 *
+	 * @param file
+	 *            input file in the inbox.
+	 * @return the output written, <code>.out</code> or <code>.err</code>.
+	 */
+	Path process(Path file) throws IOException {
+		long started = System.nanoTime();
+		long boards = metrics.getBoards();
+		String name = file.getFileName().toString();
+		Path temp = outbox.resolve("." + name + ".tmp");
+		Path target = outbox.resolve(name + ".out");
+		String failure = null;
+		String[] params = columns ? new String[] { file.toString(), "columns" } : new String[] { file.toString() };
+		try {
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)) {
+				new MineSweeper(params, out).withCache(cache).withMetrics(metrics)
+						.withInput(new BufferedInputStream(Files.newInputStream(file), 1 << 16)).sweep();
+			} catch (MineSweeperException e) {
+				failure = e.getMessage();
+			} catch (NoSuchElementException e) {
+				failure = "Invalid input.  The file holds no board definitions.";
+			} catch (IOException | RuntimeException e) {
+				// anything else still fails this file alone, which is never offered again
+				failure = "Unable to sweep " + name + ": "
+						+ (e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+			}
+			if (failure != null) {
+				Files.write(temp, (failure + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+				target = outbox.resolve(name + ".err");
+			}
+			AtomicFiles.publish(temp, target);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+		// a file removed while being swept has nothing left to archive
+		if (archive != null && Files.exists(file)) {
+			Files.move(file, archive.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+		} else {
+			Files.deleteIfExists(file);
+		}
+		log.println(name + ": " + (failure != null ? "failed, " + failure
+				: (metrics.getBoards() - boards) + " boards in "
+						+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " ms"));
+		return target;
+	}
+
+	private void scanInbox() throws IOException {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(inbox)) {
+			for (Path file : files) {
+				submit(file);
+			}
+		}
+	}
+
+	/**
+	 * Sweeps the files already in the inbox, then starts watching it on a
+	 * background thread.
+	 *
+	 * @return watcher instance useful for method chaining.
+	 * @throws MineSweeperException
+	 *             if the directories cannot be created or watched.
+	 */
+	public synchronized MineSweeperWatcher start() {
+		try {
+			Files.createDirectories(inbox);
+			Files.createDirectories(outbox);
+			if (archive != null) {
+				Files.createDirectories(archive);
+			}
+			watchService = inbox.getFileSystem().newWatchService();
+			inbox.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+			executor = Executors.newFixedThreadPool(threads);
+			scanInbox();
+		} catch (IOException e) {
+			throw new MineSweeperException("Unable to watch " + inbox + ": " + e.getMessage());
+		}
+		watchThread = new Thread(this::watch, "minesweeper-watcher");
+		watchThread.start();
+		return this;
+	}
+
+	/**
+	 * Stops watching and waits for files in progress.
+	 */
+	public synchronized void stop() {
+		if (watchService == null) {
+			return;
+		}
+		try {
+			watchService.close();
+			watchThread.join();
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (IOException e) {
+			// already closed
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		watchService = null;
+	}
+
+	private void submit(Path file) {
+		if (!Files.isRegularFile(file) || isIgnored(file) || !inFlight.add(file)) {
+			return;
+		}
+		executor.execute(() -> {
+			try {
+				if (Files.exists(file)) {
+					process(file);
+				}
+			} catch (IOException | RuntimeException e) {
+				log.println(file.getFileName() + ": failed, " + e.getMessage());
+			} finally {
+				inFlight.remove(file);
+			}
+		});
+	}
+
+	private void watch() {
+		try {
+			while (true) {
+				WatchKey key = watchService.take();
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						scanInbox();
+					} else {
+						submit(inbox.resolve((Path) event.context()));
+					}
+				}
+				if (!key.reset()) {
+					log.println(inbox + ": no longer accessible, stopped watching.");
+					return;
+				}
+			}
+		} catch (ClosedWatchServiceException e) {
+			// stopped
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			log.println(inbox + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Sweeps synthetic boards through the same code as real files, so that it is
+	 * compiled before the first file arrives. Nothing is written and the
+	 * counters are left untouched.
+	 *
+	 * @param boards
+	 *            number of boards to sweep.
+	 */
+	public void warmUp(int boards) {
+		if (boards <= 0) {
+			return;
+		}
+		StringBuilder input = new StringBuilder();
+		String[] rows = { "*...*....", ".*.....*.", "....**...", "*.......*", "..*..*..." };
+		for (int board = 0; board < boards; board++) {
+			int height = 1 + board % rows.length;
+			input.append(height).append(' ').append(9).append('\n');
+			for (int row = 0; row < height; row++) {
+				input.append(rows[(board + row) % rows.length]).append('\n');
+			}
+		}
+		input.append("0 0\n");
+		OutputStream discard = OutputStream.nullOutputStream();
+		new MineSweeper(columns ? new String[] { "warmup", "columns" } : new String[] { "warmup" }, discard)
+				.withCache(new BoardCache(0))
+				.withInput(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.US_ASCII))).sweep();
+	}
+
+	/**
+	 * Sets the directory receiving swept inputs; without one they are deleted.
+	 */
+	public MineSweeperWatcher withArchive(Path archive) {
+		this.archive = archive;
+		return this;
+	}
+
+	/**
+	 * Treats board definitions as column-oriented.
+	 */
+	public MineSweeperWatcher withColumns() {
+		columns = true;
+		return this;
+	}
+
+	/**
+	 * Sets the directory to watch.
+	 */
+	public MineSweeperWatcher withInbox(Path inbox) {
+		this.inbox = inbox;
+		return this;
+	}
+
+	/**
+	 * Sets the stream receiving a line per swept file.
+	 */
+	public MineSweeperWatcher withLog(PrintStream log) {
+		this.log = log;
+		return this;
+	}
+
+	/**
+	 * Sets the directory receiving outputs.
+	 */
+	public MineSweeperWatcher withOutbox(Path outbox) {
+		this.outbox = outbox;
+		return this;
+	}
+
+	/**
+	 * Sets the number of files swept at once.
+	 *
+	 * @param threads
+	 *            positive number of concurrent files.
+	 */
+	public MineSweeperWatcher withThreads(int threads) {
+		if (threads < 1) {
+			throw new MineSweeperException("Invalid arguments.  Thread count must be positive.");
+		}
+		this.threads = threads;
+		return this;
+	}
+}
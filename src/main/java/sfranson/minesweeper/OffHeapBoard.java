@@ -0,0 +1,281 @@
+package sfranson.minesweeper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Board whose mines and hints are kept outside the Java heap, for boards with
+ * more squares than a Java array can hold.
+ *
+ * <p>
+ * Mines take one bit per square and hints one byte, in direct buffers indexed
+ * by <code>long</code>, so a board of <code>n</code> squares needs about
+ * <code>1.125 * n</code> bytes of direct memory (see
+ * <code>-XX:MaxDirectMemorySize</code>) and almost no heap. Hints are
+ * calculated by a {@link HintCalculator} one row at a time.
+ * </p>
+ *
+ * <p>
+ * The memory is held until {@link #release()} is called; a released board can
+ * no longer be used. Like {@link Board}, an off-heap board is not thread safe.
+ * </p>
+ */
+public class OffHeapBoard implements MineMap {
+
+	private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Indicates the hints have been calculated.
+	 */
+	private boolean closed;
+
+	private final int columnCount;
+
+	/**
+	 * Internal counter of rows added with {@link #withRow(String)}.
+	 */
+	private int currentRow;
+
+	/**
+	 * Raw hint of every square, row-major.
+	 */
+	private final OffHeapBytes hints;
+
+	private final String id;
+
+	private long mineCount;
+
+	/**
+	 * One bit per square, row-major.
+	 */
+	private final OffHeapBytes mines;
+
+	private final int rowCount;
+
+	/**
+	 * Creates an empty board.
+	 *
+	 * @param id
+	 *            identifier for the board.
+	 * @param rows
+	 *            number of rows in the board.
+	 * @param columns
+	 *            number of columns in the board.
+	 * @throws MineSweeperException
+	 *             if the memory cannot be allocated.
+	 */
+	public OffHeapBoard(String id, int rows, int columns) {
+		this(id, rows, columns, OffHeapBytes.DEFAULT_CHUNK_BITS);
+	}
+
+	OffHeapBoard(String id, int rows, int columns, int chunkBits) {
+		if (rows < 0 || columns < 0) {
+			throw new MineSweeperException("Invalid board.  Dimensions must not be negative.");
+		}
+		this.id = id;
+		this.rowCount = rows;
+		this.columnCount = columns;
+		long squares = (long) rows * columns;
+		this.mines = new OffHeapBytes((squares + 7) >>> 3, chunkBits);
+		try {
+			this.hints = new OffHeapBytes(squares, chunkBits);
+		} catch (MineSweeperException e) {
+			mines.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Terminal operation that calculates the hints. Once closed, no mines may be
+	 * added.
+	 *
+	 * @return board instance useful for method chaining.
+	 */
+	public OffHeapBoard close() {
+		if (!closed) {
+			new HintCalculator().calculate(this,
+					(row, values, offset, length) -> hints.put((long) row * columnCount, values, offset, length));
+			closed = true;
+		}
+		return this;
+	}
+
+	/**
+	 * Copies the raw hints of a row, {@link HintQuery#MINE} for a mine, else the
+	 * number of adjacent mines.
+	 *
+	 * @param row
+	 *            zero-based row index.
+	 * @param target
+	 *            receives {@link #getColumnCount()} hints.
+	 * @param offset
+	 *            position in <code>target</code> of the first column.
+	 */
+	public void copyHints(int row, byte[] target, int offset) {
+		close();
+		hints.get((long) row * columnCount, target, offset, columnCount);
+	}
+
+	@Override
+	public void copyRow(int row, byte[] target, int offset) {
+		long bit = (long) row * columnCount;
+		int col = 0;
+		while (col < columnCount) {
+			int packed = mines.get(bit >>> 3);
+			int shift = (int) (bit & 7);
+			int count = Math.min(8 - shift, columnCount - col);
+			for (int i = 0; i < count; i++) {
+				target[offset + col + i] = (byte) ((packed >>> (shift + i)) & 1);
+			}
+			col += count;
+			bit += count;
+		}
+	}
+
+	@Override
+	public int getColumnCount() {
+		return columnCount;
+	}
+
+	/**
+	 * Gets the board id.
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the number of squares defined as mines.
+	 */
+	public long getMineCount() {
+		return mineCount;
+	}
+
+	/**
+	 * Gets the number of bytes of direct memory held, 0 once released.
+	 */
+	public long getOffHeapSize() {
+		return mines.isReleased() ? 0 : mines.size() + hints.size();
+	}
+
+	@Override
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Gets the raw hint of a square.
+	 *
+	 * @param row
+	 *            zero-based row index.
+	 * @param col
+	 *            zero-based column index.
+	 * @return {@link HintQuery#MINE} for a mine, else the number of adjacent
+	 *         mines.
+	 */
+	public int hint(int row, int col) {
+		close();
+		return hints.get((long) row * columnCount + col);
+	}
+
+	@Override
+	public boolean isMine(int row, int col) {
+		long bit = (long) row * columnCount + col;
+		return (mines.get(bit >>> 3) & (1 << (bit & 7))) != 0;
+	}
+
+	/**
+	 * Terminal operation that prints the board's header and hints, in the same
+	 * format as {@link Board#print(OutputStream)}.
+	 *
+	 * @param out
+	 *            stream to write hints.
+	 */
+	public void print(OutputStream out) {
+		close();
+		byte[] line = new byte[columnCount + LINE_SEPARATOR.length];
+		System.arraycopy(LINE_SEPARATOR, 0, line, columnCount, LINE_SEPARATOR.length);
+		try {
+			out.write(("Mine Field #" + id + ":").getBytes(StandardCharsets.US_ASCII));
+			out.write(LINE_SEPARATOR);
+			for (int row = 0; row < rowCount; row++) {
+				copyHints(row, line, 0);
+				for (int col = 0; col < columnCount; col++) {
+					line[col] = line[col] == HintQuery.MINE ? (byte) '*' : (byte) ('0' + line[col]);
+				}
+				out.write(line);
+			}
+			out.write(LINE_SEPARATOR);
+			out.flush();
+		} catch (IOException e) {
+			throw new MineSweeperException("Unable to write hints for board " + id + ".");
+		}
+	}
+
+	/**
+	 * Frees the board's off-heap memory. The board can no longer be used.
+	 */
+	public void release() {
+		mines.release();
+		hints.release();
+	}
+
+	/**
+	 * Marks a square as a mine.
+	 *
+	 * @param row
+	 *            zero-based row index.
+	 * @param col
+	 *            zero-based column index.
+	 * @return board instance useful for method chaining.
+	 */
+	public OffHeapBoard withMine(int row, int col) {
+		if (closed) {
+			throw new MineSweeperException("Board has been closed.  No additional mines may be added.");
+		}
+		if (row < 0 || col < 0 || row >= rowCount || col >= columnCount) {
+			throw new MineSweeperException("Invalid square.  (" + row + ", " + col + ") is outside the " + rowCount
+					+ "x" + columnCount + " board.");
+		}
+		long bit = (long) row * columnCount + col;
+		byte packed = mines.get(bit >>> 3);
+		int mask = 1 << (bit & 7);
+		if ((packed & mask) == 0) {
+			mines.put(bit >>> 3, (byte) (packed | mask));
+			mineCount++;
+		}
+		return this;
+	}
+
+	/**
+	 * Adds the next row of the board from a cell definition pattern of
+	 * <b>*</b> and <b>.</b> characters. Rows that exceed the number of rows
+	 * for the board will be ignored.
+	 *
+	 * @param rowPattern
+	 *            pattern defining the row's cells.
+	 * @return board instance useful for method chaining.
+	 */
+	public OffHeapBoard withRow(CharSequence rowPattern) {
+		if (closed) {
+			throw new MineSweeperException("Board has been closed.  No additional rows may be added.");
+		}
+		if (currentRow < rowCount) {
+			if (rowPattern.length() != columnCount) {
+				throw new MineSweeperException("Invalid input.  Number of columns doesn't match.");
+			}
+			for (int col = 0; col < columnCount; col++) {
+				char c = rowPattern.charAt(col);
+				if (c == '*') {
+					withMine(currentRow, col);
+				} else if (c != '.') {
+					throw new MineSweeperException(
+							"Invalid input.  Cell definition can only inlude the * and . characters.");
+				}
+			}
+			currentRow++;
+		}
+		return this;
+	}
+}
@@ -0,0 +1,156 @@
+package sfranson.minesweeper;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Byte storage outside the Java heap, indexed by <code>long</code>.
+ *
+ * <p>
+ * Storage is split into direct {@link ByteBuffer} chunks, each addressable by
+ * an <code>int</code>. Memory is freed by {@link #release()} where the JDK
+ * allows it, else when the buffers are collected.
+ * </p>
+ */
+final class OffHeapBytes {
+
+	/**
+	 * Default chunk size, as a power of two: 1 GiB.
+	 */
+	static final int DEFAULT_CHUNK_BITS = 30;
+
+	/**
+	 * Frees a direct buffer immediately, or null if the JDK offers no way to.
+	 */
+	private static final Method INVOKE_CLEANER;
+
+	private static final Object UNSAFE;
+
+	static {
+		Method invokeCleaner = null;
+		Object unsafe = null;
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			unsafe = theUnsafe.get(null);
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			invokeCleaner = null;
+		}
+		INVOKE_CLEANER = invokeCleaner;
+		UNSAFE = unsafe;
+	}
+
+	private final int chunkBits;
+
+	private ByteBuffer[] chunks;
+
+	private final long size;
+
+	/**
+	 * Allocates zeroed storage.
+	 *
+	 * @param size
+	 *            number of bytes.
+	 * @param chunkBits
+	 *            size of each chunk, as a power of two.
+	 * @throws MineSweeperException
+	 *             if the memory cannot be allocated.
+	 */
+	OffHeapBytes(long size, int chunkBits) {
+		this.size = size;
+		this.chunkBits = chunkBits;
+		long chunkSize = 1L << chunkBits;
+		int count = (int) ((size + chunkSize - 1) >>> chunkBits);
+		chunks = new ByteBuffer[count];
+		try {
+			for (int i = 0; i < count; i++) {
+				chunks[i] = ByteBuffer.allocateDirect((int) Math.min(chunkSize, size - (long) i * chunkSize));
+			}
+		} catch (OutOfMemoryError e) {
+			release();
+			throw new MineSweeperException("Unable to allocate " + size
+					+ " bytes off heap.  Raise -XX:MaxDirectMemorySize or use a smaller board.");
+		}
+	}
+
+	private ByteBuffer chunk(long index) {
+		if (chunks == null) {
+			throw new MineSweeperException("Storage has been released.  The board can no longer be used.");
+		}
+		return chunks[(int) (index >>> chunkBits)];
+	}
+
+	byte get(long index) {
+		return chunk(index).get((int) (index & ((1L << chunkBits) - 1)));
+	}
+
+	/**
+	 * Copies <code>length</code> bytes starting at <code>index</code> into
+	 * <code>target</code>, across chunk boundaries if needed.
+	 */
+	void get(long index, byte[] target, int offset, int length) {
+		while (length > 0) {
+			int position = (int) (index & ((1L << chunkBits) - 1));
+			ByteBuffer chunk = chunk(index);
+			int part = Math.min(length, chunk.capacity() - position);
+			chunk.get(position, target, offset, part);
+			index += part;
+			offset += part;
+			length -= part;
+		}
+	}
+
+	/**
+	 * Indicates the storage has been released.
+	 */
+	boolean isReleased() {
+		return chunks == null;
+	}
+
+	void put(long index, byte value) {
+		chunk(index).put((int) (index & ((1L << chunkBits) - 1)), value);
+	}
+
+	/**
+	 * Copies <code>length</code> bytes of <code>source</code> to the storage
+	 * starting at <code>index</code>, across chunk boundaries if needed.
+	 */
+	void put(long index, byte[] source, int offset, int length) {
+		while (length > 0) {
+			int position = (int) (index & ((1L << chunkBits) - 1));
+			ByteBuffer chunk = chunk(index);
+			int part = Math.min(length, chunk.capacity() - position);
+			chunk.put(position, source, offset, part);
+			index += part;
+			offset += part;
+			length -= part;
+		}
+	}
+
+	/**
+	 * Frees the memory. Further access throws.
+	 */
+	void release() {
+		ByteBuffer[] released = chunks;
+		chunks = null;
+		if (released == null || INVOKE_CLEANER == null) {
+			return;
+		}
+		for (ByteBuffer chunk : released) {
+			if (chunk != null) {
+				try {
+					INVOKE_CLEANER.invoke(UNSAFE, chunk);
+				} catch (ReflectiveOperationException e) {
+					// left to the garbage collector
+				}
+			}
+		}
+	}
+
+	long size() {
+		return size;
+	}
+}
@@ -0,0 +1,168 @@
+package sfranson.minesweeper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Input stream that reads its source ahead on a separate thread, so that
+ * expensive reads, such as decompression, overlap with the consumer's work.
+ *
+ * <p>
+ * The source is read in chunks into a bounded queue; the reading thread blocks
+ * once the queue is full. Chunks the consumer has finished with are handed
+ * back to the reading thread for reuse, so a long stream allocates only about
+ * <code>depth + 2</code> chunks. Read failures, including unchecked ones, are
+ * reported to the consumer when it reaches them.
+ * </p>
+ */
+final class PrefetchInputStream extends InputStream {
+
+	/**
+	 * Queued after the last chunk.
+	 */
+	private static final byte[] END = new byte[0];
+
+	private final int chunkSize;
+
+	/**
+	 * Chunks read ahead, followed by {@link #END} or the failure that ended the
+	 * reading.
+	 */
+	private final BlockingQueue<Object> chunks;
+
+	private volatile boolean closed;
+
+	private byte[] current = new byte[0];
+
+	private boolean finished;
+
+	/**
+	 * Chunks the consumer has finished with, for the reading thread to reuse.
+	 */
+	private final BlockingQueue<byte[]> free;
+
+	private int position;
+
+	private final Thread reader;
+
+	/**
+	 * Starts reading the source ahead.
+	 *
+	 * @param source
+	 *            stream to read; closed once fully read or when this stream is
+	 *            closed.
+	 * @param chunkSize
+	 *            bytes read at a time.
+	 * @param depth
+	 *            number of chunks read ahead.
+	 */
+	PrefetchInputStream(InputStream source, int chunkSize, int depth) {
+		this.chunkSize = chunkSize;
+		this.chunks = new ArrayBlockingQueue<>(depth);
+		this.free = new ArrayBlockingQueue<>(depth + 2);
+		this.reader = new Thread(() -> fill(source), "minesweeper-prefetch");
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	@Override
+	public int available() {
+		return current.length - position;
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		reader.interrupt();
+	}
+
+	private void fill(InputStream source) {
+		Object last = END;
+		try (InputStream in = source) {
+			while (!closed) {
+				byte[] chunk = free.poll();
+				if (chunk == null) {
+					chunk = new byte[chunkSize];
+				}
+				int length = in.readNBytes(chunk, 0, chunkSize);
+				if (length > 0) {
+					chunks.put(length == chunkSize ? chunk : Arrays.copyOf(chunk, length));
+				}
+				if (length < chunkSize) {
+					break;
+				}
+			}
+		} catch (InterruptedException e) {
+			// closed by the consumer
+			return;
+		} catch (Throwable e) {
+			// the consumer would otherwise wait forever for the next chunk
+			last = e;
+		}
+		try {
+			chunks.put(last);
+		} catch (InterruptedException e) {
+			// closed by the consumer
+		}
+	}
+
+	/**
+	 * Makes the next chunk current.
+	 *
+	 * @return false at the end of the source.
+	 */
+	private boolean next() throws IOException {
+		if (finished) {
+			return false;
+		}
+		if (closed) {
+			throw new IOException("Stream closed.");
+		}
+		Object chunk;
+		try {
+			chunk = chunks.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for input.");
+		}
+		if (chunk instanceof Throwable) {
+			finished = true;
+			Throwable failure = (Throwable) chunk;
+			throw new IOException(failure instanceof IOException ? failure.getMessage() : "Unable to read ahead: " + failure,
+					failure);
+		}
+		if (current.length == chunkSize) {
+			free.offer(current);
+		}
+		current = (byte[]) chunk;
+		position = 0;
+		finished = current == END;
+		return !finished;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (position == current.length && !next()) {
+			return -1;
+		}
+		return current[position++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (position == current.length && !next()) {
+			return -1;
+		}
+		int count = Math.min(len, current.length - position);
+		System.arraycopy(current, position, b, off, count);
+		position += count;
+		return count;
+	}
+}
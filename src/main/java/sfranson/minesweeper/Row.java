@@ -26,6 +26,11 @@ public class Row {
 	 */
 	private int currentCell = 0;
 
+	/**
+	 * Number of cells defined as mines.
+	 */
+	private int mineCount;
+
 	/**
 	 * Next (or bottom) row.
 	 */
@@ -40,6 +45,13 @@ public class Row {
 	 */
 	private int row;
 
+	/**
+	 * Number of characters each printed value is right aligned in.
+	 * 
+	 * @see #withWidth(int)
+	 */
+	private int width = 1;
+
 	/**
 	 * Creates an identified row with the number of cells.
 	 * 
@@ -52,7 +64,11 @@ public class Row {
 	}
 
 	private void calculate() {
-		for (int col = 0; col < cells.length; col++) {
+		// only mines increment cells, so a row without any has nothing to add.
+		if (mineCount == 0) {
+			return;
+		}
+		for (int col = 0; col < columnCount; col++) {
 			currentCell = col;
 			if (cells[currentCell].isMine()) {
 				incrementLeft();
@@ -81,6 +97,17 @@ public class Row {
 		return cells[cellIdx].rawValue();
 	}
 
+	/**
+	 * Copies the row's mines into <code>target</code>, 1 for a mine, else 0.
+	 * 
+	 * @see MineMap#copyRow(int, byte[], int)
+	 */
+	void copyMines(byte[] target, int offset) {
+		for (int col = 0; col < columnCount; col++) {
+			target[offset + col] = (byte) (cells[col].isMine() ? 1 : 0);
+		}
+	}
+
 	/**
 	 * Terminal operation that will prohibit further addition of cells to the row.
 	 * 
@@ -94,6 +121,13 @@ public class Row {
 		return this;
 	}
 
+	/**
+	 * Gets the number of cells defined as mines.
+	 */
+	public int getMineCount() {
+		return mineCount;
+	}
+
 	/**
 	 * Gets the configured row that is next (or below).
 	 * 
@@ -167,7 +201,8 @@ public class Row {
 	}
 
 	/**
-	 * Prints the interpreted values of the row.
+	 * Prints the interpreted values of the row, each right aligned in the
+	 * row's {@link #withWidth(int) width}.
 	 *
 	 * @see Row#print()
 	 */
@@ -176,16 +211,109 @@ public class Row {
 		close();
 
 		StringBuilder b = new StringBuilder();
-		for (Cell cell : cells) {
-			b.append(cell.toString());
+		for (int col = 0; col < columnCount; col++) {
+			String value = cells[col].toString();
+			for (int pad = value.length(); pad < width; pad++) {
+				b.append(' ');
+			}
+			b.append(value);
 		}
 		return b.toString();
 	}
 
+	/**
+	 * Prints the interpreted values of the row into a byte buffer, without
+	 * allocating. Each value is right aligned in the row's
+	 * {@link #withWidth(int) width}.
+	 * 
+	 * @param buffer
+	 *            receives the values; must have room for the width of every
+	 *            cell, or for every cell's digits if wider.
+	 * @param offset
+	 *            position of the first value in the buffer.
+	 * @return position following the last value.
+	 * @see #print()
+	 */
+	int print(byte[] buffer, int offset) {
+		// ensure closed
+		close();
+
+		for (int col = 0; col < columnCount; col++) {
+			int value = cells[col].rawValue();
+			int digits = 1;
+			for (int rest = value / 10; rest > 0; rest /= 10) {
+				digits++;
+			}
+			for (int pad = digits; pad < width; pad++) {
+				buffer[offset++] = ' ';
+			}
+			if (value < 0) {
+				buffer[offset++] = '*';
+			} else if (value < 10) {
+				buffer[offset++] = (byte) ('0' + value);
+			} else {
+				for (int idx = offset + digits - 1; idx >= offset; idx--) {
+					buffer[idx] = (byte) ('0' + value % 10);
+					value /= 10;
+				}
+				offset += digits;
+			}
+		}
+		return offset;
+	}
+
+	/**
+	 * Resets the row to the given index and number of safe cells, keeping its
+	 * cell storage when large enough.
+	 * 
+	 * <p>
+	 * Links to the previous and next rows are removed.
+	 * </p>
+	 * 
+	 * @param row
+	 *            row id.
+	 * @param count
+	 *            number of cells.
+	 * @see BoardArena
+	 */
+	Row reset(int row, int count) {
+		this.row = row;
+		closed = false;
+		currentCell = 0;
+		width = 1;
+		mineCount = 0;
+		prev = null;
+		next = null;
+		if (cells.length < count) {
+			Cell[] grown = new Cell[count];
+			System.arraycopy(cells, 0, grown, 0, cells.length);
+			for (int col = cells.length; col < count; col++) {
+				grown[col] = new Cell();
+			}
+			cells = grown;
+		}
+		columnCount = count;
+		for (int col = 0; col < count; col++) {
+			cells[col].clear();
+		}
+		return this;
+	}
+
 	private int rightCellIdx() {
 		return currentCell + 1;
 	}
 
+	private void setCell(int cellIdx, char cellDefinition) {
+		Cell cell = cells[cellIdx];
+		if (cell.isMine()) {
+			mineCount--;
+		}
+		cell.rawValue(cellDefinition);
+		if (cell.isMine()) {
+			mineCount++;
+		}
+	}
+
 	/**
 	 * Modifier that will set the column count for the row.
 	 * 
@@ -201,6 +329,7 @@ public class Row {
 		if (columnCount != count) {
 			columnCount = count;
 			cells = new Cell[count];
+			mineCount = 0;
 			for (int col = 0; col < columnCount; col++) {
 				cells[col] = new Cell();
 			}
@@ -208,6 +337,24 @@ public class Row {
 		return this;
 	}
 
+	/**
+	 * Terminal operation that sets the cells' adjacent mine counts from
+	 * externally calculated values instead of {@link #close() calculating} them.
+	 * 
+	 * @param counts
+	 *            adjacent mine count of each cell; ignored for mine cells.
+	 * @see BoxSumKernel
+	 */
+	public Row withCounts(int[] counts) {
+		if (!closed) {
+			for (int col = 0; col < columnCount; col++) {
+				cells[col].count(counts[col]);
+			}
+			closed = true;
+		}
+		return this;
+	}
+
 	/**
 	 * Adds a row, defining its cell content based on a cell definition pattern.
 	 * 
@@ -237,17 +384,14 @@ public class Row {
 	 */
 	public Row withColumns(String cellDefinition, boolean rowsAsColumns) {
 		if (cellDefinition != null && !"".equals(cellDefinition)) {
-			String[] cellDefs = cellDefinition.split("");
-
 			if (rowsAsColumns) {
-				cells[currentCell++].rawValue(cellDefs[row]);
+				setCell(currentCell++, cellDefinition.charAt(row));
 			} else {
-				if (cellDefs.length != columnCount) {
+				if (cellDefinition.length() != columnCount) {
 					throw new MineSweeperException("Invalid input.  Number of columns doesn't match.");
 				}
-				for (currentCell = 0; currentCell < cellDefs.length; currentCell++) {
-					String cell = cellDefs[currentCell];
-					cells[currentCell].rawValue(cell);
+				for (currentCell = 0; currentCell < columnCount; currentCell++) {
+					setCell(currentCell, cellDefinition.charAt(currentCell));
 				}
 			}
 		}
@@ -283,4 +427,19 @@ public class Row {
 		return this;
 	}
 
+	/**
+	 * Modifier that sets the number of characters each printed value is right
+	 * aligned in, padded with spaces, so that counts of more than one digit
+	 * cannot run into each other.
+	 * 
+	 * @param width
+	 *            characters per value; 1, the default, prints values back to
+	 *            back.
+	 * @see Board#withRadius(int)
+	 */
+	Row withWidth(int width) {
+		this.width = width;
+		return this;
+	}
+
 }
@@ -0,0 +1,389 @@
+package sfranson.minesweeper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Program that hints a single board too large for one process by splitting it
+ * into row bands, each hinted by a {@link ShardWorker}.
+ *
+ * <p>
+ * The board is read one row at a time and every row is streamed straight to
+ * the worker owning its band, so the coordinator never holds more than two
+ * rows. The last row of each band is also sent to the next band as its halo
+ * row above, and the first row of each band to the previous band as its halo
+ * row below; that is all the bands need of each other. Once every row has been
+ * sent, the bands' hints are read back one worker after the other and written
+ * in board order. Workers may run on this host, e.g. started with
+ * <b>--spawn</b>, or on any host reachable at the given addresses. Spawned
+ * workers only listen on the loopback address. A worker that stays silent for
+ * longer than the read timeout fails the sweep instead of stalling it.
+ * </p>
+ *
+ * <p>
+ * The input is a header line with the number of rows and columns, which unlike
+ * {@link MineSweeper}'s may have any number of digits, followed by one line of
+ * <code>*</code> and <code>.</code> per row. The output has the format of
+ * {@link Board#print(java.io.OutputStream)}.
+ * </p>
+ *
+ * <ul>
+ * Arguments:
+ * <li><b>--worker host:port</b> - address of a running worker; may be
+ * repeated.</li>
+ * <li><b>--spawn n</b> - start <code>n</code> worker processes on this host for
+ * the duration of the run.</li>
+ * <li>remaining argument - input file.</li>
+ * </ul>
+ *
+ * @see ShardWorker
+ */
+public class ShardCoordinator implements AutoCloseable {
+
+	/**
+	 * Connection to the worker of one band.
+	 */
+	private static final class Band {
+
+		private final int first;
+
+		private DataInputStream in;
+
+		private DataOutputStream out;
+
+		private final int rows;
+
+		private Socket socket;
+
+		Band(int first, int rows) {
+			this.first = first;
+			this.rows = rows;
+		}
+	}
+
+	private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Milliseconds allowed for connecting to a worker.
+	 */
+	private static final int CONNECT_TIMEOUT = 10000;
+
+	/**
+	 * Default milliseconds a worker may stay silent while its hints are read.
+	 */
+	static final int DEFAULT_READ_TIMEOUT = 60000;
+
+	/**
+	 * Parses the arguments and hints the board to standard out.
+	 *
+	 * @param args
+	 *            see class description.
+	 */
+	public static void main(String[] args) {
+		try (ShardCoordinator coordinator = new ShardCoordinator()) {
+			Path file = null;
+			for (int i = 0; i < args.length; i++) {
+				if ("--worker".equals(args[i]) && i + 1 < args.length) {
+					coordinator.withWorker(address(args[++i]));
+				} else if ("--spawn".equals(args[i]) && i + 1 < args.length) {
+					String count = args[++i];
+					try {
+						coordinator.withSpawnedWorkers(Integer.parseInt(count));
+					} catch (NumberFormatException e) {
+						throw new MineSweeperException(
+								"Invalid arguments.  Worker count must be a number, was " + count + ".");
+					}
+				} else if (file == null) {
+					file = Paths.get(args[i]);
+				} else {
+					throw new MineSweeperException("Invalid arguments.  Exactly one input file is required.");
+				}
+			}
+			if (file == null) {
+				throw new MineSweeperException("Invalid arguments.  Exactly one input file is required.");
+			}
+			try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+				OutputStream out = new BufferedOutputStream(System.out, 1 << 16);
+				coordinator.sweep("1", in, out);
+				out.flush();
+			} catch (IOException e) {
+				throw new MineSweeperException("Invalid file name.  " + file + " cannot be read.");
+			}
+		} catch (MineSweeperException e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace(System.err);
+		}
+	}
+
+	/**
+	 * Worker processes started by {@link #withSpawnedWorkers(int)}.
+	 */
+	private final List<Process> processes = new ArrayList<>();
+
+	private int readTimeout = DEFAULT_READ_TIMEOUT;
+
+	private final List<InetSocketAddress> workers = new ArrayList<>();
+
+	/**
+	 * Parses a <code>host:port</code> worker address.
+	 */
+	static InetSocketAddress address(String value) {
+		int colon = value.lastIndexOf(':');
+		try {
+			return new InetSocketAddress(value.substring(0, colon), Integer.parseInt(value.substring(colon + 1)));
+		} catch (RuntimeException e) {
+			throw new MineSweeperException("Invalid worker address.  " + value + " is not host:port.");
+		}
+	}
+
+	/**
+	 * Stops the workers started by {@link #withSpawnedWorkers(int)}.
+	 */
+	@Override
+	public void close() {
+		for (Process process : processes) {
+			process.destroy();
+		}
+		processes.clear();
+	}
+
+	private static void closeQuietly(Band band) {
+		try {
+			if (band.socket != null) {
+				band.socket.close();
+			}
+		} catch (IOException e) {
+			// nothing left to release
+		}
+	}
+
+	private Band connect(int first, int rows, int columns, boolean haloAbove, boolean haloBelow,
+			InetSocketAddress worker) throws IOException {
+		Band band = new Band(first, rows);
+		band.socket = new Socket();
+		band.socket.connect(worker, CONNECT_TIMEOUT);
+		band.socket.setSoTimeout(readTimeout);
+		band.in = new DataInputStream(new BufferedInputStream(band.socket.getInputStream(), 1 << 16));
+		band.out = new DataOutputStream(new BufferedOutputStream(band.socket.getOutputStream(), 1 << 16));
+		band.out.writeInt(rows);
+		band.out.writeInt(columns);
+		band.out.writeBoolean(haloAbove);
+		band.out.writeBoolean(haloBelow);
+		return band;
+	}
+
+	/**
+	 * Gets the addresses of the workers.
+	 */
+	public List<InetSocketAddress> getWorkers() {
+		return workers;
+	}
+
+	/**
+	 * Packs a row definition, one bit per square.
+	 */
+	private static void pack(String line, int row, byte[] packed, int columns) {
+		if (line == null) {
+			throw new MineSweeperException("Invalid input.  Expected a definition of row " + row + ".");
+		}
+		if (line.length() != columns) {
+			throw new MineSweeperException(
+					"Invalid input.  Row " + row + " has " + line.length() + " cells, expected " + columns + ".");
+		}
+		Arrays.fill(packed, (byte) 0);
+		for (int col = 0; col < columns; col++) {
+			char c = line.charAt(col);
+			if (c == '*') {
+				packed[col >>> 3] = (byte) (packed[col >>> 3] | 1 << (col & 7));
+			} else if (c != '.') {
+				throw new MineSweeperException(
+						"Invalid input.  Cell definition can only inlude the * and . characters.");
+			}
+		}
+	}
+
+	/**
+	 * Reads a board with its header line and hints it.
+	 *
+	 * @param id
+	 *            identifier printed in the board's header.
+	 * @param in
+	 *            header line followed by the row definitions.
+	 * @param out
+	 *            stream receiving the hints.
+	 */
+	public void sweep(String id, BufferedReader in, OutputStream out) throws IOException {
+		String header = in.readLine();
+		String[] dimensions = header != null ? header.trim().split("\\s+") : new String[0];
+		if (dimensions.length != 2 || !dimensions[0].matches("\\d+") || !dimensions[1].matches("\\d+")) {
+			throw new MineSweeperException("Invalid input.  The first line must hold the rows and columns.");
+		}
+		sweep(id, Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]), in, out);
+	}
+
+	/**
+	 * Hints a board, splitting its rows into as many bands as there are workers.
+	 *
+	 * @param id
+	 *            identifier printed in the board's header.
+	 * @param rows
+	 *            number of rows.
+	 * @param columns
+	 *            number of columns.
+	 * @param in
+	 *            row definitions, one per line.
+	 * @param out
+	 *            stream receiving the hints.
+	 * @throws MineSweeperException
+	 *             if no worker is configured, a worker cannot be reached or the
+	 *             rows are invalid.
+	 */
+	public void sweep(String id, int rows, int columns, BufferedReader in, OutputStream out) throws IOException {
+		if (workers.isEmpty()) {
+			throw new MineSweeperException("Invalid arguments.  At least one worker is required.");
+		}
+		int count = Math.max(1, Math.min(workers.size(), rows));
+		Band[] bands = new Band[count];
+		try {
+			for (int k = 0; k < count; k++) {
+				int first = (int) ((long) rows * k / count);
+				int next = (int) ((long) rows * (k + 1) / count);
+				InetSocketAddress worker = workers.get(k);
+				try {
+					bands[k] = connect(first, next - first, columns, k > 0, k < count - 1, worker);
+				} catch (IOException e) {
+					throw new MineSweeperException("Unable to reach worker " + worker + ": " + e.getMessage());
+				}
+			}
+
+			byte[] previous = new byte[(columns + 7) >>> 3];
+			byte[] current = new byte[previous.length];
+			int k = 0;
+			for (int row = 0; row < rows; row++) {
+				pack(in.readLine(), row, current, columns);
+				if (k + 1 < count && row == bands[k + 1].first) {
+					// halo rows of the boundary between band k and k + 1
+					bands[k].out.write(current);
+					bands[k].out.flush();
+					bands[k].socket.shutdownOutput();
+					k++;
+					bands[k].out.write(previous);
+				}
+				bands[k].out.write(current);
+				byte[] done = previous;
+				previous = current;
+				current = done;
+			}
+			bands[k].out.flush();
+			bands[k].socket.shutdownOutput();
+
+			out.write(("Mine Field #" + id + ":").getBytes(StandardCharsets.US_ASCII));
+			out.write(LINE_SEPARATOR);
+			byte[] line = new byte[columns + LINE_SEPARATOR.length];
+			System.arraycopy(LINE_SEPARATOR, 0, line, columns, LINE_SEPARATOR.length);
+			for (Band band : bands) {
+				for (int row = 0; row < band.rows; row++) {
+					try {
+						band.in.readFully(line, 0, columns);
+					} catch (IOException e) {
+						throw new MineSweeperException(
+								"Worker failed.  Band from row " + band.first + " ended early: " + e.getMessage());
+					}
+					out.write(line);
+				}
+			}
+			out.write(LINE_SEPARATOR);
+			out.flush();
+		} finally {
+			for (Band band : bands) {
+				if (band != null) {
+					closeQuietly(band);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sets how long a worker may stay silent while its hints are read.
+	 *
+	 * @param millis
+	 *            positive number of milliseconds.
+	 * @return coordinator instance useful for method chaining.
+	 */
+	public ShardCoordinator withReadTimeout(int millis) {
+		if (millis < 1) {
+			throw new MineSweeperException("Invalid arguments.  The read timeout must be positive.");
+		}
+		this.readTimeout = millis;
+		return this;
+	}
+
+	/**
+	 * Starts worker processes on this host, listening on the loopback address
+	 * only, and stopped again by {@link #close()}.
+	 *
+	 * @param count
+	 *            number of workers to start.
+	 * @return coordinator instance useful for method chaining.
+	 * @throws MineSweeperException
+	 *             if a worker cannot be started.
+	 */
+	public ShardCoordinator withSpawnedWorkers(int count) {
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		String classPath;
+		try {
+			classPath = new File(ShardWorker.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+					.getPath();
+		} catch (URISyntaxException e) {
+			throw new MineSweeperException("Unable to start workers.  The class path cannot be determined.");
+		}
+		for (int i = 0; i < count; i++) {
+			try {
+				Process process = new ProcessBuilder(java, "-cp", classPath, ShardWorker.class.getName(), "--port", "0",
+						"--loopback").redirectError(ProcessBuilder.Redirect.INHERIT).start();
+				processes.add(process);
+				BufferedReader announcement = new BufferedReader(
+						new InputStreamReader(process.getInputStream(), StandardCharsets.US_ASCII));
+				String line = announcement.readLine();
+				if (line == null || !line.startsWith(ShardWorker.LISTENING)) {
+					throw new MineSweeperException("Unable to start workers.  Worker " + i + " did not listen.");
+				}
+				int port = Integer.parseInt(line.substring(ShardWorker.LISTENING.length(), line.length() - 1));
+				workers.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+			} catch (IOException e) {
+				throw new MineSweeperException("Unable to start workers: " + e.getMessage());
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Adds a worker; bands are assigned to workers in the order they are added.
+	 *
+	 * @param worker
+	 *            address of a running {@link ShardWorker}.
+	 * @return coordinator instance useful for method chaining.
+	 */
+	public ShardCoordinator withWorker(InetSocketAddress worker) {
+		workers.add(worker);
+		return this;
+	}
+}
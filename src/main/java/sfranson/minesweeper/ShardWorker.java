@@ -0,0 +1,251 @@
+package sfranson.minesweeper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Worker process hinting one row band of a board that is sharded by a
+ * {@link ShardCoordinator}.
+ *
+ * <p>
+ * Every connection carries one band. The coordinator sends the band's
+ * dimensions, whether a halo row is attached above and below it, and then the
+ * rows, halos included, packed one bit per square. The worker keeps the band
+ * as a {@link BitMineMap}, calculates it with a {@link HintCalculator} and
+ * streams back the rendered hints of the band's own rows, <code>columns</code>
+ * bytes per row without line separators. Halo rows only complete the
+ * neighbourhoods of the band's first and last rows.
+ * </p>
+ *
+ * <pre>
+ * int rows, int columns, boolean haloAbove, boolean haloBelow,
+ * (haloAbove + rows + haloBelow) * ((columns + 7) / 8) bytes
+ * </pre>
+ *
+ * <ul>
+ * Arguments:
+ * <li><b>--port n</b> - port to listen on; 0 picks a free port. The port is
+ * printed to standard out once listening.</li>
+ * <li><b>--loopback</b> - accept connections from this host only.</li>
+ * </ul>
+ *
+ * <p>
+ * The protocol is not authenticated: anyone who can connect can have bands
+ * hinted. Workers listen on every interface unless <b>--loopback</b> is given,
+ * which {@link ShardCoordinator#withSpawnedWorkers(int)} always does.
+ * </p>
+ */
+public class ShardWorker {
+
+	/**
+	 * Prefix of the line announcing the port, printed by {@link #main(String[])}.
+	 */
+	static final String LISTENING = "Listening on port ";
+
+	/**
+	 * Parses the arguments and serves until the process is stopped.
+	 *
+	 * @param args
+	 *            see class description.
+	 */
+	public static void main(String[] args) {
+		try {
+			ShardWorker worker = new ShardWorker();
+			for (int i = 0; i < args.length; i++) {
+				if ("--port".equals(args[i]) && i + 1 < args.length) {
+					String port = args[++i];
+					try {
+						worker.withPort(Integer.parseInt(port));
+					} catch (NumberFormatException e) {
+						throw new MineSweeperException("Invalid arguments.  Port must be a number, was " + port + ".");
+					}
+				} else if ("--loopback".equals(args[i])) {
+					worker.withLoopback();
+				} else {
+					throw new MineSweeperException("Invalid arguments.  Unknown option " + args[i] + ".");
+				}
+			}
+			worker.start();
+			System.out.println(LISTENING + worker.getPort() + ".");
+			System.out.flush();
+		} catch (MineSweeperException e) {
+			System.err.println(e.getMessage());
+			System.exit(2);
+		}
+	}
+
+	/**
+	 * Thread accepting connections until the server is closed.
+	 */
+	private Thread acceptor;
+
+	private ExecutorService executor;
+
+	/**
+	 * Indicates only connections from this host are accepted.
+	 */
+	private boolean loopback;
+
+	private int port;
+
+	private ServerSocket server;
+
+	/**
+	 * Receives a band, writing back the hints of its own rows.
+	 */
+	private static void band(Socket socket) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+		int rows = in.readInt();
+		int columns = in.readInt();
+		boolean haloAbove = in.readBoolean();
+		boolean haloBelow = in.readBoolean();
+		int total = rows + (haloAbove ? 1 : 0) + (haloBelow ? 1 : 0);
+		long words = ((long) total * columns + 63) >>> 6;
+		if (rows < 0 || columns < 0 || words > Integer.MAX_VALUE - 8) {
+			throw new MineSweeperException("Invalid band.  " + rows + "x" + columns + " cannot be held.");
+		}
+
+		long[] bits = new long[(int) words];
+		byte[] packed = new byte[(columns + 7) >>> 3];
+		long bit = 0;
+		for (int row = 0; row < total; row++) {
+			in.readFully(packed);
+			for (int col = 0; col < columns; col++, bit++) {
+				if ((packed[col >>> 3] & (1 << (col & 7))) != 0) {
+					bits[(int) (bit >>> 6)] |= 1L << bit;
+				}
+			}
+		}
+
+		OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 1 << 16);
+		int first = haloAbove ? 1 : 0;
+		byte[] line = new byte[columns];
+		IOException[] failure = new IOException[1];
+		new HintCalculator().calculate(new BitMineMap(bits, total, columns), (row, hints, offset, length) -> {
+			if (row < first || row >= first + rows || failure[0] != null) {
+				return;
+			}
+			for (int col = 0; col < length; col++) {
+				byte hint = hints[offset + col];
+				line[col] = hint == HintQuery.MINE ? (byte) '*' : (byte) ('0' + hint);
+			}
+			try {
+				out.write(line, 0, length);
+			} catch (IOException e) {
+				failure[0] = e;
+			}
+		});
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+		out.flush();
+	}
+
+	/**
+	 * Gets the port listened on, which is only known after {@link #start()} if
+	 * port 0 was requested.
+	 */
+	public int getPort() {
+		return server != null ? server.getLocalPort() : port;
+	}
+
+	private void serve(Socket socket) {
+		try (Socket s = socket) {
+			band(s);
+		} catch (IOException | MineSweeperException e) {
+			System.err.println("Band from " + socket.getRemoteSocketAddress() + " failed: "
+					+ (e.getMessage() != null ? e.getMessage() : e.getClass().getName()));
+		}
+	}
+
+	/**
+	 * Starts listening, hinting every band on its own virtual thread.
+	 *
+	 * @return worker instance useful for method chaining.
+	 * @throws MineSweeperException
+	 *             if the port cannot be bound.
+	 */
+	public synchronized ShardWorker start() {
+		try {
+			server = new ServerSocket();
+			server.bind(loopback ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port)
+					: new InetSocketAddress(port));
+		} catch (IOException e) {
+			throw new MineSweeperException("Unable to listen on port " + port + ": " + e.getMessage());
+		}
+		ExecutorService bands = Executors.newVirtualThreadPerTaskExecutor();
+		executor = bands;
+		ServerSocket listening = server;
+		acceptor = Thread.ofPlatform().name("shard-worker-" + getPort()).start(() -> {
+			while (!listening.isClosed()) {
+				Socket socket;
+				try {
+					socket = listening.accept();
+				} catch (IOException e) {
+					// closed by stop()
+					continue;
+				}
+				try {
+					bands.execute(() -> serve(socket));
+				} catch (RejectedExecutionException e) {
+					// stopped after accepting; the band is dropped like an unaccepted one
+					try {
+						socket.close();
+					} catch (IOException closing) {
+						// nothing left to release
+					}
+					return;
+				}
+			}
+		});
+		return this;
+	}
+
+	/**
+	 * Stops listening. Bands in progress are completed.
+	 */
+	public synchronized void stop() {
+		if (server != null) {
+			try {
+				server.close();
+			} catch (IOException e) {
+				// already closed
+			}
+			try {
+				// a connection accepted while closing is still handed to the executor
+				acceptor.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			executor.shutdown();
+			server = null;
+			acceptor = null;
+		}
+	}
+
+	/**
+	 * Listens on the loopback address only, instead of every interface.
+	 */
+	public ShardWorker withLoopback() {
+		this.loopback = true;
+		return this;
+	}
+
+	/**
+	 * Sets the port to listen on; 0 picks a free port.
+	 */
+	public ShardWorker withPort(int port) {
+		this.port = port;
+		return this;
+	}
+}
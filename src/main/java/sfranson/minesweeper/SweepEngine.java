@@ -0,0 +1,224 @@
+package sfranson.minesweeper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Immutable, thread-safe sweeper, created once and shared by any number of
+ * concurrent callers.
+ *
+ * <p>
+ * {@link MineSweeper} and the {@link Board}s it reads keep parsing state in
+ * fields, so an instance can only serve one sweep at a time. The engine keeps
+ * its configuration in final fields and lends every call a
+ * {@link MineSweeper}, with its {@link BoardArena}, from a bounded pool of
+ * scratch sweepers, returning it once the call finishes. Unlike a
+ * {@link ThreadLocal}, the pool does not grow with the number of threads: a
+ * virtual thread per request borrows and returns a sweeper like a pooled
+ * thread does, and scratch space never outlives the calls that need it. Calls
+ * beyond the pool's size use a fresh sweeper that is dropped afterwards.
+ * </p>
+ *
+ * <p>
+ * Every <code>with</code> method returns a new engine, leaving this one
+ * unchanged. The cache of rendered hints, the tile cache, the engine selector
+ * and the metrics are shared by all calls and are thread safe; lookups in the
+ * cache take no lock, so callers hitting it do not queue behind each other.
+ * </p>
+ *
+ * @see SweepEngineBenchmark
+ */
+public final class SweepEngine {
+
+	/**
+	 * Default number of scratch sweepers kept between calls.
+	 */
+	public static final int DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
+	private final BoardCache cache;
+
+	private final boolean columns;
+
+	private final EngineSelector engineSelector;
+
+	private final boolean hintTable;
+
+	private final SweepMetrics metrics;
+
+	private final int poolSize;
+
+	/**
+	 * Idle scratch sweepers.
+	 */
+	private final BlockingQueue<MineSweeper> scratch;
+
+	private final TileCache tileCache;
+
+	/**
+	 * Creates an engine with the defaults of {@link MineSweeper}.
+	 */
+	public SweepEngine() {
+		this(new BoardCache(Long.getLong(MineSweeper.CACHE_CAPACITY_PROPERTY, MineSweeper.DEFAULT_CACHE_CAPACITY)),
+				false, null, false, new SweepMetrics(), DEFAULT_POOL_SIZE, null);
+	}
+
+	private SweepEngine(BoardCache cache, boolean columns, EngineSelector engineSelector, boolean hintTable,
+			SweepMetrics metrics, int poolSize, TileCache tileCache) {
+		this.cache = cache;
+		this.columns = columns;
+		this.engineSelector = engineSelector;
+		this.hintTable = hintTable;
+		this.metrics = metrics;
+		this.poolSize = poolSize;
+		this.scratch = new ArrayBlockingQueue<>(poolSize);
+		this.tileCache = tileCache;
+	}
+
+	private MineSweeper borrow() {
+		MineSweeper sweeper = scratch.poll();
+		if (sweeper == null) {
+			String[] params = columns ? new String[] { "engine", "columns" } : new String[] { "engine" };
+			sweeper = new MineSweeper(params, null).withCache(cache).withMetrics(metrics);
+			if (tileCache != null) {
+				sweeper.withTileCache(tileCache);
+			} else if (hintTable) {
+				sweeper.withHintTable();
+			} else if (engineSelector != null) {
+				sweeper.withEngineSelector(engineSelector);
+			}
+		}
+		return sweeper;
+	}
+
+	/**
+	 * Gets the cache of rendered hints shared by all calls.
+	 */
+	public BoardCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Gets the engine selector shared by all calls, null unless the engine is
+	 * chosen board by board.
+	 */
+	public EngineSelector getEngineSelector() {
+		return engineSelector;
+	}
+
+	/**
+	 * Gets the counters aggregated over all calls.
+	 */
+	public SweepMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Gets the number of scratch sweepers kept between calls.
+	 */
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	/**
+	 * Gets the tile cache shared by all calls, null unless tiles are used.
+	 */
+	public TileCache getTileCache() {
+		return tileCache;
+	}
+
+	/**
+	 * Sweeps a stream of board definitions; safe to call concurrently.
+	 *
+	 * @param in
+	 *            board definitions, possibly compressed; closed once the sweep
+	 *            finishes.
+	 * @param out
+	 *            stream receiving the hints.
+	 */
+	public void sweep(InputStream in, OutputStream out) {
+		MineSweeper sweeper = borrow();
+		try {
+			sweeper.withInput(in).withOutput(out).sweep();
+		} finally {
+			// drop the caller's streams before the next caller borrows it
+			scratch.offer(sweeper.withInput(null).withOutput(null));
+		}
+	}
+
+	/**
+	 * Sweeps board definitions held in a string; safe to call concurrently.
+	 *
+	 * @param definitions
+	 *            board definitions, one line per header or row.
+	 * @return the hints.
+	 */
+	public String sweep(String definitions) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		sweep(new ByteArrayInputStream(definitions.getBytes(StandardCharsets.US_ASCII)), out);
+		return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Returns an engine sharing the given cache of rendered hints.
+	 */
+	public SweepEngine withCache(BoardCache cache) {
+		return new SweepEngine(cache, columns, engineSelector, hintTable, metrics, poolSize, tileCache);
+	}
+
+	/**
+	 * Returns an engine treating board definitions as column-oriented.
+	 */
+	public SweepEngine withColumns() {
+		return new SweepEngine(cache, true, engineSelector, hintTable, metrics, poolSize, tileCache);
+	}
+
+	/**
+	 * Returns an engine choosing between the cells and the {@link HintTable}
+	 * board by board with the given shared selector.
+	 */
+	public SweepEngine withEngineSelector(EngineSelector selector) {
+		return new SweepEngine(cache, columns, selector, hintTable, metrics, poolSize, tileCache);
+	}
+
+	/**
+	 * Returns an engine rendering hints with the {@link HintTable}.
+	 */
+	public SweepEngine withHintTable() {
+		return new SweepEngine(cache, columns, engineSelector, true, metrics, poolSize, tileCache);
+	}
+
+	/**
+	 * Returns an engine updating the given counters.
+	 */
+	public SweepEngine withMetrics(SweepMetrics metrics) {
+		return new SweepEngine(cache, columns, engineSelector, hintTable, metrics, poolSize, tileCache);
+	}
+
+	/**
+	 * Returns an engine keeping the given number of scratch sweepers between
+	 * calls.
+	 *
+	 * @param size
+	 *            positive number of sweepers, usually about the number of calls
+	 *            expected at once.
+	 */
+	public SweepEngine withPoolSize(int size) {
+		if (size < 1) {
+			throw new MineSweeperException("Invalid arguments.  Pool size must be positive.");
+		}
+		return new SweepEngine(cache, columns, engineSelector, hintTable, metrics, size, tileCache);
+	}
+
+	/**
+	 * Returns an engine rendering hints with the {@link HintTable} and the given
+	 * shared tile cache.
+	 */
+	public SweepEngine withTileCache(TileCache tiles) {
+		return new SweepEngine(cache, columns, engineSelector, hintTable, metrics, poolSize, tiles);
+	}
+}
@@ -0,0 +1,258 @@
+package sfranson.minesweeper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Program that measures the throughput of one shared {@link SweepEngine} as the
+ * number of calling threads grows.
+ *
+ * <p>
+ * For every thread count, that many threads sweep the same board definitions
+ * over and over for a fixed time, discarding the hints. The report gives the
+ * boards swept per second, the speedup over the first thread count and the
+ * scaling efficiency, the speedup divided by the growth in threads. Scaling can
+ * only be linear up to the number of processors. The cache of rendered hints is
+ * disabled unless asked for, since repeated input would otherwise measure the
+ * cache rather than the engine; with <b>--cache</b>, every thread shares the
+ * engine's default cache, as callers of the engine do.
+ * </p>
+ *
+ * <ul>
+ * Arguments:
+ * <li><b>--threads n,m,...</b> - thread counts to measure; defaults to powers
+ * of two up to the number of processors.</li>
+ * <li><b>--seconds n</b> - measuring time per thread count; defaults to 5.</li>
+ * <li><b>--warmup n</b> - seconds swept on all threads before measuring;
+ * defaults to 2.</li>
+ * <li><b>--virtual</b> - call from virtual threads instead of platform
+ * threads.</li>
+ * <li><b>--cache</b> - keep the cache of rendered hints enabled.</li>
+ * <li>remaining argument - board definitions file.</li>
+ * </ul>
+ */
+public class SweepEngineBenchmark {
+
+	/**
+	 * Throughput measured for one thread count.
+	 */
+	public static final class Result {
+
+		private final long boards;
+
+		private final long elapsedNanos;
+
+		private final int threads;
+
+		Result(int threads, long boards, long elapsedNanos) {
+			this.threads = threads;
+			this.boards = boards;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		/**
+		 * Gets the number of boards swept.
+		 */
+		public long getBoards() {
+			return boards;
+		}
+
+		/**
+		 * Gets the number of calling threads.
+		 */
+		public int getThreads() {
+			return threads;
+		}
+
+		/**
+		 * Gets the boards swept per second.
+		 */
+		public double getThroughput() {
+			return elapsedNanos > 0 ? boards * 1e9 / elapsedNanos : 0;
+		}
+
+		/**
+		 * Gets the speedup over a baseline, divided by the growth in threads; 1
+		 * is linear scaling.
+		 */
+		public double efficiency(Result baseline) {
+			return speedup(baseline) * baseline.threads / threads;
+		}
+
+		/**
+		 * Gets the throughput relative to a baseline.
+		 */
+		public double speedup(Result baseline) {
+			return baseline.getThroughput() > 0 ? getThroughput() / baseline.getThroughput() : 0;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("threads=%d boards=%d elapsed=%.2fs throughput=%.0f boards/s", threads, boards,
+					elapsedNanos / 1e9, getThroughput());
+		}
+	}
+
+	/**
+	 * Discards the hints.
+	 */
+	private static final OutputStream DISCARD = OutputStream.nullOutputStream();
+
+	/**
+	 * Parses the arguments, runs the benchmark and prints one line per thread
+	 * count.
+	 *
+	 * @param args
+	 *            see class description.
+	 */
+	public static void main(String[] args) {
+		try {
+			List<Integer> threads = new ArrayList<>();
+			int seconds = 5;
+			int warmup = 2;
+			boolean virtual = false;
+			boolean cache = false;
+			String file = null;
+			for (int i = 0; i < args.length; i++) {
+				String arg = args[i];
+				if ("--threads".equals(arg) && i + 1 < args.length) {
+					for (String count : args[++i].split(",")) {
+						threads.add(Integer.parseInt(count.trim()));
+					}
+				} else if ("--seconds".equals(arg) && i + 1 < args.length) {
+					seconds = Integer.parseInt(args[++i]);
+				} else if ("--warmup".equals(arg) && i + 1 < args.length) {
+					warmup = Integer.parseInt(args[++i]);
+				} else if ("--virtual".equals(arg)) {
+					virtual = true;
+				} else if ("--cache".equals(arg)) {
+					cache = true;
+				} else {
+					file = arg;
+				}
+			}
+			if (file == null) {
+				throw new MineSweeperException("Invalid arguments.  A board definitions file is required.");
+			}
+			if (threads.isEmpty()) {
+				for (int count = 1; count <= Runtime.getRuntime().availableProcessors(); count *= 2) {
+					threads.add(count);
+				}
+			}
+			SweepEngine engine = new SweepEngine();
+			if (!cache) {
+				engine = engine.withCache(new BoardCache(0));
+			}
+			SweepEngineBenchmark benchmark = new SweepEngineBenchmark(engine,
+					Files.readAllBytes(Paths.get(file))).withVirtualThreads(virtual);
+			int most = threads.stream().mapToInt(Integer::intValue).max().getAsInt();
+			if (warmup > 0) {
+				benchmark.run(most, TimeUnit.SECONDS.toNanos(warmup));
+			}
+			Result baseline = null;
+			for (int count : threads) {
+				Result result = benchmark.run(count, TimeUnit.SECONDS.toNanos(seconds));
+				if (baseline == null) {
+					baseline = result;
+				}
+				System.out.println(String.format("%s speedup=%.2f efficiency=%.2f", result, result.speedup(baseline),
+						result.efficiency(baseline)));
+			}
+		} catch (IOException e) {
+			System.err.println("Unable to read board definitions: " + e.getMessage());
+			System.exit(2);
+		} catch (MineSweeperException e) {
+			System.err.println(e.getMessage());
+			System.exit(2);
+		}
+	}
+
+	private final byte[] definitions;
+
+	private final SweepEngine engine;
+
+	private boolean virtualThreads;
+
+	/**
+	 * Creates a benchmark sweeping the same definitions on every call.
+	 *
+	 * @param engine
+	 *            engine shared by all threads and runs, whose metrics count
+	 *            the boards swept; it should not serve other callers while
+	 *            running.
+	 * @param definitions
+	 *            board definitions.
+	 */
+	public SweepEngineBenchmark(SweepEngine engine, byte[] definitions) {
+		this.engine = engine;
+		this.definitions = definitions;
+	}
+
+	/**
+	 * Sweeps on the given number of threads for the given time.
+	 *
+	 * @param threads
+	 *            positive number of calling threads.
+	 * @param nanos
+	 *            measuring time; every thread finishes the sweep in progress.
+	 * @return the boards swept and the time taken.
+	 */
+	public Result run(int threads, long nanos) {
+		if (threads < 1 || nanos < 0) {
+			throw new MineSweeperException("Invalid arguments.  Threads must be positive and time not negative.");
+		}
+		// the same engine every run, so its pool of scratch sweepers stays warm
+		SweepMetrics metrics = engine.getMetrics();
+		long before = metrics.getBoards();
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(threads);
+		RuntimeException[] failure = new RuntimeException[1];
+		long[] deadline = new long[1];
+		for (int t = 0; t < threads; t++) {
+			Runnable caller = () -> {
+				try {
+					start.await();
+					do {
+						engine.sweep(new ByteArrayInputStream(definitions), DISCARD);
+					} while (System.nanoTime() - deadline[0] < 0);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (RuntimeException e) {
+					failure[0] = e;
+				} finally {
+					done.countDown();
+				}
+			};
+			(virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform()).name("sweep-benchmark-" + t).start(caller);
+		}
+		long started = System.nanoTime();
+		deadline[0] = started + nanos;
+		start.countDown();
+		try {
+			done.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MineSweeperException("Interrupted while benchmarking.");
+		}
+		long elapsed = System.nanoTime() - started;
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+		return new Result(threads, metrics.getBoards() - before, elapsed);
+	}
+
+	/**
+	 * Calls the engine from virtual threads instead of platform threads.
+	 */
+	public SweepEngineBenchmark withVirtualThreads(boolean virtual) {
+		this.virtualThreads = virtual;
+		return this;
+	}
+}
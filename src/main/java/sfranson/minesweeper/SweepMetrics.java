@@ -0,0 +1,125 @@
+package sfranson.minesweeper;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running counters of a sweep, cheap enough to be always on.
+ *
+ * <p>
+ * Counters may be updated from several threads. Rates are computed relative to
+ * the creation of the instance.
+ * </p>
+ *
+ * @see BoardEvent
+ */
+public class SweepMetrics {
+
+	private final LongAdder boards = new LongAdder();
+
+	private final LongAdder bytesIn = new LongAdder();
+
+	private final LongAdder bytesOut = new LongAdder();
+
+	private final LongAdder cachedBoards = new LongAdder();
+
+	private final LongAdder computeNanos = new LongAdder();
+
+	private final LongAdder mines = new LongAdder();
+
+	private final LongAdder parseNanos = new LongAdder();
+
+	private final LongAdder renderNanos = new LongAdder();
+
+	private final LongAdder squares = new LongAdder();
+
+	/**
+	 * Creation time, in {@link System#nanoTime() nanoseconds}.
+	 */
+	private final long started = System.nanoTime();
+
+	/**
+	 * Records a completed board.
+	 *
+	 * @param squareCount
+	 *            number of squares of the board.
+	 * @param mineCount
+	 *            number of mines of the board.
+	 * @param parse
+	 *            nanoseconds spent reading the board definition.
+	 * @param compute
+	 *            nanoseconds spent calculating hints.
+	 * @param render
+	 *            nanoseconds spent writing hints.
+	 * @param written
+	 *            number of bytes written.
+	 * @param cached
+	 *            true if the hints were reused from an identical board.
+	 */
+	void board(long squareCount, long mineCount, long parse, long compute, long render, long written,
+			boolean cached) {
+		boards.increment();
+		squares.add(squareCount);
+		mines.add(mineCount);
+		parseNanos.add(parse);
+		computeNanos.add(compute);
+		renderNanos.add(render);
+		bytesOut.add(written);
+		if (cached) {
+			cachedBoards.increment();
+		}
+	}
+
+	/**
+	 * Prints a summary of the counters and rates.
+	 *
+	 * @param out
+	 *            stream to write the summary.
+	 */
+	public void dump(PrintStream out) {
+		double seconds = Math.max(getElapsedNanos(), 1) / 1e9;
+		out.printf("boards: %d (%d cached), squares: %d, mines: %d%n", getBoards(), cachedBoards.sum(),
+				getSquares(), mines.sum());
+		out.printf("bytes in: %d, bytes out: %d%n", getBytesIn(), getBytesOut());
+		out.printf("elapsed: %.3f s, boards/s: %.1f, squares/s: %.1f%n", seconds, getBoards() / seconds,
+				getSquares() / seconds);
+		out.printf("parse: %d ms, compute: %d ms, render: %d ms%n", millis(parseNanos), millis(computeNanos),
+				millis(renderNanos));
+		out.flush();
+	}
+
+	public long getBoards() {
+		return boards.sum();
+	}
+
+	public long getBytesIn() {
+		return bytesIn.sum();
+	}
+
+	public long getBytesOut() {
+		return bytesOut.sum();
+	}
+
+	/**
+	 * Gets the nanoseconds elapsed since the metrics were created.
+	 */
+	public long getElapsedNanos() {
+		return System.nanoTime() - started;
+	}
+
+	public long getSquares() {
+		return squares.sum();
+	}
+
+	private static long millis(LongAdder nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos.sum());
+	}
+
+	/**
+	 * Records bytes of input read.
+	 */
+	void read(long bytes) {
+		bytesIn.add(bytes);
+	}
+}
@@ -0,0 +1,197 @@
+package sfranson.minesweeper;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bounded, least-recently-used cache of rendered hint tiles, keyed by a tile's
+ * mines and those of its one-square halo.
+ *
+ * <p>
+ * A tile is {@value #SIZE}x{@value #SIZE} squares. Its hints only depend on the
+ * 10x10 squares of the tile and its halo, 100 bits packed into two longs, so
+ * boards with large empty areas or repeated patterns render most tiles from
+ * the cache. Whether that beats rendering them afresh depends on the boards;
+ * the hit, miss and eviction counters are there to tell.
+ * </p>
+ *
+ * <p>
+ * The cache is thread safe and may be shared by the {@link HintTable}s of
+ * several threads.
+ * </p>
+ *
+ * @see HintTable#withTileCache(TileCache)
+ */
+public class TileCache {
+
+	/**
+	 * Mines of a tile and its halo: the first six rows of ten squares in
+	 * <code>low</code>, the last four in <code>high</code>.
+	 */
+	private static final class Key {
+
+		private final long high;
+
+		private final long low;
+
+		Key(long high, long low) {
+			this.high = high;
+			this.low = low;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return high == other.high && low == other.low;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(low * 0x9e3779b97f4a7c15L ^ high);
+		}
+	}
+
+	/**
+	 * Default number of tiles retained, about 10 MB.
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	/**
+	 * Number of rows and columns of a tile.
+	 */
+	public static final int SIZE = 8;
+
+	/**
+	 * Maximum number of tiles retained.
+	 */
+	private final int capacity;
+
+	private long evictions;
+
+	private long hits;
+
+	private long misses;
+
+	/**
+	 * Cached hints, {@value #SIZE} rows of {@value #SIZE} rendered squares each,
+	 * in access order.
+	 */
+	private final LinkedHashMap<Key, byte[]> tiles;
+
+	/**
+	 * Creates a cache that retains at most <code>capacity</code> tiles.
+	 *
+	 * @param capacity
+	 *            maximum number of tiles; 0 disables caching.
+	 */
+	public TileCache(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Tile cache capacity must not be negative.");
+		}
+		this.capacity = capacity;
+		this.tiles = new LinkedHashMap<Key, byte[]>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+				if (size() > TileCache.this.capacity) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Gets the rendered hints of a tile, counting a hit or a miss.
+	 *
+	 * @param high
+	 *            mines of the last four rows of the tile and its halo.
+	 * @param low
+	 *            mines of the first six rows.
+	 * @return the cached hints, or null if the tile has not been seen.
+	 */
+	public synchronized byte[] get(long high, long low) {
+		byte[] hints = tiles.get(new Key(high, low));
+		if (hints == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+		return hints;
+	}
+
+	/**
+	 * Gets the maximum number of tiles retained.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Gets the number of tiles evicted to stay within capacity.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Gets the number of lookups that found cached hints.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the share of lookups that found cached hints, 0 before the first
+	 * lookup.
+	 */
+	public synchronized double getHitRate() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	/**
+	 * Gets the number of lookups that found nothing.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Gets the number of tiles currently retained.
+	 */
+	public synchronized int getSize() {
+		return tiles.size();
+	}
+
+	/**
+	 * Stores the rendered hints of a tile, evicting the least recently used tile
+	 * if the capacity is exceeded.
+	 *
+	 * @param high
+	 *            mines of the last four rows of the tile and its halo.
+	 * @param low
+	 *            mines of the first six rows.
+	 * @param hints
+	 *            {@value #SIZE} rows of {@value #SIZE} rendered squares; must not
+	 *            be modified afterwards.
+	 */
+	public synchronized void put(long high, long low, byte[] hints) {
+		if (capacity > 0) {
+			tiles.put(new Key(high, low), hints);
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "TileCache[tiles=" + tiles.size() + "/" + capacity + ", hits=" + hits + ", misses=" + misses
+				+ ", evictions=" + evictions + ", hitRate=" + String.format(Locale.ROOT, "%.3f", getHitRate()) + "]";
+	}
+}
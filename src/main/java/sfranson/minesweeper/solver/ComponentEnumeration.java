@@ -0,0 +1,255 @@
+package sfranson.minesweeper.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the mine layouts of one frontier component, by number of mines, along
+ * with how many of them place a mine on each square.
+ *
+ * <p>
+ * Squares are assigned in row-major order. Since every constraint spans at most
+ * three rows, only the constraints that have been started but not finished
+ * (the "open" ones) matter for the rest of the assignment; their remaining
+ * mine counts form the state that is memoised. Layout counts are gathered in a
+ * forward pass over reachable states and a backward pass over the same states,
+ * so a square's mine count is the product of the two on either side of it.
+ * </p>
+ */
+final class ComponentEnumeration {
+
+	/**
+	 * Thrown when enumeration runs past its deadline.
+	 */
+	static final class BudgetExceeded extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		BudgetExceeded() {
+			super(null, null, false, false);
+		}
+	}
+
+	/**
+	 * Constraints, as indexes into {@link #squares}.
+	 */
+	private final int[][] constraintVars;
+
+	private final int[] constraintMines;
+
+	private final long deadline;
+
+	/**
+	 * Indicates the counts are an estimate rather than an enumeration.
+	 */
+	boolean estimated;
+
+	/**
+	 * Layouts with <code>k</code> mines placing a mine on each square, by
+	 * <code>k</code>.
+	 */
+	double[][] mineWays;
+
+	/**
+	 * Open constraints before each square is assigned, in ascending order.
+	 */
+	private final int[][] openAt;
+
+	/**
+	 * Squares enumerated, as <code>row * columns + col</code>, ascending.
+	 */
+	final int[] squares;
+
+	/**
+	 * Constraints containing each square.
+	 */
+	private final int[][] varConstraints;
+
+	/**
+	 * Layouts by number of mines.
+	 */
+	double[] ways;
+
+	/**
+	 * @param squares
+	 *            undetermined squares of the component, ascending.
+	 * @param constraints
+	 *            constraints reduced to the undetermined squares.
+	 * @param cols
+	 *            number of columns of the grid.
+	 * @param deadline
+	 *            {@link System#nanoTime()} after which enumeration stops.
+	 */
+	ComponentEnumeration(int[] squares, List<Constraint> constraints, int cols, long deadline) {
+		this.squares = squares;
+		this.deadline = deadline;
+		int n = squares.length;
+		constraintVars = new int[constraints.size()][];
+		constraintMines = new int[constraints.size()];
+		List<List<Integer>> byVar = new ArrayList<>(n);
+		for (int v = 0; v < n; v++) {
+			byVar.add(new ArrayList<>(4));
+		}
+		for (int c = 0; c < constraints.size(); c++) {
+			Constraint constraint = constraints.get(c);
+			int[] vars = new int[constraint.size()];
+			int count = 0;
+			for (int bit = 0; bit < 9; bit++) {
+				if ((constraint.mask & (1 << bit)) != 0) {
+					int square = (constraint.row + bit / 3) * cols + constraint.col + bit % 3;
+					vars[count++] = Arrays.binarySearch(squares, square);
+				}
+			}
+			Arrays.sort(vars);
+			constraintVars[c] = vars;
+			constraintMines[c] = constraint.mines;
+			for (int v : vars) {
+				byVar.get(v).add(c);
+			}
+		}
+		varConstraints = new int[n][];
+		for (int v = 0; v < n; v++) {
+			varConstraints[v] = byVar.get(v).stream().mapToInt(Integer::intValue).toArray();
+		}
+		openAt = new int[n + 1][];
+		for (int v = 0; v <= n; v++) {
+			List<Integer> open = new ArrayList<>();
+			for (int c = 0; c < constraintVars.length; c++) {
+				int[] vars = constraintVars[c];
+				if (vars[0] < v && vars[vars.length - 1] >= v) {
+					open.add(c);
+				}
+			}
+			openAt[v] = open.stream().mapToInt(Integer::intValue).toArray();
+		}
+	}
+
+	private static void addShifted(double[] target, double[] source, double factor, int shift) {
+		for (int k = 0; k + shift < target.length; k++) {
+			if (source[k] != 0) {
+				target[k + shift] += factor * source[k];
+			}
+		}
+	}
+
+	/**
+	 * Enumerates the layouts, filling {@link #ways} and {@link #mineWays}.
+	 *
+	 * @throws BudgetExceeded
+	 *             if the deadline passes first.
+	 */
+	ComponentEnumeration enumerate() {
+		int n = squares.length;
+		int[] remaining = new int[constraintVars.length];
+
+		List<Map<String, double[]>> forward = new ArrayList<>(n + 1);
+		Map<String, double[]> start = new HashMap<>();
+		start.put("", unit(n));
+		forward.add(start);
+		for (int v = 0; v < n; v++) {
+			Map<String, double[]> next = new HashMap<>();
+			for (Map.Entry<String, double[]> entry : forward.get(v).entrySet()) {
+				checkDeadline();
+				for (int value = 0; value <= 1; value++) {
+					String state = transition(v, entry.getKey(), value, remaining);
+					if (state != null) {
+						addShifted(next.computeIfAbsent(state, s -> new double[n + 1]), entry.getValue(), 1, value);
+					}
+				}
+			}
+			forward.add(next);
+		}
+
+		List<Map<String, double[]>> backward = new ArrayList<>(n + 1);
+		for (int v = 0; v <= n; v++) {
+			backward.add(new HashMap<>());
+		}
+		backward.get(n).put("", unit(n));
+		for (int v = n - 1; v >= 0; v--) {
+			for (String state : forward.get(v).keySet()) {
+				checkDeadline();
+				double[] total = new double[n + 1];
+				for (int value = 0; value <= 1; value++) {
+					String after = transition(v, state, value, remaining);
+					double[] rest = after != null ? backward.get(v + 1).get(after) : null;
+					if (rest != null) {
+						addShifted(total, rest, 1, value);
+					}
+				}
+				backward.get(v).put(state, total);
+			}
+		}
+
+		ways = backward.get(0).get("");
+		mineWays = new double[n + 1][n];
+		for (int v = 0; v < n; v++) {
+			for (Map.Entry<String, double[]> entry : forward.get(v).entrySet()) {
+				String after = transition(v, entry.getKey(), 1, remaining);
+				double[] rest = after != null ? backward.get(v + 1).get(after) : null;
+				if (rest == null) {
+					continue;
+				}
+				double[] before = entry.getValue();
+				for (int a = 0; a <= n; a++) {
+					if (before[a] == 0) {
+						continue;
+					}
+					for (int b = 0; a + b + 1 <= n; b++) {
+						mineWays[a + b + 1][v] += before[a] * rest[b];
+					}
+				}
+			}
+		}
+		return this;
+	}
+
+	private void checkDeadline() {
+		if (System.nanoTime() - deadline > 0) {
+			throw new BudgetExceeded();
+		}
+	}
+
+	/**
+	 * Assigns a value to square <code>v</code>.
+	 *
+	 * @return the state after the assignment, or null if it breaks a constraint.
+	 */
+	private String transition(int v, String state, int value, int[] remaining) {
+		int[] open = openAt[v];
+		for (int i = 0; i < open.length; i++) {
+			remaining[open[i]] = state.charAt(i);
+		}
+		for (int c : varConstraints[v]) {
+			int[] vars = constraintVars[c];
+			if (vars[0] == v) {
+				remaining[c] = constraintMines[c];
+			}
+			int left = remaining[c] - value;
+			int unassigned = 0;
+			for (int other : vars) {
+				if (other > v) {
+					unassigned++;
+				}
+			}
+			if (left < 0 || left > unassigned) {
+				return null;
+			}
+			remaining[c] = left;
+		}
+		int[] next = openAt[v + 1];
+		char[] encoded = new char[next.length];
+		for (int i = 0; i < next.length; i++) {
+			encoded[i] = (char) remaining[next[i]];
+		}
+		return new String(encoded);
+	}
+
+	private static double[] unit(int n) {
+		double[] unit = new double[n + 1];
+		unit[0] = 1;
+		return unit;
+	}
+}
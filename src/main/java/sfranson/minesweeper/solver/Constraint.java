@@ -0,0 +1,136 @@
+package sfranson.minesweeper.solver;
+
+/**
+ * A number of mines among a set of squares that fit in a 3x3 window.
+ *
+ * <p>
+ * Every constraint stems from a single hint, so its squares always fit in the
+ * hint's 3x3 neighbourhood. The squares are encoded as a 9-bit mask over a
+ * window whose top-left corner is (<code>row</code>, <code>col</code>), bit
+ * <code>r * 3 + c</code> standing for square (<code>row + r</code>,
+ * <code>col + c</code>). The window is normalised so that its first row and
+ * column are occupied, which makes equal square sets compare equal.
+ * </p>
+ */
+final class Constraint {
+
+	/**
+	 * Bits of the window's left column.
+	 */
+	private static final int LEFT_COLUMN = 0b001001001;
+
+	/**
+	 * Bits of the window's top row.
+	 */
+	private static final int TOP_ROW = 0b000000111;
+
+	final int col;
+
+	final int mask;
+
+	final int mines;
+
+	final int row;
+
+	Constraint(int row, int col, int mask, int mines) {
+		if (mask != 0) {
+			while ((mask & TOP_ROW) == 0) {
+				mask >>>= 3;
+				row++;
+			}
+			while ((mask & LEFT_COLUMN) == 0) {
+				mask >>>= 1;
+				col++;
+			}
+		}
+		this.row = row;
+		this.col = col;
+		this.mask = mask;
+		this.mines = mines;
+	}
+
+	/**
+	 * Gets the squares of the constraint within a 5x5 frame, bit
+	 * <code>r * 5 + c</code> standing for square (<code>frameRow + r</code>,
+	 * <code>frameCol + c</code>).
+	 */
+	private int frame(int frameRow, int frameCol) {
+		int dr = row - frameRow;
+		int dc = col - frameCol;
+		int framed = 0;
+		for (int bit = 0; bit < 9; bit++) {
+			if ((mask & (1 << bit)) != 0) {
+				framed |= 1 << ((dr + bit / 3) * 5 + dc + bit % 3);
+			}
+		}
+		return framed;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof Constraint)) {
+			return false;
+		}
+		Constraint other = (Constraint) obj;
+		return row == other.row && col == other.col && mask == other.mask && mines == other.mines;
+	}
+
+	/**
+	 * Gets the column of the first square, in row-major order.
+	 */
+	int firstColumn() {
+		return col + Integer.numberOfTrailingZeros(mask) % 3;
+	}
+
+	/**
+	 * Gets the row of the first square, in row-major order.
+	 */
+	int firstRow() {
+		return row + Integer.numberOfTrailingZeros(mask) / 3;
+	}
+
+	@Override
+	public int hashCode() {
+		return ((row * 31 + col) * 31 + mask) * 31 + mines;
+	}
+
+	/**
+	 * Indicates every square of this constraint is also a square of the other.
+	 */
+	boolean isSubsetOf(Constraint other) {
+		if (Math.abs(row - other.row) > 2 || Math.abs(col - other.col) > 2) {
+			return false;
+		}
+		int frameRow = Math.min(row, other.row);
+		int frameCol = Math.min(col, other.col);
+		return (frame(frameRow, frameCol) & ~other.frame(frameRow, frameCol)) == 0;
+	}
+
+	/**
+	 * Removes the squares of a subset, along with its mines.
+	 *
+	 * @param subset
+	 *            constraint whose squares are all squares of this one.
+	 */
+	Constraint minus(Constraint subset) {
+		int removed = 0;
+		for (int bit = 0; bit < 9; bit++) {
+			if ((subset.mask & (1 << bit)) != 0) {
+				removed |= 1 << ((subset.row - row + bit / 3) * 3 + subset.col - col + bit % 3);
+			}
+		}
+		return new Constraint(row, col, mask & ~removed, mines - subset.mines);
+	}
+
+	/**
+	 * Gets the number of squares.
+	 */
+	int size() {
+		return Integer.bitCount(mask);
+	}
+
+	@Override
+	public String toString() {
+		return mines + " in " + Integer.toBinaryString(mask) + "@(" + row + ", " + col + ")";
+	}
+}
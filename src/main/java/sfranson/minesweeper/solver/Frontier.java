@@ -0,0 +1,200 @@
+package sfranson.minesweeper.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import sfranson.minesweeper.MineSweeperException;
+
+/**
+ * Unknown squares next to revealed hints, with the constraints the hints put
+ * on them, split into independent components.
+ *
+ * <p>
+ * Two frontier squares belong to the same component when a chain of shared
+ * hints connects them. Components can be solved separately, since nothing
+ * known about one tells anything about another.
+ * </p>
+ */
+public class Frontier {
+
+	/**
+	 * Independent group of frontier squares and their constraints.
+	 */
+	static final class Component {
+
+		final List<Constraint> constraints = new ArrayList<>();
+
+		/**
+		 * Squares of the component, as <code>row * columns + col</code>, in
+		 * ascending order.
+		 */
+		int[] squares;
+	}
+
+	private final List<Component> components;
+
+	private final List<Constraint> constraints = new ArrayList<>();
+
+	private final HintGrid grid;
+
+	/**
+	 * Unknown squares that are not next to any revealed hint.
+	 */
+	private int interiorCount;
+
+	private int knownMines;
+
+	private int size;
+
+	/**
+	 * Collects the constraints of every revealed hint and splits them into
+	 * components.
+	 *
+	 * @param grid
+	 *            partially revealed board.
+	 * @throws MineSweeperException
+	 *             if a hint cannot be satisfied.
+	 */
+	public Frontier(HintGrid grid) {
+		this.grid = grid;
+		int rows = grid.getRowCount();
+		int cols = grid.getColumnCount();
+		int[] parent = new int[rows * cols];
+		Arrays.fill(parent, -1);
+
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				byte value = grid.get(row, col);
+				if (value == HintGrid.MINE) {
+					knownMines++;
+				} else if (value >= 0) {
+					addConstraint(row, col, value, parent);
+				}
+			}
+		}
+		for (int square = 0; square < parent.length; square++) {
+			if (grid.get(square / cols, square % cols) == HintGrid.UNKNOWN && parent[square] < 0) {
+				interiorCount++;
+			}
+		}
+		this.components = split(parent);
+	}
+
+	private void addConstraint(int row, int col, int hint, int[] parent) {
+		int cols = grid.getColumnCount();
+		int mask = 0;
+		int mines = hint;
+		int first = -1;
+		for (int bit = 0; bit < 9; bit++) {
+			int r = row - 1 + bit / 3;
+			int c = col - 1 + bit % 3;
+			if (r < 0 || c < 0 || r >= grid.getRowCount() || c >= cols) {
+				continue;
+			}
+			byte value = grid.get(r, c);
+			if (value == HintGrid.MINE) {
+				mines--;
+			} else if (value == HintGrid.UNKNOWN) {
+				mask |= 1 << bit;
+				int square = r * cols + c;
+				if (parent[square] < 0) {
+					parent[square] = square;
+					size++;
+				}
+				if (first < 0) {
+					first = square;
+				} else {
+					union(parent, first, square);
+				}
+			}
+		}
+		if (mines < 0 || mines > Integer.bitCount(mask)) {
+			throw new MineSweeperException("Inconsistent hints.  Hint at (" + row + ", " + col + ") cannot be satisfied.");
+		}
+		if (mask != 0) {
+			constraints.add(new Constraint(row - 1, col - 1, mask, mines));
+		}
+	}
+
+	private static int find(int[] parent, int square) {
+		while (parent[square] != square) {
+			parent[square] = parent[parent[square]];
+			square = parent[square];
+		}
+		return square;
+	}
+
+	/**
+	 * Gets the number of independent components.
+	 */
+	public int getComponentCount() {
+		return components.size();
+	}
+
+	List<Component> getComponents() {
+		return components;
+	}
+
+	HintGrid getGrid() {
+		return grid;
+	}
+
+	/**
+	 * Gets the number of unknown squares that are not next to any revealed hint.
+	 */
+	public int getInteriorCount() {
+		return interiorCount;
+	}
+
+	/**
+	 * Gets the number of squares already known to be mines.
+	 */
+	public int getKnownMines() {
+		return knownMines;
+	}
+
+	/**
+	 * Gets the number of unknown squares next to a revealed hint.
+	 */
+	public int size() {
+		return size;
+	}
+
+	private List<Component> split(int[] parent) {
+		int cols = grid.getColumnCount();
+		Map<Integer, Component> byRoot = new LinkedHashMap<>();
+		for (Constraint constraint : constraints) {
+			int root = find(parent, constraint.firstRow() * cols + constraint.firstColumn());
+			byRoot.computeIfAbsent(root, r -> new Component()).constraints.add(constraint);
+		}
+		int[] counts = new int[parent.length];
+		for (int square = 0; square < parent.length; square++) {
+			if (parent[square] >= 0) {
+				counts[find(parent, square)]++;
+			}
+		}
+		for (Map.Entry<Integer, Component> entry : byRoot.entrySet()) {
+			entry.getValue().squares = new int[counts[entry.getKey()]];
+			counts[entry.getKey()] = 0;
+		}
+		for (int square = 0; square < parent.length; square++) {
+			if (parent[square] >= 0) {
+				int root = find(parent, square);
+				Component component = byRoot.get(root);
+				component.squares[counts[root]++] = square;
+			}
+		}
+		return new ArrayList<>(byRoot.values());
+	}
+
+	private static void union(int[] parent, int a, int b) {
+		int rootA = find(parent, a);
+		int rootB = find(parent, b);
+		if (rootA != rootB) {
+			parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+		}
+	}
+}
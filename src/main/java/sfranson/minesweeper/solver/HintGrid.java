@@ -0,0 +1,135 @@
+package sfranson.minesweeper.solver;
+
+import java.util.Arrays;
+
+import sfranson.minesweeper.MineSweeperException;
+
+/**
+ * Partially revealed board, as seen by a player.
+ *
+ * <p>
+ * Each square is either a revealed hint (0 to 8), a square known to hold a
+ * {@link #MINE mine}, or {@link #UNKNOWN unknown}.
+ * </p>
+ *
+ * <ul>
+ * Text patterns, one string per row:
+ * <li><b>0</b> to <b>8</b> - revealed hint</li>
+ * <li><b>*</b> - known mine</li>
+ * <li><b>?</b> - unknown square</li>
+ * </ul>
+ */
+public class HintGrid {
+
+	/**
+	 * Value of a square known to hold a mine.
+	 */
+	public static final byte MINE = -1;
+
+	/**
+	 * Value of a square that has not been revealed.
+	 */
+	public static final byte UNKNOWN = -2;
+
+	private final int columnCount;
+
+	private final int rowCount;
+
+	/**
+	 * Square values, row by row.
+	 */
+	private final byte[] values;
+
+	/**
+	 * Creates a grid of unknown squares.
+	 *
+	 * @param rows
+	 *            number of rows.
+	 * @param columns
+	 *            number of columns.
+	 */
+	public HintGrid(int rows, int columns) {
+		this.rowCount = rows;
+		this.columnCount = columns;
+		this.values = new byte[Math.multiplyExact(rows, columns)];
+		Arrays.fill(values, UNKNOWN);
+	}
+
+	/**
+	 * Creates a grid from text patterns.
+	 *
+	 * @param rows
+	 *            one pattern per row, all of the same length.
+	 * @see HintGrid
+	 */
+	public static HintGrid parse(String... rows) {
+		int columns = rows.length > 0 ? rows[0].length() : 0;
+		HintGrid grid = new HintGrid(rows.length, columns);
+		for (int row = 0; row < rows.length; row++) {
+			if (rows[row].length() != columns) {
+				throw new MineSweeperException("Invalid input.  Number of columns doesn't match.");
+			}
+			for (int col = 0; col < columns; col++) {
+				char c = rows[row].charAt(col);
+				if (c == '*') {
+					grid.set(row, col, MINE);
+				} else if (c >= '0' && c <= '8') {
+					grid.set(row, col, (byte) (c - '0'));
+				} else if (c != '?') {
+					throw new MineSweeperException("Invalid input.  Hint definition can only include 0-8, * and ?.");
+				}
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * Gets the value of a square: a hint, {@link #MINE} or {@link #UNKNOWN}.
+	 */
+	public byte get(int row, int col) {
+		return values[row * columnCount + col];
+	}
+
+	public int getColumnCount() {
+		return columnCount;
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Indicates the square's hint has been revealed.
+	 */
+	public boolean isRevealed(int row, int col) {
+		return get(row, col) >= 0;
+	}
+
+	/**
+	 * Sets the value of a square.
+	 *
+	 * @param value
+	 *            hint, {@link #MINE} or {@link #UNKNOWN}.
+	 * @return grid instance useful for method chaining.
+	 */
+	public HintGrid set(int row, int col, byte value) {
+		values[row * columnCount + col] = value;
+		return this;
+	}
+
+	/**
+	 * Prints the grid using the text patterns.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder(rowCount * (columnCount + 1));
+		for (int row = 0; row < rowCount; row++) {
+			for (int col = 0; col < columnCount; col++) {
+				byte value = get(row, col);
+				b.append(value == MINE ? '*' : value == UNKNOWN ? '?' : (char) ('0' + value));
+			}
+			b.append('\n');
+		}
+		return b.toString();
+	}
+}
@@ -0,0 +1,50 @@
+package sfranson.minesweeper.solver;
+
+/**
+ * Probability of each square of a {@link HintGrid} being a mine.
+ *
+ * @see ProbabilityEngine#calculate(HintGrid, int)
+ */
+public class Probabilities {
+
+	private final boolean exact;
+
+	private final HintGrid grid;
+
+	private final double interior;
+
+	/**
+	 * Probability of every square, row by row.
+	 */
+	private final double[] values;
+
+	Probabilities(HintGrid grid, double[] values, double interior, boolean exact) {
+		this.grid = grid;
+		this.values = values;
+		this.interior = interior;
+		this.exact = exact;
+	}
+
+	/**
+	 * Gets the probability that the square is a mine: 0 for revealed squares, 1
+	 * for known mines.
+	 */
+	public double get(int row, int col) {
+		return values[row * grid.getColumnCount() + col];
+	}
+
+	/**
+	 * Gets the probability shared by every unknown square not next to a hint.
+	 */
+	public double getInteriorProbability() {
+		return interior;
+	}
+
+	/**
+	 * Indicates every component was enumerated within the time budget, so the
+	 * probabilities are exact.
+	 */
+	public boolean isExact() {
+		return exact;
+	}
+}
@@ -0,0 +1,327 @@
+package sfranson.minesweeper.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+import sfranson.minesweeper.MineSweeperException;
+
+/**
+ * Calculates the probability that each unknown square of a partially revealed
+ * board is a mine, given the total number of mines.
+ *
+ * <p>
+ * The {@link Solver} first settles every square it can. What remains of each
+ * {@link Frontier} component is enumerated independently, in parallel on a
+ * {@link ForkJoinPool}, counting layouts by number of mines. The components
+ * are then combined, weighting every total by the number of ways the remaining
+ * mines can be spread over the unconstrained interior squares.
+ * </p>
+ *
+ * <p>
+ * Enumeration stops once the time budget is spent. Components that did not
+ * finish fall back to an estimate from their constraints' densities, and the
+ * result reports itself as not {@link Probabilities#isExact() exact}.
+ * </p>
+ */
+public class ProbabilityEngine {
+
+	/**
+	 * Relative number of ways to place <code>m</code> mines among the interior
+	 * squares, for every <code>m</code> that may occur, scaled so the largest is
+	 * 1.
+	 */
+	private static final class InteriorWeights {
+
+		private final int low;
+
+		private final double[] values;
+
+		/**
+		 * @param interior
+		 *            number of interior squares.
+		 * @param remaining
+		 *            mines left for the frontier and interior together.
+		 * @param spread
+		 *            number of distinct frontier mine counts.
+		 */
+		InteriorWeights(int interior, int remaining, int spread) {
+			low = Math.max(0, remaining - spread);
+			int high = Math.min(interior, remaining);
+			values = new double[Math.max(0, high - low + 1)];
+			double max = Double.NEGATIVE_INFINITY;
+			for (int m = low; m <= high; m++) {
+				values[m - low] = logChoose(interior, m);
+				max = Math.max(max, values[m - low]);
+			}
+			for (int i = 0; i < values.length; i++) {
+				values[i] = Math.exp(values[i] - max);
+			}
+		}
+
+		/**
+		 * Gets the weight of <code>m</code> interior mines, 0 if impossible.
+		 */
+		double get(int m) {
+			int idx = m - low;
+			return idx >= 0 && idx < values.length ? values[idx] : 0;
+		}
+	}
+
+	/**
+	 * Default time budget for enumeration, in milliseconds.
+	 */
+	public static final long DEFAULT_BUDGET_MILLIS = 1000;
+
+	private long budgetNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_BUDGET_MILLIS);
+
+	private final ForkJoinPool pool;
+
+	private final Solver solver = new Solver();
+
+	/**
+	 * Creates an engine running on the common pool.
+	 */
+	public ProbabilityEngine() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates an engine running component enumerations on the given pool.
+	 *
+	 * @param pool
+	 *            pool enumerating components in parallel.
+	 */
+	public ProbabilityEngine(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Calculates mine probabilities for every square.
+	 *
+	 * @param grid
+	 *            partially revealed board.
+	 * @param totalMines
+	 *            number of mines on the whole board, including known ones.
+	 * @return the probabilities.
+	 * @throws MineSweeperException
+	 *             if no layout satisfies the hints and the mine total.
+	 */
+	public Probabilities calculate(HintGrid grid, int totalMines) {
+		long deadline = System.nanoTime() + budgetNanos;
+		int cols = grid.getColumnCount();
+		Frontier frontier = new Frontier(grid);
+		byte[] states = new byte[grid.getRowCount() * cols];
+
+		List<ForkJoinTask<ComponentEnumeration>> tasks = new ArrayList<>();
+		for (Frontier.Component component : frontier.getComponents()) {
+			tasks.add(pool.submit(() -> enumerate(component, states, cols, deadline)));
+		}
+		List<ComponentEnumeration> enumerations = new ArrayList<>(tasks.size());
+		boolean exact = true;
+		for (ForkJoinTask<ComponentEnumeration> task : tasks) {
+			ComponentEnumeration enumeration = join(task);
+			exact &= !enumeration.estimated;
+			enumerations.add(enumeration);
+		}
+
+		int remaining = totalMines - frontier.getKnownMines();
+		for (byte state : states) {
+			if (state == Solution.MINE) {
+				remaining--;
+			}
+		}
+		return combine(grid, frontier, states, enumerations, remaining, exact);
+	}
+
+	private Probabilities combine(HintGrid grid, Frontier frontier, byte[] states,
+			List<ComponentEnumeration> enumerations, int remaining, boolean exact) {
+		int interior = frontier.getInteriorCount();
+		int count = enumerations.size();
+
+		// prefix[i] convolves components before i, suffix[i] those from i on
+		double[][] prefix = new double[count + 1][];
+		double[][] suffix = new double[count + 1][];
+		prefix[0] = new double[] { 1 };
+		suffix[count] = new double[] { 1 };
+		for (int i = 0; i < count; i++) {
+			prefix[i + 1] = convolve(prefix[i], enumerations.get(i).ways);
+			suffix[count - 1 - i] = convolve(enumerations.get(count - 1 - i).ways, suffix[count - i]);
+		}
+		double[] all = prefix[count];
+		InteriorWeights weights = new InteriorWeights(interior, remaining, all.length);
+
+		double total = 0;
+		double interiorMines = 0;
+		for (int m = 0; m < all.length; m++) {
+			double w = all[m] * weights.get(remaining - m);
+			total += w;
+			if (interior > 0) {
+				interiorMines += w * (remaining - m) / interior;
+			}
+		}
+		if (!(total > 0)) {
+			throw new MineSweeperException("Inconsistent hints.  No mine layout matches the hints and mine total.");
+		}
+
+		double[] values = new double[states.length];
+		int cols = grid.getColumnCount();
+		for (int square = 0; square < values.length; square++) {
+			byte value = grid.get(square / cols, square % cols);
+			if (value == HintGrid.MINE || states[square] == Solution.MINE) {
+				values[square] = 1;
+			} else if (value == HintGrid.UNKNOWN && states[square] == Solution.UNDETERMINED) {
+				values[square] = interiorMines / total;
+			}
+		}
+		for (int i = 0; i < count; i++) {
+			ComponentEnumeration enumeration = enumerations.get(i);
+			double[] rest = convolve(prefix[i], suffix[i + 1]);
+			for (int v = 0; v < enumeration.squares.length; v++) {
+				double mine = 0;
+				for (int k = 0; k < enumeration.mineWays.length; k++) {
+					double layouts = enumeration.mineWays[k][v];
+					if (layouts == 0) {
+						continue;
+					}
+					for (int r = 0; r < rest.length; r++) {
+						mine += layouts * rest[r] * weights.get(remaining - k - r);
+					}
+				}
+				values[enumeration.squares[v]] = mine / total;
+			}
+		}
+		return new Probabilities(grid, values, interiorMines / total, exact);
+	}
+
+	private static double[] convolve(double[] a, double[] b) {
+		double[] result = new double[a.length + b.length - 1];
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] == 0) {
+				continue;
+			}
+			for (int j = 0; j < b.length; j++) {
+				result[i + j] += a[i] * b[j];
+			}
+		}
+		return result;
+	}
+
+	private ComponentEnumeration enumerate(Frontier.Component component, byte[] states, int cols, long deadline) {
+		solver.propagate(component, states, cols);
+
+		List<Constraint> reduced = new ArrayList<>();
+		for (Constraint constraint : component.constraints) {
+			Constraint remaining = Solver.reduce(constraint, states, cols);
+			if (remaining.mask != 0) {
+				reduced.add(remaining);
+			}
+		}
+		int undetermined = 0;
+		for (int square : component.squares) {
+			if (states[square] == Solution.UNDETERMINED) {
+				undetermined++;
+			}
+		}
+		int[] squares = new int[undetermined];
+		int idx = 0;
+		for (int square : component.squares) {
+			if (states[square] == Solution.UNDETERMINED) {
+				squares[idx++] = square;
+			}
+		}
+
+		ComponentEnumeration enumeration = new ComponentEnumeration(squares, reduced, cols, deadline);
+		try {
+			return enumeration.enumerate();
+		} catch (ComponentEnumeration.BudgetExceeded e) {
+			return estimate(enumeration, reduced, cols);
+		}
+	}
+
+	/**
+	 * Approximates a component that could not be enumerated in time: every
+	 * square gets the mean density of its constraints, and the component's mine
+	 * count is fixed at the rounded sum of those densities.
+	 */
+	private static ComponentEnumeration estimate(ComponentEnumeration enumeration, List<Constraint> constraints,
+			int cols) {
+		int n = enumeration.squares.length;
+		double[] density = new double[n];
+		int[] seen = new int[n];
+		for (Constraint constraint : constraints) {
+			for (int bit = 0; bit < 9; bit++) {
+				if ((constraint.mask & (1 << bit)) != 0) {
+					int square = (constraint.row + bit / 3) * cols + constraint.col + bit % 3;
+					int v = Arrays.binarySearch(enumeration.squares, square);
+					density[v] += (double) constraint.mines / constraint.size();
+					seen[v]++;
+				}
+			}
+		}
+		double expected = 0;
+		for (int v = 0; v < n; v++) {
+			density[v] /= Math.max(seen[v], 1);
+			expected += density[v];
+		}
+		int mines = (int) Math.round(expected);
+		enumeration.ways = new double[n + 1];
+		enumeration.ways[mines] = 1;
+		enumeration.mineWays = new double[n + 1][];
+		for (int k = 0; k <= n; k++) {
+			enumeration.mineWays[k] = new double[n];
+		}
+		for (int v = 0; v < n; v++) {
+			enumeration.mineWays[mines][v] = expected > 0 ? density[v] * mines / expected : 0;
+		}
+		enumeration.estimated = true;
+		return enumeration;
+	}
+
+	private static <T> T join(ForkJoinTask<T> task) {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MineSweeperException("Interrupted while calculating probabilities.");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof MineSweeperException) {
+				throw (MineSweeperException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private static double logChoose(int n, int k) {
+		return logFactorial(n) - logFactorial(k) - logFactorial(n - k);
+	}
+
+	static double logFactorial(int n) {
+		if (n < 32) {
+			double result = 0;
+			for (int i = 2; i <= n; i++) {
+				result += Math.log(i);
+			}
+			return result;
+		}
+		// Stirling series
+		double x = n;
+		return x * Math.log(x) - x + 0.5 * Math.log(2 * Math.PI * x) + 1 / (12 * x) - 1 / (360 * x * x * x);
+	}
+
+	/**
+	 * Sets the time budget for enumeration.
+	 *
+	 * @param millis
+	 *            milliseconds after which unfinished components are estimated.
+	 * @return engine instance useful for method chaining.
+	 */
+	public ProbabilityEngine withBudget(long millis) {
+		this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+		return this;
+	}
+}
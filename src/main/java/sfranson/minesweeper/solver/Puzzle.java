@@ -0,0 +1,34 @@
+package sfranson.minesweeper.solver;
+
+import sfranson.minesweeper.MineMap;
+
+/**
+ * Generated partially revealed board, along with its actual mines.
+ *
+ * @see PuzzleGenerator
+ */
+public class Puzzle {
+
+	private final HintGrid grid;
+
+	private final MineMap mines;
+
+	Puzzle(HintGrid grid, MineMap mines) {
+		this.grid = grid;
+		this.mines = mines;
+	}
+
+	/**
+	 * Gets the board as seen by the player.
+	 */
+	public HintGrid getGrid() {
+		return grid;
+	}
+
+	/**
+	 * Gets the actual mines, e.g. to check deductions.
+	 */
+	public MineMap getMines() {
+		return mines;
+	}
+}
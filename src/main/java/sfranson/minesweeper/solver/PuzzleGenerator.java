@@ -0,0 +1,90 @@
+package sfranson.minesweeper.solver;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+import sfranson.minesweeper.Board;
+import sfranson.minesweeper.HintQuery;
+
+/**
+ * Generates random puzzles the way a game starts: mines are placed away from
+ * a first click in the middle of the board, whose opening is then revealed.
+ */
+public class PuzzleGenerator {
+
+	private final Random random;
+
+	/**
+	 * Creates a generator with a fixed seed, so puzzles are reproducible.
+	 *
+	 * @param seed
+	 *            random seed.
+	 */
+	public PuzzleGenerator(long seed) {
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Generates a puzzle.
+	 *
+	 * @param rows
+	 *            number of rows.
+	 * @param columns
+	 *            number of columns.
+	 * @param mines
+	 *            number of mines, at most <code>rows * columns - 9</code>.
+	 */
+	public Puzzle generate(int rows, int columns, int mines) {
+		int startRow = rows / 2;
+		int startCol = columns / 2;
+
+		char[][] layout = new char[rows][columns];
+		int[] candidates = new int[rows * columns];
+		int candidateCount = 0;
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < columns; col++) {
+				layout[row][col] = '.';
+				if (Math.abs(row - startRow) > 1 || Math.abs(col - startCol) > 1) {
+					candidates[candidateCount++] = row * columns + col;
+				}
+			}
+		}
+		for (int placed = 0; placed < Math.min(mines, candidateCount); placed++) {
+			int pick = placed + random.nextInt(candidateCount - placed);
+			int square = candidates[pick];
+			candidates[pick] = candidates[placed];
+			layout[square / columns][square % columns] = '*';
+		}
+
+		Board board = new Board("puzzle", rows, columns);
+		for (char[] row : layout) {
+			board.withRow(new String(row));
+		}
+		HintQuery hints = board.query();
+
+		HintGrid grid = new HintGrid(rows, columns);
+		Deque<int[]> open = new ArrayDeque<>();
+		open.push(new int[] { startRow, startCol });
+		while (!open.isEmpty()) {
+			int[] square = open.pop();
+			int row = square[0];
+			int col = square[1];
+			if (grid.isRevealed(row, col)) {
+				continue;
+			}
+			int hint = hints.hint(row, col);
+			grid.set(row, col, (byte) hint);
+			if (hint == 0) {
+				for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+					for (int c = Math.max(0, col - 1); c <= Math.min(columns - 1, col + 1); c++) {
+						if (!grid.isRevealed(r, c)) {
+							open.push(new int[] { r, c });
+						}
+					}
+				}
+			}
+		}
+		return new Puzzle(grid, board.mines());
+	}
+}
@@ -0,0 +1,111 @@
+package sfranson.minesweeper.solver;
+
+/**
+ * Deductions about the unknown squares of a {@link HintGrid}.
+ *
+ * @see Solver#solve(HintGrid)
+ */
+public class Solution {
+
+	/**
+	 * State of a square deduced to be a mine.
+	 */
+	static final byte MINE = 2;
+
+	/**
+	 * State of a square deduced to be safe.
+	 */
+	static final byte SAFE = 1;
+
+	/**
+	 * State of a square nothing certain is known about.
+	 */
+	static final byte UNDETERMINED = 0;
+
+	private final Frontier frontier;
+
+	private int mineCount;
+
+	private int safeCount;
+
+	/**
+	 * Deduced state of every square, row by row.
+	 */
+	private final byte[] states;
+
+	Solution(Frontier frontier, byte[] states) {
+		this.frontier = frontier;
+		this.states = states;
+		for (byte state : states) {
+			if (state == MINE) {
+				mineCount++;
+			} else if (state == SAFE) {
+				safeCount++;
+			}
+		}
+	}
+
+	/**
+	 * Gets the frontier the deductions were made on.
+	 */
+	public Frontier getFrontier() {
+		return frontier;
+	}
+
+	/**
+	 * Gets the number of unknown squares deduced to be mines.
+	 */
+	public int getMineCount() {
+		return mineCount;
+	}
+
+	/**
+	 * Gets the number of unknown squares deduced to be safe.
+	 */
+	public int getSafeCount() {
+		return safeCount;
+	}
+
+	/**
+	 * Indicates the square is known to be a mine, either from the grid or by
+	 * deduction.
+	 */
+	public boolean isMine(int row, int col) {
+		return frontier.getGrid().get(row, col) == HintGrid.MINE || state(row, col) == MINE;
+	}
+
+	/**
+	 * Indicates the square is known to be safe, either revealed or by deduction.
+	 */
+	public boolean isSafe(int row, int col) {
+		return frontier.getGrid().isRevealed(row, col) || state(row, col) == SAFE;
+	}
+
+	private byte state(int row, int col) {
+		return states[row * frontier.getGrid().getColumnCount() + col];
+	}
+
+	/**
+	 * Prints the grid, showing deduced mines as <b>*</b> and deduced safe squares
+	 * as <b>.</b>.
+	 */
+	@Override
+	public String toString() {
+		HintGrid grid = frontier.getGrid();
+		StringBuilder b = new StringBuilder();
+		for (int row = 0; row < grid.getRowCount(); row++) {
+			for (int col = 0; col < grid.getColumnCount(); col++) {
+				byte value = grid.get(row, col);
+				if (value >= 0) {
+					b.append((char) ('0' + value));
+				} else if (isMine(row, col)) {
+					b.append('*');
+				} else {
+					b.append(isSafe(row, col) ? '.' : '?');
+				}
+			}
+			b.append('\n');
+		}
+		return b.toString();
+	}
+}
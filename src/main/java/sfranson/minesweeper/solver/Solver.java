@@ -0,0 +1,136 @@
+package sfranson.minesweeper.solver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import sfranson.minesweeper.MineSweeperException;
+
+/**
+ * Deduces which unknown squares of a partially revealed board are certainly
+ * mines and which are certainly safe.
+ *
+ * <p>
+ * Each revealed hint constrains the number of mines among its unknown
+ * neighbours. The solver repeatedly applies two rules until nothing changes:
+ * </p>
+ * <ul>
+ * <li>a constraint with no mines left marks all its squares safe, and one with
+ * as many mines as squares marks them all mines;</li>
+ * <li>when the squares of one constraint are a subset of another's, the
+ * remaining squares of the larger one hold the difference in mines.</li>
+ * </ul>
+ *
+ * <p>
+ * Components of the {@link Frontier} are solved independently, and subset
+ * candidates are only looked up among constraints sharing a square, so the
+ * work stays close to linear in the size of the frontier.
+ * </p>
+ */
+public class Solver {
+
+	private static void mark(Constraint constraint, byte state, byte[] states, int cols) {
+		for (int bit = 0; bit < 9; bit++) {
+			if ((constraint.mask & (1 << bit)) != 0) {
+				states[(constraint.row + bit / 3) * cols + constraint.col + bit % 3] = state;
+			}
+		}
+	}
+
+	/**
+	 * Solves one component, recording deductions in <code>states</code>.
+	 */
+	void propagate(Frontier.Component component, byte[] states, int cols) {
+		Set<Constraint> active = new LinkedHashSet<>(component.constraints);
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+
+			Set<Constraint> reduced = new LinkedHashSet<>();
+			for (Constraint constraint : active) {
+				Constraint remaining = reduce(constraint, states, cols);
+				if (remaining.mines < 0 || remaining.mines > remaining.size()) {
+					throw new MineSweeperException("Inconsistent hints.  No mine layout satisfies every hint.");
+				}
+				if (remaining.mask != 0) {
+					reduced.add(remaining);
+				}
+			}
+			active = reduced;
+
+			for (Constraint constraint : active) {
+				if (constraint.mines == 0) {
+					mark(constraint, Solution.SAFE, states, cols);
+					changed = true;
+				} else if (constraint.mines == constraint.size()) {
+					mark(constraint, Solution.MINE, states, cols);
+					changed = true;
+				}
+			}
+			if (changed) {
+				continue;
+			}
+
+			Map<Integer, List<Constraint>> bySquare = new HashMap<>();
+			for (Constraint constraint : active) {
+				for (int bit = 0; bit < 9; bit++) {
+					if ((constraint.mask & (1 << bit)) != 0) {
+						int square = (constraint.row + bit / 3) * cols + constraint.col + bit % 3;
+						bySquare.computeIfAbsent(square, s -> new ArrayList<>(4)).add(constraint);
+					}
+				}
+			}
+			List<Constraint> derived = new ArrayList<>();
+			for (Constraint subset : active) {
+				int first = subset.firstRow() * cols + subset.firstColumn();
+				for (Constraint superset : bySquare.get(first)) {
+					if (subset.size() < superset.size() && subset.isSubsetOf(superset)) {
+						Constraint difference = superset.minus(subset);
+						if (!active.contains(difference)) {
+							derived.add(difference);
+						}
+					}
+				}
+			}
+			changed = active.addAll(derived);
+		}
+	}
+
+	static Constraint reduce(Constraint constraint, byte[] states, int cols) {
+		int mask = constraint.mask;
+		int mines = constraint.mines;
+		for (int bit = 0; bit < 9; bit++) {
+			if ((mask & (1 << bit)) != 0) {
+				byte state = states[(constraint.row + bit / 3) * cols + constraint.col + bit % 3];
+				if (state != Solution.UNDETERMINED) {
+					mask &= ~(1 << bit);
+					if (state == Solution.MINE) {
+						mines--;
+					}
+				}
+			}
+		}
+		return mask == constraint.mask ? constraint : new Constraint(constraint.row, constraint.col, mask, mines);
+	}
+
+	/**
+	 * Deduces what can be known for certain about the unknown squares.
+	 *
+	 * @param grid
+	 *            partially revealed board.
+	 * @return the deductions.
+	 * @throws MineSweeperException
+	 *             if the hints contradict each other.
+	 */
+	public Solution solve(HintGrid grid) {
+		Frontier frontier = new Frontier(grid);
+		byte[] states = new byte[grid.getRowCount() * grid.getColumnCount()];
+		for (Frontier.Component component : frontier.getComponents()) {
+			propagate(component, states, grid.getColumnCount());
+		}
+		return new Solution(frontier, states);
+	}
+}
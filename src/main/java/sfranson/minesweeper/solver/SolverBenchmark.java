@@ -0,0 +1,72 @@
+package sfranson.minesweeper.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the {@link Solver} on sets of generated puzzles and checks every
+ * deduction against the actual mines.
+ *
+ * <ul>
+ * Arguments:
+ * <li>0 (optional) - number of puzzles per set, 200 by default.</li>
+ * </ul>
+ */
+public class SolverBenchmark {
+
+	/**
+	 * Puzzle sets as rows, columns and mines.
+	 */
+	private static final int[][] SETS = { { 9, 9, 10 }, { 16, 16, 40 }, { 16, 30, 99 }, { 256, 256, 9830 },
+			{ 1024, 1024, 157286 } };
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		Solver solver = new Solver();
+		for (int[] set : SETS) {
+			int puzzles = set[0] * set[1] > 100_000 ? Math.max(1, count / 50) : count;
+			List<Puzzle> generated = new ArrayList<>(puzzles);
+			PuzzleGenerator generator = new PuzzleGenerator(set[0] * 31L + set[2]);
+			for (int i = 0; i < puzzles; i++) {
+				generated.add(generator.generate(set[0], set[1], set[2]));
+			}
+			// warm up
+			for (Puzzle puzzle : generated) {
+				solver.solve(puzzle.getGrid());
+			}
+
+			long deduced = 0;
+			long frontier = 0;
+			long errors = 0;
+			long start = System.nanoTime();
+			for (Puzzle puzzle : generated) {
+				Solution solution = solver.solve(puzzle.getGrid());
+				deduced += solution.getMineCount() + solution.getSafeCount();
+				frontier += solution.getFrontier().size();
+				errors += errors(puzzle, solution);
+			}
+			long elapsed = System.nanoTime() - start;
+
+			System.out.printf("%dx%d/%d: %d puzzles, %.3f ms/puzzle, %d of %d frontier squares deduced, %d errors%n",
+					set[0], set[1], set[2], puzzles, TimeUnit.NANOSECONDS.toMicros(elapsed) / 1000.0 / puzzles,
+					deduced, frontier, errors);
+		}
+	}
+
+	/**
+	 * Counts deductions contradicted by the actual mines.
+	 */
+	static int errors(Puzzle puzzle, Solution solution) {
+		int errors = 0;
+		for (int row = 0; row < puzzle.getGrid().getRowCount(); row++) {
+			for (int col = 0; col < puzzle.getGrid().getColumnCount(); col++) {
+				boolean mine = puzzle.getMines().isMine(row, col);
+				if ((solution.isMine(row, col) && !mine) || (solution.isSafe(row, col) && mine)) {
+					errors++;
+				}
+			}
+		}
+		return errors;
+	}
+}
@@ -0,0 +1,43 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AtomicFilesTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void publishCreatesTarget() throws Exception {
+		Path temp = folder.getRoot().toPath().resolve("out.tmp");
+		Path target = folder.getRoot().toPath().resolve("out");
+		Files.write(temp, "new".getBytes(StandardCharsets.US_ASCII));
+
+		AtomicFiles.publish(temp, target);
+
+		assertThat(new String(Files.readAllBytes(target), StandardCharsets.US_ASCII), equalTo("new"));
+		assertThat(Files.exists(temp), equalTo(false));
+	}
+
+	@Test
+	public void publishReplacesTarget() throws Exception {
+		Path temp = folder.getRoot().toPath().resolve("out.tmp");
+		Path target = folder.getRoot().toPath().resolve("out");
+		Files.write(target, "old".getBytes(StandardCharsets.US_ASCII));
+		Files.write(temp, "new".getBytes(StandardCharsets.US_ASCII));
+
+		AtomicFiles.publish(temp, target);
+
+		assertThat(new String(Files.readAllBytes(target), StandardCharsets.US_ASCII), equalTo("new"));
+		assertThat(Files.exists(temp), equalTo(false));
+	}
+}
@@ -0,0 +1,65 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import java.util.BitSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class BitMineMapTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void copyRowSpansWords() {
+		BitSet bits = new BitSet();
+		bits.set(62);
+		bits.set(64);
+		BitMineMap instance = new BitMineMap(bits.toLongArray(), 3, 30);
+		byte[] row = new byte[32];
+
+		instance.copyRow(2, row, 1);
+
+		assertThat(row[1 + 2], equalTo((byte) 1));
+		assertThat(row[1 + 4], equalTo((byte) 1));
+		assertThat(row[1 + 3], equalTo((byte) 0));
+	}
+
+	@Test
+	public void isMineFollowsBitSetLayout() {
+		BitSet bits = new BitSet();
+		bits.set(1 * 7 + 3);
+		bits.set(9 * 7 + 6);
+		BitMineMap instance = new BitMineMap(bits.toLongArray(), 10, 7);
+
+		assertThat(instance.isMine(1, 3), equalTo(true));
+		assertThat(instance.isMine(9, 6), equalTo(true));
+		assertThat(instance.isMine(1, 4), equalTo(false));
+	}
+
+	@Test
+	public void missingTrailingWordsAreSafe() {
+		BitMineMap instance = new BitMineMap(new long[] { 1 }, 10, 20);
+		byte[] row = new byte[20];
+
+		instance.copyRow(9, row, 0);
+
+		assertThat(instance.isMine(0, 0), equalTo(true));
+		assertThat(instance.isMine(9, 19), equalTo(false));
+		assertArrayEquals(new byte[20], row);
+	}
+
+	@Test
+	public void throwsOnExtraWords() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("Invalid mine map"));
+
+		new BitMineMap(new long[2], 8, 8);
+	}
+}
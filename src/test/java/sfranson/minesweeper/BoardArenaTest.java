@@ -0,0 +1,74 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BoardArenaTest {
+
+	private BoardArena instance;
+
+	private static String print(Board board) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		board.print(out);
+		return out.toString();
+	}
+
+	@Test
+	public void boardClearsModifiers() {
+		instance.board("1", 3, 2).rowsAsColumns().withRadius(2).withMineCountIndex().withRows("*..", "...").close();
+
+		Board board = instance.board("2", 2, 3).withRows("*..", "...");
+
+		assertThat(board.usingRowsAsColumns(), equalTo(false));
+		assertThat(print(board), equalTo(print(new Board("2", 2, 3).withRows("*..", "..."))));
+		assertThat(board.getMineCountIndex() == null, equalTo(true));
+	}
+
+	@Test
+	public void boardMatchesFreshBoards() {
+		String[][] boards = { { "*...", "....", ".*..", "...." }, { "**", ".." }, { "*.*..", ".....", "..*..", "*...*" },
+				{ "." } };
+		for (int i = 0; i < boards.length; i++) {
+			String[] rows = boards[i];
+			String id = Integer.toString(i + 1);
+			Board reused = instance.board(id, rows.length, rows[0].length()).withRows(rows);
+
+			assertThat(print(reused), equalTo(print(new Board(id, rows.length, rows[0].length()).withRows(rows))));
+			assertThat(reused.getMineCount(), equalTo(new Board(id, rows.length, rows[0].length()).withRows(rows).getMineCount()));
+		}
+		assertThat(instance.getCapacity(), equalTo(20L));
+		assertThat(instance.getReuses(), equalTo(3L));
+	}
+
+	@Test
+	public void boardNumberedPrintsHeader() {
+		instance.board("wide", 1, 3).withRows("*..").close();
+
+		Board board = instance.board(1207, 1, 2).withRows("*.");
+
+		assertThat(print(board), equalTo(print(new Board("1207", 1, 2).withRows("*."))));
+		assertThat(board.headerSize(), equalTo(("Mine Field #1207:" + System.lineSeparator()).length()));
+		assertThat(board.getNumber(), equalTo(1207));
+		assertThat(board.getId(), equalTo("1207"));
+	}
+
+	@Test
+	public void boardReusesInstance() {
+		Board first = instance.board("1", 2, 2);
+
+		assertThat(instance.board("2", 3, 3), sameInstance(first));
+		assertThat(first.getId(), equalTo("2"));
+		assertThat(first.getRowCount(), equalTo(3));
+	}
+
+	@Before
+	public void setup() {
+		instance = new BoardArena();
+	}
+}
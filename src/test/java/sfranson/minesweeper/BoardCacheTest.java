@@ -0,0 +1,115 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class BoardCacheTest {
+
+	private BoardCache instance;
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void acceptsWithinCapacity() {
+		assertThat(instance.accepts(10), equalTo(true));
+		assertThat(instance.accepts(1024), equalTo(false));
+	}
+
+	@Test
+	public void countsHitsAndMisses() {
+		BoardKey key = key(1);
+		instance.get(key);
+		instance.put(key, new byte[10]);
+		instance.get(key);
+		instance.get(key);
+
+		assertThat(instance.getHits(), equalTo(2L));
+		assertThat(instance.getMisses(), equalTo(1L));
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() {
+		instance.put(key(1), new byte[100]);
+		instance.put(key(2), new byte[100]);
+		instance.get(key(1));
+		instance.put(key(3), new byte[100]);
+
+		assertThat(instance.get(key(2)), nullValue());
+		assertThat(instance.get(key(1)).length, equalTo(100));
+		assertThat(instance.get(key(3)).length, equalTo(100));
+		assertThat(instance.getEvictions(), equalTo(1L));
+	}
+
+	@Test
+	public void ignoresOversizedEntries() {
+		instance.put(key(1), new byte[1024]);
+
+		assertThat(instance.get(key(1)), nullValue());
+		assertThat(instance.getSize(), equalTo(0L));
+	}
+
+	private static BoardKey key(int value) {
+		return new BoardKey(new byte[] { (byte) value });
+	}
+
+	@Test
+	public void replacingEntryKeepsSize() {
+		instance.put(key(1), new byte[100]);
+		long size = instance.getSize();
+		instance.put(key(1), new byte[100]);
+
+		assertThat(instance.getSize(), equalTo(size));
+	}
+
+	@Test
+	public void sharedByThreadsStaysWithinCapacity() throws Exception {
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			int offset = t;
+			threads.add(Thread.ofPlatform().start(() -> {
+				for (int i = 0; i < 10000; i++) {
+					BoardKey key = key((i + offset) % 7);
+					if (instance.get(key) == null) {
+						instance.put(key, new byte[100]);
+					}
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertTrue(instance.getSize() <= instance.getCapacity());
+		assertThat(instance.getHits() + instance.getMisses(), equalTo(40000L));
+	}
+
+	@Before
+	public void setup() {
+		instance = new BoardCache(2 * (100 + 1 + BoardCache.ENTRY_OVERHEAD) + 50);
+	}
+
+	@Test
+	public void throwsOnNegativeCapacity() {
+		thrown.expect(IllegalArgumentException.class);
+		new BoardCache(-1);
+	}
+
+	@Test
+	public void zeroCapacityStoresNothing() {
+		instance = new BoardCache(0);
+		instance.put(key(1), new byte[0]);
+
+		assertThat(instance.get(key(1)), nullValue());
+	}
+}
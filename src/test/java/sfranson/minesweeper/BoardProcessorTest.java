@@ -0,0 +1,284 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class BoardProcessorTest {
+
+	/**
+	 * Subscriber collecting what it receives, requesting a given number of items
+	 * up front.
+	 */
+	static final class Sink<T> implements Flow.Subscriber<T> {
+
+		final CountDownLatch done = new CountDownLatch(1);
+
+		volatile boolean completed;
+
+		volatile Throwable error;
+
+		final List<T> items = new ArrayList<>();
+
+		private final long initial;
+
+		Flow.Subscription subscription;
+
+		Sink(long initial) {
+			this.initial = initial;
+		}
+
+		@Override
+		public void onComplete() {
+			completed = true;
+			done.countDown();
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			error = throwable;
+			done.countDown();
+		}
+
+		@Override
+		public synchronized void onNext(T item) {
+			items.add(item);
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			if (initial > 0) {
+				subscription.request(initial);
+			}
+		}
+	}
+
+	/**
+	 * Publisher delivering a list synchronously, counting what was requested.
+	 */
+	static final class Source<T> implements Flow.Publisher<T> {
+
+		volatile boolean cancelled;
+
+		int delivered;
+
+		private final List<T> items;
+
+		long requested;
+
+		Source(List<T> items) {
+			this.items = items;
+		}
+
+		@Override
+		public void subscribe(Flow.Subscriber<? super T> subscriber) {
+			subscriber.onSubscribe(new Flow.Subscription() {
+
+				@Override
+				public void cancel() {
+					cancelled = true;
+				}
+
+				@Override
+				public void request(long n) {
+					requested += n;
+					while (!cancelled && delivered < requested && delivered < items.size()) {
+						subscriber.onNext(items.get(delivered++));
+					}
+					if (!cancelled && delivered == items.size()) {
+						cancelled = true;
+						subscriber.onComplete();
+					}
+				}
+			});
+		}
+	}
+
+	private static String concat(List<byte[]> boards) {
+		StringBuilder out = new StringBuilder();
+		for (byte[] board : boards) {
+			out.append(new String(board, StandardCharsets.US_ASCII));
+		}
+		return out.toString();
+	}
+
+	@Test
+	public void cancelStopsSource() {
+		Source<String> source = new Source<>(lines(RandomBoards.definitions(6, 10) + "0 0\n"));
+		Sink<byte[]> sink = new Sink<>(1);
+		BoardProcessor processor = new BoardProcessor();
+		source.subscribe(processor);
+		processor.subscribe(sink);
+
+		sink.subscription.cancel();
+		sink.subscription.request(5);
+
+		assertThat(source.cancelled, equalTo(true));
+		assertThat(sink.items.size(), equalTo(1));
+		assertThat(sink.completed, equalTo(false));
+	}
+
+	@Test
+	public void demandTravelsToSource() {
+		String input = "2 2\n*.\n..\n1 3\n.*.\n0 0\n";
+		Source<String> source = new Source<>(lines(input));
+		Sink<byte[]> sink = new Sink<>(1);
+		BoardProcessor processor = new BoardProcessor();
+		source.subscribe(processor);
+		processor.subscribe(sink);
+
+		// the first board is complete at the second header
+		assertThat(source.delivered, equalTo(4));
+		assertThat(concat(sink.items), equalTo("Mine Field #1:\n*1\n11\n\n"));
+
+		sink.subscription.request(1);
+
+		assertThat(source.delivered, equalTo(6));
+		assertThat(concat(sink.items), equalTo(sequential(input, false)));
+		assertThat(sink.completed, equalTo(true));
+	}
+
+	@Test
+	public void endOfInputCancelsSource() {
+		Source<String> source = new Source<>(lines(RandomBoards.definitions(7, 3) + "0 0\nnot a board\n"));
+		Sink<byte[]> sink = new Sink<>(Long.MAX_VALUE);
+		BoardProcessor processor = new BoardProcessor();
+		source.subscribe(processor);
+		processor.subscribe(sink);
+
+		assertThat(sink.items.size(), equalTo(3));
+		assertThat(sink.completed, equalTo(true));
+		assertThat(source.cancelled, equalTo(true));
+		assertThat(source.delivered, equalTo(source.items.size() - 1));
+	}
+
+	@Test
+	public void invalidInputSignalsError() {
+		Source<String> source = new Source<>(lines("1 2\n.x\n0 0\n"));
+		Sink<byte[]> sink = new Sink<>(Long.MAX_VALUE);
+		BoardProcessor processor = new BoardProcessor();
+		source.subscribe(processor);
+		processor.subscribe(sink);
+
+		assertThat(sink.error, instanceOf(MineSweeperException.class));
+		assertThat(source.cancelled, equalTo(true));
+	}
+
+	static List<String> lines(String input) {
+		return Arrays.asList(input.split("\n"));
+	}
+
+	@Test
+	public void matchesSequential() {
+		String input = RandomBoards.definitions(1, 100) + "0 0\n";
+		Sink<byte[]> sink = new Sink<>(Long.MAX_VALUE);
+		BoardProcessor processor = new BoardProcessor();
+		new Source<>(lines(input)).subscribe(processor);
+		processor.subscribe(sink);
+
+		assertThat(concat(sink.items), equalTo(sequential(input, false)));
+		assertThat(sink.completed, equalTo(true));
+		assertThat(processor.getMetrics().getBoards(), equalTo(100L));
+	}
+
+	@Test
+	public void matchesSequentialForColumns() {
+		String input = RandomBoards.definitions(2, 30) + "0 0\n";
+		Sink<byte[]> sink = new Sink<>(Long.MAX_VALUE);
+		BoardProcessor processor = new BoardProcessor().withColumns();
+		new Source<>(lines(input)).subscribe(processor);
+		processor.subscribe(sink);
+
+		assertThat(concat(sink.items), equalTo(sequential(input, true)));
+	}
+
+	@Test
+	public void matchesSequentialWithoutEndOfInput() {
+		String input = RandomBoards.definitions(3, 20);
+		Sink<byte[]> sink = new Sink<>(Long.MAX_VALUE);
+		BoardProcessor processor = new BoardProcessor();
+		new Source<>(lines(input)).subscribe(processor);
+		processor.subscribe(sink);
+
+		assertThat(concat(sink.items), equalTo(sequential(input, false)));
+		assertThat(sink.items.size(), equalTo(19));
+		assertThat(sink.completed, equalTo(true));
+	}
+
+	@Test
+	public void nonPositiveRequestSignalsError() {
+		Source<String> source = new Source<>(lines(RandomBoards.definitions(4, 3)));
+		Sink<byte[]> sink = new Sink<>(0);
+		BoardProcessor processor = new BoardProcessor();
+		source.subscribe(processor);
+		processor.subscribe(sink);
+
+		sink.subscription.request(0);
+
+		assertThat(sink.error, instanceOf(IllegalArgumentException.class));
+		assertThat(source.cancelled, equalTo(true));
+	}
+
+	@Test
+	public void rowsBeforeHeaderSignalError() {
+		Sink<byte[]> sink = new Sink<>(1);
+		BoardProcessor processor = new BoardProcessor();
+		new Source<>(lines("..\n1 2\n..\n")).subscribe(processor);
+		processor.subscribe(sink);
+
+		assertThat(sink.error, instanceOf(MineSweeperException.class));
+	}
+
+	@Test
+	public void secondSubscriberIsRejected() {
+		BoardProcessor processor = new BoardProcessor();
+		Sink<byte[]> first = new Sink<>(0);
+		Sink<byte[]> second = new Sink<>(0);
+		processor.subscribe(first);
+
+		processor.subscribe(second);
+
+		assertThat(first.error, nullValue());
+		assertThat(second.error, instanceOf(IllegalStateException.class));
+	}
+
+	private static String sequential(String input, boolean columns) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		String[] params = columns ? new String[] { "in.txt", "columns" } : new String[] { "in.txt" };
+		new MineSweeper(params, out).withInput(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)))
+				.sweep();
+		return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+	}
+
+	@Test
+	public void worksWithAsynchronousPublisher() throws Exception {
+		String input = RandomBoards.definitions(5, 200) + "0 0\n";
+		Sink<byte[]> sink = new Sink<>(Long.MAX_VALUE);
+		BoardProcessor processor = new BoardProcessor();
+		try (SubmissionPublisher<String> publisher = new SubmissionPublisher<>()) {
+			publisher.subscribe(processor);
+			processor.subscribe(sink);
+			for (String line : lines(input)) {
+				publisher.submit(line);
+			}
+			assertThat(sink.done.await(10, TimeUnit.SECONDS), equalTo(true));
+		}
+
+		assertThat(concat(sink.items), equalTo(sequential(input, false)));
+	}
+}
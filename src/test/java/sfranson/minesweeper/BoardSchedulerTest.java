@@ -0,0 +1,176 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class BoardSchedulerTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void footprint() {
+		assertThat(BoardScheduler.footprint(8, 8), equalTo(8L + 8 * (8 + System.lineSeparator().length()) + 64));
+		assertThat(BoardScheduler.footprint(100000, 100000), equalTo(-1L));
+	}
+
+	@Test
+	public void hopelessBoardIsCancelledWithoutHinting() throws Exception {
+		Random random = new Random(4);
+		String huge = RandomBoards.definition(random, 400, 400, 5);
+		String small = RandomBoards.definition(random, 3, 3, 5);
+		BoardScheduler scheduler = new BoardScheduler().withNanosPerSquare(1000).withDeadline(100,
+				TimeUnit.MILLISECONDS);
+
+		String output = sweep(scheduler, huge + small);
+
+		assertThat(output, equalTo("Mine Field #1:\nCancelled.  Board 1 exceeded its deadline of 100 ms.\n\n"
+				+ RandomBoards.hints("2", small)));
+		assertThat(scheduler.getCancelled(), equalTo(1L));
+	}
+
+	@Test
+	public void mainReportsNonNumericThreads() {
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+		PrintStream old = System.err;
+		System.setErr(new PrintStream(err, true));
+		try {
+			BoardScheduler.main(new String[] { "--threads", "many", "a.txt" });
+		} finally {
+			System.setErr(old);
+		}
+
+		assertThat(err.toString(), containsString("Invalid arguments.  Thread count must be a number, was many."));
+	}
+
+	@Test
+	public void matchesMineSweeper() throws Exception {
+		Random random = new Random(1);
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			input.append(RandomBoards.definition(random, 1 + random.nextInt(9), 1 + random.nextInt(9), 5));
+		}
+		input.append("0 0\n");
+		ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+		new MineSweeper(new String[] { "in" }, sequential)
+				.withInput(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.US_ASCII))).sweep();
+
+		assertThat(sweep(new BoardScheduler().withThreads(3), input.toString()), equalTo(sequential.toString()));
+	}
+
+	@Test
+	public void oversizedBoardIsStreamed() throws Exception {
+		Random random = new Random(2);
+		String small = RandomBoards.definition(random, 4, 5, 5);
+		String large = RandomBoards.definition(random, 120, 130, 5);
+		BoardScheduler scheduler = new BoardScheduler().withMemoryBudget(4096);
+
+		String output = sweep(scheduler, small + large + small + "0 0\n");
+
+		assertThat(output, equalTo(
+				RandomBoards.hints("1", small) + RandomBoards.hints("2", large) + RandomBoards.hints("3", small)));
+		assertThat(scheduler.getStreamed(), equalTo(1L));
+	}
+
+	@Test
+	public void overrunBoardIsCancelledInHintLoop() throws Exception {
+		Random random = new Random(3);
+		String slow = RandomBoards.definition(random, 50, 50, 5);
+		String small = RandomBoards.definition(random, 2, 2, 5);
+		BoardScheduler scheduler = new BoardScheduler().withNanosPerSquare(0).withDeadline(1, TimeUnit.NANOSECONDS);
+
+		String output = sweep(scheduler, slow + small);
+
+		assertThat(output, containsString("Mine Field #1:\nCancelled.  Board 1 exceeded its deadline"));
+		assertThat(output, containsString("Mine Field #2:"));
+		assertThat(scheduler.getCancelled() >= 1, equalTo(true));
+	}
+
+	@Test
+	public void overrunStreamedBoardSkipsItsRows() throws Exception {
+		Random random = new Random(5);
+		String large = RandomBoards.definition(random, 60, 60, 5);
+		String small = RandomBoards.definition(random, 3, 4, 5);
+		BoardScheduler scheduler = new BoardScheduler().withMemoryBudget(50).withNanosPerSquare(0)
+				.withDeadline(1, TimeUnit.NANOSECONDS);
+
+		String output = sweep(scheduler, large + small);
+
+		assertThat(output, containsString("Cancelled.  Board 1 exceeded its deadline"));
+		assertThat(output, containsString("Mine Field #2:"));
+		assertThat(scheduler.getStreamed(), equalTo(2L));
+	}
+
+	private static String sweep(BoardScheduler scheduler, String input) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		scheduler.sweep(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)), out);
+		return out.toString();
+	}
+
+	@Test
+	public void streamedMinesHoldWindow() {
+		BufferedReader in = new BufferedReader(new StringReader("*.\n..\n.*\n**\n"));
+		BoardScheduler.StreamedMines mines = new BoardScheduler.StreamedMines(in, 4, 2);
+		byte[] row = new byte[2];
+		for (int r = 0; r < 4; r++) {
+			mines.copyRow(r, row, 0);
+		}
+
+		assertThat(mines.isMine(1, 0), equalTo(false));
+		assertThat(mines.isMine(2, 1), equalTo(true));
+		assertThat(mines.isMine(3, 0), equalTo(true));
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("only hold rows 1 to 3"));
+
+		mines.isMine(0, 0);
+	}
+
+	@Test
+	public void streamedMinesRejectRowsOutOfOrder() {
+		BufferedReader in = new BufferedReader(new StringReader("*.\n..\n"));
+		BoardScheduler.StreamedMines mines = new BoardScheduler.StreamedMines(in, 2, 2);
+		mines.copyRow(0, new byte[2], 0);
+
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("row 0 was asked for while row 1 is next"));
+
+		mines.copyRow(0, new byte[2], 0);
+	}
+
+	@Test
+	public void sweepThrowsOnShortRow() throws Exception {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("Row 1 has 2 cells, expected 3"));
+
+		sweep(new BoardScheduler(), "12 3\n...\n..\n");
+	}
+
+	@Test
+	public void sweepThrowsOnMissingHeader() throws Exception {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("board header"));
+
+		sweep(new BoardScheduler(), "...\n");
+	}
+
+	@Test
+	public void withMemoryBudgetRejectsZero() {
+		thrown.expect(MineSweeperException.class);
+
+		new BoardScheduler().withMemoryBudget(0);
+	}
+}
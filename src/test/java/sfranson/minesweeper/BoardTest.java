@@ -2,6 +2,8 @@ package sfranson.minesweeper;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 import java.io.ByteArrayOutputStream;
@@ -75,6 +77,39 @@ public class BoardTest {
 		assertThat(instance.get(4, 2), equalTo("-1"));
 	}
 
+	@Test
+	public void contentKeyIgnoresId() {
+		Board other = new Board("other", 3, 3).withRows("...", ".*.", "...");
+		instance.as("3x3", 3, 3).withRows("...", ".*.", "...");
+
+		assertThat(instance.contentKey(), equalTo(other.contentKey()));
+		assertThat(instance.contentKey().hashCode(), equalTo(other.contentKey().hashCode()));
+	}
+
+	@Test
+	public void contentKeyReflectsDimensions() {
+		Board other = new Board("other", 1, 6).withRows("..*...");
+		instance.as("2x3", 2, 3).withRows("..*", "...");
+
+		assertThat(instance.contentKey(), not(equalTo(other.contentKey())));
+	}
+
+	@Test
+	public void contentKeyReflectsOrientation() {
+		Board other = new Board("other", 3, 3).rowsAsColumns().withRows("...", ".*.", "...");
+		instance.as("3x3", 3, 3).withRows("...", ".*.", "...");
+
+		assertThat(instance.contentKey(), not(equalTo(other.contentKey())));
+	}
+
+	@Test
+	public void contentKeyReflectsRows() {
+		Board other = new Board("other", 3, 3).withRows("...", "..*", "...");
+		instance.as("3x3", 3, 3).withRows("...", ".*.", "...");
+
+		assertThat(instance.contentKey(), not(equalTo(other.contentKey())));
+	}
+
 	@Test
 	public void getId() {
 		instance.as("getId", 3, 3);
@@ -122,6 +157,93 @@ public class BoardTest {
 		assertThat(out.toString(), equalTo(expected));
 	}
 
+	@Test
+	public void printHeaderAndHints() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		instance.as("1", 2, 2).withRows("*.", "..");
+		instance.printHeader(out);
+		instance.printHints(out);
+
+		assertThat(out.toString(), equalTo("Mine Field #1:\n*1\n11\n\n"));
+		assertThat(instance.printedSize(), equalTo((long) "*1\n11\n\n".length()));
+	}
+
+	@Test
+	public void printWithEngineSelector() {
+		String[] rows = { "*...*", ".....", "..*..", "**..*" };
+		ByteArrayOutputStream cells = new ByteArrayOutputStream();
+		new Board("t", 4, 5).withRows(rows).print(cells);
+		EngineSelector selector = new EngineSelector(0.25, 9);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		instance.as("t", 4, 5).withEngineSelector(selector).withRows(rows).print(out);
+		new Board("t", 4, 5).withEngineSelector(selector).withRows(".....", ".....", ".....", ".....").close();
+		new Board("t", 2, 2).withEngineSelector(selector).withRows("**", "**").close();
+		new Board("t", 3, 3).withEngineSelector(selector).withRadius(2).withRows("***", "***", "***").close();
+
+		assertThat(out.toString(), equalTo(cells.toString()));
+		assertThat(selector.getTableBoards(), equalTo(1L));
+		assertThat(selector.getCellBoards(), equalTo(2L));
+		assertThat(instance.get(1, 1), equalTo("2"));
+	}
+
+	@Test
+	public void printWithHintCalculator() {
+		String[] rows = { "*...*", ".....", "..*..", "**..*" };
+		ByteArrayOutputStream cells = new ByteArrayOutputStream();
+		new Board("t", 4, 5).withRows(rows).print(cells);
+		ByteArrayOutputStream calculated = new ByteArrayOutputStream();
+		instance.as("t", 4, 5).withHintCalculator().withRows(rows).print(calculated);
+
+		assertThat(calculated.toString(), equalTo(cells.toString()));
+		assertThat(instance.get(1, 1), equalTo("2"));
+	}
+
+	@Test
+	public void printWithHintCalculatorRowsAsColumns() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		instance.as("t", 3, 2).rowsAsColumns().withHintCalculator().withRows("*..", "..*").print(out);
+
+		assertThat(out.toString(), equalTo("Mine Field #t:\n*1\n22\n1*\n\n"));
+	}
+
+	@Test
+	public void printWithHintTable() {
+		String[] rows = { "*...*", ".....", "..*..", "**..*" };
+		ByteArrayOutputStream cells = new ByteArrayOutputStream();
+		new Board("t", 4, 5).withRows(rows).print(cells);
+		ByteArrayOutputStream table = new ByteArrayOutputStream();
+		instance.as("t", 4, 5).withHintTable().withRows(rows).print(table);
+
+		assertThat(table.toString(), equalTo(cells.toString()));
+		assertThat(instance.get(1, 1), equalTo("2"));
+	}
+
+	@Test
+	public void printWithHintTableRowsAsColumns() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		instance.as("t", 3, 2).rowsAsColumns().withHintTable().withRows("*..", "..*").print(out);
+
+		assertThat(out.toString(), equalTo("Mine Field #t:\n*1\n22\n1*\n\n"));
+	}
+
+	@Test
+	public void printWithRadius() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		instance.as("r2", 3, 5).withRadius(2).withRows("*....", ".....", "....*").print(out);
+
+		assertThat(out.toString(), equalTo("Mine Field #r2:\n * 1 2 1 1\n 1 1 2 1 1\n 1 1 2 1 *\n\n"));
+	}
+
+	@Test
+	public void printWithRadiusSeparatesLargeCounts() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		instance.as("r2", 3, 5).withRadius(2).withRows("**.**", "*****", "***.*").printHints(out);
+
+		assertThat(out.toString(), equalTo(" * *13 * *\n * * * * *\n * * *10 *\n\n"));
+		assertThat(instance.printedSize(), equalTo((long) out.size()));
+	}
+
 	@Test
 	public void returnsInstanceWhenClosed() {
 		assertThat(instance.close(), equalTo(instance));
@@ -168,6 +290,15 @@ public class BoardTest {
 		instance.withRow("****");
 	}
 
+	@Test
+	public void throwsOnRadiusWhenClosed() {
+		instance.close();
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("closed"));
+
+		instance.withRadius(2);
+	}
+
 	@Test
 	public void throwsWhenClosed() {
 		instance.close();
@@ -176,4 +307,15 @@ public class BoardTest {
 
 		instance.withRow("****");
 	}
+
+	@Test
+	public void withoutContentKeySkipsKey() {
+		instance.as("1x2", 1, 2).withoutContentKey().withRows("*.");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		instance.print(out);
+
+		assertThat(instance.contentKey(), nullValue());
+		assertThat(out.toString(), equalTo("Mine Field #1x2:\n*1\n\n"));
+	}
 }
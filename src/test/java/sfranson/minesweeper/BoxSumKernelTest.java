@@ -0,0 +1,73 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class BoxSumKernelTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void applyMatchesBruteForce() {
+		for (int r = 1; r <= 4; r++) {
+			int radius = r;
+			MineMap mines = RandomBoards.board(radius, 13, 19, 5).mines();
+			new BoxSumKernel(radius).apply(mines, (row, counts) -> {
+				for (int col = 0; col < counts.length; col++) {
+					assertThat(counts[col], equalTo(bruteForce(mines, row, col, radius)));
+				}
+			});
+		}
+	}
+
+	private static int bruteForce(MineMap mines, int row, int col, int radius) {
+		int count = 0;
+		for (int r = Math.max(0, row - radius); r <= Math.min(mines.getRowCount() - 1, row + radius); r++) {
+			for (int c = Math.max(0, col - radius); c <= Math.min(mines.getColumnCount() - 1, col + radius); c++) {
+				count += mines.isMine(r, c) ? 1 : 0;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void radiusLargerThanBoard() {
+		Board board = new Board("1", 2, 3).withRadius(5).withRows("*..", "..*");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		board.print(out);
+
+		assertThat(out.toString(), equalTo("Mine Field #1:\n  *  2  2\n  2  2  *\n\n"));
+	}
+
+	@Test
+	public void radiusOneMatchesClassicHints() {
+		for (long seed = 0; seed < 5; seed++) {
+			Board board = RandomBoards.board(seed, 21, 17, 5);
+			MineMap mines = board.mines();
+			board.close();
+
+			new BoxSumKernel(1).apply(mines, (row, counts) -> {
+				for (int col = 0; col < counts.length; col++) {
+					if (!mines.isMine(row, col)) {
+						assertThat(Integer.toString(counts[col]), equalTo(board.get(row, col)));
+					}
+				}
+			});
+		}
+	}
+
+	@Test
+	public void throwsOnInvalidRadius() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(equalTo("Invalid radius.  The neighbourhood radius must be positive."));
+
+		new BoxSumKernel(0);
+	}
+}
@@ -0,0 +1,42 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ByteMineMapTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void copyRowNormalisesMines() {
+		ByteMineMap instance = new ByteMineMap(new byte[] { 0, 0, 0, '*', 0, -1 }, 2, 3);
+		byte[] row = new byte[3];
+
+		instance.copyRow(1, row, 0);
+
+		assertArrayEquals(new byte[] { 1, 0, 1 }, row);
+	}
+
+	@Test
+	public void isMineHonoursOffset() {
+		ByteMineMap instance = new ByteMineMap(new byte[] { 1, 0, 0, 1 }, 1, 1, 3);
+
+		assertThat(instance.isMine(0, 0), equalTo(false));
+		assertThat(instance.isMine(0, 2), equalTo(true));
+	}
+
+	@Test
+	public void throwsOnShortGrid() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("Invalid mine map"));
+
+		new ByteMineMap(new byte[5], 2, 3);
+	}
+}
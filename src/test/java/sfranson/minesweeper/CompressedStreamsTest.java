@@ -0,0 +1,144 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CompressedStreamsTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static byte[] deflate(String text) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (OutputStream deflating = new DeflaterOutputStream(out)) {
+			deflating.write(text.getBytes(StandardCharsets.US_ASCII));
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] gzip(String text) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (OutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(text.getBytes(StandardCharsets.US_ASCII));
+		}
+		return out.toByteArray();
+	}
+
+	private static String read(InputStream in) throws IOException {
+		try (InputStream stream = in) {
+			return new String(stream.readAllBytes(), StandardCharsets.US_ASCII);
+		}
+	}
+
+	@Test
+	public void baseName() {
+		assertThat(CompressedStreams.baseName("a.txt.gz"), equalTo("a.txt"));
+		assertThat(CompressedStreams.baseName("a.txt.zz"), equalTo("a.txt"));
+		assertThat(CompressedStreams.baseName("a.txt"), equalTo("a.txt"));
+	}
+
+	@Test
+	public void createCompressesByName() throws Exception {
+		Path gz = folder.getRoot().toPath().resolve("out.gz");
+		Path zz = folder.getRoot().toPath().resolve("out.zz");
+		for (Path file : Arrays.asList(gz, zz)) {
+			try (OutputStream out = CompressedStreams.create(file)) {
+				out.write("Mine Field #1:\n*\n\n".getBytes(StandardCharsets.US_ASCII));
+			}
+		}
+
+		assertThat(read(CompressedStreams.open(Files.newInputStream(gz))), equalTo("Mine Field #1:\n*\n\n"));
+		assertThat(read(CompressedStreams.open(Files.newInputStream(zz))), equalTo("Mine Field #1:\n*\n\n"));
+	}
+
+	@Test(expected = IOException.class)
+	public void openReportsCorruptInput() throws Exception {
+		byte[] compressed = gzip("1 1\n*\n0 0\n");
+		compressed[compressed.length - 3] ^= 0x55;
+
+		read(CompressedStreams.open(new ByteArrayInputStream(compressed)));
+	}
+
+	@Test
+	public void openDeflate() throws Exception {
+		InputStream in = CompressedStreams.open(new ByteArrayInputStream(deflate("1 1\n*\n0 0\n")));
+
+		assertThat(read(in), equalTo("1 1\n*\n0 0\n"));
+	}
+
+	@Test
+	public void openMultiMemberGzip() throws Exception {
+		ByteArrayOutputStream members = new ByteArrayOutputStream();
+		members.write(gzip("1 1\n*\n"));
+		members.write(gzip("1 2\n.*\n0 0\n"));
+
+		InputStream in = CompressedStreams.open(new ByteArrayInputStream(members.toByteArray()));
+
+		assertThat(read(in), equalTo("1 1\n*\n1 2\n.*\n0 0\n"));
+	}
+
+	@Test
+	public void openLargeGzipAcrossChunks() throws Exception {
+		StringBuilder text = new StringBuilder();
+		while (text.length() < 5 * CompressedStreams.BUFFER_SIZE + 17) {
+			text.append("*..*.*...*\n");
+		}
+
+		InputStream in = CompressedStreams.open(new ByteArrayInputStream(gzip(text.toString())));
+
+		assertThat(in, instanceOf(PrefetchInputStream.class));
+		assertThat(read(in), equalTo(text.toString()));
+	}
+
+	@Test(timeout = 10000)
+	public void prefetchReportsUncheckedFailure() throws Exception {
+		InputStream failing = new InputStream() {
+
+			private int left = 100;
+
+			@Override
+			public int read() {
+				if (left-- == 0) {
+					throw new IllegalStateException("source broke");
+				}
+				return '.';
+			}
+		};
+
+		try (InputStream in = new PrefetchInputStream(failing, 16, 2)) {
+			read(in);
+			fail("failure not reported");
+		} catch (IOException e) {
+			assertThat(e.getMessage(), containsString("source broke"));
+		}
+	}
+
+	@Test
+	public void openPlain() throws Exception {
+		InputStream in = CompressedStreams.open(
+				new ByteArrayInputStream("80\n0 0\n".getBytes(StandardCharsets.US_ASCII)));
+
+		assertThat(in, not(instanceOf(PrefetchInputStream.class)));
+		assertThat(read(in), equalTo("80\n0 0\n"));
+	}
+}
@@ -0,0 +1,80 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class EngineCalibrationTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void measureTimesEveryEngine() {
+		EngineCalibration.Point point = new EngineCalibration().withBoards(50).withRounds(2).measure(4, 5, 0.3);
+
+		assertThat(point.getSquares(), equalTo(20));
+		assertThat(point.getDensity(), equalTo(0.3));
+		assertThat(point.getCellNanos() > 0, equalTo(true));
+		assertThat(point.getTableNanos() > 0, equalTo(true));
+		assertThat(point.getCalculatorNanos() > 0, equalTo(true));
+	}
+
+	@Test
+	public void measureRejectsInvalidDensity() {
+		thrown.expect(MineSweeperException.class);
+
+		new EngineCalibration().measure(3, 3, 1.5);
+	}
+
+	@Test
+	public void selectorFindsCalculatorCrossover() {
+		EngineSelector selector = EngineCalibration.selector(Arrays.asList(
+				new EngineCalibration.Point(2, 2, 0.5, 100, 150, 300),
+				new EngineCalibration.Point(8, 8, 0.5, 3000, 1500, 1800),
+				new EngineCalibration.Point(16, 16, 0.5, 12000, 5000, 4000),
+				new EngineCalibration.Point(32, 32, 0.5, 48000, 20000, 15000)));
+
+		assertThat(selector.getMinSquares(), equalTo(64));
+		assertThat(selector.getCalculatorSquares(), equalTo(256));
+		assertThat(selector.select(32, 32, 512), equalTo(EngineSelector.Engine.CALCULATOR));
+	}
+
+	@Test
+	public void selectorFindsCrossover() {
+		EngineSelector selector = EngineCalibration.selector(Arrays.asList(
+				new EngineCalibration.Point(2, 2, 0.1, 100, 200, 300),
+				new EngineCalibration.Point(2, 2, 0.5, 100, 150, 250),
+				new EngineCalibration.Point(8, 8, 0.1, 1000, 1200, 1300),
+				new EngineCalibration.Point(8, 8, 0.5, 3000, 1500, 3100),
+				new EngineCalibration.Point(16, 16, 0.1, 4000, 4400, 4500),
+				new EngineCalibration.Point(16, 16, 0.5, 12000, 5000, 12100)));
+
+		assertThat(selector.getDensity(), equalTo(0.5));
+		assertThat(selector.getMinSquares(), equalTo(64));
+	}
+
+	@Test
+	public void selectorIgnoresSingleNoisyPoint() {
+		EngineSelector selector = EngineCalibration.selector(Arrays.asList(
+				new EngineCalibration.Point(8, 8, 0.1, 1000, 900, 1100),
+				new EngineCalibration.Point(8, 8, 0.3, 1000, 1010, 1110),
+				new EngineCalibration.Point(8, 8, 0.5, 3000, 1500, 3100)));
+
+		assertThat(selector.getDensity(), equalTo(0.1));
+	}
+
+	@Test
+	public void selectorKeepsCellsIfTableNeverFaster() {
+		EngineSelector selector = EngineCalibration.selector(Arrays.asList(
+				new EngineCalibration.Point(3, 3, 0.1, 100, 120, 220),
+				new EngineCalibration.Point(3, 3, 0.5, 100, 100, 200)));
+
+		assertThat(selector.select(3, 3, 9), equalTo(EngineSelector.Engine.CELLS));
+	}
+}
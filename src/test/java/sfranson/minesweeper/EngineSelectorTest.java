@@ -0,0 +1,75 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class EngineSelectorTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void defaultsWithoutProperties() {
+		EngineSelector selector = new EngineSelector();
+
+		assertThat(selector.getDensity(), equalTo(EngineSelector.DEFAULT_DENSITY));
+		assertThat(selector.getMinSquares(), equalTo(EngineSelector.DEFAULT_MIN_SQUARES));
+		assertThat(selector.getCalculatorSquares(), equalTo(EngineSelector.DEFAULT_CALCULATOR_SQUARES));
+	}
+
+	@Test
+	public void denseBoardsFromCalculatorSquaresGoToCalculator() {
+		EngineSelector selector = new EngineSelector(0.25, 9, 16);
+
+		assertThat(selector.select(4, 4, 4), equalTo(EngineSelector.Engine.CALCULATOR));
+		assertThat(selector.select(3, 3, 3), equalTo(EngineSelector.Engine.TABLE));
+		assertThat(selector.select(4, 4, 3), equalTo(EngineSelector.Engine.CELLS));
+		assertThat(selector.getCalculatorBoards(), equalTo(1L));
+		assertThat(selector.getTableBoards(), equalTo(1L));
+		assertThat(selector.getCellBoards(), equalTo(1L));
+	}
+
+	@Test
+	public void denseBoardsGoToTable() {
+		EngineSelector selector = new EngineSelector(0.25, 16);
+
+		assertThat(selector.select(4, 4, 4), equalTo(EngineSelector.Engine.TABLE));
+		assertThat(selector.select(4, 4, 3), equalTo(EngineSelector.Engine.CELLS));
+		assertThat(selector.select(9, 9, 81), equalTo(EngineSelector.Engine.TABLE));
+		assertThat(selector.getTableBoards(), equalTo(2L));
+		assertThat(selector.getCellBoards(), equalTo(1L));
+	}
+
+	@Test
+	public void emptyBoardsGoToCells() {
+		assertThat(new EngineSelector(0, 0).select(0, 5, 0), equalTo(EngineSelector.Engine.CELLS));
+	}
+
+	@Test
+	public void rejectsNegativeThresholds() {
+		thrown.expect(MineSweeperException.class);
+
+		new EngineSelector(-0.1, 1);
+	}
+
+	@Test
+	public void smallBoardsGoToCells() {
+		EngineSelector selector = new EngineSelector(0, 10);
+
+		assertThat(selector.select(3, 3, 9), equalTo(EngineSelector.Engine.CELLS));
+		assertThat(selector.select(2, 5, 0), equalTo(EngineSelector.Engine.TABLE));
+	}
+
+	@Test
+	public void toStringShowsCounters() {
+		EngineSelector selector = new EngineSelector(0.5, 4);
+		selector.select(2, 2, 2);
+
+		assertThat(selector.toString(), equalTo(
+				"EngineSelector[density=0.500, minSquares=4, calculatorSquares=2147483647, cells=0, table=1, calculator=0]"));
+	}
+}
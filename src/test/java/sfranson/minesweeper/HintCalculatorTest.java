@@ -0,0 +1,125 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class HintCalculatorTest {
+
+	private HintCalculator instance;
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private static byte[] expected(MineMap mines) {
+		byte[] hints = new byte[mines.getRowCount() * mines.getColumnCount()];
+		new HintQuery(mines).viewport(0, 0, mines.getRowCount(), mines.getColumnCount(), hints, 0);
+		return hints;
+	}
+
+	private static BitSet randomBits(int rows, int cols, long seed) {
+		Random random = new Random(seed);
+		BitSet bits = new BitSet();
+		for (int i = 0; i < rows * cols; i++) {
+			if (random.nextInt(4) == 0) {
+				bits.set(i);
+			}
+		}
+		return bits;
+	}
+
+	@Test
+	public void calculateBitsMatchesQuery() {
+		for (int seed = 0; seed < 20; seed++) {
+			int rows = 1 + seed % 7;
+			int cols = 1 + seed * 5 % 71;
+			MineMap mines = new BitMineMap(randomBits(rows, cols, seed).toLongArray(), rows, cols);
+			byte[] hints = new byte[rows * cols];
+
+			instance.calculate(mines, hints, 0);
+
+			assertArrayEquals(expected(mines), hints);
+		}
+	}
+
+	@Test
+	public void calculateBoardMines() {
+		Board board = new Board("1", 3, 3).withRows("...", ".*.", "*..");
+		byte[] hints = new byte[9];
+
+		instance.calculate(board.mines(), hints, 0);
+
+		assertArrayEquals(new byte[] { 1, 1, 1, 2, -1, 1, -1, 2, 1 }, hints);
+	}
+
+	@Test
+	public void calculateGridAtOffset() {
+		byte[] grid = { 0, 7, 0, 0, 0, 0, 1 };
+		byte[] hints = new byte[8];
+
+		instance.calculate(new ByteMineMap(grid, 1, 2, 3), hints, 2);
+
+		assertArrayEquals(new byte[] { 0, 0, -1, 2, 1, 1, 2, -1 }, hints);
+	}
+
+	@Test
+	public void calculateIntoDirectBuffer() {
+		MineMap mines = new BitMineMap(randomBits(9, 13, 3).toLongArray(), 9, 13);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(200);
+		buffer.position(5);
+
+		instance.calculate(mines, buffer);
+
+		assertThat(buffer.position(), equalTo(5 + 9 * 13));
+		byte[] hints = new byte[9 * 13];
+		buffer.position(5);
+		buffer.get(hints);
+		assertArrayEquals(expected(mines), hints);
+	}
+
+	@Test
+	public void calculateIntoHeapBuffer() {
+		MineMap mines = new BitMineMap(randomBits(4, 6, 4).toLongArray(), 4, 6);
+		ByteBuffer buffer = ByteBuffer.allocate(40);
+		buffer.position(3);
+
+		instance.calculate(mines, buffer.slice());
+
+		byte[] hints = new byte[24];
+		System.arraycopy(buffer.array(), 3, hints, 0, 24);
+		assertArrayEquals(expected(mines), hints);
+	}
+
+	@Test
+	public void calculateReusesRowsOfWiderBoard() {
+		instance.calculate(new ByteMineMap(new byte[] { 1, 1, 1, 1, 1, 1, 1, 1 }, 2, 4), new byte[8], 0);
+		byte[] hints = new byte[2];
+
+		instance.calculate(new ByteMineMap(new byte[] { 0, 0 }, 1, 2), hints, 0);
+
+		assertArrayEquals(new byte[] { 0, 0 }, hints);
+	}
+
+	@Before
+	public void setup() {
+		instance = new HintCalculator();
+	}
+
+	@Test
+	public void throwsOnSmallOutput() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("Invalid output"));
+
+		instance.calculate(new ByteMineMap(new byte[4], 2, 2), new byte[4], 1);
+	}
+}
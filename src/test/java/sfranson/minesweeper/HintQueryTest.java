@@ -0,0 +1,101 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertThat;
+
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class HintQueryTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void hintDoesNotCloseBoard() {
+		Board board = new Board("1", 2, 2).withRow("*.");
+		HintQuery instance = board.query();
+
+		assertThat(instance.hint(1, 1), equalTo(1));
+
+		board.withRow(".*");
+		assertThat(instance.hint(1, 0), equalTo(2));
+	}
+
+	@Test
+	public void hintMatchesClosedBoard() {
+		Board board = RandomBoards.board(1, 17, 23, 5);
+		HintQuery instance = board.query();
+		board.close();
+
+		for (int row = 0; row < 17; row++) {
+			for (int col = 0; col < 23; col++) {
+				assertThat(Integer.toString(instance.hint(row, col)), equalTo(board.get(row, col)));
+			}
+		}
+	}
+
+	@Test
+	public void throwsOutsideBoard() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("Invalid query"));
+
+		new Board("1", 2, 2).query().hint(2, 0);
+	}
+
+	@Test
+	public void throwsOnInvalidTileCache() {
+		thrown.expect(MineSweeperException.class);
+
+		new Board("1", 2, 2).query().withTileCache(0, 1);
+	}
+
+	@Test
+	public void tileCacheCountsHits() {
+		HintQuery instance = RandomBoards.board(2, 40, 40, 5).query().withTileCache(8, 4);
+
+		instance.hint(0, 0);
+		instance.hint(7, 7);
+		instance.hint(8, 8);
+
+		assertThat(instance.getTileMisses(), equalTo(2L));
+		assertThat(instance.getTileHits(), equalTo(1L));
+	}
+
+	@Test
+	public void viewportMatchesClosedBoard() {
+		Board board = RandomBoards.board(3, 50, 70, 5);
+		HintQuery plain = board.query();
+		HintQuery cached = board.query().withTileCache(8, 16);
+		board.close();
+
+		byte[] expected = new byte[2 + 21 * 33];
+		byte[] actual = new byte[2 + 21 * 33];
+		plain.viewport(13, 29, 21, 33, expected, 2);
+		cached.viewport(13, 29, 21, 33, actual, 2);
+
+		for (int row = 0; row < 21; row++) {
+			for (int col = 0; col < 33; col++) {
+				String hint = board.get(13 + row, 29 + col);
+				assertThat(Byte.toString(expected[2 + row * 33 + col]), equalTo(hint));
+				assertThat(Byte.toString(actual[2 + row * 33 + col]), equalTo(hint));
+			}
+		}
+	}
+
+	@Test
+	public void viewportOnEdgeTiles() {
+		Board board = RandomBoards.board(4, 10, 10, 5);
+		HintQuery cached = board.query().withTileCache(4, 2);
+		board.close();
+
+		byte[] out = new byte[100];
+		cached.viewport(0, 0, 10, 10, out, 0);
+
+		assertThat(Byte.toString(out[99]), equalTo(board.get(9, 9)));
+		assertThat(Byte.toString(out[45]), equalTo(board.get(4, 5)));
+	}
+}
@@ -0,0 +1,142 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class HintTableTest {
+
+	private HintTable instance;
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private static byte[] expected(MineMap mines) {
+		byte[] hints = new byte[mines.getRowCount() * mines.getColumnCount()];
+		new HintQuery(mines).viewport(0, 0, mines.getRowCount(), mines.getColumnCount(), hints, 0);
+		for (int i = 0; i < hints.length; i++) {
+			hints[i] = hints[i] == HintQuery.MINE ? (byte) '*' : (byte) ('0' + hints[i]);
+		}
+		return hints;
+	}
+
+	@Test
+	public void lookup() {
+		assertThat(HintTable.lookup(0), equalTo((byte) '0'));
+		assertThat(HintTable.lookup(0x1ff), equalTo((byte) '*'));
+		assertThat(HintTable.lookup(0x1ef), equalTo((byte) '8'));
+		assertThat(HintTable.lookup(0x101), equalTo((byte) '2'));
+		assertThat(HintTable.lookup(0x010), equalTo((byte) '*'));
+	}
+
+	private static MineMap randomMines(int rows, int cols, long seed) {
+		Random random = new Random(seed);
+		BitSet bits = new BitSet();
+		for (int i = 0; i < rows * cols; i++) {
+			if (random.nextInt(4) == 0) {
+				bits.set(i);
+			}
+		}
+		return new BitMineMap(bits.toLongArray(), rows, cols);
+	}
+
+	@Test
+	public void renderAppendsSeparator() {
+		MineMap mines = new ByteMineMap(new byte[] { 1, 0, 0, 0, 0, 1 }, 2, 3);
+		StringBuilder rendered = new StringBuilder();
+
+		instance.render(mines, new byte[] { '|' }, (row, hints, offset, length) -> rendered
+				.append(row).append(new String(hints, offset, length, StandardCharsets.US_ASCII)));
+
+		assertThat(rendered.toString(), equalTo("0*21|112*|"));
+	}
+
+	@Test
+	public void renderMatchesQuery() {
+		int[][] sizes = { { 0, 0 }, { 1, 1 }, { 1, 9 }, { 9, 1 }, { 2, 2 }, { 37, 53 }, { 5, 130 } };
+		for (int[] size : sizes) {
+			MineMap mines = randomMines(size[0], size[1], size[0] * 31 + size[1]);
+			byte[] out = new byte[size[0] * size[1] + 3];
+			instance.render(mines, out, 3);
+
+			byte[] hints = new byte[size[0] * size[1]];
+			System.arraycopy(out, 3, hints, 0, hints.length);
+			assertArrayEquals(size[0] + "x" + size[1], expected(mines), hints);
+		}
+	}
+
+	@Test
+	public void renderReusesBuffersOfLargerBoard() {
+		MineMap large = randomMines(20, 40, 1);
+		MineMap small = randomMines(4, 3, 2);
+		instance.render(large, new byte[800], 0);
+
+		byte[] out = new byte[12];
+		instance.render(small, out, 0);
+
+		assertArrayEquals(expected(small), out);
+	}
+
+	@Test
+	public void renderTilesMatchesQuery() {
+		TileCache tiles = new TileCache(TileCache.DEFAULT_CAPACITY);
+		instance.withTileCache(tiles);
+		int[][] sizes = { { 0, 0 }, { 1, 1 }, { 8, 8 }, { 9, 7 }, { 16, 17 }, { 37, 53 }, { 5, 130 } };
+		for (int[] size : sizes) {
+			MineMap mines = randomMines(size[0], size[1], size[0] * 31 + size[1]);
+			byte[] out = new byte[size[0] * size[1]];
+			instance.render(mines, out, 0);
+
+			assertArrayEquals(size[0] + "x" + size[1], expected(mines), out);
+		}
+		assertThat(tiles.getMisses() > 0, equalTo(true));
+	}
+
+	@Test
+	public void renderTilesReusesRepeatedTiles() {
+		TileCache tiles = new TileCache(16);
+		MineMap empty = new BitMineMap(new long[(64 * 64 + 63) / 64], 64, 64);
+		byte[] out = new byte[64 * 64];
+
+		instance.withTileCache(tiles).render(empty, out, 0);
+
+		assertArrayEquals(expected(empty), out);
+		assertThat(tiles.getHits() + tiles.getMisses(), equalTo(64L));
+		// squares beyond the edge are empty too, so every tile is the same
+		assertThat(tiles.getMisses(), equalTo(1L));
+	}
+
+	@Test
+	public void renderTilesWithSeparator() {
+		MineMap mines = new ByteMineMap(new byte[] { 1, 0, 0, 0, 0, 1 }, 2, 3);
+		StringBuilder rendered = new StringBuilder();
+
+		instance.withTileCache(new TileCache(4)).render(mines, new byte[] { '|' }, (row, hints, offset,
+				length) -> rendered.append(row).append(new String(hints, offset, length, StandardCharsets.US_ASCII)));
+
+		assertThat(rendered.toString(), equalTo("0*21|112*|"));
+	}
+
+	@Test
+	public void renderThrowsWhenOutputTooSmall() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("do not fit"));
+
+		instance.render(randomMines(3, 3, 1), new byte[9], 1);
+	}
+
+	@Before
+	public void setUp() {
+		instance = new HintTable();
+	}
+}
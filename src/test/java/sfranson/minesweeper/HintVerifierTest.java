@@ -0,0 +1,137 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class HintVerifierTest {
+
+	private static final String BOARDS = "4 4\n*...\n....\n.*..\n....\n3 5\n**...\n.....\n.*...\n0 0\n";
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private static HintVerifier.Mismatch verify(String boards, String hints) {
+		return verifier(boards, hints).verify();
+	}
+
+	private static HintVerifier verifier(String boards, String hints) {
+		return new HintVerifier(new ByteArrayInputStream(boards.getBytes(StandardCharsets.US_ASCII)),
+				new ByteArrayInputStream(hints.getBytes(StandardCharsets.US_ASCII)));
+	}
+
+	private static String sweep(String boards) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new MineSweeper(new String[] { "boards" }, out)
+				.withInput(new ByteArrayInputStream(boards.getBytes(StandardCharsets.US_ASCII))).sweep();
+		return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+	}
+
+	@Test
+	public void acceptsSweeperOutput() {
+		HintVerifier verifier = verifier(BOARDS, sweep(BOARDS));
+
+		assertThat(verifier.verify(), nullValue());
+		assertThat(verifier.getBoardCount(), equalTo(2));
+	}
+
+	@Test
+	public void acceptsWindowsLineEndings() {
+		assertThat(verify(BOARDS.replace("\n", "\r\n"), sweep(BOARDS).replace("\n", "\r\n")), nullValue());
+	}
+
+	@Test
+	public void reportsExtraHints() {
+		HintVerifier.Mismatch mismatch = verify("1 1\n*\n0 0\n", "Mine Field #1:\n*\n\nMine Field #2:\n");
+
+		assertThat(mismatch.getBoard(), equalTo(2));
+		assertThat(mismatch.getRow(), equalTo(HintVerifier.HEADER));
+		assertThat(mismatch.getExpected(), equalTo(HintVerifier.END_OF_INPUT));
+	}
+
+	@Test
+	public void reportsFirstWrongHint() {
+		String hints = sweep(BOARDS).replace("33200\n", "33300\n");
+
+		HintVerifier.Mismatch mismatch = verify(BOARDS, hints);
+
+		assertThat(mismatch.getBoard(), equalTo(2));
+		assertThat(mismatch.getRow(), equalTo(1));
+		assertThat(mismatch.getColumn(), equalTo(2));
+		assertThat(mismatch.getExpected(), equalTo((int) '2'));
+		assertThat(mismatch.getActual(), equalTo((int) '3'));
+		assertThat(mismatch.getLine(), equalTo(9L));
+		assertThat(mismatch.toString(), equalTo("Mine Field #2, row 1, column 2 (line 9): expected '2' but found '3'."));
+	}
+
+	@Test
+	public void reportsLongRow() {
+		HintVerifier.Mismatch mismatch = verify("1 2\n*.\n0 0\n", "Mine Field #1:\n*10\n\n");
+
+		assertThat(mismatch.getColumn(), equalTo(2));
+		assertThat(mismatch.getExpected(), equalTo(HintVerifier.END));
+		assertThat(mismatch.getActual(), equalTo((int) '0'));
+	}
+
+	@Test
+	public void reportsMissingSeparator() {
+		HintVerifier.Mismatch mismatch = verify("1 2\n*.\n0 0\n", "Mine Field #1:\n*1\n");
+
+		assertThat(mismatch.getRow(), equalTo(1));
+		assertThat(mismatch.getActual(), equalTo(HintVerifier.END_OF_INPUT));
+	}
+
+	@Test
+	public void reportsShortRow() {
+		HintVerifier.Mismatch mismatch = verify("1 3\n*..\n0 0\n", "Mine Field #1:\n*1\n\n");
+
+		assertThat(mismatch.getColumn(), equalTo(2));
+		assertThat(mismatch.getExpected(), equalTo((int) '0'));
+		assertThat(mismatch.getActual(), equalTo(HintVerifier.END));
+	}
+
+	@Test
+	public void reportsWrongHeader() {
+		HintVerifier.Mismatch mismatch = verify("1 1\n*\n0 0\n", "Mine Field #2:\n*\n\n");
+
+		assertThat(mismatch.getRow(), equalTo(HintVerifier.HEADER));
+		assertThat(mismatch.getColumn(), equalTo(12));
+		assertThat(mismatch.toString(), containsString("expected '1' but found '2'"));
+	}
+
+	@Test
+	public void throwsOnInvalidBoard() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("* and ."));
+
+		verify("1 2\n*x\n0 0\n", "Mine Field #1:\n*1\n\n");
+	}
+
+	@Test
+	public void throwsOnMissingRows() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("fewer rows"));
+
+		verify("2 2\n*.\n0 0\n", "Mine Field #1:\n*1\n11\n\n");
+	}
+
+	@Test
+	public void verifiesMultiDigitBoardNumbers() {
+		StringBuilder boards = new StringBuilder();
+		for (int i = 0; i < 12; i++) {
+			boards.append("2 2\n*.\n..\n");
+		}
+		boards.append("0 0\n");
+
+		assertThat(verify(boards.toString(), sweep(boards.toString())), nullValue());
+	}
+}
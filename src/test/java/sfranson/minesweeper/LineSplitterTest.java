@@ -0,0 +1,69 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class LineSplitterTest {
+
+	private static List<ByteBuffer> chunks(String input, int size) {
+		byte[] bytes = input.getBytes(StandardCharsets.US_ASCII);
+		List<ByteBuffer> chunks = new ArrayList<>();
+		for (int i = 0; i < bytes.length; i += size) {
+			chunks.add(ByteBuffer.wrap(bytes, i, Math.min(size, bytes.length - i)));
+		}
+		return chunks;
+	}
+
+	@Test
+	public void feedsBoardProcessor() {
+		String input = RandomBoards.definitions(1, 50) + "0 0\n";
+		BoardProcessorTest.Sink<byte[]> expected = new BoardProcessorTest.Sink<>(Long.MAX_VALUE);
+		BoardProcessor direct = new BoardProcessor();
+		new BoardProcessorTest.Source<>(BoardProcessorTest.lines(input)).subscribe(direct);
+		direct.subscribe(expected);
+
+		BoardProcessorTest.Sink<byte[]> sink = new BoardProcessorTest.Sink<>(Long.MAX_VALUE);
+		LineSplitter lines = new LineSplitter();
+		BoardProcessor boards = new BoardProcessor();
+		new BoardProcessorTest.Source<>(chunks(input, 13)).subscribe(lines);
+		lines.subscribe(boards);
+		boards.subscribe(sink);
+
+		assertThat(sink.items.size(), equalTo(50));
+		for (int i = 0; i < 50; i++) {
+			assertThat(Arrays.equals(sink.items.get(i), expected.items.get(i)), equalTo(true));
+		}
+		assertThat(sink.completed, equalTo(true));
+	}
+
+	@Test
+	public void onlyRequestsChunksOnDemand() {
+		BoardProcessorTest.Source<ByteBuffer> source = new BoardProcessorTest.Source<>(chunks("ab\ncd\nef\n", 3));
+		BoardProcessorTest.Sink<String> sink = new BoardProcessorTest.Sink<>(1);
+		LineSplitter lines = new LineSplitter();
+		source.subscribe(lines);
+		lines.subscribe(sink);
+
+		assertThat(sink.items, equalTo(Arrays.asList("ab")));
+		assertThat(source.delivered, equalTo(1));
+	}
+
+	@Test
+	public void splitsAcrossChunks() {
+		BoardProcessorTest.Sink<String> sink = new BoardProcessorTest.Sink<>(Long.MAX_VALUE);
+		LineSplitter lines = new LineSplitter();
+		new BoardProcessorTest.Source<>(chunks("first\r\nsecond line\n\nlast", 4)).subscribe(lines);
+		lines.subscribe(sink);
+
+		assertThat(sink.items, equalTo(Arrays.asList("first", "second line", "", "last")));
+		assertThat(sink.completed, equalTo(true));
+	}
+}
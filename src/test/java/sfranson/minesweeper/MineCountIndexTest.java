@@ -0,0 +1,65 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class MineCountIndexTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private static int bruteForce(MineMap mines, int row, int col, int rows, int cols) {
+		int count = 0;
+		for (int r = row; r < row + rows; r++) {
+			for (int c = col; c < col + cols; c++) {
+				if (mines.isMine(r, c)) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void countMatchesBruteForce() {
+		MineMap mines = RandomBoards.board(1, 30, 1500, 4).mines();
+		MineCountIndex sequential = new MineCountIndex(mines, Long.MAX_VALUE);
+		MineCountIndex parallel = new MineCountIndex(mines, 0);
+		Random random = new Random(2);
+
+		for (int i = 0; i < 500; i++) {
+			int row = random.nextInt(30);
+			int col = random.nextInt(1500);
+			int rows = random.nextInt(30 - row + 1);
+			int cols = random.nextInt(1500 - col + 1);
+			int expected = bruteForce(mines, row, col, rows, cols);
+			assertThat(sequential.count(row, col, rows, cols), equalTo(expected));
+			assertThat(parallel.count(row, col, rows, cols), equalTo(expected));
+		}
+		assertThat(parallel.total(), equalTo(bruteForce(mines, 0, 0, 30, 1500)));
+	}
+
+	@Test
+	public void closeBuildsIndex() {
+		Board board = new Board("1", 3, 3).withMineCountIndex().withRows("*..", ".*.", "..*").close();
+
+		assertThat(board.getMineCountIndex().count(0, 0, 2, 2), equalTo(2));
+		assertThat(board.getMineCountIndex().count(1, 0, 2, 3), equalTo(2));
+		assertThat(board.getMineCountIndex().total(), equalTo(3));
+	}
+
+	@Test
+	public void throwsOutsideBoard() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("Invalid query"));
+
+		new MineCountIndex(RandomBoards.board(3, 3, 3, 4).mines()).count(1, 1, 3, 1);
+	}
+}
@@ -0,0 +1,186 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+public class MineSweeperBatchTest {
+
+	private MineSweeperBatch instance;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void expandDirectory() throws Exception {
+		File dir = folder.newFolder("in");
+		Path b = write(new File(dir, "b.txt"), "1 1\n*\n0 0\n");
+		Path a = write(new File(dir, "a.txt"), "1 1\n.\n0 0\n");
+
+		assertThat(MineSweeperBatch.expand(Arrays.asList(dir.getPath())), equalTo(Arrays.asList(a, b)));
+	}
+
+	@Test
+	public void expandGlob() throws Exception {
+		File dir = folder.newFolder("in");
+		Path a = write(new File(dir, "a.txt"), "1 1\n.\n0 0\n");
+		write(new File(dir, "b.dat"), "1 1\n*\n0 0\n");
+
+		assertThat(MineSweeperBatch.expand(Arrays.asList(dir.getPath() + "/*.txt")), equalTo(Arrays.asList(a)));
+	}
+
+	@Test
+	public void expandRemovesDuplicates() throws Exception {
+		Path a = write(folder.newFile("a.txt"), "1 1\n.\n0 0\n");
+
+		assertThat(MineSweeperBatch.expand(Arrays.asList(a.toString(), a.toString())), equalTo(Arrays.asList(a)));
+	}
+
+	@Test
+	public void expandThrowsOnMissingFile() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("does not exist"));
+
+		MineSweeperBatch.expand(Arrays.asList(folder.getRoot() + "/missing.txt"));
+	}
+
+	@Test
+	public void parseReadsOptions() {
+		List<String> inputs = instance.parse(new String[] { "--threads", "2", "--columns", "a.txt", "b" });
+
+		assertThat(inputs, equalTo(Arrays.asList("a.txt", "b")));
+	}
+
+	@Test
+	public void parseThrowsWithoutInputs() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("input"));
+
+		instance.parse(new String[] { "--columns" });
+	}
+
+	@Test
+	public void parseThrowsOnNonNumericThreads() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("Thread count must be a number"));
+
+		instance.parse(new String[] { "--threads", "many", "a.txt" });
+	}
+
+	@Before
+	public void setup() {
+		instance = new MineSweeperBatch().withThreads(2);
+	}
+
+	@Test
+	public void sweepCombinedKeepsInputOrder() throws Exception {
+		Path first = write(folder.newFile("1.txt"), "2 2\n*.\n..\n0 0\n");
+		Path second = write(folder.newFile("2.txt"), "1 3\n.*.\n0 0\n");
+		Path third = write(folder.newFile("3.txt"), "2 2\n*.\n..\n0 0\n");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		int failures = instance.sweep(Arrays.asList(first, second, third), out);
+
+		assertThat(failures, equalTo(0));
+		assertThat(out.toString(), equalTo("Mine Field #1:\n*1\n11\n\nMine Field #1:\n1*1\n\nMine Field #1:\n*1\n11\n\n"));
+		assertThat(instance.getMetrics().getBoards(), equalTo(3L));
+		assertThat(instance.getCache().getHits(), equalTo(1L));
+	}
+
+	@Test
+	public void sweepCountsFailures() throws Exception {
+		Path good = write(folder.newFile("good.txt"), "1 1\n*\n0 0\n");
+		Path bad = write(folder.newFile("bad.txt"), "1 1\nx\n0 0\n");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ByteArrayOutputStream errors = new ByteArrayOutputStream();
+		instance.withErrors(new PrintStream(errors));
+
+		int failures = instance.sweep(Arrays.asList(bad, good), out);
+
+		assertThat(failures, equalTo(1));
+		assertThat(out.toString(), equalTo("Mine Field #1:\n*\n\n"));
+		assertThat(errors.toString(), containsString("bad.txt: Invalid input"));
+	}
+
+	@Test
+	public void sweepPerFile() throws Exception {
+		Path first = write(folder.newFile("1.txt"), "2 2\n*.\n..\n0 0\n");
+		Path second = write(folder.newFile("2.txt"), "1 3\n.*.\n0 0\n");
+		Path outDir = folder.getRoot().toPath().resolve("out");
+
+		int failures = instance.sweep(Arrays.asList(first, second), outDir);
+
+		assertThat(failures, equalTo(0));
+		assertThat(read(outDir.resolve("1.txt.out")), equalTo("Mine Field #1:\n*1\n11\n\n"));
+		assertThat(read(outDir.resolve("2.txt.out")), equalTo("Mine Field #1:\n1*1\n\n"));
+	}
+
+	@Test
+	public void sweepPerFileCompressed() throws Exception {
+		Path input = folder.getRoot().toPath().resolve("1.txt.gz");
+		try (OutputStream out = CompressedStreams.create(input)) {
+			out.write("2 2\n*.\n..\n0 0\n".getBytes(StandardCharsets.UTF_8));
+		}
+		Path outDir = folder.getRoot().toPath().resolve("out");
+		instance.parse(new String[] { "--gzip", input.toString() });
+
+		int failures = instance.sweep(Arrays.asList(input), outDir);
+
+		assertThat(failures, equalTo(0));
+		try (InputStream in = CompressedStreams.open(Files.newInputStream(outDir.resolve("1.txt.out.gz")))) {
+			assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8), equalTo("Mine Field #1:\n*1\n11\n\n"));
+		}
+	}
+
+	@Test
+	public void sweepPerFileLeavesNoOutputOfFailedFile() throws Exception {
+		// the first board is written before the second fails
+		Path bad = write(folder.newFile("bad.txt"), "1 1\n*\n1 1\nx\n0 0\n");
+		Path outDir = folder.getRoot().toPath().resolve("out");
+		instance.withErrors(new PrintStream(new ByteArrayOutputStream()));
+
+		int failures = instance.sweep(Arrays.asList(bad), outDir);
+
+		assertThat(failures, equalTo(1));
+		assertThat(outDir.toFile().list().length, equalTo(0));
+	}
+
+	@Test
+	public void sweepPerFileThrowsOnDuplicateNames() throws Exception {
+		Path first = write(new File(folder.newFolder("a"), "in.txt"), "1 1\n*\n0 0\n");
+		Path second = write(new File(folder.newFolder("b"), "in.txt"), "1 1\n*\n0 0\n");
+
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("Duplicate"));
+
+		instance.sweep(Arrays.asList(first, second), folder.getRoot().toPath().resolve("out"));
+	}
+
+	private static String read(Path path) throws Exception {
+		return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+	}
+
+	private static Path write(File file, String content) throws Exception {
+		return Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+}
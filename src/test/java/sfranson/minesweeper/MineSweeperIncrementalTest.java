@@ -0,0 +1,195 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+public class MineSweeperIncrementalTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private Path input;
+
+	/**
+	 * Modification time given to the input on every write, so edits that keep
+	 * the size are always noticed.
+	 */
+	private long modified = 1000000000000L;
+
+	private Path output;
+
+	@Test
+	public void changedColumnsOptionRecomputesEverything() throws Exception {
+		String input = RandomBoards.definitions(7, 20) + "0 0\n";
+		sweep(new MineSweeperIncremental(), input);
+
+		MineSweeperIncremental sweeper = new MineSweeperIncremental().withColumns();
+		assertThat(sweep(sweeper, input), equalTo(sequential(input, true)));
+		assertThat(sweeper.getRecomputed(), equalTo(20L));
+	}
+
+	@Test
+	public void editedBoardIsPatchedInPlace() throws Exception {
+		String before = RandomBoards.definitions(1, 50) + "0 0\n";
+		sweep(new MineSweeperIncremental(), before);
+		int row = before.indexOf('.', before.length() / 2);
+		String after = before.substring(0, row) + "*" + before.substring(row + 1);
+
+		MineSweeperIncremental sweeper = new MineSweeperIncremental();
+		assertThat(sweep(sweeper, after), equalTo(sequential(after, false)));
+		assertThat(sweeper.getRecomputed(), equalTo(1L));
+		assertThat(sweeper.getReused(), equalTo(49L));
+	}
+
+	@Test
+	public void firstSweepMatchesSequential() throws Exception {
+		String input = RandomBoards.definitions(2, 60) + "0 0\n";
+		MineSweeperIncremental sweeper = new MineSweeperIncremental();
+
+		assertThat(sweep(sweeper, input), equalTo(sequential(input, false)));
+		assertThat(sweeper.getRecomputed(), equalTo(60L));
+		assertThat(Files.exists(MineSweeperIncremental.index(output)), equalTo(true));
+	}
+
+	@Test
+	public void insertedBoardRenumbersReusedHints() throws Exception {
+		String first = RandomBoards.definitions(3, 20);
+		String second = RandomBoards.definitions(4, 20);
+		sweep(new MineSweeperIncremental(), first + second + "0 0\n");
+		String after = first + RandomBoards.definitions(5, 1) + second + "0 0\n";
+
+		MineSweeperIncremental sweeper = new MineSweeperIncremental();
+		assertThat(sweep(sweeper, after), equalTo(sequential(after, false)));
+		assertThat(sweeper.getRecomputed(), equalTo(1L));
+		assertThat(sweeper.getReused(), equalTo(40L));
+	}
+
+	@Test
+	public void invalidEditKeepsPreviousOutput() throws Exception {
+		String before = RandomBoards.definitions(6, 10) + "0 0\n";
+		String expected = sweep(new MineSweeperIncremental(), before);
+
+		try {
+			sweep(new MineSweeperIncremental(), before.replaceFirst("\n\\.", "\nx"));
+			fail("invalid cell accepted");
+		} catch (MineSweeperException e) {
+			assertThat(e.getMessage(), containsString("Invalid input"));
+		}
+		assertThat(new String(Files.readAllBytes(output), StandardCharsets.US_ASCII), equalTo(expected));
+
+		MineSweeperIncremental sweeper = new MineSweeperIncremental();
+		assertThat(sweep(sweeper, before), equalTo(expected));
+		assertThat(sweeper.getRecomputed(), equalTo(10L));
+	}
+
+	@Test
+	public void lostOutputIsRebuilt() throws Exception {
+		String input = RandomBoards.definitions(8, 15) + "0 0\n";
+		sweep(new MineSweeperIncremental(), input);
+		Files.delete(output);
+
+		MineSweeperIncremental sweeper = new MineSweeperIncremental();
+		assertThat(sweep(sweeper, input), equalTo(sequential(input, false)));
+		assertThat(sweeper.getRecomputed(), equalTo(15L));
+	}
+
+	@Test
+	public void matchesSequentialWithoutEndOfInput() throws Exception {
+		String input = RandomBoards.definitions(9, 30);
+		sweep(new MineSweeperIncremental(), input);
+		String after = input + RandomBoards.definitions(10, 1);
+
+		MineSweeperIncremental sweeper = new MineSweeperIncremental();
+		assertThat(sweep(sweeper, after), equalTo(sequential(after, false)));
+		assertThat(sweeper.getRecomputed(), equalTo(1L));
+	}
+
+	@Test
+	public void parseReadsOptions() {
+		Path[] files = new MineSweeperIncremental().parse(new String[] { "--columns", "in.txt", "out.txt" });
+
+		assertThat(files[0].toString(), equalTo("in.txt"));
+		assertThat(files[1].toString(), equalTo("out.txt"));
+	}
+
+	@Test
+	public void parseThrowsWithoutOutput() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("output file"));
+
+		new MineSweeperIncremental().parse(new String[] { "in.txt" });
+	}
+
+	@Test
+	public void removedBoardsAreSplicedOut() throws Exception {
+		String first = RandomBoards.definitions(11, 10);
+		String middle = RandomBoards.definitions(12, 5);
+		String last = RandomBoards.definitions(13, 10);
+		sweep(new MineSweeperIncremental(), first + middle + last + "0 0\n");
+		String after = (first + last + "0 0\n").replace("\n", "\r\n");
+
+		MineSweeperIncremental sweeper = new MineSweeperIncremental().withMapWindow(17);
+		assertThat(sweep(sweeper, after), equalTo(sequential(after, false)));
+		assertThat(sweeper.getRecomputed(), equalTo(0L));
+		assertThat(sweeper.getReused(), equalTo(20L));
+
+		sweeper = new MineSweeperIncremental();
+		String restored = first + last + "0 0\n";
+		assertThat(sweep(sweeper, restored), equalTo(sequential(restored, false)));
+		assertThat(sweeper.getRecomputed(), equalTo(0L));
+	}
+
+	private static String sequential(String input, boolean columns) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		String[] params = columns ? new String[] { "in.txt", "columns" } : new String[] { "in.txt" };
+		new MineSweeper(params, out).withInput(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)))
+				.sweep();
+		return out.toString("US-ASCII");
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		input = folder.getRoot().toPath().resolve("in.txt");
+		output = folder.getRoot().toPath().resolve("out.txt");
+	}
+
+	private String sweep(MineSweeperIncremental sweeper, String content) throws Exception {
+		Files.write(input, content.getBytes(StandardCharsets.US_ASCII));
+		Files.setLastModifiedTime(input, FileTime.fromMillis(modified += 1000));
+		sweeper.sweep(input, output);
+		return new String(Files.readAllBytes(output), StandardCharsets.US_ASCII);
+	}
+
+	@Test
+	public void unchangedInputIsNotRead() throws Exception {
+		String input = RandomBoards.definitions(14, 25) + "0 0\n";
+		String expected = sweep(new MineSweeperIncremental(), input);
+		long index = Files.getLastModifiedTime(MineSweeperIncremental.index(output)).toMillis();
+
+		MineSweeperIncremental sweeper = new MineSweeperIncremental();
+		sweeper.sweep(this.input, output);
+
+		assertThat(new String(Files.readAllBytes(output), StandardCharsets.US_ASCII), equalTo(expected));
+		assertThat(sweeper.getRecomputed(), equalTo(0L));
+		assertThat(sweeper.getReused(), equalTo(25L));
+		assertThat(Files.getLastModifiedTime(MineSweeperIncremental.index(output)).toMillis(), equalTo(index));
+	}
+}
@@ -0,0 +1,60 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class MineSweeperLoadTestTest {
+
+	@Test
+	public void reportPercentiles() {
+		MineSweeperLoadTest.Report report = new MineSweeperLoadTest.Report(new long[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 },
+				1, 100, 2_000_000_000L);
+
+		assertThat(report.getLatency(50), equalTo(5L));
+		assertThat(report.getLatency(99), equalTo(10L));
+		assertThat(report.getLatency(0), equalTo(1L));
+		assertThat(report.getThroughput(), equalTo(5.0));
+		assertThat(report.toString(), containsString("requests=11 failures=1"));
+	}
+
+	@Test
+	public void runCountsResponses() {
+		MineSweeperServer server = new MineSweeperServer().withPort(0).start();
+		try {
+			byte[] body = "2 2\n*.\n..\n0 0\n".getBytes(StandardCharsets.US_ASCII);
+			MineSweeperLoadTest instance = new MineSweeperLoadTest(
+					URI.create("http://localhost:" + server.getPort() + "/sweep"), body);
+
+			MineSweeperLoadTest.Report report = instance.run(20, 4);
+
+			assertThat(report.getSuccesses(), equalTo(20));
+			assertThat(report.getFailures(), equalTo(0));
+			assertTrue(report.getLatency(99) >= report.getLatency(50));
+			assertThat(server.getMetrics().getBoards(), equalTo(20L));
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	public void runCountsRejectedRequests() {
+		MineSweeperServer server = new MineSweeperServer().withPort(0).start();
+		try {
+			byte[] body = "1 1\nx\n0 0\n".getBytes(StandardCharsets.US_ASCII);
+
+			MineSweeperLoadTest.Report report = new MineSweeperLoadTest(
+					URI.create("http://localhost:" + server.getPort() + "/sweep"), body).run(3, 2);
+
+			assertThat(report.getFailures(), equalTo(3));
+		} finally {
+			server.stop(0);
+		}
+	}
+}
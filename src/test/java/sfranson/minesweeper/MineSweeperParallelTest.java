@@ -0,0 +1,205 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+public class MineSweeperParallelTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void compressedInputIsSweptSequentially() throws Exception {
+		String input = RandomBoards.definitions(5, 20) + "0 0\n";
+		Path file = folder.newFile("in.txt.gz").toPath();
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+			out.write(input.getBytes(StandardCharsets.US_ASCII));
+		}
+
+		assertThat(parallel(new MineSweeperParallel().withSplitSize(16), file), equalTo(sequential(input, false)));
+	}
+
+	@Test
+	public void invalidInputWritesEarlierBoards() throws Exception {
+		String input = RandomBoards.definitions(6, 30) + "1 2\n.x\n" + RandomBoards.definitions(7, 30) + "0 0\n";
+		Path file = write(input);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		try {
+			new MineSweeperParallel().withSplitSize(64).withThreads(3).sweep(file, out);
+			fail("invalid cell accepted");
+		} catch (MineSweeperException e) {
+			assertThat(e.getMessage(), containsString("Invalid input"));
+		}
+		assertThat(out.toString("US-ASCII"), equalTo(sequential(RandomBoards.definitions(6, 30) + "1 2\n", false)));
+	}
+
+	@Test
+	public void invalidBoardLargerThanARangeWritesEarlierBoards() throws Exception {
+		String earlier = RandomBoards.definitions(11, 30);
+		String input = earlier + "9 9\n" + ".........\n".repeat(8) + "....x....\n" + RandomBoards.definitions(12, 30)
+				+ "0 0\n";
+		Path file = write(input);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		try {
+			new MineSweeperParallel().withSplitSize(8).withThreads(3).sweep(file, out);
+			fail("invalid cell accepted");
+		} catch (MineSweeperException e) {
+			assertThat(e.getMessage(), containsString("Invalid input"));
+		}
+		assertThat(out.toString("US-ASCII"), equalTo(sequential(earlier + "9 9\n", false)));
+	}
+
+	@Test
+	public void isHeader() {
+		assertThat(header("3 4"), equalTo(true));
+		assertThat(header("34"), equalTo(true));
+		assertThat(header("3 \t 4"), equalTo(true));
+		assertThat(header("0 0"), equalTo(true));
+		assertThat(header("3 4 5"), equalTo(false));
+		assertThat(header(" 3 4"), equalTo(false));
+		assertThat(header("3"), equalTo(false));
+		assertThat(header("*.*"), equalTo(false));
+		assertThat(header(""), equalTo(false));
+	}
+
+	private static boolean header(String line) {
+		byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+		return MineSweeperParallel.isHeader(bytes, bytes.length);
+	}
+
+	@Test
+	public void matchesSequentialAcrossSplitSizes() throws Exception {
+		String input = RandomBoards.definitions(1, 200) + "0 0\n";
+		Path file = write(input);
+		String expected = sequential(input, false);
+
+		for (long split : new long[] { 1, 7, 64, 1000, MineSweeperParallel.DEFAULT_SPLIT_SIZE }) {
+			for (int threads : new int[] { 1, 3 }) {
+				MineSweeperParallel sweeper = new MineSweeperParallel().withSplitSize(split).withThreads(threads);
+				assertThat("split " + split + ", threads " + threads, parallel(sweeper, file), equalTo(expected));
+			}
+		}
+	}
+
+	@Test
+	public void matchesSequentialForColumns() throws Exception {
+		String input = RandomBoards.definitions(2, 50) + "0 0\n";
+		Path file = write(input);
+
+		assertThat(parallel(new MineSweeperParallel().withColumns().withSplitSize(50), file),
+				equalTo(sequential(input, true)));
+	}
+
+	@Test
+	public void matchesSequentialWithCarriageReturns() throws Exception {
+		String input = (RandomBoards.definitions(3, 40) + "0 0\n").replace("\n", "\r\n");
+		Path file = write(input);
+
+		assertThat(parallel(new MineSweeperParallel().withSplitSize(33), file), equalTo(sequential(input, false)));
+	}
+
+	@Test
+	public void matchesSequentialWithoutEndOfInput() throws Exception {
+		String input = RandomBoards.definitions(4, 40);
+		Path file = write(input);
+
+		assertThat(parallel(new MineSweeperParallel().withSplitSize(40), file), equalTo(sequential(input, false)));
+	}
+
+	@Test
+	public void parseReadsOptions() {
+		MineSweeperParallel sweeper = new MineSweeperParallel();
+
+		Path file = sweeper.parse(new String[] { "--threads", "2", "--split", "4096", "--columns", "in.txt" });
+
+		assertThat(file.toString(), equalTo("in.txt"));
+	}
+
+	@Test
+	public void parseThrowsOnNonNumericSplit() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("Split size must be a number"));
+
+		new MineSweeperParallel().parse(new String[] { "--split", "big", "in.txt" });
+	}
+
+	@Test
+	public void parseThrowsOnNonNumericThreads() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("Thread count must be a number"));
+
+		new MineSweeperParallel().parse(new String[] { "--threads", "many", "in.txt" });
+	}
+
+	@Test
+	public void parseThrowsWithoutSingleInput() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("one input file"));
+
+		new MineSweeperParallel().parse(new String[] { "a.txt", "b.txt" });
+	}
+
+	@Test
+	public void remapsWindows() throws Exception {
+		String input = RandomBoards.definitions(8, 60) + "0 0\n";
+		Path file = write(input);
+
+		assertThat(parallel(new MineSweeperParallel().withSplitSize(100).withMapWindow(13), file),
+				equalTo(sequential(input, false)));
+	}
+
+	private static String parallel(MineSweeperParallel sweeper, Path file) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		sweeper.sweep(file, out);
+		return out.toString("US-ASCII");
+	}
+
+	private static String sequential(String input, boolean columns) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		String[] params = columns ? new String[] { "in.txt", "columns" } : new String[] { "in.txt" };
+		new MineSweeper(params, out).withInput(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)))
+				.sweep();
+		return out.toString("US-ASCII");
+	}
+
+	@Test
+	public void stopsAtEndOfInput() throws Exception {
+		String input = RandomBoards.definitions(9, 30) + "0 0\n" + "not a board\n" + RandomBoards.definitions(10, 30);
+		Path file = write(input);
+
+		assertThat(parallel(new MineSweeperParallel().withSplitSize(20), file), equalTo(sequential(input, false)));
+	}
+
+	@Test
+	public void withSplitSizeRejectsZero() {
+		thrown.expect(MineSweeperException.class);
+
+		new MineSweeperParallel().withSplitSize(0);
+	}
+
+	private Path write(String input) throws Exception {
+		Path file = folder.newFile().toPath();
+		Files.write(file, input.getBytes(StandardCharsets.US_ASCII));
+		return file;
+	}
+}
@@ -0,0 +1,185 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+public class MineSweeperResumableTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path input;
+
+	private Path output;
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	/**
+	 * Sweeps an input whose 35th board is invalid, leaving a checkpoint after
+	 * board 30, and returns the valid input.
+	 */
+	private String crash() throws Exception {
+		String valid = RandomBoards.definitions(1, 50) + "0 0\n";
+		int board = nthHeader(valid, 35);
+		int cell = valid.indexOf('\n', board) + 1;
+		String invalid = valid.substring(0, cell) + "x" + valid.substring(cell + 1);
+		Files.write(input, invalid.getBytes(StandardCharsets.US_ASCII));
+		try {
+			new MineSweeperResumable().withCheckpointBoards(10).sweep(input, output);
+			fail("invalid cell accepted");
+		} catch (MineSweeperException e) {
+			assertThat(e.getMessage(), containsString("Invalid input"));
+		}
+		assertThat(Files.exists(MineSweeperResumable.checkpoint(output)), equalTo(true));
+		return valid;
+	}
+
+	@Test
+	public void checkpointsAreRemovedOnCompletion() throws Exception {
+		String valid = RandomBoards.definitions(2, 40) + "0 0\n";
+		Files.write(input, valid.getBytes(StandardCharsets.US_ASCII));
+		MineSweeperResumable sweeper = new MineSweeperResumable().withCheckpointBoards(10);
+
+		sweeper.sweep(input, output);
+
+		assertThat(read(output), equalTo(sequential(valid)));
+		assertThat(sweeper.getCheckpoints(), equalTo(4));
+		assertThat(Files.exists(MineSweeperResumable.checkpoint(output)), equalTo(false));
+	}
+
+	@Test
+	public void changedInputIsNotResumed() throws Exception {
+		crash();
+		Files.setLastModifiedTime(input, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("changed since the checkpoint"));
+
+		new MineSweeperResumable().withResume().sweep(input, output);
+	}
+
+	@Test
+	public void compressedInputIsRefused() throws Exception {
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(input))) {
+			out.write("1 1\n*\n0 0\n".getBytes(StandardCharsets.US_ASCII));
+		}
+
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("compressed"));
+
+		new MineSweeperResumable().sweep(input, output);
+	}
+
+	private static int nthHeader(String input, int n) {
+		int position = 0;
+		for (int board = 1; ; board++) {
+			int next = input.indexOf('\n', position) + 1;
+			if (board == n) {
+				return position;
+			}
+			int rows = input.charAt(position) - '0';
+			position = next;
+			for (int r = 0; r < rows; r++) {
+				position = input.indexOf('\n', position) + 1;
+			}
+		}
+	}
+
+	@Test
+	public void parseReadsOptions() {
+		Path[] files = new MineSweeperResumable().parse(new String[] { "--resume", "--checkpoint-interval", "5",
+				"--checkpoint-boards", "100", "--columns", "in.txt", "out.txt" });
+
+		assertThat(files[0].toString(), equalTo("in.txt"));
+		assertThat(files[1].toString(), equalTo("out.txt"));
+	}
+
+	@Test
+	public void parseThrowsOnNonNumericInterval() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("Checkpoint interval must be a number"));
+
+		new MineSweeperResumable().parse(new String[] { "--checkpoint-interval", "often", "in.txt", "out.txt" });
+	}
+
+	private static String read(Path file) throws Exception {
+		return new String(Files.readAllBytes(file), StandardCharsets.US_ASCII);
+	}
+
+	@Test
+	public void resumeAppendsAfterCheckpoint() throws Exception {
+		String valid = crash();
+		// the partly written output after the checkpoint is dropped on resume
+		Files.write(output, "garbage".getBytes(StandardCharsets.US_ASCII), StandardOpenOption.APPEND);
+		FileTime modified = Files.getLastModifiedTime(input);
+		Files.write(input, valid.getBytes(StandardCharsets.US_ASCII));
+		Files.setLastModifiedTime(input, modified);
+		MineSweeperResumable sweeper = new MineSweeperResumable().withResume();
+
+		sweeper.sweep(input, output);
+
+		assertThat(read(output), equalTo(sequential(valid)));
+		assertThat(sweeper.getResumedFrom(), equalTo(31));
+		assertThat(sweeper.getMetrics().getBoards(), equalTo(20L));
+		assertThat(sweeper.getMetrics().getBytesIn(), equalTo((long) valid.length() - nthHeader(valid, 31)));
+		assertThat(Files.exists(MineSweeperResumable.checkpoint(output)), equalTo(false));
+	}
+
+	@Test
+	public void resumeWithoutCheckpointStartsOver() throws Exception {
+		String valid = RandomBoards.definitions(3, 10) + "0 0\n";
+		Files.write(input, valid.getBytes(StandardCharsets.US_ASCII));
+		Files.write(output, "old output".getBytes(StandardCharsets.US_ASCII));
+		MineSweeperResumable sweeper = new MineSweeperResumable().withResume();
+
+		sweeper.sweep(input, output);
+
+		assertThat(read(output), equalTo(sequential(valid)));
+		assertThat(sweeper.getResumedFrom(), equalTo(1));
+	}
+
+	private static String sequential(String input) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new MineSweeper(new String[] { "in.txt" }, out)
+				.withInput(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII))).sweep();
+		return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+	}
+
+	@Before
+	public void setUp() {
+		input = folder.getRoot().toPath().resolve("in.txt");
+		output = folder.getRoot().toPath().resolve("out.txt");
+	}
+
+	@Test
+	public void sweepWithoutResumeReplacesOutput() throws Exception {
+		crash();
+		String valid = RandomBoards.definitions(4, 5) + "0 0\n";
+		Files.write(input, valid.getBytes(StandardCharsets.US_ASCII));
+
+		new MineSweeperResumable().withCheckpointInterval(0, TimeUnit.SECONDS).sweep(input, output);
+
+		assertThat(read(output), equalTo(sequential(valid)));
+		assertThat(Files.exists(MineSweeperResumable.checkpoint(output)), equalTo(false));
+	}
+}
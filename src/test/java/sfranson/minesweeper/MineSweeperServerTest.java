@@ -0,0 +1,114 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MineSweeperServerTest {
+
+	private static final String BOARDS = "4 4\n*...\n....\n.*..\n....\n3 5\n**...\n.....\n.*...\n0 0\n";
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	private MineSweeperServer instance;
+
+	private static String expected(String boards, String... params) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		String[] args = params.length > 0 ? params : new String[] { "boards" };
+		new MineSweeper(args, out).withInput(new ByteArrayInputStream(boards.getBytes(StandardCharsets.US_ASCII)))
+				.sweep();
+		return out.toString();
+	}
+
+	private HttpResponse<String> post(String path, String body) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	@Test
+	public void metricsCountsBoards() throws Exception {
+		post("/sweep", BOARDS);
+
+		HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/metrics")).build(),
+				HttpResponse.BodyHandlers.ofString());
+
+		assertThat(response.statusCode(), equalTo(200));
+		assertThat(instance.getMetrics().getBoards(), equalTo(2L));
+		assertThat(response.body(), containsString("BoardCache"));
+	}
+
+	@Before
+	public void setup() {
+		instance = new MineSweeperServer().withPort(0).withThreads(2).start();
+	}
+
+	@After
+	public void stop() {
+		instance.stop(0);
+	}
+
+	@Test
+	public void sweepColumns() throws Exception {
+		HttpResponse<String> response = post("/sweep?columns", "3 2\n*..\n..*\n0 0\n");
+
+		assertThat(response.body(), equalTo(expected("3 2\n*..\n..*\n0 0\n", "boards", "columns")));
+	}
+
+	@Test
+	public void sweepEmptyBody() throws Exception {
+		HttpResponse<String> response = post("/sweep", "");
+
+		assertThat(response.statusCode(), equalTo(400));
+		assertThat(response.body(), containsString("no board definitions"));
+	}
+
+	@Test
+	public void sweepInvalidInput() throws Exception {
+		HttpResponse<String> response = post("/sweep", "1 2\n*x\n0 0\n");
+
+		assertThat(response.statusCode(), equalTo(400));
+		assertThat(response.body(), containsString("* and ."));
+	}
+
+	@Test
+	public void sweepInvalidInputAfterFirstBoard() throws Exception {
+		HttpResponse<String> response = post("/sweep", "1 1\n*\n1 2\n*x\n0 0\n");
+
+		assertThat(response.statusCode(), equalTo(200));
+		assertThat(response.body(), equalTo(expected("1 1\n*\n0 0\n") + "Invalid input.  Cell definition can only inlude the * and . characters."
+				+ System.lineSeparator()));
+	}
+
+	@Test
+	public void sweepMatchesMineSweeper() throws Exception {
+		HttpResponse<String> response = post("/sweep", BOARDS);
+
+		assertThat(response.statusCode(), equalTo(200));
+		assertThat(response.body(), equalTo(expected(BOARDS)));
+	}
+
+	@Test
+	public void sweepRejectsGet() throws Exception {
+		HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/sweep")).build(),
+				HttpResponse.BodyHandlers.ofString());
+
+		assertThat(response.statusCode(), equalTo(405));
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + instance.getPort() + path);
+	}
+}
@@ -4,6 +4,7 @@ import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
@@ -15,6 +16,8 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -115,13 +118,94 @@ public class MineSweeperTest {
 		verify(instance).sweep();
 	}
 
+	@Test
+	public void printReusesHintsOfRepeatedBoard() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		instance = Mockito.spy(new MineSweeper(params, out));
+
+		instance.print(new Board("1", 2, 2).withRows("*.", ".."));
+		Board repeated = Mockito.spy(new Board("2", 2, 2).withRows("*.", ".."));
+		instance.print(repeated);
+
+		assertThat(out.toString(), equalTo("Mine Field #1:\n*1\n11\n\nMine Field #2:\n*1\n11\n\n"));
+		assertThat(instance.getCache().getHits(), equalTo(1L));
+		assertThat(instance.getCache().getMisses(), equalTo(1L));
+		verify(repeated, times(0)).printHints(any());
+	}
+
+	@Test
+	public void printRecordsMetrics() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		instance = new MineSweeper(params, out);
+
+		Board board = instance.processInput("2 2", null);
+		instance.processInput("*.", board);
+		instance.processInput("..", board);
+		instance.print(board);
+
+		SweepMetrics metrics = instance.getMetrics();
+		assertThat(metrics.getBoards(), equalTo(1L));
+		assertThat(metrics.getSquares(), equalTo(4L));
+		assertThat(metrics.getBytesIn(), equalTo(10L));
+		assertThat(metrics.getBytesOut(), equalTo((long) out.size()));
+	}
+
+	@Test
+	public void printWithHintTable() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		instance = new MineSweeper(params, out).withHintTable();
+
+		instance.print(instance.processBoard("3 3", null).withRows("*..", "...", "..*"));
+
+		assertThat(out.toString(), equalTo("Mine Field #1:\n*10\n121\n01*\n\n"));
+	}
+
+	@Test
+	public void printWithEngineSelector() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		EngineSelector selector = new EngineSelector(0.2, 9);
+		instance = new MineSweeper(params, out).withCache(new BoardCache(0)).withEngineSelector(selector);
+
+		instance.print(instance.processBoard("3 3", null).withRows("*..", "...", "..*"));
+		instance.print(instance.processBoard("3 3", null).withRows("...", "...", "..*"));
+
+		assertThat(out.toString(), equalTo("Mine Field #1:\n*10\n121\n01*\n\nMine Field #1:\n000\n011\n01*\n\n"));
+		assertThat(instance.getEngineSelector().getTableBoards(), equalTo(1L));
+		assertThat(instance.getEngineSelector().getCellBoards(), equalTo(1L));
+	}
+
+	@Test
+	public void printWithTileCache() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		TileCache tiles = new TileCache(16);
+		instance = new MineSweeper(params, out).withCache(new BoardCache(0)).withTileCache(tiles);
+
+		instance.print(instance.processBoard("3 3", null).withRows("*..", "...", "..*"));
+		instance.print(instance.processBoard("3 3", null).withRows("*..", "...", "..*"));
+
+		assertThat(out.toString(), equalTo("Mine Field #1:\n*10\n121\n01*\n\nMine Field #1:\n*10\n121\n01*\n\n"));
+		assertThat(instance.getTileCache().getHits(), equalTo(1L));
+	}
+
+	@Test
+	public void printWithoutCache() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		instance = new MineSweeper(params, out).withCache(new BoardCache(0));
+
+		instance.print(new Board("1", 1, 2).withRows("*."));
+		instance.print(new Board("2", 1, 2).withRows("*."));
+
+		assertThat(out.toString(), equalTo("Mine Field #1:\n*1\n\nMine Field #2:\n*1\n\n"));
+		assertThat(instance.getCache().getHits(), equalTo(0L));
+	}
+
 	@Test
 	public void processBoardCallsRowsAsColumns() {
 		Board board = Mockito.mock(Board.class);
 
 		doReturn(true).when(instance).rowsAsColumns();
 
-		when(board.getId()).thenReturn("2");
+		when(board.getNumber()).thenReturn(2);
 
 		Board result = instance.processBoard("1 1", board);
 
@@ -129,6 +213,13 @@ public class MineSweeperTest {
 
 	}
 
+	@Test
+	public void processBoardKeysCacheableBoards() {
+		Board result = instance.processBoard("1 2", null).withRows("*.");
+
+		assertThat(result.contentKey(), notNullValue());
+	}
+
 	@Test
 	public void processBoardSetsDimensions() {
 
@@ -151,7 +242,7 @@ public class MineSweeperTest {
 	@Test
 	public void processBoardSetsIncrementedId() {
 		Board board = Mockito.mock(Board.class);
-		when(board.getId()).thenReturn("2");
+		when(board.getNumber()).thenReturn(2);
 
 		Board result = instance.processBoard("1 1", board);
 
@@ -159,6 +250,15 @@ public class MineSweeperTest {
 
 	}
 
+	@Test
+	public void processBoardSkipsKeyWithoutCache() {
+		instance.withCache(new BoardCache(0));
+
+		Board result = instance.processBoard("1 2", null).withRows("*.");
+
+		assertThat(result.contentKey(), nullValue());
+	}
+
 	@Test
 	public void processInputPrintsOnStart() {
 		Board board = Mockito.mock(Board.class);
@@ -213,6 +313,18 @@ public class MineSweeperTest {
 		assertThat(instance.scanner(params), notNullValue());
 	}
 
+	@Test
+	public void scannerThrowsOnCorruptInput() throws Exception {
+		params[0] = "test";
+		doReturn(new ByteArrayInputStream(new byte[] { 0x1f, (byte) 0x8b, 0x07, 0x00 })).when(instance).fileSource("test");
+
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("Unable to read the input"));
+		thrown.expectMessage(not(containsString("file name")));
+
+		instance.scanner(params);
+	}
+
 	@Test
 	public void scannerThrowsOnException() throws Exception {
 		params[0] = "test";
@@ -0,0 +1,164 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MineSweeperWatcherTest {
+
+	private static final String BOARDS = "4 4\n*...\n....\n.*..\n....\n3 5\n**...\n.....\n.*...\n0 0\n";
+
+	private Path archive;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path inbox;
+
+	private MineSweeperWatcher instance;
+
+	private Path outbox;
+
+	private static Path await(Path file) throws InterruptedException {
+		for (int i = 0; i < 200 && !Files.exists(file); i++) {
+			Thread.sleep(50);
+		}
+		if (!Files.exists(file)) {
+			fail(file + " was not written.");
+		}
+		return file;
+	}
+
+	private static String expected(String boards) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new MineSweeper(new String[] { "boards" }, out)
+				.withInput(new ByteArrayInputStream(boards.getBytes(StandardCharsets.US_ASCII))).sweep();
+		return out.toString();
+	}
+
+	private static String read(Path file) throws Exception {
+		return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Drops a file into the inbox the way upstream writers should: written
+	 * under an ignored name, then renamed.
+	 */
+	private void drop(String name, String content) throws Exception {
+		Path part = inbox.resolve(name + ".part");
+		Files.write(part, content.getBytes(StandardCharsets.US_ASCII));
+		Files.move(part, inbox.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	@Test
+	public void invalidFileWritesError() throws Exception {
+		instance.start();
+
+		drop("bad.txt", "1 2\n*x\n0 0\n");
+
+		assertThat(read(await(outbox.resolve("bad.txt.err"))), containsString("* and ."));
+		assertThat(Files.exists(outbox.resolve("bad.txt.out")), equalTo(false));
+	}
+
+	@Test
+	public void processArchivesInput() throws Exception {
+		Path file = Files.write(inbox.resolve("a.txt"), BOARDS.getBytes(StandardCharsets.US_ASCII));
+
+		Path output = instance.process(file);
+
+		assertThat(output, equalTo(outbox.resolve("a.txt.out")));
+		assertThat(read(output), equalTo(expected(BOARDS)));
+		assertThat(Files.exists(file), equalTo(false));
+		assertThat(Files.exists(archive.resolve("a.txt")), equalTo(true));
+		assertThat(Files.exists(outbox.resolve(".a.txt.tmp")), equalTo(false));
+	}
+
+	@Test
+	public void processEmptyFileWritesError() throws Exception {
+		Path file = Files.write(inbox.resolve("empty.txt"), new byte[0]);
+
+		assertThat(instance.process(file), equalTo(outbox.resolve("empty.txt.err")));
+	}
+
+	@Test
+	public void processUnreadableFileWritesError() throws Exception {
+		Path file = inbox.resolve("gone.txt");
+
+		Path output = instance.process(file);
+
+		assertThat(output, equalTo(outbox.resolve("gone.txt.err")));
+		assertThat(read(output), containsString("Unable to sweep gone.txt"));
+		assertThat(Files.exists(outbox.resolve(".gone.txt.tmp")), equalTo(false));
+	}
+
+	@Before
+	public void setup() throws Exception {
+		inbox = folder.newFolder("inbox").toPath();
+		outbox = folder.newFolder("outbox").toPath();
+		archive = folder.getRoot().toPath().resolve("archive");
+		Files.createDirectories(archive);
+		instance = new MineSweeperWatcher().withInbox(inbox).withOutbox(outbox).withArchive(archive)
+				.withLog(new PrintStream(new ByteArrayOutputStream()));
+	}
+
+	@Test
+	public void startSweepsExistingFiles() throws Exception {
+		Files.write(inbox.resolve("early.txt"), BOARDS.getBytes(StandardCharsets.US_ASCII));
+
+		instance.start();
+
+		assertThat(read(await(outbox.resolve("early.txt.out"))), equalTo(expected(BOARDS)));
+	}
+
+	@After
+	public void stop() {
+		instance.stop();
+	}
+
+	@Test
+	public void watchIgnoresPartialFiles() throws Exception {
+		instance.start();
+		Files.write(inbox.resolve("slow.txt.part"), "1 1\n".getBytes(StandardCharsets.US_ASCII));
+
+		drop("next.txt", BOARDS);
+
+		await(outbox.resolve("next.txt.out"));
+		assertThat(Files.exists(outbox.resolve("slow.txt.part.out")), equalTo(false));
+		assertThat(Files.exists(inbox.resolve("slow.txt.part")), equalTo(true));
+	}
+
+	@Test
+	public void watchSweepsDroppedFiles() throws Exception {
+		instance.withThreads(2).start();
+
+		drop("one.txt", BOARDS);
+		drop("two.txt", "1 1\n*\n0 0\n");
+
+		assertThat(read(await(outbox.resolve("one.txt.out"))), equalTo(expected(BOARDS)));
+		assertThat(read(await(outbox.resolve("two.txt.out"))), equalTo(expected("1 1\n*\n0 0\n")));
+		assertThat(instance.getMetrics().getBoards(), equalTo(3L));
+	}
+
+	@Test
+	public void warmUpLeavesCountersUntouched() {
+		instance.warmUp(100);
+
+		assertThat(instance.getMetrics().getBoards(), equalTo(0L));
+		assertThat(instance.getCache().toString(), containsString("misses=0"));
+	}
+}
@@ -0,0 +1,111 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class OffHeapBoardTest {
+
+	private OffHeapBoard instance;
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@After
+	public void release() {
+		if (instance != null) {
+			instance.release();
+		}
+	}
+
+	@Test
+	public void copyHintsAcrossChunks() {
+		String[] rows = RandomBoards.rows(new Random(2), 7, 11, 5);
+		// 16 byte chunks, so most rows span two of them
+		instance = new OffHeapBoard("1", 7, 11, 4);
+		for (String row : rows) {
+			instance.withRow(row);
+		}
+		Board board = new Board("1", 7, 11).withRows(rows).close();
+		byte[] hints = new byte[11];
+
+		for (int row = 0; row < 7; row++) {
+			instance.copyHints(row, hints, 0);
+			for (int col = 0; col < 11; col++) {
+				assertThat(Integer.toString(hints[col]), equalTo(board.get(row, col)));
+			}
+		}
+	}
+
+	@Test
+	public void getOffHeapSize() {
+		instance = new OffHeapBoard("1", 10, 10);
+
+		assertThat(instance.getOffHeapSize(), equalTo(13L + 100L));
+
+		instance.release();
+		assertThat(instance.getOffHeapSize(), equalTo(0L));
+	}
+
+	@Test
+	public void printMatchesBoard() {
+		String[] rows = RandomBoards.rows(new Random(1), 13, 17, 5);
+		instance = new OffHeapBoard("4", 13, 17, 5);
+		for (String row : rows) {
+			instance.withRow(row);
+		}
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		new Board("4", 13, 17).withRows(rows).print(expected);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		instance.print(out);
+
+		assertThat(out.toString(), equalTo(expected.toString()));
+	}
+
+	@Test
+	public void throwsAfterRelease() {
+		instance = new OffHeapBoard("1", 2, 2).withMine(0, 0);
+		instance.release();
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("released"));
+
+		instance.hint(1, 1);
+	}
+
+	@Test
+	public void throwsOnInvalidPattern() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("* and ."));
+
+		instance = new OffHeapBoard("1", 1, 2);
+		instance.withRow("*x");
+	}
+
+	@Test
+	public void throwsOnMineOutsideBoard() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("Invalid square"));
+
+		instance = new OffHeapBoard("1", 2, 2);
+		instance.withMine(2, 0);
+	}
+
+	@Test
+	public void withMineCountsOnce() {
+		instance = new OffHeapBoard("1", 3, 3).withMine(1, 1).withMine(1, 1).withMine(2, 2);
+
+		assertThat(instance.getMineCount(), equalTo(2L));
+		assertThat(instance.isMine(1, 1), equalTo(true));
+		assertThat(instance.hint(0, 0), equalTo(1));
+		assertThat(instance.hint(1, 2), equalTo(2));
+	}
+}
@@ -0,0 +1,87 @@
+package sfranson.minesweeper;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+/**
+ * Random boards shared by the tests, in the forms they need: row definitions,
+ * boards, or input text with headers.
+ *
+ * <p>
+ * Every square is a mine with odds of one in <code>odds</code>, drawn row by
+ * row from the given random source, so equal seeds give equal boards.
+ * </p>
+ */
+final class RandomBoards {
+
+	/**
+	 * Gets a closed-form board of random rows.
+	 */
+	static Board board(long seed, int rows, int columns, int odds) {
+		return new Board("random", rows, columns).withRows(rows(new Random(seed), rows, columns, odds));
+	}
+
+	/**
+	 * Gets the input text of a board: its header and rows.
+	 */
+	static String definition(Random random, int rows, int columns, int odds) {
+		StringBuilder input = new StringBuilder().append(rows).append(' ').append(columns).append('\n');
+		for (String row : rows(random, rows, columns, odds)) {
+			input.append(row).append('\n');
+		}
+		return input.toString();
+	}
+
+	/**
+	 * Gets the input text of boards of 1 to 9 rows and columns, one square in
+	 * four a mine, without the end marker.
+	 */
+	static String definitions(long seed, int count) {
+		Random random = new Random(seed);
+		StringBuilder input = new StringBuilder();
+		for (int b = 0; b < count; b++) {
+			int rows = 1 + random.nextInt(9);
+			int columns = 1 + random.nextInt(9);
+			input.append(definition(random, rows, columns, 4));
+		}
+		return input.toString();
+	}
+
+	/**
+	 * Gets the hints of a board definition as printed by {@link OffHeapBoard},
+	 * independently of the {@link Board} under test.
+	 */
+	static String hints(String id, String definition) {
+		String[] lines = definition.split("\n");
+		String[] dimensions = lines[0].split(" ");
+		OffHeapBoard board = new OffHeapBoard(id, Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]));
+		try {
+			for (int row = 1; row < lines.length; row++) {
+				board.withRow(lines[row]);
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			board.print(out);
+			return out.toString();
+		} finally {
+			board.release();
+		}
+	}
+
+	/**
+	 * Gets the definitions of random rows.
+	 */
+	static String[] rows(Random random, int rows, int columns, int odds) {
+		String[] definitions = new String[rows];
+		char[] row = new char[columns];
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < columns; c++) {
+				row[c] = random.nextInt(odds) == 0 ? '*' : '.';
+			}
+			definitions[r] = new String(row);
+		}
+		return definitions;
+	}
+
+	private RandomBoards() {
+	}
+}
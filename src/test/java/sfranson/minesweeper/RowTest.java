@@ -72,6 +72,18 @@ public class RowTest {
 		assertThat(instance.close(), equalTo(instance));
 	}
 
+	@Test
+	public void mineCount() {
+		instance.withCellCount(4);
+		instance.withCells("*.**");
+
+		assertThat(instance.getMineCount(), equalTo(3));
+
+		instance.withCells("*...");
+
+		assertThat(instance.getMineCount(), equalTo(1));
+	}
+
 	@Test
 	public void print() {
 		instance.withCellCount(4);
@@ -81,6 +93,49 @@ public class RowTest {
 		assertThat(instance.print(), equalTo("*2*1"));
 	}
 
+	@Test
+	public void printIntoBuffer() {
+		byte[] buffer = new byte[8];
+		instance.withCellCount(4).withCells("*...").withCounts(new int[] { 0, 1, 3, 0 });
+
+		int end = instance.print(buffer, 1);
+
+		assertThat(end, equalTo(5));
+		assertThat(new String(buffer, 1, end - 1), equalTo("*130"));
+	}
+
+	@Test
+	public void printIntoBufferPadsToWidth() {
+		byte[] buffer = new byte[10];
+		instance.withCellCount(4).withCells("*...").withWidth(2).withCounts(new int[] { 0, 12, 3, 0 });
+
+		int end = instance.print(buffer, 1);
+
+		assertThat(end, equalTo(9));
+		assertThat(new String(buffer, 1, end - 1), equalTo(" *12 3 0"));
+	}
+
+	@Test
+	public void printPadsToWidth() {
+		instance.withCellCount(3).withCells("*..").withWidth(2).withCounts(new int[] { 0, 12, 3 });
+
+		assertThat(instance.print(), equalTo(" *12 3"));
+	}
+
+	@Test
+	public void resetKeepsCellsAndClearsState() {
+		Row next = new Row(1, 3);
+		instance.withCellCount(3).withNext(next);
+		instance.withCells("**.").close();
+
+		instance.reset(2, 2).withCells(".*").close();
+
+		assertThat(instance.getNext() == null, equalTo(true));
+		assertThat(next.getPrev(), equalTo(instance));
+		assertThat(instance.getMineCount(), equalTo(1));
+		assertThat(instance.print(), equalTo("1*"));
+	}
+
 	@Before
 	public void setup() {
 		instance = new Row(0, 1);
@@ -0,0 +1,146 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ShardCoordinatorTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private final List<ShardWorker> workers = new ArrayList<>();
+
+	@Test
+	public void address() {
+		InetSocketAddress address = ShardCoordinator.address("node-2:7100");
+
+		assertThat(address.getHostString(), equalTo("node-2"));
+		assertThat(address.getPort(), equalTo(7100));
+	}
+
+	@Test
+	public void addressThrowsWithoutPort() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("host:port"));
+
+		ShardCoordinator.address("node-2");
+	}
+
+	private ShardCoordinator coordinator(int count) {
+		ShardCoordinator coordinator = new ShardCoordinator();
+		for (int i = 0; i < count; i++) {
+			ShardWorker worker = new ShardWorker().withPort(0).start();
+			workers.add(worker);
+			coordinator.withWorker(new InetSocketAddress("localhost", worker.getPort()));
+		}
+		return coordinator;
+	}
+
+	@Test
+	public void mainReportsNonNumericSpawn() {
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+		PrintStream old = System.err;
+		System.setErr(new PrintStream(err, true));
+		try {
+			ShardCoordinator.main(new String[] { "--spawn", "two", "board.txt" });
+		} finally {
+			System.setErr(old);
+		}
+
+		assertThat(err.toString(), containsString("Invalid arguments.  Worker count must be a number, was two."));
+	}
+
+	@Test
+	public void matchesSingleProcess() throws Exception {
+		String input = RandomBoards.definition(new Random(1), 101, 37, 5);
+
+		for (int count : new int[] { 1, 2, 3, 7 }) {
+			assertThat("workers " + count, sweep(coordinator(count), input), equalTo(RandomBoards.hints("1", input)));
+		}
+	}
+
+	@Test
+	public void moreWorkersThanRows() throws Exception {
+		String input = RandomBoards.definition(new Random(2), 3, 12, 5);
+
+		assertThat(sweep(coordinator(5), input), equalTo(RandomBoards.hints("1", input)));
+	}
+
+	@Test
+	public void silentWorkerTimesOut() throws Exception {
+		String input = RandomBoards.definition(new Random(4), 4, 8, 5);
+		// accepts connections into its backlog but never answers
+		try (ServerSocket silent = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+			ShardCoordinator coordinator = new ShardCoordinator().withReadTimeout(200)
+					.withWorker(new InetSocketAddress(InetAddress.getLoopbackAddress(), silent.getLocalPort()));
+			thrown.expect(MineSweeperException.class);
+			thrown.expectMessage(containsString("Worker failed."));
+
+			sweep(coordinator, input);
+		}
+	}
+
+	@Test
+	public void spawnedWorkers() throws Exception {
+		String input = RandomBoards.definition(new Random(3), 64, 100, 5);
+
+		try (ShardCoordinator coordinator = new ShardCoordinator().withSpawnedWorkers(2)) {
+			assertThat(coordinator.getWorkers().size(), equalTo(2));
+			assertThat(sweep(coordinator, input), equalTo(RandomBoards.hints("1", input)));
+		}
+	}
+
+	private static String sweep(ShardCoordinator coordinator, String input) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		coordinator.sweep("1", new BufferedReader(new StringReader(input)), out);
+		return out.toString();
+	}
+
+	@Test
+	public void sweepThrowsOnShortRow() throws Exception {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("Row 2 has 3 cells, expected 4"));
+
+		sweep(coordinator(2), "4 4\n....\n.*..\n...\n....\n");
+	}
+
+	@Test
+	public void sweepThrowsOnMissingRows() throws Exception {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("row 3"));
+
+		sweep(coordinator(2), "4 4\n....\n.*..\n....\n");
+	}
+
+	@Test
+	public void sweepThrowsWithoutWorkers() throws Exception {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("worker"));
+
+		sweep(new ShardCoordinator(), "1 1\n*\n");
+	}
+
+	@After
+	public void tearDown() {
+		for (ShardWorker worker : workers) {
+			worker.stop();
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShardWorkerTest {
+
+	private ShardWorker worker;
+
+	private static String band(int port, int rows, int columns, boolean haloAbove, boolean haloBelow,
+			String... definitions) throws IOException {
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			out.writeInt(rows);
+			out.writeInt(columns);
+			out.writeBoolean(haloAbove);
+			out.writeBoolean(haloBelow);
+			for (String definition : definitions) {
+				byte[] packed = new byte[(columns + 7) / 8];
+				for (int col = 0; col < columns; col++) {
+					if (definition.charAt(col) == '*') {
+						packed[col / 8] = (byte) (packed[col / 8] | 1 << (col % 8));
+					}
+				}
+				out.write(packed);
+			}
+			out.flush();
+			byte[] hints = new byte[rows * columns];
+			new DataInputStream(socket.getInputStream()).readFully(hints);
+			return new String(hints, StandardCharsets.US_ASCII);
+		}
+	}
+
+	@Test
+	public void bandWithHalos() throws Exception {
+		String hints = band(worker.getPort(), 1, 3, true, true, "*..", "...", "..*");
+
+		assertThat(hints, equalTo("121"));
+	}
+
+	@Test
+	public void bandWithoutHalos() throws Exception {
+		String hints = band(worker.getPort(), 2, 10, false, false, "*.........", "........**");
+
+		assertThat(hints, equalTo("*100000122" + "11000001**"));
+	}
+
+	@Test
+	public void emptyBand() throws Exception {
+		assertThat(band(worker.getPort(), 0, 5, false, false), equalTo(""));
+	}
+
+	@Test
+	public void loopbackWorker() throws Exception {
+		ShardWorker loopback = new ShardWorker().withPort(0).withLoopback().start();
+		try {
+			assertThat(band(loopback.getPort(), 1, 3, false, false, "*.."), equalTo("*10"));
+		} finally {
+			loopback.stop();
+		}
+	}
+
+	@Before
+	public void setUp() {
+		worker = new ShardWorker().withPort(0).start();
+	}
+
+	@After
+	public void tearDown() {
+		worker.stop();
+	}
+}
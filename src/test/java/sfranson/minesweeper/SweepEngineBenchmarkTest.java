@@ -0,0 +1,69 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class SweepEngineBenchmarkTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private static SweepEngineBenchmark benchmark() {
+		byte[] definitions = (RandomBoards.definitions(1, 20) + "0 0\n").getBytes(StandardCharsets.US_ASCII);
+		return new SweepEngineBenchmark(new SweepEngine().withCache(new BoardCache(0)), definitions);
+	}
+
+	@Test
+	public void efficiencyIsSpeedupPerThread() {
+		SweepEngineBenchmark.Result baseline = new SweepEngineBenchmark.Result(1, 100, 1000000000L);
+		SweepEngineBenchmark.Result doubled = new SweepEngineBenchmark.Result(4, 300, 1000000000L);
+
+		assertThat(doubled.speedup(baseline), equalTo(3.0));
+		assertThat(doubled.efficiency(baseline), equalTo(0.75));
+	}
+
+	@Test
+	public void runCountsWholeSweeps() {
+		SweepEngineBenchmark.Result result = benchmark().run(3, TimeUnit.MILLISECONDS.toNanos(50));
+
+		assertThat(result.getThreads(), equalTo(3));
+		assertThat(result.getBoards() >= 3 * 20, equalTo(true));
+		assertThat(result.getBoards() % 20, equalTo(0L));
+		assertThat(result.getThroughput() > 0, equalTo(true));
+	}
+
+	@Test
+	public void runOnVirtualThreads() {
+		SweepEngineBenchmark.Result result = benchmark().withVirtualThreads(true).run(4, 0);
+
+		assertThat(result.getBoards(), equalTo(4L * 20));
+	}
+
+	@Test
+	public void runRejectsZeroThreads() {
+		thrown.expect(MineSweeperException.class);
+
+		benchmark().run(0, 1);
+	}
+
+	@Test
+	public void runReusesEngine() {
+		SweepEngine engine = new SweepEngine().withCache(new BoardCache(0));
+		byte[] definitions = (RandomBoards.definitions(1, 20) + "0 0\n").getBytes(StandardCharsets.US_ASCII);
+		SweepEngineBenchmark benchmark = new SweepEngineBenchmark(engine, definitions);
+
+		long first = benchmark.run(2, 0).getBoards();
+		long second = benchmark.run(2, 0).getBoards();
+
+		assertThat(first, equalTo(2L * 20));
+		assertThat(second, equalTo(2L * 20));
+		assertThat(engine.getMetrics().getBoards(), equalTo(first + second));
+	}
+}
@@ -0,0 +1,121 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class SweepEngineTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private static String sequential(String input, boolean columns) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		String[] params = columns ? new String[] { "in.txt", "columns" } : new String[] { "in.txt" };
+		new MineSweeper(params, out).withInput(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)))
+				.sweep();
+		return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+	}
+
+	@Test
+	public void concurrentCallsMatchSequential() throws Exception {
+		SweepEngine engine = new SweepEngine().withPoolSize(2).withCache(new BoardCache(0));
+		List<String> inputs = new ArrayList<>();
+		for (int i = 0; i < 16; i++) {
+			inputs.add(RandomBoards.definitions(i, 50) + "0 0\n");
+		}
+
+		try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+			List<Future<String>> outputs = new ArrayList<>();
+			for (int round = 0; round < 4; round++) {
+				for (String input : inputs) {
+					outputs.add(executor.submit(() -> engine.sweep(input)));
+				}
+			}
+			for (int i = 0; i < outputs.size(); i++) {
+				assertThat(outputs.get(i).get(), equalTo(sequential(inputs.get(i % inputs.size()), false)));
+			}
+		}
+		assertThat(engine.getMetrics().getBoards(), equalTo(16L * 50 * 4));
+	}
+
+	@Test
+	public void failedCallLeavesEngineUsable() {
+		SweepEngine engine = new SweepEngine().withPoolSize(1);
+		try {
+			engine.sweep("1 2\n.x\n0 0\n");
+		} catch (MineSweeperException e) {
+			assertThat(e.getMessage(), containsString("Invalid input"));
+		}
+
+		assertThat(engine.sweep("1 2\n*.\n0 0\n"), equalTo("Mine Field #1:\n*1\n\n"));
+	}
+
+	@Test
+	public void hintTableMatchesSequential() {
+		String input = RandomBoards.definitions(20, 40) + "0 0\n";
+
+		assertThat(new SweepEngine().withHintTable().sweep(input), equalTo(sequential(input, false)));
+		assertThat(new SweepEngine().withTileCache(new TileCache(64)).sweep(input),
+				equalTo(sequential(input, false)));
+	}
+
+	@Test
+	public void engineSelectorMatchesSequential() {
+		String input = RandomBoards.definitions(21, 40) + "0 0\n";
+		SweepEngine engine = new SweepEngine().withCache(new BoardCache(0)).withEngineSelector(new EngineSelector());
+
+		assertThat(engine.sweep(input), equalTo(sequential(input, false)));
+		assertThat(engine.getEngineSelector().getCellBoards() + engine.getEngineSelector().getTableBoards(),
+				equalTo(40L));
+	}
+
+	@Test
+	public void virtualThreadCallsMatchSequential() throws Exception {
+		SweepEngine engine = new SweepEngine();
+		String input = RandomBoards.definitions(30, 20) + "0 0\n";
+		String expected = sequential(input, false);
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<String>> outputs = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				outputs.add(executor.submit(() -> engine.sweep(input)));
+			}
+			for (Future<String> output : outputs) {
+				assertThat(output.get(), equalTo(expected));
+			}
+		}
+	}
+
+	@Test
+	public void withColumnsReturnsNewEngine() {
+		String input = "2 2\n.*\n..\n0 0\n";
+		SweepEngine rows = new SweepEngine();
+		SweepEngine columns = rows.withColumns();
+
+		assertThat(columns.sweep(input), equalTo(sequential(input, true)));
+		assertThat(rows.sweep(input), equalTo(sequential(input, false)));
+		assertThat(columns.getMetrics() == rows.getMetrics(), equalTo(true));
+	}
+
+	@Test
+	public void withPoolSizeRejectsZero() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("Pool size"));
+
+		new SweepEngine().withPoolSize(0);
+	}
+}
@@ -0,0 +1,52 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SweepMetricsTest {
+
+	private SweepMetrics instance;
+
+	@Test
+	public void boardAccumulates() {
+		instance.board(12, 2, 10, 20, 30, 22, false);
+		instance.board(12, 2, 10, 0, 30, 22, true);
+
+		assertThat(instance.getBoards(), equalTo(2L));
+		assertThat(instance.getSquares(), equalTo(24L));
+		assertThat(instance.getBytesOut(), equalTo(44L));
+	}
+
+	@Test
+	public void dump() {
+		instance.board(12, 2, 10, 20, 30, 22, true);
+		instance.read(20);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		instance.dump(new PrintStream(out));
+
+		assertThat(out.toString(), containsString("boards: 1 (1 cached), squares: 12, mines: 2"));
+		assertThat(out.toString(), containsString("bytes in: 20, bytes out: 22"));
+		assertThat(out.toString(), containsString("squares/s"));
+	}
+
+	@Test
+	public void read() {
+		instance.read(5);
+		instance.read(6);
+
+		assertThat(instance.getBytesIn(), equalTo(11L));
+	}
+
+	@Before
+	public void setup() {
+		instance = new SweepMetrics();
+	}
+}
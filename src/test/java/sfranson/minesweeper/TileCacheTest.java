@@ -0,0 +1,71 @@
+package sfranson.minesweeper;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class TileCacheTest {
+
+	@Test
+	public void evictsLeastRecentlyUsed() {
+		TileCache cache = new TileCache(2);
+		byte[] first = new byte[64];
+		cache.put(0, 1, first);
+		cache.put(0, 2, new byte[64]);
+		cache.get(0, 1);
+
+		cache.put(0, 3, new byte[64]);
+
+		assertThat(cache.getSize(), equalTo(2));
+		assertThat(cache.getEvictions(), equalTo(1L));
+		assertThat(cache.get(0, 1), equalTo(first));
+		assertThat(cache.get(0, 2), nullValue());
+	}
+
+	@Test
+	public void getCountsHitsAndMisses() {
+		TileCache cache = new TileCache(4);
+		byte[] hints = new byte[64];
+
+		assertThat(cache.get(1, 2), nullValue());
+		cache.put(1, 2, hints);
+
+		assertThat(cache.get(1, 2), equalTo(hints));
+		assertThat(cache.get(2, 1), nullValue());
+		assertThat(cache.getHits(), equalTo(1L));
+		assertThat(cache.getMisses(), equalTo(2L));
+		assertThat(cache.getHitRate(), equalTo(1.0 / 3));
+	}
+
+	@Test
+	public void hitRateIsZeroBeforeLookups() {
+		assertThat(new TileCache(4).getHitRate(), equalTo(0.0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNegativeCapacity() {
+		new TileCache(-1);
+	}
+
+	@Test
+	public void toStringShowsCounters() {
+		TileCache cache = new TileCache(4);
+		cache.get(0, 0);
+
+		assertThat(cache.toString(), containsString("misses=1"));
+		assertThat(cache.toString(), containsString("hitRate=0.000"));
+	}
+
+	@Test
+	public void zeroCapacityStoresNothing() {
+		TileCache cache = new TileCache(0);
+
+		cache.put(0, 0, new byte[64]);
+
+		assertThat(cache.getSize(), equalTo(0));
+		assertThat(cache.get(0, 0), nullValue());
+	}
+}
@@ -0,0 +1,51 @@
+package sfranson.minesweeper.solver;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class ConstraintTest {
+
+	@Test
+	public void equalSquaresCompareEqual() {
+		// square (2, 2) as the bottom-right of one window and the centre of another
+		Constraint corner = new Constraint(0, 0, 0b100000000, 1);
+		Constraint centre = new Constraint(1, 1, 0b000010000, 1);
+
+		assertThat(corner, equalTo(centre));
+		assertThat(corner.hashCode(), equalTo(centre.hashCode()));
+		assertThat(corner.firstRow(), equalTo(2));
+		assertThat(corner.firstColumn(), equalTo(2));
+	}
+
+	@Test
+	public void isSubsetOfOverlappingWindow() {
+		Constraint small = new Constraint(1, 2, 0b000000011, 1);
+		Constraint large = new Constraint(0, 1, 0b000111000, 2);
+
+		assertThat(small.isSubsetOf(large), equalTo(true));
+		assertThat(large.isSubsetOf(small), equalTo(false));
+	}
+
+	@Test
+	public void isSubsetOfDistantWindow() {
+		Constraint a = new Constraint(0, 0, 0b1, 0);
+		Constraint b = new Constraint(0, 5, 0b1, 0);
+
+		assertThat(a.isSubsetOf(b), equalTo(false));
+	}
+
+	@Test
+	public void minus() {
+		Constraint small = new Constraint(1, 2, 0b000000011, 1);
+		Constraint large = new Constraint(0, 1, 0b000111000, 2);
+
+		Constraint difference = large.minus(small);
+
+		assertThat(difference, equalTo(new Constraint(1, 1, 0b1, 1)));
+		assertThat(difference.size(), equalTo(1));
+		assertThat(difference, not(equalTo(small)));
+	}
+}
@@ -0,0 +1,35 @@
+package sfranson.minesweeper.solver;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class FrontierTest {
+
+	@Test
+	public void countsSquares() {
+		Frontier instance = new Frontier(HintGrid.parse("*???", "1???", "????"));
+
+		assertThat(instance.getKnownMines(), equalTo(1));
+		assertThat(instance.size(), equalTo(4));
+		assertThat(instance.getInteriorCount(), equalTo(6));
+	}
+
+	@Test
+	public void splitsIndependentComponents() {
+		Frontier instance = new Frontier(HintGrid.parse("??????", "1?????", "?????1"));
+
+		assertThat(instance.getComponentCount(), equalTo(2));
+		assertThat(instance.getComponents().get(0).squares.length, equalTo(5));
+		assertThat(instance.getComponents().get(1).squares.length, equalTo(3));
+	}
+
+	@Test
+	public void sharedSquaresJoinComponents() {
+		Frontier instance = new Frontier(HintGrid.parse("???", "1?1", "???"));
+
+		assertThat(instance.getComponentCount(), equalTo(1));
+		assertThat(instance.getComponents().get(0).constraints.size(), equalTo(2));
+	}
+}
@@ -0,0 +1,56 @@
+package sfranson.minesweeper.solver;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import sfranson.minesweeper.MineSweeperException;
+
+public class HintGridTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void parse() {
+		HintGrid instance = HintGrid.parse("1*?", "012");
+
+		assertThat(instance.getRowCount(), equalTo(2));
+		assertThat(instance.getColumnCount(), equalTo(3));
+		assertThat(instance.get(0, 0), equalTo((byte) 1));
+		assertThat(instance.get(0, 1), equalTo(HintGrid.MINE));
+		assertThat(instance.get(0, 2), equalTo(HintGrid.UNKNOWN));
+		assertThat(instance.isRevealed(1, 0), equalTo(true));
+		assertThat(instance.isRevealed(0, 2), equalTo(false));
+	}
+
+	@Test
+	public void throwsOnInvalidCharacter() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("Invalid input"));
+
+		HintGrid.parse("19");
+	}
+
+	@Test
+	public void throwsOnRaggedRows() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("columns"));
+
+		HintGrid.parse("12", "1");
+	}
+
+	@Test
+	public void toStringMatchesPatterns() {
+		assertThat(HintGrid.parse("1*?", "012").toString(), equalTo("1*?\n012\n"));
+	}
+
+	@Test
+	public void unknownByDefault() {
+		assertThat(new HintGrid(2, 2).get(1, 1), equalTo(HintGrid.UNKNOWN));
+	}
+}
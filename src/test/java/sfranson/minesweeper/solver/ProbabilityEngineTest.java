@@ -0,0 +1,157 @@
+package sfranson.minesweeper.solver;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import sfranson.minesweeper.MineSweeperException;
+
+public class ProbabilityEngineTest {
+
+	private ProbabilityEngine instance;
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	/**
+	 * Mine probability of every square, by enumerating every layout of the
+	 * unknown squares.
+	 */
+	private static double[] bruteForce(HintGrid grid, int totalMines) {
+		int rows = grid.getRowCount();
+		int cols = grid.getColumnCount();
+		List<Integer> unknown = new ArrayList<>();
+		int known = 0;
+		for (int square = 0; square < rows * cols; square++) {
+			byte value = grid.get(square / cols, square % cols);
+			if (value == HintGrid.UNKNOWN) {
+				unknown.add(square);
+			} else if (value == HintGrid.MINE) {
+				known++;
+			}
+		}
+		double[] mines = new double[rows * cols];
+		double layouts = 0;
+		for (long layout = 0; layout < 1L << unknown.size(); layout++) {
+			if (Long.bitCount(layout) + known != totalMines) {
+				continue;
+			}
+			boolean[] mine = new boolean[rows * cols];
+			for (int square = 0; square < rows * cols; square++) {
+				mine[square] = grid.get(square / cols, square % cols) == HintGrid.MINE;
+			}
+			for (int i = 0; i < unknown.size(); i++) {
+				mine[unknown.get(i)] = (layout & (1L << i)) != 0;
+			}
+			if (satisfies(grid, mine)) {
+				layouts++;
+				for (int square = 0; square < mine.length; square++) {
+					mines[square] += mine[square] ? 1 : 0;
+				}
+			}
+		}
+		for (int square = 0; square < mines.length; square++) {
+			mines[square] /= layouts;
+		}
+		return mines;
+	}
+
+	@Test
+	public void calculateMatchesBruteForce() {
+		Random random = new Random(5);
+		for (int i = 0; i < 40; i++) {
+			Puzzle puzzle = new PuzzleGenerator(i).generate(5, 6, 5);
+			HintGrid grid = puzzle.getGrid();
+			// hide some revealed hints so components get larger
+			for (int row = 0; row < 5; row++) {
+				for (int col = 0; col < 6; col++) {
+					if (grid.isRevealed(row, col) && random.nextInt(3) == 0) {
+						grid.set(row, col, HintGrid.UNKNOWN);
+					}
+				}
+			}
+			double[] expected = bruteForce(grid, 5);
+			Probabilities probabilities = instance.calculate(grid, 5);
+
+			assertThat(probabilities.isExact(), equalTo(true));
+			for (int square = 0; square < expected.length; square++) {
+				assertEquals(expected[square], probabilities.get(square / 6, square % 6), 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void interiorProbability() {
+		// no hints: every square equally likely
+		Probabilities probabilities = instance.calculate(HintGrid.parse("????", "????"), 2);
+
+		assertEquals(0.25, probabilities.getInteriorProbability(), 1e-12);
+		assertEquals(0.25, probabilities.get(1, 3), 1e-12);
+	}
+
+	@Test
+	public void knownAndDeducedSquares() {
+		Probabilities probabilities = instance.calculate(HintGrid.parse("???", "121", "*??"), 2);
+
+		assertEquals(0, probabilities.get(0, 0), 1e-12);
+		assertEquals(0.5, probabilities.get(0, 2), 1e-12);
+		assertEquals(0, probabilities.get(1, 1), 1e-12);
+		assertEquals(1, probabilities.get(2, 0), 1e-12);
+	}
+
+	private static boolean satisfies(HintGrid grid, boolean[] mine) {
+		int rows = grid.getRowCount();
+		int cols = grid.getColumnCount();
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				if (!grid.isRevealed(row, col)) {
+					continue;
+				}
+				if (mine[row * cols + col]) {
+					return false;
+				}
+				int count = 0;
+				for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+					for (int c = Math.max(0, col - 1); c <= Math.min(cols - 1, col + 1); c++) {
+						count += mine[r * cols + c] ? 1 : 0;
+					}
+				}
+				if (count != grid.get(row, col)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	@Before
+	public void setup() {
+		instance = new ProbabilityEngine();
+	}
+
+	@Test
+	public void throwsOnImpossibleTotal() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("Inconsistent"));
+
+		instance.calculate(HintGrid.parse("???", "121"), 1);
+	}
+
+	@Test
+	public void zeroBudgetEstimates() {
+		Puzzle puzzle = new PuzzleGenerator(3).generate(30, 30, 180);
+		Probabilities probabilities = instance.withBudget(0).calculate(puzzle.getGrid(), 180);
+
+		assertThat(probabilities.isExact(), equalTo(false));
+	}
+}
@@ -0,0 +1,31 @@
+package sfranson.minesweeper.solver;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class PuzzleGeneratorTest {
+
+	@Test
+	public void generateIsReproducible() {
+		String first = new PuzzleGenerator(7).generate(16, 30, 99).getGrid().toString();
+		String second = new PuzzleGenerator(7).generate(16, 30, 99).getGrid().toString();
+
+		assertThat(first, equalTo(second));
+	}
+
+	@Test
+	public void generatePlacesMinesAwayFromStart() {
+		Puzzle puzzle = new PuzzleGenerator(1).generate(9, 9, 10);
+
+		int mines = 0;
+		for (int row = 0; row < 9; row++) {
+			for (int col = 0; col < 9; col++) {
+				mines += puzzle.getMines().isMine(row, col) ? 1 : 0;
+			}
+		}
+		assertThat(mines, equalTo(10));
+		assertThat(puzzle.getGrid().get(4, 4), equalTo((byte) 0));
+	}
+}
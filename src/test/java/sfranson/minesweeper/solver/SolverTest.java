@@ -0,0 +1,85 @@
+package sfranson.minesweeper.solver;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import sfranson.minesweeper.MineSweeperException;
+
+public class SolverTest {
+
+	private Solver instance;
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void deductionsMatchActualMines() {
+		PuzzleGenerator generator = new PuzzleGenerator(42);
+		for (int i = 0; i < 50; i++) {
+			Puzzle puzzle = generator.generate(16, 30, 99);
+			Solution solution = instance.solve(puzzle.getGrid());
+
+			assertThat(SolverBenchmark.errors(puzzle, solution), equalTo(0));
+		}
+	}
+
+	@Before
+	public void setup() {
+		instance = new Solver();
+	}
+
+	@Test
+	public void solveFullMines() {
+		Solution solution = instance.solve(HintGrid.parse("??", "3?"));
+
+		assertThat(solution.toString(), equalTo("**\n3*\n"));
+		assertThat(solution.getMineCount(), equalTo(3));
+	}
+
+	@Test
+	public void solveKnownMines() {
+		Solution solution = instance.solve(HintGrid.parse("*??", "1??", "???"));
+
+		assertThat(solution.toString(), equalTo("*.?\n1.?\n..?\n"));
+		assertThat(solution.getSafeCount(), equalTo(4));
+	}
+
+	@Test
+	public void solveOneTwoOne() {
+		Solution solution = instance.solve(HintGrid.parse("???", "121"));
+
+		assertThat(solution.toString(), equalTo("*.*\n121\n"));
+		assertThat(solution.isMine(0, 0), equalTo(true));
+		assertThat(solution.isSafe(0, 1), equalTo(true));
+		assertThat(solution.getFrontier().getComponentCount(), equalTo(1));
+	}
+
+	@Test
+	public void solveUndecidable() {
+		Solution solution = instance.solve(HintGrid.parse("??", "11"));
+
+		assertThat(solution.toString(), equalTo("??\n11\n"));
+		assertThat(solution.getMineCount() + solution.getSafeCount(), equalTo(0));
+	}
+
+	@Test
+	public void solveZeroMarksSafe() {
+		Solution solution = instance.solve(HintGrid.parse("???", "?0?", "???"));
+
+		assertThat(solution.toString(), equalTo("...\n.0.\n...\n"));
+	}
+
+	@Test
+	public void throwsOnInconsistentHints() {
+		thrown.expect(MineSweeperException.class);
+		thrown.expectMessage(containsString("Inconsistent"));
+
+		instance.solve(HintGrid.parse("??", "02", "??"));
+	}
+}